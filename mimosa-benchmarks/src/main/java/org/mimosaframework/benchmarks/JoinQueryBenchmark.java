@@ -0,0 +1,75 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.support.BenchmarkConfiguration;
+import org.mimosaframework.benchmarks.support.BenchmarkDatabase;
+import org.mimosaframework.benchmarks.support.ReplayJDBCExecutor;
+import org.mimosaframework.benchmarks.tables.BenchOrder;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.platform.DefaultJDBCExecutor;
+import org.mimosaframework.orm.platform.JDBCExecutor;
+import org.mimosaframework.orm.platform.SessionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关联查询从生成SQL、合并结果到返回对象的整体耗时，查询结果从SQLite读取一次后重复使用，
+ * 单独的合并耗时见 {@link ObjectMergeBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JoinQueryBenchmark {
+    private static final int USERS = 20;
+
+    @Param({"1", "10", "50"})
+    public int ordersPerUser;
+
+    private BenchmarkDatabase database;
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        database = new BenchmarkDatabase("merge");
+        database.seed(USERS, ordersPerUser);
+        final Map<String, List<ModelObject>> results = new ConcurrentHashMap<>();
+        BenchmarkConfiguration configuration = new BenchmarkConfiguration(
+                database.getSessionFactory().getConfiguration().getDefaultDataSource(),
+                BenchUser.class, BenchOrder.class) {
+            @Override
+            protected JDBCExecutor newJDBCExecutor(SessionContext context, boolean master) {
+                return new ReplayJDBCExecutor(new DefaultJDBCExecutor(context, master), results);
+            }
+        };
+        session = new DefaultSession(configuration);
+        // 记录查询结果
+        session.list(query());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        session.close();
+        database.close();
+    }
+
+    private static Query query() {
+        return Criteria.query(BenchUser.class)
+                .subjoin(Criteria.left(BenchOrder.class).on(BenchOrder.userId, BenchUser.id).aliasName("orders"));
+    }
+
+    @Benchmark
+    public List<ModelObject> leftJoin() {
+        return session.list(query());
+    }
+}
@@ -0,0 +1,47 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.support.BenchmarkDatabase;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.ModelArray;
+import org.mimosaframework.core.json.ModelObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelObject 的JSON序列化和解析耗时，对象包含一个订单数组
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private static final int ORDERS = 10;
+
+    private ModelObject object;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        object = BenchmarkDatabase.newUser(1);
+        object.put(BenchUser.id, 1L);
+        ModelArray orders = new ModelArray();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(BenchmarkDatabase.newOrder(1, i));
+        }
+        object.put("orders", orders);
+        json = object.toJSONString();
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return object.toJSONString();
+    }
+
+    @Benchmark
+    public ModelObject parseObject() {
+        return ModelObject.parseObject(json);
+    }
+}
@@ -0,0 +1,56 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.support.BenchmarkDatabase;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.benchmarks.tables.BenchUserBean;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.utils.ModelObjectToBean;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelObject 转换成Java对象的耗时
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelObjectToBeanBenchmark {
+    private static final int ROWS = 100;
+
+    private ModelObjectToBean factory;
+    private ModelObject object;
+    private List<ModelObject> objects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = new ModelObjectToBean();
+        objects = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            ModelObject user = BenchmarkDatabase.newUser(i);
+            user.put(BenchUser.id, (long) i);
+            objects.add(user);
+        }
+        object = objects.get(0);
+    }
+
+    @Benchmark
+    public BenchUserBean toBean() {
+        return factory.toJavaObject(object, BenchUserBean.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<BenchUserBean> toBeans() {
+        List<BenchUserBean> beans = new ArrayList<>(objects.size());
+        for (ModelObject o : objects) {
+            beans.add(factory.toJavaObject(o, BenchUserBean.class));
+        }
+        return beans;
+    }
+}
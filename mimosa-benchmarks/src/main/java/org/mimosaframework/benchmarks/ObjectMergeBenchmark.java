@@ -0,0 +1,130 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.merge.LegacyObjectMerge;
+import org.mimosaframework.benchmarks.tables.BenchOrder;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.Model;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.merge.DefaultObjectMerge;
+import org.mimosaframework.orm.merge.MergeTree;
+import org.mimosaframework.orm.merge.ObjectMerge;
+import org.mimosaframework.orm.platform.SelectFieldAliasReference;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户 left join 订单的查询结果合并耗时，直接合并准备好的结果行，不经过SQL生成和JDBC，
+ * legacyMerge 是按主键建立索引之前的实现
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectMergeBenchmark {
+    private static final int ORDERS_PER_USER = 10;
+
+    /**
+     * 结果行数，每个用户对应 {@link #ORDERS_PER_USER} 行
+     */
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<SelectFieldAliasReference> userFields;
+    private List<SelectFieldAliasReference> orderFields;
+    private List<SelectFieldAliasReference> fields;
+    private List<ModelObject> objects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        userFields = new ArrayList<>();
+        orderFields = new ArrayList<>();
+        int i = 1;
+        for (BenchUser field : BenchUser.values()) {
+            userFields.add(reference(BenchUser.class, field.name(), "F" + i++, field == BenchUser.id));
+        }
+        for (BenchOrder field : BenchOrder.values()) {
+            orderFields.add(reference(BenchOrder.class, field.name(), "F" + i++, field == BenchOrder.id));
+        }
+        fields = new ArrayList<>(userFields);
+        fields.addAll(orderFields);
+
+        // 和数据库返回的一样按照用户排列，每个用户的订单连续出现
+        Date now = new Date();
+        objects = new ArrayList<>(rows);
+        long orderId = 1;
+        for (long userId = 1; objects.size() < rows; userId++) {
+            for (int j = 0; j < ORDERS_PER_USER && objects.size() < rows; j++) {
+                ModelObject row = new ModelObject();
+                row.put("F1", userId);
+                row.put("F2", "user_" + userId);
+                row.put("F3", (int) (userId % 60));
+                row.put("F4", "address " + userId);
+                row.put("F5", userId * 1.5d);
+                row.put("F6", now);
+                row.put("F7", orderId);
+                row.put("F8", userId);
+                row.put("F9", "order_" + orderId);
+                row.put("F10", orderId * 0.5d);
+                row.put("F11", now);
+                objects.add(row);
+                orderId++;
+            }
+        }
+
+        // 两种实现的结果必须一致，否则对比没有意义
+        String legacy = Model.toJSONString(this.legacyMerge());
+        if (!legacy.equals(Model.toJSONString(this.merge()))) {
+            throw new IllegalStateException("merge result differs from legacy merge");
+        }
+    }
+
+    private static SelectFieldAliasReference reference(Class table, String field, String alias, boolean pk) {
+        SelectFieldAliasReference reference = new SelectFieldAliasReference();
+        reference.setFieldName(field);
+        reference.setFieldAliasName(alias);
+        reference.setJavaFieldName(field);
+        reference.setTableClass(table);
+        reference.setMainClass(BenchUser.class);
+        reference.setPrimaryKey(pk);
+        return reference;
+    }
+
+    /**
+     * 和 PlatformExecutor 生成的结构一致，每次合并都使用新的结构，
+     * 结构只有两个节点，耗时主要在合并结果行
+     */
+    private List<ModelObject> merge(ObjectMerge merge) {
+        MergeTree top = new MergeTree();
+        top.setMainTable(BenchUser.class);
+        top.setSelfTable(BenchUser.class);
+        top.setMapperSelectFields(userFields);
+
+        MergeTree orders = new MergeTree();
+        orders.setMainTable(BenchUser.class);
+        orders.setSelfTable(BenchOrder.class);
+        orders.setExternalConnectionName("orders");
+        orders.setMapperSelectFields(orderFields);
+        orders.setParent(top);
+        top.addChildren(orders);
+
+        merge.setMergeTree(top);
+        merge.setMapperSelectFields(fields);
+        return merge.getMergeAfterObjects(objects, BenchUser.class);
+    }
+
+    @Benchmark
+    public List<ModelObject> legacyMerge() {
+        return merge(new LegacyObjectMerge());
+    }
+
+    @Benchmark
+    public List<ModelObject> merge() {
+        return merge(new DefaultObjectMerge());
+    }
+}
@@ -0,0 +1,75 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.core.ognl.Ognl;
+import org.mimosaframework.orm.scripting.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML mapper 中 if、where、foreach 的OGNL表达式计算和SQL生成耗时
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OgnlBenchmark {
+    private static final String MAPPER = "/mapper/benchmark_user_mapper.xml";
+
+    private static final String COMPARE = "userName != null and userName != ''";
+
+    private ModelObject params;
+    private Object compareTree;
+    private DynamicSqlSource sqlSource;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        params = new ModelObject();
+        params.put("userName", "user_1");
+        params.put("age", 20);
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            ids.add(i);
+        }
+        params.put("ids", ids);
+        compareTree = Ognl.parseExpression(COMPARE);
+
+        DefinerConfigure configure = new DefinerConfigure();
+        InputStream inputStream = OgnlBenchmark.class.getResourceAsStream(MAPPER);
+        try {
+            XMapper mapper = new XMLSQLDefiner(configure).getDefiner(inputStream, "benchmark_user_mapper.xml");
+            sqlSource = new DynamicSqlSource(configure, mapper.getAction("search"));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Benchmark
+    public Object compare() {
+        return OgnlCache.getValue(COMPARE, params);
+    }
+
+    /**
+     * 不编译直接解释执行，和 compare 对比
+     */
+    @Benchmark
+    public Object compareInterpreted() throws Exception {
+        return Ognl.getValue(compareTree, params);
+    }
+
+    @Benchmark
+    public Object method() {
+        return OgnlCache.getValue("ids != null and ids.size() > 0", params);
+    }
+
+    @Benchmark
+    public BoundSql mapper() {
+        return sqlSource.getBoundSql(params);
+    }
+}
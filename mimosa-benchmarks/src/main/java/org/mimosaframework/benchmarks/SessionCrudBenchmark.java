@@ -0,0 +1,92 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.support.BenchmarkDatabase;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Paging;
+import org.mimosaframework.orm.SessionTemplate;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用嵌入的SQLite测试 DefaultSession 的增删改查，包含SQL生成、JDBC和结果转换的完整耗时
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionCrudBenchmark {
+    private static final int USERS = 1000;
+
+    private BenchmarkDatabase database;
+    private SessionTemplate template;
+    private List<Long> ids;
+
+    @State(Scope.Thread)
+    public static class Sequence {
+        int next;
+
+        int next() {
+            return next++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        database = new BenchmarkDatabase("crud");
+        ids = database.seed(USERS, 0);
+        template = database.getTemplate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    private long id(Sequence sequence) {
+        return ids.get(sequence.next() % ids.size());
+    }
+
+    @Benchmark
+    public ModelObject save(Sequence sequence) {
+        return template.save(BenchmarkDatabase.newUser(sequence.next()));
+    }
+
+    @Benchmark
+    public ModelObject get(Sequence sequence) {
+        return template.get(BenchUser.class, id(sequence));
+    }
+
+    @Benchmark
+    public List<ModelObject> list(Sequence sequence) {
+        return template.list(Criteria.query(BenchUser.class)
+                .gte(BenchUser.age, 18 + sequence.next() % 50)
+                .orderBy(BenchUser.id, false)
+                .limit(0, 20));
+    }
+
+    @Benchmark
+    public long count(Sequence sequence) {
+        return template.count(Criteria.query(BenchUser.class)
+                .gte(BenchUser.age, 18 + sequence.next() % 50));
+    }
+
+    @Benchmark
+    public Paging<ModelObject> paging(Sequence sequence) {
+        return template.paging(Criteria.query(BenchUser.class)
+                .gte(BenchUser.age, 18 + sequence.next() % 50)
+                .limit(0, 20));
+    }
+
+    @Benchmark
+    public int update(Sequence sequence) {
+        return template.update(Criteria.update(BenchUser.class)
+                .eq(BenchUser.id, id(sequence))
+                .set(BenchUser.score, 99.5d));
+    }
+}
@@ -0,0 +1,82 @@
+package org.mimosaframework.benchmarks;
+
+import org.mimosaframework.benchmarks.support.BenchmarkConfiguration;
+import org.mimosaframework.benchmarks.support.BenchmarkDatabase;
+import org.mimosaframework.benchmarks.support.DialectDataSource;
+import org.mimosaframework.benchmarks.tables.BenchOrder;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.utils.DatabaseType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每种数据库的 PlatformExecutor SQL生成耗时，执行器只生成SQL不访问数据库
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlGenerationBenchmark {
+
+    @Param({"MYSQL", "SQL_SERVER", "ORACLE", "POSTGRESQL", "DB2", "SQLITE"})
+    public DatabaseType database;
+
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MimosaDataSource dataSource = new MimosaDataSource(new DialectDataSource(database),
+                MimosaDataSource.DEFAULT_DS_NAME);
+        session = new DefaultSession(new BenchmarkConfiguration(dataSource, BenchUser.class, BenchOrder.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        session.close();
+    }
+
+    @Benchmark
+    public ModelObject insert() {
+        return session.save(BenchmarkDatabase.newUser(1));
+    }
+
+    @Benchmark
+    public List<ModelObject> select() {
+        return session.list(Criteria.query(BenchUser.class)
+                .eq(BenchUser.userName, "user_1")
+                .gte(BenchUser.age, 20)
+                .in(BenchUser.id, 1, 2, 3, 4, 5)
+                .orderBy(BenchUser.id, false)
+                .limit(0, 20));
+    }
+
+    @Benchmark
+    public List<ModelObject> join() {
+        return session.list(Criteria.query(BenchUser.class)
+                .subjoin(Criteria.left(BenchOrder.class).on(BenchOrder.userId, BenchUser.id).aliasName("orders"))
+                .gte(BenchUser.age, 20));
+    }
+
+    @Benchmark
+    public int update() {
+        return session.update(Criteria.update(BenchUser.class)
+                .eq(BenchUser.id, 1)
+                .set(BenchUser.score, 99.5d)
+                .set(BenchUser.address, "changed"));
+    }
+
+    @Benchmark
+    public int delete() {
+        return session.delete(Criteria.delete(BenchUser.class)
+                .eq(BenchUser.id, 1));
+    }
+}
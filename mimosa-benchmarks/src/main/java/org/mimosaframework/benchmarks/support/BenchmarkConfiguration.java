@@ -0,0 +1,53 @@
+package org.mimosaframework.benchmarks.support;
+
+import org.mimosaframework.orm.DefaultConfiguration;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.convert.ConvertFactory;
+import org.mimosaframework.orm.platform.JDBCExecutor;
+import org.mimosaframework.orm.platform.SessionContext;
+import org.mimosaframework.orm.transaction.JDBCTransaction;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 不经过XML配置直接创建的配置，每个Session使用 {@link #newJDBCExecutor(SessionContext, boolean)}
+ * 返回的执行器，用来把SQL生成、结果合并和JDBC的耗时分开测量
+ */
+public class BenchmarkConfiguration extends DefaultConfiguration {
+
+    public BenchmarkConfiguration(MimosaDataSource dataSource, Class... tables) {
+        // 和 benchmark-sqlite-mimosa.xml 使用相同的命名转换
+        this.setConvert(ConvertFactory.getConvert("H2U"));
+        Set<Class> resolvers = new LinkedHashSet<Class>(Arrays.asList(tables));
+        this.setDisassembleResolvers(resolvers);
+        this.defaultDataSource = dataSource;
+        this.globalDataSource.put(dataSource.getName(), dataSource);
+    }
+
+    @Override
+    public SessionContext newSessionContext(String dataSourceName, boolean supportTrans) {
+        SessionContext context = new SessionContext(this) {
+            @Override
+            public JDBCExecutor getDBChanger() {
+                return newJDBCExecutor(this, this.isMaster());
+            }
+
+            @Override
+            public JDBCExecutor getDBChanger(boolean master) {
+                return newJDBCExecutor(this, master);
+            }
+        };
+        context.setDataSource(defaultDataSource);
+        context.setTransaction(new JDBCTransaction(defaultDataSource.getMaster(), false));
+        return context;
+    }
+
+    /**
+     * 默认不访问数据库
+     */
+    protected JDBCExecutor newJDBCExecutor(SessionContext context, boolean master) {
+        return new NoopJDBCExecutor();
+    }
+}
@@ -0,0 +1,117 @@
+package org.mimosaframework.benchmarks.support;
+
+import org.mimosaframework.benchmarks.tables.BenchOrder;
+import org.mimosaframework.benchmarks.tables.BenchUser;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.MimosaSessionTemplate;
+import org.mimosaframework.orm.SessionFactory;
+import org.mimosaframework.orm.SessionTemplate;
+import org.mimosaframework.orm.TransactionExecutor;
+import org.mimosaframework.orm.XmlAppContext;
+import org.mimosaframework.orm.exception.ContextException;
+import org.mimosaframework.orm.transaction.TransactionManager;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 每个基准测试使用一个独立的SQLite数据库文件，结束时删除
+ */
+public class BenchmarkDatabase implements Closeable {
+    private static final String CONFIG = "/benchmark-sqlite-mimosa.xml";
+
+    private final File file;
+    private final SessionFactory sessionFactory;
+    private final SessionTemplate template;
+
+    public BenchmarkDatabase(String name) throws IOException, ContextException {
+        File dir = new File("target");
+        if (!dir.exists()) dir.mkdirs();
+        this.file = File.createTempFile("mimosa-" + name + "-", ".db", dir);
+        String xml = readConfig().replace("${url}", "jdbc:sqlite:" + file.getAbsolutePath());
+        XmlAppContext context = new XmlAppContext(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        this.sessionFactory = context.getSessionFactoryBuilder().build();
+        this.template = new MimosaSessionTemplate(sessionFactory);
+    }
+
+    private static String readConfig() throws IOException {
+        InputStream inputStream = BenchmarkDatabase.class.getResourceAsStream(CONFIG);
+        if (inputStream == null) {
+            throw new FileNotFoundException(CONFIG);
+        }
+        try {
+            Reader reader = new InputStreamReader(inputStream, "UTF-8");
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[2048];
+            int len;
+            while ((len = reader.read(buf)) != -1) {
+                sb.append(buf, 0, len);
+            }
+            return sb.toString();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public SessionTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * 在一个事务中写入测试数据
+     *
+     * @param users         用户数量
+     * @param ordersPerUser 每个用户的订单数量
+     * @return 写入的用户主键
+     */
+    public List<Long> seed(final int users, final int ordersPerUser) {
+        return template.execute(new TransactionExecutor<List<Long>>() {
+            @Override
+            public List<Long> execute(TransactionManager manager) {
+                List<Long> ids = new ArrayList<>(users);
+                for (int i = 0; i < users; i++) {
+                    ModelObject user = template.save(newUser(i));
+                    long userId = user.getLongValue(BenchUser.id);
+                    ids.add(userId);
+                    for (int j = 0; j < ordersPerUser; j++) {
+                        template.save(newOrder(userId, j));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    public static ModelObject newUser(int i) {
+        ModelObject user = new ModelObject(BenchUser.class);
+        user.put(BenchUser.userName, "user_" + i);
+        user.put(BenchUser.age, 18 + i % 50);
+        user.put(BenchUser.address, "No." + i + " Benchmark Road, Mimosa City");
+        user.put(BenchUser.score, i * 1.5d);
+        user.put(BenchUser.createdTime, new Date());
+        return user;
+    }
+
+    public static ModelObject newOrder(long userId, int i) {
+        ModelObject order = new ModelObject(BenchOrder.class);
+        order.put(BenchOrder.userId, userId);
+        order.put(BenchOrder.title, "order_" + userId + "_" + i);
+        order.put(BenchOrder.amount, 9.9d + i);
+        order.put(BenchOrder.createdTime, new Date());
+        return order;
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.getConfiguration().clearMimosaDataSources();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
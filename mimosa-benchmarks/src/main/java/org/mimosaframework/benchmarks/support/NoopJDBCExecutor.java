@@ -0,0 +1,90 @@
+package org.mimosaframework.benchmarks.support;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Cursor;
+import org.mimosaframework.orm.platform.*;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 只生成SQL语句和参数不访问数据库，用于测量每种数据库的SQL生成耗时
+ */
+public class NoopJDBCExecutor implements JDBCExecutor {
+    private static final List<Long> IDS = Collections.singletonList(1L);
+
+    /**
+     * 最后一次生成的SQL语句，防止被JIT优化掉
+     */
+    private String lastSql;
+
+    private void render(JDBCTraversing structure) {
+        SQLBuilder sqlBuilder = structure.getSqlBuilder();
+        if (sqlBuilder != null) {
+            lastSql = sqlBuilder.toSQLString().getSql();
+        } else {
+            lastSql = structure.getSql();
+        }
+    }
+
+    public String getLastSql() {
+        return lastSql;
+    }
+
+    @Override
+    public void setDatabaseExecutorCallback(DatabaseExecutorCallback callback) {
+    }
+
+    @Override
+    public boolean execute(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return true;
+    }
+
+    @Override
+    public int delete(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return 1;
+    }
+
+    @Override
+    public List<Long> insert(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return IDS;
+    }
+
+    @Override
+    public void inserts(BatchPorterStructure structure) throws SQLException {
+        render(structure);
+    }
+
+    @Override
+    public List<ModelObject> select(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> Cursor<T> cursor(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("cursor is not supported by " + getClass().getSimpleName());
+    }
+
+    @Override
+    public int update(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return 1;
+    }
+
+    @Override
+    public int batch(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return structure.getBatchPlaceholders().size();
+    }
+
+    @Override
+    public List<Long> batchInsert(JDBCTraversing structure) throws SQLException {
+        render(structure);
+        return Collections.nCopies(structure.getBatchPlaceholders().size(), 1L);
+    }
+}
@@ -0,0 +1,114 @@
+package org.mimosaframework.benchmarks.support;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Cursor;
+import org.mimosaframework.orm.platform.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 第一次查询时从数据库读取并记录结果，之后相同的语句和参数直接返回结果的副本，
+ * 用于只测量结果合并和对象转换的耗时
+ * <p>
+ * 只支持查询
+ */
+public class ReplayJDBCExecutor implements JDBCExecutor {
+    private final JDBCExecutor target;
+    private final Map<String, List<ModelObject>> results;
+
+    /**
+     * @param target  第一次查询时使用的执行器
+     * @param results 记录的结果，多个Session共享
+     */
+    public ReplayJDBCExecutor(JDBCExecutor target, Map<String, List<ModelObject>> results) {
+        this.target = target;
+        this.results = results;
+    }
+
+    private static String key(JDBCTraversing structure) {
+        SQLBuilderCombine combine;
+        SQLBuilder sqlBuilder = structure.getSqlBuilder();
+        if (sqlBuilder != null) {
+            combine = sqlBuilder.toSQLString();
+        } else {
+            combine = new SQLBuilderCombine(structure.getSql(), structure.getSqlDataPlaceholders());
+        }
+        StringBuilder sb = new StringBuilder(combine.getSql());
+        List<SQLDataPlaceholder> placeholders = combine.getPlaceholders();
+        if (placeholders != null) {
+            for (SQLDataPlaceholder placeholder : placeholders) {
+                sb.append('|').append(placeholder.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void setDatabaseExecutorCallback(DatabaseExecutorCallback callback) {
+        target.setDatabaseExecutorCallback(callback);
+    }
+
+    @Override
+    public List<ModelObject> select(JDBCTraversing structure) throws SQLException {
+        String key = key(structure);
+        List<ModelObject> rows = results.get(key);
+        if (rows == null) {
+            rows = target.select(structure);
+            if (rows == null) {
+                return null;
+            }
+            results.put(key, rows);
+        }
+        // 合并时会修改结果，每次返回副本
+        List<ModelObject> copy = new ArrayList<>(rows.size());
+        for (ModelObject row : rows) {
+            ModelObject object = new ModelObject(row.size() * 4 / 3 + 1, true);
+            object.putAll(row);
+            copy.add(object);
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean execute(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public int delete(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public List<Long> insert(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public void inserts(BatchPorterStructure structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public <T> Cursor<T> cursor(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public int update(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public int batch(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+
+    @Override
+    public List<Long> batchInsert(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("replay executor only supports select");
+    }
+}
@@ -0,0 +1,21 @@
+package org.mimosaframework.benchmarks.tables;
+
+import org.mimosaframework.orm.annotation.Column;
+import org.mimosaframework.orm.annotation.Table;
+import org.mimosaframework.orm.strategy.AutoIncrementStrategy;
+
+import java.util.Date;
+
+@Table
+public enum BenchOrder {
+    @Column(pk = true, type = long.class, strategy = AutoIncrementStrategy.class)
+    id,
+    @Column(type = long.class)
+    userId,
+    @Column(length = 64)
+    title,
+    @Column(type = double.class)
+    amount,
+    @Column(type = Date.class)
+    createdTime
+}
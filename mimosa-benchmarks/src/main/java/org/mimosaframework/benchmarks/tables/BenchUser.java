@@ -0,0 +1,23 @@
+package org.mimosaframework.benchmarks.tables;
+
+import org.mimosaframework.orm.annotation.Column;
+import org.mimosaframework.orm.annotation.Table;
+import org.mimosaframework.orm.strategy.AutoIncrementStrategy;
+
+import java.util.Date;
+
+@Table
+public enum BenchUser {
+    @Column(pk = true, type = long.class, strategy = AutoIncrementStrategy.class)
+    id,
+    @Column(length = 64)
+    userName,
+    @Column(type = int.class)
+    age,
+    @Column(length = 128)
+    address,
+    @Column(type = double.class)
+    score,
+    @Column(type = Date.class)
+    createdTime
+}
@@ -0,0 +1,44 @@
+package org.mimosaframework.core.ognl;
+
+/**
+ * 编译成字节码的表达式，运行时遇到编译代码不支持的对象时使用原来的方式解释执行，
+ * 两种方式的结果相同
+ *
+ * @see OgnlCompiler
+ */
+public abstract class CompiledExpression {
+    private final Object tree;
+
+    protected CompiledExpression(Object tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * @return 解析后的表达式
+     */
+    public Object getTree() {
+        return tree;
+    }
+
+    /**
+     * @return 是否生成了字节码，false时始终解释执行
+     */
+    public boolean isCompiled() {
+        return true;
+    }
+
+    public Object getValue(Object root) throws OgnlException {
+        try {
+            return this.evaluate(root);
+        } catch (CompiledExpressionRuntime.Fallback e) {
+            return Ognl.getValue(tree, root);
+        }
+    }
+
+    protected abstract Object evaluate(Object root) throws OgnlException;
+
+    @Override
+    public String toString() {
+        return String.valueOf(tree);
+    }
+}
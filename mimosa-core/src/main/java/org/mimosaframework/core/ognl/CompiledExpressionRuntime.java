@@ -0,0 +1,166 @@
+package org.mimosaframework.core.ognl;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 编译后的表达式调用的方法，只处理和解释执行结果一定相同的情况，
+ * 其他情况抛出 {@link Fallback} 交给 {@link CompiledExpression} 解释执行
+ * <p>
+ * 每个类使用的 PropertyAccessor、MethodAccessor 和 NullHandler 第一次使用时确定，
+ * 之后注册的不会生效，需要在表达式执行之前注册
+ */
+public final class CompiledExpressionRuntime {
+    private static final Object NONE = new Object();
+    private static final ConcurrentMap<Class, Object> ACCESSORS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class, Boolean> NULL_HANDLERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class, Boolean> METHOD_ACCESSORS = new ConcurrentHashMap<>();
+
+    private CompiledExpressionRuntime() {
+    }
+
+    /**
+     * 对象读取属性
+     */
+    public static Object getProperty(Object target, String name) throws OgnlException {
+        if (target == null || target instanceof Class) {
+            throw Fallback.INSTANCE;
+        }
+        Class c = target.getClass();
+        Object accessor = ACCESSORS.get(c);
+        if (accessor == null) {
+            accessor = NONE;
+            try {
+                PropertyAccessor propertyAccessor = OgnlRuntime.getPropertyAccessor(c);
+                if (isSimpleAccessor(propertyAccessor)) {
+                    accessor = propertyAccessor;
+                }
+            } catch (OgnlException e) {
+                // 解释执行时抛出同样的异常
+            }
+            ACCESSORS.putIfAbsent(c, accessor);
+        }
+        if (accessor == NONE) {
+            throw Fallback.INSTANCE;
+        }
+        Object result = ((SimplePropertyAccessor) accessor).getProperty(target, name);
+        if (result == null && !isDefaultNullHandler(c)) {
+            throw Fallback.INSTANCE;
+        }
+        return result;
+    }
+
+    /**
+     * 子类只重写了其中一个读取方法时两个方法的结果可能不同，只能解释执行
+     */
+    private static boolean isSimpleAccessor(PropertyAccessor accessor) {
+        if (!(accessor instanceof SimplePropertyAccessor)) {
+            return false;
+        }
+        try {
+            Class c = accessor.getClass();
+            Method method = c.getMethod("getProperty", Map.class, Object.class, Object.class);
+            Method simple = c.getMethod("getProperty", Object.class, String.class);
+            return method.getDeclaringClass() == simple.getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isDefaultNullHandler(Class c) {
+        Boolean isDefault = NULL_HANDLERS.get(c);
+        if (isDefault == null) {
+            try {
+                isDefault = OgnlRuntime.getNullHandler(c).getClass() == ObjectNullHandler.class;
+            } catch (OgnlException e) {
+                isDefault = false;
+            }
+            NULL_HANDLERS.putIfAbsent(c, isDefault);
+        }
+        return isDefault;
+    }
+
+    /**
+     * 方法调用只处理使用默认 MethodAccessor 的对象
+     */
+    private static boolean isDefaultMethodAccessor(Object target) {
+        if (target == null) {
+            return false;
+        }
+        Class c = target.getClass();
+        Boolean isDefault = METHOD_ACCESSORS.get(c);
+        if (isDefault == null) {
+            try {
+                isDefault = OgnlRuntime.getMethodAccessor(c).getClass() == ObjectMethodAccessor.class;
+            } catch (OgnlException e) {
+                isDefault = false;
+            }
+            METHOD_ACCESSORS.putIfAbsent(c, isDefault);
+        }
+        return isDefault;
+    }
+
+    public static Object size(Object target) {
+        if (!isDefaultMethodAccessor(target)) {
+            throw Fallback.INSTANCE;
+        }
+        if (target instanceof Collection) {
+            return ((Collection) target).size();
+        }
+        if (target instanceof Map) {
+            return ((Map) target).size();
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    public static Object isEmpty(Object target) {
+        if (!isDefaultMethodAccessor(target)) {
+            throw Fallback.INSTANCE;
+        }
+        if (target instanceof Collection) {
+            return ((Collection) target).isEmpty();
+        }
+        if (target instanceof Map) {
+            return ((Map) target).isEmpty();
+        }
+        if (target instanceof String) {
+            return ((String) target).isEmpty();
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    public static Object length(Object target) {
+        if (target instanceof String && isDefaultMethodAccessor(target)) {
+            return ((String) target).length();
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    public static Object trim(Object target) {
+        if (target instanceof String && isDefaultMethodAccessor(target)) {
+            return ((String) target).trim();
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    public static Object equals(Object target, Object value) {
+        if (target instanceof String && isDefaultMethodAccessor(target)) {
+            return target.equals(value);
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    /**
+     * 编译后的代码不能处理时抛出，不记录调用栈
+     */
+    static final class Fallback extends RuntimeException {
+        static final Fallback INSTANCE = new Fallback();
+
+        private Fallback() {
+            super("fallback to interpreter", null, false, false);
+        }
+    }
+}
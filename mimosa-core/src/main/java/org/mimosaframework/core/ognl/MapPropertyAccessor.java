@@ -39,7 +39,7 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class MapPropertyAccessor implements PropertyAccessor {
+public class MapPropertyAccessor implements PropertyAccessor, SimplePropertyAccessor {
     public Object getProperty(Map context, Object target, Object name) throws OgnlException {
         Object result;
         Map map = (Map) target;
@@ -56,29 +56,31 @@ public class MapPropertyAccessor implements PropertyAccessor {
             indexedAccess = ((ASTProperty) currentNode).isIndexedAccess();
         }
         if ((name instanceof String) && !indexedAccess) {
-            if (name.equals("size")) {
-                result = new Integer(map.size());
-            } else {
-                if (name.equals("keys")) {
-                    result = map.keySet();
-                } else {
-                    if (name.equals("values")) {
-                        result = map.values();
-                    } else {
-                        if (name.equals("isEmpty")) {
-                            result = map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
-                        } else {
-                            result = map.get(name);
-                        }
-                    }
-                }
-            }
+            result = this.getProperty(target, (String) name);
         } else {
             result = map.get(name);
         }
         return result;
     }
 
+    public Object getProperty(Object target, String name) {
+        Map map = (Map) target;
+
+        if (name.equals("size")) {
+            return new Integer(map.size());
+        }
+        if (name.equals("keys")) {
+            return map.keySet();
+        }
+        if (name.equals("values")) {
+            return map.values();
+        }
+        if (name.equals("isEmpty")) {
+            return map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
+        }
+        return map.get(name);
+    }
+
     public void setProperty(Map context, Object target, Object name, Object value) throws OgnlException {
         Map map = (Map) target;
         map.put(name, value);
@@ -0,0 +1,295 @@
+package org.mimosaframework.core.ognl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.core.asm.ClassWriter;
+import org.mimosaframework.core.asm.Label;
+import org.mimosaframework.core.asm.MethodVisitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mimosaframework.core.asm.Opcodes.*;
+
+/**
+ * 把常用的表达式编译成字节码，避免每次执行时创建上下文和遍历语法树
+ * <p>
+ * 支持常量、属性(不含下标访问)、== != &lt; &lt;= &gt; &gt;=、and or not 以及
+ * size() isEmpty() length() trim() equals(x)，其他表达式仍然解释执行
+ */
+public final class OgnlCompiler {
+    private static final Log logger = LogFactory.getLog(OgnlCompiler.class);
+    private static final String SUPER_NAME = "org/mimosaframework/core/ognl/CompiledExpression";
+    private static final String RUNTIME_NAME = "org/mimosaframework/core/ognl/CompiledExpressionRuntime";
+    private static final String OPS_NAME = "org/mimosaframework/core/ognl/OgnlOps";
+    private static final String OBJECT_DESC = "Ljava/lang/Object;";
+
+    /**
+     * 支持的方法和参数个数，对应 CompiledExpressionRuntime 中的同名方法
+     */
+    private static final Map<String, Integer> METHODS = new HashMap<>();
+
+    static {
+        METHODS.put("size", 0);
+        METHODS.put("isEmpty", 0);
+        METHODS.put("length", 0);
+        METHODS.put("trim", 0);
+        METHODS.put("equals", 1);
+    }
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ExpressionClassLoader CLASS_LOADER = new ExpressionClassLoader(OgnlCompiler.class.getClassLoader());
+
+    private final List<Object> constants = new ArrayList<>();
+    private final String className;
+    private MethodVisitor mv;
+
+    private OgnlCompiler(String className) {
+        this.className = className;
+    }
+
+    /**
+     * @param tree {@link Ognl#parseExpression(String)} 解析后的表达式
+     * @return 不支持编译的表达式返回解释执行的实现
+     */
+    public static CompiledExpression compile(Object tree) {
+        if (tree instanceof Node && isSupported((Node) tree)) {
+            String className = "org/mimosaframework/core/ognl/GeneratedExpression" + COUNTER.incrementAndGet();
+            OgnlCompiler compiler = new OgnlCompiler(className);
+            try {
+                byte[] bytes = compiler.generate((Node) tree);
+                Class<?> c = CLASS_LOADER.define(className.replace('/', '.'), bytes);
+                return (CompiledExpression) c.getConstructor(Object.class, Object[].class)
+                        .newInstance(tree, compiler.constants.toArray());
+            } catch (Exception | LinkageError e) {
+                // 生成的代码有问题时不影响使用
+                logger.warn("编译表达式 " + tree + " 失败，使用解释执行", e);
+            }
+        }
+        return new InterpretedExpression(tree);
+    }
+
+    private static boolean isSupported(Node node) {
+        if (node instanceof ASTConst) {
+            return true;
+        }
+        if (node instanceof ASTProperty || node instanceof ASTMethod) {
+            return isSupportedStep(node);
+        }
+        if (node instanceof ASTChain) {
+            int count = node.jjtGetNumChildren();
+            if (count == 0) return false;
+            Node first = node.jjtGetChild(0);
+            if (!isSupported(first)) return false;
+            for (int i = 1; i < count; i++) {
+                if (!isSupportedStep(node.jjtGetChild(i))) return false;
+            }
+            return true;
+        }
+        if (node instanceof ASTAnd || node instanceof ASTOr) {
+            return node.jjtGetNumChildren() > 0 && isSupportedChildren(node);
+        }
+        if (node instanceof ASTNot) {
+            return node.jjtGetNumChildren() == 1 && isSupportedChildren(node);
+        }
+        if (node instanceof ASTEq || node instanceof ASTNotEq
+                || node instanceof ASTLess || node instanceof ASTLessEq
+                || node instanceof ASTGreater || node instanceof ASTGreaterEq) {
+            return node.jjtGetNumChildren() == 2 && isSupportedChildren(node);
+        }
+        return false;
+    }
+
+    private static boolean isSupportedChildren(Node node) {
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            if (!isSupported(node.jjtGetChild(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 以前一个结果为对象的属性或者方法
+     */
+    private static boolean isSupportedStep(Node node) {
+        if (node instanceof ASTProperty) {
+            ASTProperty property = (ASTProperty) node;
+            return !property.isIndexedAccess()
+                    && property.jjtGetNumChildren() == 1
+                    && property.jjtGetChild(0) instanceof ASTConst
+                    && ((ASTConst) property.jjtGetChild(0)).getValue() instanceof String;
+        }
+        if (node instanceof ASTMethod) {
+            Integer args = METHODS.get(((ASTMethod) node).getMethodName());
+            return args != null && args == node.jjtGetNumChildren() && isSupportedChildren(node);
+        }
+        return false;
+    }
+
+    private byte[] generate(Node tree) {
+        // 使用1.5的版本号不需要计算StackMapTable
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_5, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, className, null, SUPER_NAME, null);
+        cw.visitField(ACC_PRIVATE + ACC_FINAL, "constants", "[" + OBJECT_DESC, null, null).visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(" + OBJECT_DESC + "[" + OBJECT_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", "(" + OBJECT_DESC + ")V", false);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitFieldInsn(PUTFIELD, className, "constants", "[" + OBJECT_DESC);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PROTECTED, "evaluate", "(" + OBJECT_DESC + ")" + OBJECT_DESC,
+                null, new String[]{"org/mimosaframework/core/ognl/OgnlException"});
+        mv.visitCode();
+        this.value(tree);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 以根对象为当前对象计算节点的值，结果放在栈顶
+     */
+    private void value(Node node) {
+        if (node instanceof ASTConst) {
+            this.constant(((ASTConst) node).getValue());
+        } else if (node instanceof ASTProperty || node instanceof ASTMethod) {
+            mv.visitVarInsn(ALOAD, 1);
+            this.step(node);
+        } else if (node instanceof ASTChain) {
+            this.value(node.jjtGetChild(0));
+            for (int i = 1; i < node.jjtGetNumChildren(); i++) {
+                this.step(node.jjtGetChild(i));
+            }
+        } else if (node instanceof ASTAnd) {
+            // 和解释执行一样返回最后一个计算的值
+            this.logic(node, IFEQ);
+        } else if (node instanceof ASTOr) {
+            this.logic(node, IFNE);
+        } else if (node instanceof ASTNot) {
+            this.value(node.jjtGetChild(0));
+            mv.visitMethodInsn(INVOKESTATIC, OPS_NAME, "booleanValue", "(" + OBJECT_DESC + ")Z", false);
+            this.toBoolean(true);
+        } else if (node instanceof ASTEq) {
+            this.compare(node, "equal", false);
+        } else if (node instanceof ASTNotEq) {
+            this.compare(node, "equal", true);
+        } else if (node instanceof ASTLess) {
+            this.compare(node, "less", false);
+        } else if (node instanceof ASTGreaterEq) {
+            this.compare(node, "less", true);
+        } else if (node instanceof ASTGreater) {
+            this.compare(node, "greater", false);
+        } else if (node instanceof ASTLessEq) {
+            this.compare(node, "greater", true);
+        } else {
+            throw new IllegalArgumentException(node.getClass().getName());
+        }
+    }
+
+    /**
+     * 以栈顶的值为当前对象读取属性或者调用方法，方法的参数以根对象计算
+     */
+    private void step(Node node) {
+        if (node instanceof ASTProperty) {
+            mv.visitLdcInsn(((ASTConst) node.jjtGetChild(0)).getValue());
+            mv.visitMethodInsn(INVOKESTATIC, RUNTIME_NAME, "getProperty",
+                    "(" + OBJECT_DESC + "Ljava/lang/String;)" + OBJECT_DESC, false);
+        } else {
+            StringBuilder desc = new StringBuilder("(").append(OBJECT_DESC);
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                this.value(node.jjtGetChild(i));
+                desc.append(OBJECT_DESC);
+            }
+            desc.append(")").append(OBJECT_DESC);
+            mv.visitMethodInsn(INVOKESTATIC, RUNTIME_NAME, ((ASTMethod) node).getMethodName(), desc.toString(), false);
+        }
+    }
+
+    private void logic(Node node, int jump) {
+        Label end = new Label();
+        int last = node.jjtGetNumChildren() - 1;
+        for (int i = 0; i <= last; i++) {
+            this.value(node.jjtGetChild(i));
+            if (i != last) {
+                mv.visitInsn(DUP);
+                mv.visitMethodInsn(INVOKESTATIC, OPS_NAME, "booleanValue", "(" + OBJECT_DESC + ")Z", false);
+                mv.visitJumpInsn(jump, end);
+                mv.visitInsn(POP);
+            }
+        }
+        mv.visitLabel(end);
+    }
+
+    private void compare(Node node, String method, boolean not) {
+        this.value(node.jjtGetChild(0));
+        this.value(node.jjtGetChild(1));
+        mv.visitMethodInsn(INVOKESTATIC, OPS_NAME, method, "(" + OBJECT_DESC + OBJECT_DESC + ")Z", false);
+        this.toBoolean(not);
+    }
+
+    private void toBoolean(boolean not) {
+        if (not) {
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IXOR);
+        }
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
+    }
+
+    private void constant(Object value) {
+        if (value == null) {
+            mv.visitInsn(ACONST_NULL);
+        } else if (value instanceof String) {
+            mv.visitLdcInsn(value);
+        } else {
+            // 其他常量使用解析出来的同一个对象
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, className, "constants", "[" + OBJECT_DESC);
+            mv.visitLdcInsn(constants.size());
+            mv.visitInsn(AALOAD);
+            constants.add(value);
+        }
+    }
+
+    private static final class InterpretedExpression extends CompiledExpression {
+        InterpretedExpression(Object tree) {
+            super(tree);
+        }
+
+        @Override
+        public boolean isCompiled() {
+            return false;
+        }
+
+        @Override
+        public Object getValue(Object root) throws OgnlException {
+            return Ognl.getValue(this.getTree(), root);
+        }
+
+        @Override
+        protected Object evaluate(Object root) throws OgnlException {
+            return Ognl.getValue(this.getTree(), root);
+        }
+    }
+
+    private static final class ExpressionClassLoader extends ClassLoader {
+        ExpressionClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.mimosaframework.core.ognl;
+
+/**
+ * 不需要上下文就能读取属性的 {@link PropertyAccessor}，编译后的表达式直接调用
+ * <p>
+ * 实现类两个读取方法的结果必须一致，非下标访问时 {@link PropertyAccessor#getProperty}
+ * 和这里返回相同的值，两个方法需要在同一个类中声明，子类只重写其中一个时编译后的表达式不会直接调用
+ *
+ * @see OgnlCompiler
+ */
+public interface SimplePropertyAccessor {
+    Object getProperty(Object target, String name) throws OgnlException;
+}
@@ -1,5 +1,7 @@
 package org.mimosaframework.core.utils;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * 生成雪花ID
  * 第一个部分，是 1 个 bit：0，这个是无意义的。
@@ -38,8 +40,10 @@ public class SnowFlake {
     private long datacenterIdShift = sequenceBits + workerIdBits;
     private long timestampLeftShift = sequenceBits + workerIdBits + dataCenterIdBits;
     private long sequenceMask = -1L ^ (-1L << sequenceBits);
-    //记录产生时间毫秒数，判断是否是同1毫秒
-    private long lastTimestamp = -1L;
+    //高位记录产生ID的时间(减去twepoch后的毫秒数)，低12位记录这一毫秒内的序号，使用CAS同时更新
+    private final AtomicLong state = new AtomicLong(-1L);
+    //时钟回拨或者序号用完时最多允许提前使用的毫秒数，超过时等待时钟追上
+    private long maxBackwardMillis = 5L;
 
     public long getWorkerId() {
         return workerId;
@@ -87,52 +91,85 @@ public class SnowFlake {
     }
 
     // 这个是核心方法，通过调用nextId()方法，让当前这台机器上的snowflake算法程序生成一个全局唯一的id
-    public synchronized long nextId() {
-        // 这儿就是获取当前时间戳，单位是毫秒
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            System.err.printf("clock is moving backwards. Rejecting requests until %d.", lastTimestamp);
-            throw new RuntimeException(
-                    String.format("Clock moved backwards. Refusing to generate id for %d milliseconds",
-                            lastTimestamp - timestamp));
+    public long nextId() {
+        for (; ; ) {
+            long current = state.get();
+            long next = this.nextState(current, 1);
+            if (next >= 0 && state.compareAndSet(current, next)) {
+                return this.toId(next);
+            }
         }
+    }
 
-        // 下面是说假设在同一个毫秒内，又发送了一个请求生成一个id
-        // 这个时候就得把seqence序号给递增1，最多就是4096
-        if (lastTimestamp == timestamp) {
-            // 这个意思是说一个毫秒内最多只能有4096个数字，无论你传递多少进来，
-            //这个位运算保证始终就是在4096这个范围内，避免你自己传递个sequence超过了4096这个范围
-            sequence = (sequence + 1) & sequenceMask;
-            //当某一毫秒的时间，产生的id数 超过4095，系统会进入等待，直到下一毫秒，系统继续产生ID
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+    /**
+     * 一次生成多个ID，每一毫秒的序号只需要一次CAS
+     *
+     * @param n 生成的个数
+     * @return 递增的ID
+     */
+    public long[] nextIds(int n) {
+        long[] ids = new long[n];
+        int i = 0;
+        while (i < n) {
+            long current = state.get();
+            long next = this.nextState(current, n - i);
+            if (next >= 0 && state.compareAndSet(current, next)) {
+                long timestamp = next >>> sequenceBits;
+                long from = timestamp == (current >> sequenceBits) ? (current & sequenceMask) + 1 : 0;
+                for (long seq = from; seq <= (next & sequenceMask); seq++) {
+                    ids[i++] = this.toId((timestamp << sequenceBits) | seq);
+                }
             }
-
-        } else {
-            sequence = 0;
         }
-        // 这儿记录一下最近一次生成id的时间戳，单位是毫秒
-        lastTimestamp = timestamp;
-        // 这儿就是最核心的二进制位运算操作，生成一个64bit的id
-        // 先将当前时间戳左移，放到41 bit那儿；将机房id左移放到5 bit那儿；将机器id左移放到5 bit那儿；将序号放最后12 bit
-        // 最后拼接起来成一个64 bit的二进制数字，转换成10进制就是个long型
-        return ((timestamp - twepoch) << timestampLeftShift) |
-                (dataCenterId << datacenterIdShift) |
-                (workerId << workerIdShift) | sequence;
+        return ids;
     }
 
     /**
-     * 当某一毫秒的时间，产生的id数 超过4095，系统会进入等待，直到下一毫秒，系统继续产生ID
+     * 计算分配count个序号之后的状态，同一毫秒内序号不够时只分配到这一毫秒结束
      *
-     * @param lastTimestamp
-     * @return
+     * @return 需要等待时钟时返回-1
      */
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+    private long nextState(long current, int count) {
+        long now = timeGen() - twepoch;
+        long lastTimestamp = current >> sequenceBits;
+        long timestamp;
+        long sequence;
+        if (now > lastTimestamp) {
+            timestamp = now;
+            sequence = Math.min(count, sequenceMask + 1) - 1;
+        } else {
+            if (lastTimestamp - now > maxBackwardMillis) {
+                throw new IllegalStateException(
+                        String.format("Clock moved backwards. Refusing to generate id for %d milliseconds",
+                                lastTimestamp - now));
+            }
+            // 时钟回拨或者同一毫秒内，继续使用上一次的时间
+            long last = current & sequenceMask;
+            if (last == sequenceMask) {
+                // 这一毫秒的序号用完了，借用下一毫秒
+                timestamp = lastTimestamp + 1;
+                sequence = Math.min(count, sequenceMask + 1) - 1;
+            } else {
+                timestamp = lastTimestamp;
+                sequence = Math.min(last + count, sequenceMask);
+            }
+            if (timestamp - now > maxBackwardMillis) {
+                // 借用的时间太多，等待时钟追上
+                Thread.yield();
+                return -1;
+            }
         }
-        return timestamp;
+        return (timestamp << sequenceBits) | sequence;
+    }
+
+    // 这儿就是最核心的二进制位运算操作，生成一个64bit的id
+    // 先将时间戳左移，放到41 bit那儿；将机房id左移放到5 bit那儿；将机器id左移放到5 bit那儿；将序号放最后12 bit
+    private long toId(long state) {
+        long timestamp = state >>> sequenceBits;
+        long sequence = state & sequenceMask;
+        return (timestamp << timestampLeftShift) |
+                (dataCenterId << datacenterIdShift) |
+                (workerId << workerIdShift) | sequence;
     }
 
     //获取当前时间戳
@@ -140,6 +177,14 @@ public class SnowFlake {
         return System.currentTimeMillis();
     }
 
+    public long getMaxBackwardMillis() {
+        return maxBackwardMillis;
+    }
+
+    public void setMaxBackwardMillis(long maxBackwardMillis) {
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
     public static void main(String[] args) {
         SnowFlake flake = new SnowFlake();
         for (int i = 0; i < 5000; i++) {
@@ -0,0 +1,239 @@
+package org.mimosaframework.ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.core.ognl.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+public class OgnlCompilerTest {
+
+    public static class User {
+        private String name;
+        private User parent;
+        private List<String> tags;
+
+        public User(String name, User parent, List<String> tags) {
+            this.name = name;
+            this.parent = parent;
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public User getParent() {
+            return parent;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+
+    private static Map<String, Object> root() {
+        Map<String, Object> user = new HashMap<>();
+        user.put("name", " tom ");
+        user.put("age", 18);
+        user.put("address", null);
+        Map<String, Object> dept = new HashMap<>();
+        dept.put("name", "dev");
+        dept.put("size", 3);
+        user.put("dept", dept);
+
+        Map<String, Object> root = new HashMap<>();
+        root.put("user", user);
+        root.put("name", "tom");
+        root.put("empty", "");
+        root.put("blank", "  ");
+        root.put("list", new ArrayList<Object>(Arrays.asList(1, 2, 3)));
+        root.put("emptyList", new ArrayList<Object>());
+        Map<String, Object> map = new HashMap<>();
+        map.put("k", "v");
+        root.put("map", map);
+        root.put("zero", 0);
+        root.put("one", 1L);
+        root.put("half", 0.5d);
+        root.put("price", new BigDecimal("10.50"));
+        root.put("count", "2");
+        root.put("flag", Boolean.TRUE);
+        root.put("no", Boolean.FALSE);
+        root.put("nothing", null);
+        root.put("letter", 'a');
+        root.put("bean", new User("jack", new User("rose", null, null), new ArrayList<String>(Arrays.asList("a"))));
+
+        ModelObject model = new ModelObject();
+        model.put("id", 7);
+        model.put("title", "model");
+        root.put("model", model);
+        return root;
+    }
+
+    /**
+     * 解释执行的结果，抛出异常时返回异常的类型
+     * <p>
+     * 集合使用公开的实现类，解释执行通过反射调用方法时不受模块访问限制的影响
+     */
+    private static Object interpret(String expression, Object root) {
+        try {
+            return Ognl.getValue(Ognl.parseExpression(expression), root);
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+
+    private static Object compiled(CompiledExpression compiled, Object root) {
+        try {
+            return compiled.getValue(root);
+        } catch (Exception e) {
+            return e.getClass();
+        }
+    }
+
+    private static CompiledExpression compile(String expression) throws OgnlException {
+        return OgnlCompiler.compile(Ognl.parseExpression(expression));
+    }
+
+    private static void assertSame(boolean isCompiled, Object root, String... expressions) throws OgnlException {
+        for (String expression : expressions) {
+            CompiledExpression compiled = compile(expression);
+            Assert.assertEquals(expression, isCompiled, compiled.isCompiled());
+            Object expected = interpret(expression, root);
+            Object actual = compiled(compiled, root);
+            Assert.assertEquals(expression, expected, actual);
+            if (expected != null) {
+                Assert.assertEquals(expression, expected.getClass(), actual.getClass());
+            }
+            // 第二次执行使用已经确定的访问方式
+            Assert.assertEquals(expression, expected, compiled(compiled, root));
+        }
+    }
+
+    @Test
+    public void constants() throws Exception {
+        assertSame(true, root(), "1", "'a'", "\"abc\"", "null", "true", "false", "1.5", "10L", "'ab' == 'ab'");
+    }
+
+    @Test
+    public void propertyChains() throws Exception {
+        assertSame(true, root(),
+                "name", "user", "user.name", "user.age", "user.dept.name", "user.dept.size",
+                "map.k", "model.id", "model.title", "model.missing", "missing");
+    }
+
+    @Test
+    public void nullIntermediates() throws Exception {
+        assertSame(true, root(),
+                "nothing.name", "user.address.name", "user.missing.name", "missing.a.b",
+                "nothing.size()", "user.address.length()", "nothing == null", "user.address != null");
+        assertSame(true, null, "name", "a.b");
+    }
+
+    @Test
+    public void methodCalls() throws Exception {
+        assertSame(true, root(),
+                "list.size()", "emptyList.size()", "map.size()", "list.isEmpty()", "emptyList.isEmpty()",
+                "empty.isEmpty()", "name.isEmpty()", "name.length()", "user.name.trim()",
+                "user.name.trim().length()", "blank.trim().isEmpty()", "name.equals('tom')",
+                "name.equals(user.name.trim())", "name.equals(nothing)", "list.size() > 2",
+                // 编译代码不支持的对象回退到解释执行
+                "zero.length()", "list.trim()", "user.size()", "one.equals(1L)");
+        assertSame(false, root(), "name.toUpperCase()", "list.contains(2)", "name.substring(1, 2)");
+    }
+
+    @Test
+    public void comparisons() throws Exception {
+        assertSame(true, root(),
+                "zero == 0", "one == 1", "one == 1.0", "half < 1", "half >= 0.5", "price > 10",
+                "price <= 10.5", "count > 1", "count == '2'", "count == 2", "name == 'tom'",
+                "name != 'jack'", "name > 'a'", "letter == 'a'", "nothing == null", "empty == null",
+                "nothing != ''", "user.age >= 18", "user.age < '20'", "flag == true", "no != false");
+    }
+
+    @Test
+    public void booleanCoercion() throws Exception {
+        assertSame(true, root(),
+                "flag and name", "no and name", "nothing or name", "empty or zero", "zero or emptyList",
+                "!flag", "!empty", "!name", "!zero", "!nothing", "!half", "not list", "!emptyList",
+                "name != null and name.length() > 0", "nothing != null and nothing.length() > 0",
+                "user.address == null or user.address.length() == 0",
+                "(flag or no) and !(zero == 0)", "flag and no or name");
+    }
+
+    @Test
+    public void arithmeticIsInterpreted() throws Exception {
+        assertSame(false, root(),
+                "one + 1", "user.age * 2 - one", "price / 2", "name + '!'", "zero - half",
+                "-one", "list[0]", "list[0] + 1", "count + 1", "user.age % 5", "one in list",
+                "name + user.age > 'tom1'");
+        // 编译的部分和解释执行的部分组合在一起
+        assertSame(false, root(), "user.age + 1 > 18 and name != null", "(one + 1) == 2");
+    }
+
+    @Test
+    public void beansFallBackToInterpreter() throws Exception {
+        assertSame(true, root(),
+                "bean.name", "bean.parent.name", "bean.parent.parent", "bean.parent.parent.name",
+                "bean.tags.size()", "bean.parent.tags == null", "bean.missing");
+        User user = new User("lucy", null, null);
+        assertSame(true, user, "name", "name.length()", "parent == null", "parent.name", "tags.isEmpty()");
+        // 以Class为根对象
+        assertSame(true, String.class, "name", "simpleName.length()");
+    }
+
+    public static class DefaultsMap extends HashMap<String, Object> {
+    }
+
+    public static class UpperMap extends HashMap<String, Object> {
+    }
+
+    @Test
+    public void customHandlersFallBackToInterpreter() throws Exception {
+        OgnlRuntime.setNullHandler(DefaultsMap.class, new NullHandler() {
+            @Override
+            public Object nullMethodResult(Map context, Object target, String methodName, Object[] args) {
+                return null;
+            }
+
+            @Override
+            public Object nullPropertyValue(Map context, Object target, Object property) {
+                return "default";
+            }
+        });
+        OgnlRuntime.setPropertyAccessor(UpperMap.class, new MapPropertyAccessor() {
+            @Override
+            public Object getProperty(Map context, Object target, Object name) throws OgnlException {
+                Object value = super.getProperty(context, target, name);
+                return value instanceof String ? ((String) value).toUpperCase() : value;
+            }
+        });
+
+        DefaultsMap defaults = new DefaultsMap();
+        defaults.put("name", "tom");
+        CompiledExpression compiled = compile("missing");
+        Assert.assertTrue(compiled.isCompiled());
+        Assert.assertEquals("default", compiled.getValue(defaults));
+        assertSame(true, defaults, "name", "missing", "missing.length()", "missing == 'default'");
+
+        UpperMap upper = new UpperMap();
+        upper.put("name", "tom");
+        Assert.assertEquals("TOM", compile("name").getValue(upper));
+        assertSame(true, upper, "name", "name == 'TOM'", "name.length()", "missing");
+    }
+
+    @Test
+    public void sameExpressionWithDifferentRoots() throws Exception {
+        CompiledExpression compiled = compile("user.name.trim().length() > 2 and list.size() > 0");
+        Assert.assertTrue(compiled.isCompiled());
+        Map<String, Object> root = root();
+        Assert.assertEquals(interpret("user.name.trim().length() > 2 and list.size() > 0", root), compiled.getValue(root));
+        root.put("list", new ArrayList<Object>());
+        Assert.assertEquals(Boolean.FALSE, compiled.getValue(root));
+        // 同一个表达式遇到不支持的对象时回退
+        root.put("user", new User(" ann ", null, null));
+        Assert.assertEquals(interpret("user.name.trim().length() > 2 and list.size() > 0", root), compiled.getValue(root));
+    }
+}
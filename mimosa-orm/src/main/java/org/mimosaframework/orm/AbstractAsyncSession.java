@@ -0,0 +1,198 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.criteria.Delete;
+import org.mimosaframework.orm.criteria.Function;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.criteria.Update;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 所有的方法都交给 {@link #submit(AsyncExecutor)} 执行
+ */
+public abstract class AbstractAsyncSession implements AsyncSession {
+
+    @Override
+    public AsyncFuture<ModelObject> save(final ModelObject obj) {
+        return this.submit(new AsyncExecutor<ModelObject>() {
+            @Override
+            public ModelObject execute(Session session) {
+                return session.save(obj);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<ModelObject> saveOrUpdate(final ModelObject obj) {
+        return this.submit(new AsyncExecutor<ModelObject>() {
+            @Override
+            public ModelObject execute(Session session) {
+                return session.saveOrUpdate(obj);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Void> save(final List<ModelObject> objects) {
+        return this.submit(new AsyncExecutor<Void>() {
+            @Override
+            public Void execute(Session session) {
+                session.save(objects);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> update(final ModelObject obj) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.update(obj);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> update(final List<ModelObject> objects) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.update(objects);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> update(final Update update) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.update(update);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> delete(final ModelObject obj) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.delete(obj);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> delete(final Delete delete) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.delete(delete);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Integer> delete(final Class c, final Serializable id) {
+        return this.submit(new AsyncExecutor<Integer>() {
+            @Override
+            public Integer execute(Session session) {
+                return session.delete(c, id);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<ModelObject> get(final Class c, final Serializable id) {
+        return this.submit(new AsyncExecutor<ModelObject>() {
+            @Override
+            public ModelObject execute(Session session) {
+                return session.get(c, id);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<ModelObject> get(final Query query) {
+        return this.submit(new AsyncExecutor<ModelObject>() {
+            @Override
+            public ModelObject execute(Session session) {
+                return session.get(query);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<List<ModelObject>> list(final Query query) {
+        return this.submit(new AsyncExecutor<List<ModelObject>>() {
+            @Override
+            public List<ModelObject> execute(Session session) {
+                return session.list(query);
+            }
+        });
+    }
+
+    @Override
+    public <T> AsyncFuture<List<T>> list(final Query query, final Class<T> c, final Model2BeanFactory factory) {
+        return this.submit(new AsyncExecutor<List<T>>() {
+            @Override
+            public List<T> execute(Session session) {
+                return BeanHandleSessionAdapter.wrap(session).list(query, c, factory);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Long> count(final Query query) {
+        return this.submit(new AsyncExecutor<Long>() {
+            @Override
+            public Long execute(Session session) {
+                return session.count(query);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<Paging<ModelObject>> paging(final Query query) {
+        return this.submit(new AsyncExecutor<Paging<ModelObject>>() {
+            @Override
+            public Paging<ModelObject> execute(Session session) {
+                return session.paging(query);
+            }
+        });
+    }
+
+    @Override
+    public <T> AsyncFuture<Paging<T>> paging(final Query query, final Class<T> c, final Model2BeanFactory factory) {
+        return this.submit(new AsyncExecutor<Paging<T>>() {
+            @Override
+            public Paging<T> execute(Session session) {
+                return BeanHandleSessionAdapter.wrap(session).paging(query, c, factory);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<AutoResult> calculate(final Function function) {
+        return this.submit(new AsyncExecutor<AutoResult>() {
+            @Override
+            public AutoResult execute(Session session) {
+                return session.calculate(function);
+            }
+        });
+    }
+
+    @Override
+    public AsyncFuture<AutoResult> sql(final SQLAutonomously autonomously) {
+        return this.submit(new AsyncExecutor<AutoResult>() {
+            @Override
+            public AutoResult execute(Session session) {
+                return session.sql(autonomously);
+            }
+        });
+    }
+}
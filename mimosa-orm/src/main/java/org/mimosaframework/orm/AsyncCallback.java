@@ -0,0 +1,13 @@
+package org.mimosaframework.orm;
+
+/**
+ * 异步操作完成之后的回调，在执行操作的线程中调用
+ */
+public interface AsyncCallback<T> {
+    void onSuccess(T result);
+
+    /**
+     * @param e 操作抛出的异常，取消时是 {@link java.util.concurrent.CancellationException}
+     */
+    void onFailure(Throwable e);
+}
@@ -0,0 +1,8 @@
+package org.mimosaframework.orm;
+
+/**
+ * 在异步线程中使用Session执行的操作
+ */
+public interface AsyncExecutor<T> {
+    T execute(Session session) throws Exception;
+}
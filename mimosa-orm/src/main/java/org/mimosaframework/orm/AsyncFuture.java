@@ -0,0 +1,79 @@
+package org.mimosaframework.orm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 异步操作的结果，可以阻塞获取也可以注册回调
+ */
+public class AsyncFuture<T> extends FutureTask<T> {
+    private List<AsyncCallback<? super T>> callbacks = new ArrayList<>(1);
+
+    public AsyncFuture(Callable<T> callable) {
+        super(callable);
+    }
+
+    /**
+     * 操作已经完成时立即在当前线程调用回调
+     */
+    public void addCallback(AsyncCallback<? super T> callback) {
+        synchronized (this) {
+            if (!this.isDone()) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        this.fire(callback);
+    }
+
+    /**
+     * 等待并获得结果，操作抛出的运行时异常原样抛出，其他异常包装成IllegalStateException
+     */
+    public T join() {
+        try {
+            return this.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected void done() {
+        List<AsyncCallback<? super T>> list;
+        synchronized (this) {
+            list = callbacks;
+            callbacks = null;
+        }
+        for (AsyncCallback<? super T> callback : list) {
+            this.fire(callback);
+        }
+    }
+
+    private void fire(AsyncCallback<? super T> callback) {
+        T result;
+        try {
+            result = this.get();
+        } catch (ExecutionException e) {
+            callback.onFailure(e.getCause());
+            return;
+        } catch (CancellationException | InterruptedException e) {
+            callback.onFailure(e);
+            return;
+        }
+        callback.onSuccess(result);
+    }
+}
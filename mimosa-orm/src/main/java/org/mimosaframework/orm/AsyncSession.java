@@ -0,0 +1,60 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.criteria.Delete;
+import org.mimosaframework.orm.criteria.Function;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.criteria.Update;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 异步执行的Session，每个方法提交到线程池执行后立即返回
+ * <p>
+ * 方法参数在执行完成之前不要再修改
+ */
+public interface AsyncSession {
+
+    AsyncFuture<ModelObject> save(ModelObject obj);
+
+    AsyncFuture<ModelObject> saveOrUpdate(ModelObject obj);
+
+    AsyncFuture<Void> save(List<ModelObject> objects);
+
+    AsyncFuture<Integer> update(ModelObject obj);
+
+    AsyncFuture<Integer> update(List<ModelObject> objects);
+
+    AsyncFuture<Integer> update(Update update);
+
+    AsyncFuture<Integer> delete(ModelObject obj);
+
+    AsyncFuture<Integer> delete(Delete delete);
+
+    AsyncFuture<Integer> delete(Class c, Serializable id);
+
+    AsyncFuture<ModelObject> get(Class c, Serializable id);
+
+    AsyncFuture<ModelObject> get(Query query);
+
+    AsyncFuture<List<ModelObject>> list(Query query);
+
+    <T> AsyncFuture<List<T>> list(Query query, Class<T> c, Model2BeanFactory factory);
+
+    AsyncFuture<Long> count(Query query);
+
+    AsyncFuture<Paging<ModelObject>> paging(Query query);
+
+    <T> AsyncFuture<Paging<T>> paging(Query query, Class<T> c, Model2BeanFactory factory);
+
+    AsyncFuture<AutoResult> calculate(Function function);
+
+    AsyncFuture<AutoResult> sql(SQLAutonomously autonomously);
+
+    /**
+     * 使用Session执行任意操作
+     */
+    <T> AsyncFuture<T> submit(AsyncExecutor<T> executor);
+}
@@ -0,0 +1,133 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.orm.i18n.I18n;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个操作在线程池中使用一个新的Session执行，执行完成后关闭Session，
+ * 线程池中没有ThreadLocal事务，每个操作都是自动提交的
+ * <p>
+ * 需要事务时使用 {@link #beginTransaction()} 得到显式的事务对象
+ * <p>
+ * 没有设置线程池时，运行在支持虚拟线程的JDK上使用虚拟线程，
+ * 否则使用固定大小的线程池，关闭时只关闭自己创建的线程池
+ */
+public class AsyncSessionTemplate extends AbstractAsyncSession implements Closeable {
+    private SessionFactory sessionFactory;
+    private ExecutorService executorService;
+    private boolean createdExecutor;
+    private int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+    public AsyncSessionTemplate() {
+    }
+
+    public AsyncSessionTemplate(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public AsyncSessionTemplate(SessionFactory sessionFactory, ExecutorService executorService) {
+        this.sessionFactory = sessionFactory;
+        this.executorService = executorService;
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * 不支持虚拟线程时默认线程池的线程数，一般和数据库连接池的大小相同
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public ExecutorService getExecutorService() {
+        if (this.executorService == null) {
+            synchronized (this) {
+                if (this.executorService == null) {
+                    this.executorService = this.newExecutorService();
+                    this.createdExecutor = true;
+                }
+            }
+        }
+        return this.executorService;
+    }
+
+    @Override
+    public <T> AsyncFuture<T> submit(final AsyncExecutor<T> executor) {
+        AsyncFuture<T> future = new AsyncFuture<>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Session session = sessionFactory.openSession();
+                try {
+                    return executor.execute(session);
+                } finally {
+                    session.close();
+                }
+            }
+        });
+        this.getExecutorService().execute(future);
+        return future;
+    }
+
+    /**
+     * 开始一个默认数据源上的事务，事务中的操作按照提交的顺序依次执行
+     */
+    public AsyncTransaction beginTransaction() {
+        try {
+            return new AsyncTransaction(new DefaultSession(sessionFactory.getConfiguration()), this.getExecutorService());
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("create_new_session_error"), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.createdExecutor && this.executorService != null) {
+                this.executorService.shutdown();
+                this.executorService = null;
+                this.createdExecutor = false;
+            }
+        }
+    }
+
+    private ExecutorService newExecutorService() {
+        try {
+            // JDK21开始才有虚拟线程
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            final AtomicInteger number = new AtomicInteger(1);
+            return Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "mimosa-async-" + number.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+}
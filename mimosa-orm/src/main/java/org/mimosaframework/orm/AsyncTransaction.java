@@ -0,0 +1,142 @@
+package org.mimosaframework.orm;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.transaction.Transaction;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 显式的事务对象，不依赖ThreadLocal，可以在多个异步操作之间传递
+ * <p>
+ * 事务中的操作使用同一个Session和数据库连接，按照提交的顺序依次在线程池中执行，
+ * 某个操作失败后事务不会自动回滚，需要调用者决定提交还是回滚，
+ * 最后必须调用 {@link #commit()} 或者 {@link #rollback()} 释放连接
+ */
+public class AsyncTransaction extends AbstractAsyncSession {
+    private static final Log logger = LogFactory.getLog(AsyncTransaction.class);
+
+    private final DefaultSession session;
+    private final Executor executor;
+    private final Queue<AsyncFuture<?>> tasks = new ArrayDeque<>();
+    private AsyncFuture<?> active;
+    private boolean begun;
+    private boolean finished;
+
+    AsyncTransaction(DefaultSession session, Executor executor) {
+        this.session = session;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> AsyncFuture<T> submit(final AsyncExecutor<T> executor) {
+        return this.enqueue(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                checkFinished();
+                if (!begun) {
+                    session.getTransaction().begin();
+                    begun = true;
+                }
+                return executor.execute(session);
+            }
+        });
+    }
+
+    /**
+     * 等待之前提交的操作执行完成后提交事务，提交失败时回滚
+     */
+    public AsyncFuture<Void> commit() {
+        return this.enqueue(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                checkFinished();
+                finished = true;
+                Transaction transaction = session.getTransaction();
+                try {
+                    if (begun) {
+                        try {
+                            transaction.commit();
+                        } catch (SQLException | RuntimeException e) {
+                            try {
+                                transaction.rollback();
+                            } catch (SQLException e1) {
+                                logger.error(I18n.print("async_trans_rollback_fail"), e1);
+                            }
+                            throw e;
+                        }
+                    }
+                } finally {
+                    session.close();
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 等待之前提交的操作执行完成后回滚事务
+     */
+    public AsyncFuture<Void> rollback() {
+        return this.enqueue(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                checkFinished();
+                finished = true;
+                try {
+                    if (begun) {
+                        session.getTransaction().rollback();
+                    }
+                } finally {
+                    session.close();
+                }
+                return null;
+            }
+        });
+    }
+
+    private void checkFinished() {
+        if (finished) {
+            throw new IllegalStateException(I18n.print("async_trans_finished"));
+        }
+    }
+
+    private <T> AsyncFuture<T> enqueue(Callable<T> callable) {
+        AsyncFuture<T> future = new AsyncFuture<>(callable);
+        synchronized (this) {
+            tasks.offer(future);
+            if (active == null) {
+                this.scheduleNext();
+            }
+        }
+        return future;
+    }
+
+    private synchronized void scheduleNext() {
+        while ((active = tasks.poll()) != null) {
+            final AsyncFuture<?> future = active;
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            future.run();
+                        } finally {
+                            scheduleNext();
+                        }
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // 线程池已经关闭，剩下的操作都无法执行
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class AutoResult {
     private Object value;
     private Set<Class> tableClasses;
     private MappingGlobalWrapper mappingGlobalWrapper;
+    private Map<String, Exception> errors;
 
     public static AutoResult getAutoResult(String name, SessionTemplate template, ModelObject search, int start, int limit) {
         if (template != null) {
@@ -414,6 +415,10 @@ public class AutoResult {
         return null;
     }
 
+    /**
+     * 多个数据源执行SQL语句时每个数据源的结果，按照执行完成的顺序排列，
+     * 合并之后的结果使用 {@link #getObjects()}
+     */
     public Map<String, List<ModelObject>> getMaps() {
         if (value instanceof Map) {
             return (Map<String, List<ModelObject>>) value;
@@ -421,6 +426,17 @@ public class AutoResult {
         return null;
     }
 
+    /**
+     * 允许部分数据源失败时，失败(包括超时)的数据源和原因
+     */
+    public Map<String, Exception> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, Exception> errors) {
+        this.errors = errors;
+    }
+
     public List<String> getStrings() {
         return getStrings(null);
     }
@@ -83,6 +83,48 @@ public class BeanAppContext implements Context {
             if (basicInfo.getUppercase() == true) {
                 configuration.setUppercase(basicInfo.getUppercase());
             }
+            if (basicInfo.getSqlPlanCacheSize() != null) {
+                configuration.setSqlPlanCacheSize(basicInfo.getSqlPlanCacheSize());
+            }
+            if (basicInfo.getPagingThreads() != null) {
+                configuration.setPagingThreads(basicInfo.getPagingThreads());
+            }
+            if (basicInfo.getPagingExecutor() != null) {
+                configuration.setPagingExecutor(basicInfo.getPagingExecutor());
+            }
+            if (basicInfo.getCountCacheTime() != null) {
+                configuration.setCountCacheTime(basicInfo.getCountCacheTime());
+            }
+            if (basicInfo.getReadYourWrites() != null) {
+                configuration.setReadYourWrites(basicInfo.getReadYourWrites());
+            }
+            if (basicInfo.getReadYourWritesWindow() != null) {
+                configuration.setReadYourWritesWindow(basicInfo.getReadYourWritesWindow());
+            }
+            if (basicInfo.getSessionCache() != null) {
+                configuration.setSessionCache(basicInfo.getSessionCache());
+            }
+            if (basicInfo.getSecondLevelCache() != null) {
+                configuration.setSecondLevelCache(basicInfo.getSecondLevelCache());
+            }
+            if (basicInfo.getResultCacheSize() != null) {
+                configuration.setResultCacheSize(basicInfo.getResultCacheSize());
+            }
+            if (basicInfo.getLinkThreads() != null) {
+                configuration.setLinkThreads(basicInfo.getLinkThreads());
+            }
+            if (basicInfo.getMetrics() != null) {
+                configuration.setMetrics(basicInfo.getMetrics());
+            }
+            if (basicInfo.getSlowQueryTime() != null) {
+                configuration.setSlowQueryTime(basicInfo.getSlowQueryTime());
+            }
+            if (basicInfo.getMetricsJmx() != null) {
+                configuration.setMetricsJmx(basicInfo.getMetricsJmx());
+            }
+            if (basicInfo.getSqlMetrics() != null) {
+                configuration.setSQLMetrics(basicInfo.getSqlMetrics());
+            }
         }
 
         {
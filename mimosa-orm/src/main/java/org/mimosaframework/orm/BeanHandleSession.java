@@ -0,0 +1,34 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+
+import java.util.List;
+
+/**
+ * 查询结果直接转换成对象的会话，没有join的查询会直接从结果集生成对象，不再经过ModelObject
+ * <p>
+ * 没有实现这个接口的 {@link HandleSession} 通过 {@link BeanHandleSessionAdapter#wrap(HandleSession)}
+ * 先查询ModelObject再转换
+ */
+public interface BeanHandleSession {
+    /**
+     * 查询并转换成对象
+     *
+     * @param query   查询条件
+     * @param c       转换的对象类型
+     * @param factory 对象的转换方式
+     * @return 没有数据时返回null
+     */
+    <T> List<T> list(Query query, Class<T> c, Model2BeanFactory factory);
+
+    /**
+     * 分页查询并转换成对象，转换方式和 {@link #list(Query, Class, Model2BeanFactory)} 一致
+     *
+     * @param query   查询条件
+     * @param c       转换的对象类型
+     * @param factory 对象的转换方式
+     * @return 分页结果
+     */
+    <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory factory);
+}
@@ -0,0 +1,52 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 让没有实现 {@link BeanHandleSession} 的会话也可以查询对象，先查询ModelObject再逐个转换
+ */
+public class BeanHandleSessionAdapter implements BeanHandleSession {
+    private final HandleSession session;
+
+    public BeanHandleSessionAdapter(HandleSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @param session 会话
+     * @return 会话已经实现了 {@link BeanHandleSession} 时直接返回
+     */
+    public static BeanHandleSession wrap(HandleSession session) {
+        if (session instanceof BeanHandleSession) {
+            return (BeanHandleSession) session;
+        }
+        return new BeanHandleSessionAdapter(session);
+    }
+
+    @Override
+    public <T> List<T> list(Query query, Class<T> c, Model2BeanFactory factory) {
+        return toJavaObjects(session.list(query), c, factory);
+    }
+
+    @Override
+    public <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory factory) {
+        Paging<ModelObject> paging = session.paging(query);
+        return new Paging<>(paging.getCount(), toJavaObjects(paging.getObjects(), c, factory));
+    }
+
+    private static <T> List<T> toJavaObjects(List<ModelObject> objects, Class<T> c, Model2BeanFactory factory) {
+        if (objects == null || objects.size() == 0) {
+            return null;
+        }
+        List<T> beans = new ArrayList<>(objects.size());
+        for (ModelObject object : objects) {
+            beans.add(factory.toJavaObject(object, c));
+        }
+        return beans;
+    }
+}
@@ -36,6 +36,15 @@ public interface BeanSession extends Closeable {
 
     <T> List<T> list(Query query);
 
+    /**
+     * 流式查询，不支持join查询
+     *
+     * @see HandleSession#stream(Query)
+     */
+    <T> Cursor<T> stream(Query query);
+
+    <T> Cursor<T> stream(Query query, int fetchSize);
+
     long count(Query query);
 
     <T> Paging<T> paging(Query query);
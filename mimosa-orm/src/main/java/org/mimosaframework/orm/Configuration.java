@@ -4,8 +4,15 @@ import org.mimosaframework.orm.convert.NamingConvert;
 import org.mimosaframework.orm.exception.ContextException;
 import org.mimosaframework.orm.mapping.MappingGlobalWrapper;
 import org.mimosaframework.orm.mapping.MappingTable;
+import org.mimosaframework.orm.metrics.SQLMetrics;
+import org.mimosaframework.orm.cache.SecondLevelCache;
+import org.mimosaframework.orm.platform.CountCache;
+import org.mimosaframework.orm.platform.QueryResultCache;
+import org.mimosaframework.orm.platform.RecentWrites;
+import org.mimosaframework.orm.platform.SQLPlanCache;
 import org.mimosaframework.orm.platform.SessionContext;
 import org.mimosaframework.orm.scripting.SQLDefinedLoader;
+import org.mimosaframework.orm.shard.ShardRouter;
 import org.mimosaframework.orm.transaction.TransactionFactory;
 import org.mimosaframework.orm.utils.DatabaseType;
 
@@ -14,6 +21,7 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public interface Configuration {
     List<? extends IDStrategy> getIdStrategies();
@@ -62,5 +70,85 @@ public interface Configuration {
 
     boolean allowInnerJoin();
 
+    /**
+     * 按照查询结构缓存生成的SQL语句，返回null则不使用缓存
+     *
+     * @return SQL语句缓存
+     */
+    SQLPlanCache getSQLPlanCache();
+
+    /**
+     * 分页查询时并行执行count和list的线程池，返回null则顺序执行，
+     * 只有从库上的查询才会并行执行
+     *
+     * @return 线程池
+     */
+    ExecutorService getPagingExecutor();
+
+    /**
+     * 分页查询的总条数缓存，返回null则不缓存
+     *
+     * @return 总条数缓存
+     */
+    CountCache getCountCache();
+
+    /**
+     * 同一个Session写入过的表在之后的查询中是否使用主库
+     *
+     * @return
+     */
+    boolean isReadYourWrites();
+
+    /**
+     * 最近写入过的表，在时间窗口内所有Session读取这些表都使用主库，返回null则不记录
+     * <p>
+     * 时间窗口是整个配置共享的，一个Session的写入会让其他Session的读取也使用主库
+     *
+     * @return 最近写入的表
+     */
+    RecentWrites getRecentWrites();
+
+    /**
+     * 是否使用Session的一级缓存
+     *
+     * @return
+     */
+    boolean isSessionCache();
+
+    /**
+     * 所有Session共享的二级缓存，没有开启时返回null
+     *
+     * @return 二级缓存
+     */
+    SecondLevelCache getSecondLevelCache();
+
+    /**
+     * 查询结果缓存，只缓存指定了缓存时间的查询，没有开启时返回null
+     *
+     * @return 查询结果缓存
+     */
+    QueryResultCache getQueryResultCache();
+
+    /**
+     * 分片映射类的路由规则，没有使用@Shard的映射类时返回null
+     *
+     * @return 分片路由
+     */
+    ShardRouter getShardRouter();
+
+    /**
+     * 并行执行多个数据源SQL语句的线程池，返回null时顺序执行
+     *
+     * @return 线程池
+     */
+    ExecutorService getLinkExecutor();
+
+    /**
+     * 每条语句执行完成后的统计，没有开启时返回null
+     *
+     * @return 语句统计
+     */
+    SQLMetrics getSQLMetrics();
+
     <T> T getAddition();
 }
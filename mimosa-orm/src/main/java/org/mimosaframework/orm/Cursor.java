@@ -0,0 +1,21 @@
+package org.mimosaframework.orm;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * 流式查询的游标，遍历时才从数据库逐批读取数据，适合导出大量数据
+ * <p>
+ * 游标使用独立的数据库连接(按照查询设置的主从库获取)，读取完所有数据后
+ * 自动关闭，提前结束遍历时必须调用 {@link #close()} 释放连接
+ * <p>
+ * 游标只能遍历一次，{@link #iterator()} 返回的是游标本身
+ *
+ * @param <T> 每一行数据的类型
+ */
+public interface Cursor<T> extends Iterator<T>, Iterable<T>, Closeable {
+    /**
+     * 默认每次从数据库读取的行数
+     */
+    int DEFAULT_FETCH_SIZE = 1000;
+}
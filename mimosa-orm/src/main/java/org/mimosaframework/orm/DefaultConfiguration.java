@@ -9,9 +9,17 @@ import org.mimosaframework.orm.convert.NamingConvert;
 import org.mimosaframework.orm.exception.ContextException;
 import org.mimosaframework.orm.i18n.I18n;
 import org.mimosaframework.orm.mapping.*;
+import org.mimosaframework.orm.metrics.DefaultSQLMetrics;
+import org.mimosaframework.orm.metrics.SQLMetrics;
+import org.mimosaframework.orm.cache.SecondLevelCache;
+import org.mimosaframework.orm.platform.CountCache;
+import org.mimosaframework.orm.platform.QueryResultCache;
+import org.mimosaframework.orm.platform.RecentWrites;
+import org.mimosaframework.orm.platform.SQLPlanCache;
 import org.mimosaframework.orm.platform.SessionContext;
 import org.mimosaframework.orm.scripting.DefinerConfigure;
 import org.mimosaframework.orm.scripting.SQLDefinedLoader;
+import org.mimosaframework.orm.shard.ShardRouter;
 import org.mimosaframework.orm.transaction.DefaultTransactionFactory;
 import org.mimosaframework.orm.transaction.JDBCTransaction;
 import org.mimosaframework.orm.transaction.Transaction;
@@ -24,6 +32,10 @@ import java.lang.reflect.Constructor;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultConfiguration implements Configuration {
     private static final Log logger = LogFactory.getLog(DefaultConfiguration.class);
@@ -45,7 +57,7 @@ public class DefaultConfiguration implements Configuration {
 
     protected SessionContext defaultSessionContext;
     protected MimosaDataSource defaultDataSource;
-    protected TransactionFactory transactionFactory;
+    protected volatile TransactionFactory transactionFactory;
 
     protected List<? extends IDStrategy> idStrategies;
     protected boolean isShowSQL = false;
@@ -54,6 +66,74 @@ public class DefaultConfiguration implements Configuration {
     protected List<String> mappers;
     protected SQLDefinedLoader definedLoader;
 
+    /**
+     * 按照查询结构缓存的SQL语句数量，小于等于0则不缓存
+     */
+    protected int sqlPlanCacheSize = SQLPlanCache.DEFAULT_CAPACITY;
+    protected volatile SQLPlanCache sqlPlanCache;
+
+    /**
+     * 分页查询并行执行count和list的线程数，小于等于0且没有设置线程池则顺序执行
+     */
+    protected int pagingThreads;
+    protected volatile ExecutorService pagingExecutor;
+    private boolean isCreatePagingExecutor = false;
+    /**
+     * 分页查询总条数的缓存时间(毫秒)，小于等于0则不缓存
+     */
+    protected long countCacheTime;
+    protected volatile CountCache countCache;
+
+    /**
+     * 同一个Session写入过的表在之后的查询中使用主库
+     */
+    protected boolean readYourWrites = true;
+    /**
+     * 写入表之后多长时间内所有的查询都使用主库(毫秒)，小于等于0则不记录
+     * <p>
+     * 这个窗口是整个配置共享的，不是每个Session一个，见 {@link RecentWrites}
+     */
+    protected long readYourWritesWindow;
+    protected volatile RecentWrites recentWrites;
+    /**
+     * 是否使用Session的一级缓存
+     */
+    protected boolean sessionCache = true;
+    /**
+     * 是否使用二级缓存，只缓存使用@Cache注解的表
+     */
+    protected boolean secondLevelCache = true;
+    protected volatile SecondLevelCache secondLevel;
+    /**
+     * 查询结果缓存的最大条数，小于等于0时不使用查询结果缓存
+     */
+    protected int resultCacheSize = QueryResultCache.DEFAULT_CAPACITY;
+    protected volatile QueryResultCache queryResultCache;
+    /**
+     * 第一次创建Session时根据映射类的@Shard注解生成
+     */
+    protected volatile ShardRouter shardRouter;
+    /**
+     * 并行执行多个数据源SQL语句的线程数，小于等于0则顺序执行
+     */
+    protected int linkThreads = 8;
+    protected volatile ExecutorService linkExecutor;
+    /**
+     * 是否统计每条语句的执行情况，设置了sqlMetrics时使用设置的实现
+     */
+    protected boolean metrics = false;
+    /**
+     * 超过这个时间的语句写入慢查询日志，单位毫秒，小于等于0时不记录
+     */
+    protected long slowQueryTime = 1000;
+    /**
+     * 默认的语句统计是否注册到JMX
+     */
+    protected boolean metricsJmx = true;
+    protected volatile SQLMetrics sqlMetrics;
+    private boolean isCreateSQLMetrics = false;
+    private volatile boolean isShardRouterChecked = false;
+
     /**
      * 附加的额外配置，本项目中没有用以后提供给扩展框架使用
      * 比如高并发框架
@@ -357,6 +437,25 @@ public class DefaultConfiguration implements Configuration {
                 }
             }
         }
+        // 只关闭自己创建的线程池
+        if (this.pagingExecutor != null && this.isCreatePagingExecutor) {
+            this.pagingExecutor.shutdown();
+            this.pagingExecutor = null;
+        }
+        if (this.linkExecutor != null) {
+            this.linkExecutor.shutdown();
+            this.linkExecutor = null;
+        }
+        if (this.shardRouter != null) {
+            this.shardRouter.close();
+            this.shardRouter = null;
+            this.isShardRouterChecked = false;
+        }
+        if (this.sqlMetrics != null && this.isCreateSQLMetrics) {
+            ((DefaultSQLMetrics) this.sqlMetrics).close();
+            this.sqlMetrics = null;
+            this.isCreateSQLMetrics = false;
+        }
     }
 
     /**
@@ -391,6 +490,8 @@ public class DefaultConfiguration implements Configuration {
             } catch (Exception e) {
                 throw new ContextException(I18n.print("build_session_error"), e);
             }
+        } else if (this.getShardRouter() != null) {
+            return new ShardSession(this);
         } else {
             return new DefaultSession(this);
         }
@@ -405,6 +506,262 @@ public class DefaultConfiguration implements Configuration {
         this.allowInnerJoin = allowInnerJoin;
     }
 
+    @Override
+    public SQLPlanCache getSQLPlanCache() {
+        if (this.sqlPlanCache == null && this.sqlPlanCacheSize > 0) {
+            synchronized (this) {
+                if (this.sqlPlanCache == null) {
+                    this.sqlPlanCache = new SQLPlanCache(this.sqlPlanCacheSize);
+                }
+            }
+        }
+        return this.sqlPlanCache;
+    }
+
+    public int getSqlPlanCacheSize() {
+        return sqlPlanCacheSize;
+    }
+
+    public void setSqlPlanCacheSize(int sqlPlanCacheSize) {
+        this.sqlPlanCacheSize = sqlPlanCacheSize;
+        this.sqlPlanCache = null;
+    }
+
+    @Override
+    public ExecutorService getPagingExecutor() {
+        if (this.pagingExecutor == null && this.pagingThreads > 0) {
+            synchronized (this) {
+                if (this.pagingExecutor == null) {
+                    final AtomicInteger number = new AtomicInteger(1);
+                    this.pagingExecutor = Executors.newFixedThreadPool(this.pagingThreads, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "mimosa-paging-" + number.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    this.isCreatePagingExecutor = true;
+                }
+            }
+        }
+        return this.pagingExecutor;
+    }
+
+    public void setPagingExecutor(ExecutorService pagingExecutor) {
+        this.pagingExecutor = pagingExecutor;
+        this.isCreatePagingExecutor = false;
+    }
+
+    public int getPagingThreads() {
+        return pagingThreads;
+    }
+
+    public void setPagingThreads(int pagingThreads) {
+        this.pagingThreads = pagingThreads;
+    }
+
+    @Override
+    public CountCache getCountCache() {
+        if (this.countCache == null && this.countCacheTime > 0) {
+            synchronized (this) {
+                if (this.countCache == null) {
+                    this.countCache = new CountCache(this.countCacheTime);
+                }
+            }
+        }
+        return this.countCache;
+    }
+
+    public long getCountCacheTime() {
+        return countCacheTime;
+    }
+
+    public void setCountCacheTime(long countCacheTime) {
+        this.countCacheTime = countCacheTime;
+        this.countCache = null;
+    }
+
+    @Override
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public RecentWrites getRecentWrites() {
+        if (this.recentWrites == null && this.readYourWritesWindow > 0) {
+            synchronized (this) {
+                if (this.recentWrites == null) {
+                    this.recentWrites = new RecentWrites(this.readYourWritesWindow);
+                }
+            }
+        }
+        return this.recentWrites;
+    }
+
+    public long getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    /**
+     * 任何Session写入一个表之后，窗口内所有Session读取这个表都使用主库，
+     * 写入频繁的表会使从库不再承担这个表的读取
+     *
+     * @param readYourWritesWindow 时间窗口(毫秒)，小于等于0则不记录
+     */
+    public void setReadYourWritesWindow(long readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.recentWrites = null;
+    }
+
+    @Override
+    public boolean isSessionCache() {
+        return sessionCache;
+    }
+
+    public void setSessionCache(boolean sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    @Override
+    public SecondLevelCache getSecondLevelCache() {
+        if (this.secondLevel == null && this.secondLevelCache) {
+            synchronized (this) {
+                if (this.secondLevel == null) {
+                    this.secondLevel = new SecondLevelCache();
+                }
+            }
+        }
+        return this.secondLevelCache ? this.secondLevel : null;
+    }
+
+    public boolean isSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public void setSecondLevelCache(boolean secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    @Override
+    public QueryResultCache getQueryResultCache() {
+        if (this.queryResultCache == null && this.resultCacheSize > 0) {
+            synchronized (this) {
+                if (this.queryResultCache == null) {
+                    this.queryResultCache = new QueryResultCache(this.resultCacheSize);
+                }
+            }
+        }
+        return this.queryResultCache;
+    }
+
+    @Override
+    public ShardRouter getShardRouter() {
+        if (!this.isShardRouterChecked && this.mappingGlobalWrapper != null) {
+            synchronized (this) {
+                if (!this.isShardRouterChecked) {
+                    ShardRouter router = new ShardRouter(this.mappingGlobalWrapper);
+                    if (router.isEmpty()) {
+                        router.close();
+                    } else {
+                        this.shardRouter = router;
+                    }
+                    this.isShardRouterChecked = true;
+                }
+            }
+        }
+        return this.shardRouter;
+    }
+
+    @Override
+    public ExecutorService getLinkExecutor() {
+        if (this.linkExecutor == null && this.linkThreads > 0) {
+            synchronized (this) {
+                if (this.linkExecutor == null) {
+                    final AtomicInteger number = new AtomicInteger(1);
+                    this.linkExecutor = Executors.newFixedThreadPool(this.linkThreads, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "mimosa-link-" + number.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return this.linkExecutor;
+    }
+
+    @Override
+    public SQLMetrics getSQLMetrics() {
+        if (this.sqlMetrics == null && this.metrics) {
+            synchronized (this) {
+                if (this.sqlMetrics == null) {
+                    DefaultSQLMetrics defaultSQLMetrics = new DefaultSQLMetrics(this.slowQueryTime);
+                    if (this.metricsJmx) {
+                        defaultSQLMetrics.registerMBean(StringTools.isNotEmpty(this.applicationName)
+                                ? this.applicationName : "default");
+                    }
+                    this.sqlMetrics = defaultSQLMetrics;
+                    this.isCreateSQLMetrics = true;
+                }
+            }
+        }
+        return this.sqlMetrics;
+    }
+
+    public void setSQLMetrics(SQLMetrics sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+        this.isCreateSQLMetrics = false;
+        if (sqlMetrics != null) this.metrics = true;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getSlowQueryTime() {
+        return slowQueryTime;
+    }
+
+    public void setSlowQueryTime(long slowQueryTime) {
+        this.slowQueryTime = slowQueryTime;
+    }
+
+    public boolean isMetricsJmx() {
+        return metricsJmx;
+    }
+
+    public void setMetricsJmx(boolean metricsJmx) {
+        this.metricsJmx = metricsJmx;
+    }
+
+    public int getLinkThreads() {
+        return linkThreads;
+    }
+
+    public void setLinkThreads(int linkThreads) {
+        this.linkThreads = linkThreads;
+    }
+
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(int resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+        this.queryResultCache = null;
+    }
+
     public Object getAddition() {
         return addition;
     }
@@ -441,6 +798,20 @@ public class DefaultConfiguration implements Configuration {
         configuration.allowInnerJoin = allowInnerJoin;
         configuration.isIgnoreEmptySlave = isIgnoreEmptySlave;
         configuration.addition = addition;
+        configuration.sqlPlanCacheSize = sqlPlanCacheSize;
+        configuration.pagingThreads = pagingThreads;
+        if (!isCreatePagingExecutor) configuration.pagingExecutor = pagingExecutor;
+        configuration.countCacheTime = countCacheTime;
+        configuration.readYourWrites = readYourWrites;
+        configuration.readYourWritesWindow = readYourWritesWindow;
+        configuration.sessionCache = sessionCache;
+        configuration.secondLevelCache = secondLevelCache;
+        configuration.resultCacheSize = resultCacheSize;
+        configuration.linkThreads = linkThreads;
+        configuration.metrics = metrics;
+        configuration.slowQueryTime = slowQueryTime;
+        configuration.metricsJmx = metricsJmx;
+        if (!isCreateSQLMetrics) configuration.sqlMetrics = sqlMetrics;
         return configuration;
     }
 }
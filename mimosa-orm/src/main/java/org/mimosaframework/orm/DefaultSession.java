@@ -5,6 +5,8 @@ import org.apache.commons.logging.LogFactory;
 import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.core.utils.AssistUtils;
 import org.mimosaframework.core.utils.StringTools;
+import org.mimosaframework.orm.cache.SecondLevelCache;
+import org.mimosaframework.orm.cache.TableCache;
 import org.mimosaframework.orm.criteria.*;
 import org.mimosaframework.orm.exception.StrategyException;
 import org.mimosaframework.orm.i18n.I18n;
@@ -18,6 +20,8 @@ import org.mimosaframework.orm.strategy.StrategyFactory;
 import org.mimosaframework.orm.transaction.Transaction;
 import org.mimosaframework.orm.utils.AutonomouslyUtils;
 import org.mimosaframework.orm.utils.Clone;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+import org.mimosaframework.orm.utils.ModelObjectToBean;
 import org.mimosaframework.orm.utils.SessionUtils;
 import org.mimosaframework.orm.utils.TypeCorrectUtils;
 
@@ -27,9 +31,14 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.*;
 
-public class DefaultSession implements Session {
+public class DefaultSession implements Session, BeanHandleSession {
     private static final Log logger = LogFactory.getLog(DefaultSession.class);
+    /**
+     * 批量删除时每条IN语句最多的值数量(Oracle限制为1000)
+     */
+    private static final int DELETE_IN_SIZE = 1000;
     private PlatformExecutor executor;
     private UpdateSkipReset updateSkipReset = new UpdateSkiptResetEmpty();
     private Configuration context;
@@ -41,18 +50,44 @@ public class DefaultSession implements Session {
     private SessionContext sessionContext;
     private MappingGlobalWrapper mappingGlobalWrapper;
     private ModelObjectConvertKey convert;
+    /**
+     * 一级缓存，没有开启时为空
+     */
+    private SessionCache cache;
+    /**
+     * 二级缓存，没有开启时为空
+     */
+    private SecondLevelCache secondLevelCache;
+    /**
+     * 当前Session修改过的开启了二级缓存的表和主键，在Session关闭(事务结束)之前
+     * 不使用这些表的二级缓存，关闭时再删除一次避免其他Session放入了未提交之前的旧数据，
+     * 主键集合为null时表示按条件修改过，关闭时清空整个表
+     */
+    private Map<Class, Set<Object>> secondLevelWritten;
 
     public DefaultSession(Configuration context) throws SQLException {
         this(context, MimosaDataSource.DEFAULT_DS_NAME);
     }
 
     public DefaultSession(Configuration context, String dsName) throws SQLException {
+        this(context, dsName, context.getMappingGlobalWrapper());
+    }
+
+    /**
+     * @param mappingGlobalWrapper 分片时使用物理表名替换之后的映射信息
+     */
+    DefaultSession(Configuration context, String dsName, MappingGlobalWrapper mappingGlobalWrapper) throws SQLException {
         this.context = context;
         this.sessionContext = this.context.newSessionContext(dsName, true);
-        this.mappingGlobalWrapper = this.context.getMappingGlobalWrapper();
+        this.mappingGlobalWrapper = mappingGlobalWrapper;
         this.convert = this.context.getModelObjectConvertKey();
-        convert.setMappingGlobalWrapper(mappingGlobalWrapper);
+        // 转换器是共享的，物理表和映射表的字段相同，始终使用全局的映射信息
+        convert.setMappingGlobalWrapper(this.context.getMappingGlobalWrapper());
         executor = PlatformExecutorFactory.getExecutor(mappingGlobalWrapper, sessionContext);
+        if (context.isSessionCache()) {
+            this.cache = new SessionCache();
+        }
+        this.secondLevelCache = context.getSecondLevelCache();
     }
 
     @Override
@@ -96,6 +131,13 @@ public class DefaultSession implements Session {
                 throw new IllegalStateException(I18n.print("add_data_error"), e);
             }
             SessionUtils.applyAutoIncrementValue(mappingTable, id, objSource);
+            if (update) {
+                // 可能更新了已经存在的行，数据库中的值和保存的值不一定相同
+                this.evictCache(mappingTable, obj);
+            } else {
+                SessionUtils.applyAutoIncrementValue(mappingTable, id, obj);
+                this.putCache(mappingTable, obj, true);
+            }
 
             return objSource;
         }
@@ -211,10 +253,30 @@ public class DefaultSession implements Session {
             throw new IllegalStateException(I18n.print("batch_save_data_error"), e);
         }
         SessionUtils.applyAutoIncrementValue(mappingTable, ids, objectSources);
+        for (ModelObject object : saves) {
+            this.putCache(mappingTable, object, true);
+        }
     }
 
     @Override
     public int update(ModelObject obj) {
+        DefaultUpdate update = this.buildUpdate(obj);
+        if (update == null) {
+            return 0;
+        }
+        MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(update.getTableClass());
+        this.evictCache(mappingTable, obj);
+        try {
+            return executor.update(mappingTable, update);
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("update_fail"), e);
+        }
+    }
+
+    /**
+     * @return 只有主键值没有需要更新的值时返回null
+     */
+    private DefaultUpdate buildUpdate(ModelObject obj) {
         if (obj == null || obj.size() == 0) {
             throw new IllegalArgumentException(I18n.print("update_empty"));
         }
@@ -232,7 +294,7 @@ public class DefaultSession implements Session {
         List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
         if (obj.size() - pks.size() <= 0) {
             //如果只有主键值没有需要更新的值就不执行更新操作
-            return 0;
+            return null;
         }
         if (!SessionUtils.checkPrimaryKey(pks, obj)) {
             throw new IllegalArgumentException(I18n.print("update_set_id"));
@@ -240,19 +302,33 @@ public class DefaultSession implements Session {
 
         // 开始类型矫正
         TypeCorrectUtils.correct(obj, mappingTable);
-        try {
-            Update update = SessionUtils.buildUpdateByModel(mappingTable, obj);
-            return executor.update(mappingTable, (DefaultUpdate) update);
-        } catch (SQLException e) {
-            throw new IllegalStateException(I18n.print("update_fail"), e);
-        }
+        return (DefaultUpdate) SessionUtils.buildUpdateByModel(mappingTable, obj);
     }
 
     @Override
     public int update(List<ModelObject> objects) {
-        int i = 0;
+        // 连续的同一个表的数据归为一组，组内更新字段相同的连续数据批量执行，保证按照传入的顺序更新
+        List<List<DefaultUpdate>> groups = new ArrayList<>();
+        List<DefaultUpdate> updates = null;
         for (ModelObject o : objects) {
-            i += this.update(o);
+            DefaultUpdate update = this.buildUpdate(o);
+            if (update != null) {
+                if (updates == null || updates.get(0).getTableClass() != update.getTableClass()) {
+                    updates = new ArrayList<>();
+                    groups.add(updates);
+                }
+                updates.add(update);
+                this.evictCache(this.mappingGlobalWrapper.getMappingTable(update.getTableClass()), o);
+            }
+        }
+
+        int i = 0;
+        try {
+            for (List<DefaultUpdate> group : groups) {
+                i += executor.updates(this.mappingGlobalWrapper.getMappingTable(group.get(0).getTableClass()), group);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("update_fail"), e);
         }
         return i;
     }
@@ -267,6 +343,7 @@ public class DefaultSession implements Session {
         MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(c);
         AssistUtils.isNull(mappingTable, I18n.print("not_found_mapping", c.getName()));
 
+        this.evictCache(mappingTable);
         Integer count = 0;
         try {
             count = executor.update(mappingTable, u);
@@ -288,6 +365,7 @@ public class DefaultSession implements Session {
             throw new IllegalArgumentException(I18n.print("delete_id"));
         }
 
+        this.evictCache(mappingTable, obj);
         try {
             Delete delete = SessionUtils.buildDeleteByModel(mappingTable, obj);
             return executor.delete(mappingTable, (DefaultDelete) delete);
@@ -298,9 +376,51 @@ public class DefaultSession implements Session {
 
     @Override
     public int delete(List<ModelObject> objects) {
-        int i = 0;
+        // 连续的同一个表的数据归为一组，不同表之间保持传入的顺序(比如先删除子表数据再删除主表数据)
+        List<List<ModelObject>> groups = new ArrayList<>();
+        List<ModelObject> group = null;
         for (ModelObject o : objects) {
-            i += this.delete(o);
+            Class c = o.getObjectClass();
+            MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(c);
+            AssistUtils.isNull(mappingTable, I18n.print("not_found_mapping", c == null ? null : c.getName()));
+            if (!SessionUtils.checkPrimaryKey(mappingTable.getMappingPrimaryKeyFields(), o)) {
+                throw new IllegalArgumentException(I18n.print("delete_id"));
+            }
+            if (group == null || group.get(0).getObjectClass() != c) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(o);
+            this.evictCache(mappingTable, o);
+        }
+
+        int i = 0;
+        try {
+            for (List<ModelObject> list : groups) {
+                Class c = list.get(0).getObjectClass();
+                MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(c);
+                List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
+                List<DefaultDelete> deletes = new ArrayList<>();
+                if (pks.size() == 1) {
+                    // 单主键的表合并成 IN (...) 语句，每条语句的值数量不超过数据库的限制
+                    String pk = pks.get(0).getMappingFieldName();
+                    for (int start = 0; start < list.size(); start += DELETE_IN_SIZE) {
+                        List<ModelObject> chunk = list.subList(start, Math.min(start + DELETE_IN_SIZE, list.size()));
+                        List<Object> ids = new ArrayList<>(chunk.size());
+                        for (ModelObject o : chunk) {
+                            ids.add(o.get(pk));
+                        }
+                        deletes.add((DefaultDelete) new DefaultDelete(c).in(pk, ids));
+                    }
+                } else {
+                    for (ModelObject o : list) {
+                        deletes.add((DefaultDelete) SessionUtils.buildDeleteByModel(mappingTable, o));
+                    }
+                }
+                i += executor.deletes(mappingTable, deletes);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("delete_fail"), e);
         }
         return i;
     }
@@ -316,6 +436,7 @@ public class DefaultSession implements Session {
         MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(c);
         AssistUtils.isNull(mappingTable, I18n.print("not_found_mapping", c.getName()));
 
+        this.evictCache(mappingTable);
         try {
             return executor.delete(mappingTable, d);
         } catch (SQLException e) {
@@ -349,6 +470,21 @@ public class DefaultSession implements Session {
             throw new IllegalArgumentException(I18n.print("query_only_pk", c.getSimpleName(), "" + pks.size()));
         }
 
+        if (cache != null) {
+            ModelObject cached = cache.get(mappingTable.getMappingClass(), id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        TableCache tableCache = this.getTableCache(mappingTable);
+        if (tableCache != null) {
+            ModelObject cached = tableCache.get(id);
+            if (cached != null) {
+                this.putCache(mappingTable, cached, false);
+                return cached;
+            }
+        }
+
         Query query = new DefaultQuery(c);
         query.eq(pks.get(0).getMappingFieldName(), id);
         List results = this.list(query);
@@ -377,6 +513,124 @@ public class DefaultSession implements Session {
     @Override
     public List<ModelObject> list(Query query) {
         DefaultQuery dq = (DefaultQuery) query;
+        this.checkListQuery(dq);
+
+        boolean fullRow = this.isFullRowQuery(dq);
+        MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(dq.getTableClass());
+        // 从库可能还没有同步最新的数据，只有读取主库的结果放入二级缓存
+        TableCache tableCache = fullRow && executor.isReadMaster(dq) ? this.getTableCache(mappingTable) : null;
+        // 查询之前获取版本号，查询期间缓存被清除过就不放入查询结果
+        long version = tableCache != null ? tableCache.getVersion() : 0;
+
+        List<ModelObject> objects = null;
+        try {
+            objects = executor.select(dq, convert);
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("get_data_fail"), e);
+        }
+        if (fullRow && objects != null && objects.size() > 0) {
+            for (ModelObject object : objects) {
+                this.putCache(mappingTable, object, false);
+                if (tableCache != null) {
+                    tableCache.put(object.get(mappingTable.getMappingPrimaryKeyFields().get(0).getMappingFieldName()),
+                            object, version);
+                }
+            }
+        }
+
+        return objects;
+    }
+
+    @Override
+    public <T> List<T> list(Query query, Class<T> c, Model2BeanFactory factory) {
+        DefaultQuery dq = (DefaultQuery) query;
+        Set<Join> joins = dq.getJoins();
+        // 自定义的转换方式仍然先生成ModelObject
+        if ((joins != null && joins.size() > 0) || factory == null || factory.getClass() != ModelObjectToBean.class) {
+            List<ModelObject> objects = this.list(query);
+            if (objects == null || objects.size() == 0) {
+                return null;
+            }
+            List<T> beans = new ArrayList<>(objects.size());
+            for (ModelObject object : objects) {
+                beans.add(factory.toJavaObject(object, c));
+            }
+            return beans;
+        }
+
+        this.checkListQuery(dq);
+        List<T> beans = null;
+        try {
+            beans = executor.select(dq, ((ModelObjectToBean) factory).getResultRowMapper(c, dq.getTableClass(), convert));
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("get_data_fail"), e);
+        }
+        if (beans == null || beans.size() == 0) {
+            return null;
+        }
+        return beans;
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query) {
+        return this.stream(query, Cursor.DEFAULT_FETCH_SIZE);
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query, int fetchSize) {
+        return this.stream((DefaultQuery) query, null, fetchSize);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, final Class<T> c, final Model2BeanFactory factory, int fetchSize) {
+        DefaultQuery dq = (DefaultQuery) query;
+        if (factory != null && factory.getClass() == ModelObjectToBean.class) {
+            return this.stream(dq, ((ModelObjectToBean) factory).getResultRowMapper(c, dq.getTableClass(), convert), fetchSize);
+        }
+        // 自定义的转换方式每一行仍然先生成ModelObject
+        final Cursor<ModelObject> cursor = this.stream(dq, null, fetchSize);
+        return new Cursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return factory.toJavaObject(cursor.next(), c);
+            }
+
+            @Override
+            public void remove() {
+                cursor.remove();
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+                cursor.close();
+            }
+        };
+    }
+
+    private <T> Cursor<T> stream(DefaultQuery dq, ResultRowMapper<T> rowMapper, int fetchSize) {
+        Set<Join> joins = dq.getJoins();
+        if (joins != null && joins.size() > 0) {
+            throw new IllegalArgumentException(I18n.print("stream_not_support_join"));
+        }
+        this.checkListQuery(dq);
+        try {
+            return executor.stream(dq, convert, rowMapper, fetchSize);
+        } catch (SQLException e) {
+            throw new IllegalStateException(I18n.print("get_data_fail"), e);
+        }
+    }
+
+    private void checkListQuery(DefaultQuery dq) {
         dq.checkQuery();
         sessionContext.setMaster(dq.isMaster());
         sessionContext.setSlaveName(dq.getSlaveName());
@@ -394,27 +648,21 @@ public class DefaultSession implements Session {
                 throw new IllegalArgumentException(I18n.print("for_update_limit_fail"));
             }
         }
-
-        List<ModelObject> objects = null;
-        try {
-            objects = executor.select(dq, convert);
-        } catch (SQLException e) {
-            throw new IllegalStateException(I18n.print("get_data_fail"), e);
-        }
-
-        return objects;
     }
 
     @Override
     public long count(Query query) {
-        DefaultQuery dq = (DefaultQuery) query;
+        return this.count((DefaultQuery) query, null);
+    }
+
+    private long count(DefaultQuery dq, CountCache countCache) {
         dq.checkQuery();
         sessionContext.setMaster(dq.isMaster());
         sessionContext.setSlaveName(dq.getSlaveName());
 
         long count = 0;
         try {
-            count = executor.count(dq);
+            count = executor.count(dq, countCache);
         } catch (SQLException e) {
             throw new IllegalStateException(I18n.print("get_data_count_fail"), e);
         }
@@ -424,11 +672,66 @@ public class DefaultSession implements Session {
 
     @Override
     public Paging<ModelObject> paging(Query query) {
+        return this.doPaging((DefaultQuery) query, null, null);
+    }
+
+    @Override
+    public <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory factory) {
+        return this.doPaging((DefaultQuery) query, c, factory);
+    }
+
+    /**
+     * 从库上的查询如果配置了线程池，count使用单独的连接和list并行执行
+     *
+     * @param c 为空时返回ModelObject
+     */
+    private Paging doPaging(final DefaultQuery dq, Class c, Model2BeanFactory factory) {
         Paging paging = new Paging();
-        long count = this.count(query);
-        List<ModelObject> objects = this.list(query);
-        paging.setCount(count);
-        paging.setObjects(objects);
+        if (dq.isWithoutCount()) {
+            paging.setCount(-1);
+            paging.setObjects(c == null ? this.list(dq) : this.list(dq, c, factory));
+            return paging;
+        }
+
+        final CountCache countCache = this.context.getCountCache();
+        ExecutorService pagingExecutor = this.context.getPagingExecutor();
+        Future<Long> future = null;
+        if (pagingExecutor != null && !executor.isReadMaster(dq) && !dq.isForUpdate()) {
+            dq.checkQuery();
+            // 使用独立的SessionContext避免和当前Session互相修改主从设置
+            final PlatformExecutor countExecutor = PlatformExecutorFactory.getExecutor(mappingGlobalWrapper,
+                    sessionContext.newSessionContext());
+            try {
+                future = pagingExecutor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        return countExecutor.count(dq, countCache);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn(I18n.print("paging_executor_rejected"));
+            }
+        }
+        if (future == null) {
+            paging.setCount(this.count(dq, countCache));
+            paging.setObjects(c == null ? this.list(dq) : this.list(dq, c, factory));
+            return paging;
+        }
+
+        try {
+            paging.setObjects(c == null ? this.list(dq) : this.list(dq, c, factory));
+        } catch (RuntimeException e) {
+            future.cancel(true);
+            throw e;
+        }
+        try {
+            paging.setCount(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(I18n.print("get_data_count_fail"), e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(I18n.print("get_data_count_fail"), e.getCause());
+        }
         return paging;
     }
 
@@ -504,12 +807,19 @@ public class DefaultSession implements Session {
 
     @Override
     public AutoResult getAutonomously(SQLAutonomously autonomously) throws Exception {
+        // 无法知道原生SQL修改了哪些表，直接清空一级缓存
+        if (cache != null) cache.clear();
         String sql = autonomously.getSql();
         UnifyBuilder builder = autonomously.getBuilder();
 
         boolean isMaster = autonomously.isMaster();
         String slaveName = autonomously.getSlaveName();
 
+        List<SQLAutonomously.LinkAutonomously> links = autonomously.getDataSourceLinks();
+        if (StringTools.isEmpty(sql) && builder == null && links != null && links.size() > 0) {
+            return this.executeLinks(autonomously, links);
+        }
+
         if (StringTools.isEmpty(sql) && builder != null) {
             List<SQLAutonomously.LinkAutonomously> ds = autonomously.getDataSourceLinks();
             if (ds != null && ds.size() > 0) {
@@ -527,42 +837,201 @@ public class DefaultSession implements Session {
                 Object r = executor.dialect(builder.compile());
                 return new AutoResult(r);
             } else {
-                StringBuilder key = new StringBuilder();
-                StringBuilder newSql = new StringBuilder();
-                boolean start = false;
-                List<SQLDataPlaceholder> list = null;
-                ModelObject parameter = autonomously.getParameter();
-                for (int i = 0; i < sql.length(); i++) {
-                    if (list == null) list = new ArrayList<>();
-                    char c = sql.charAt(i);
-                    if (start) {
-                        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c >= '0' && c <= '9'
-                                || c == '#' || c == '$') {
-                            key.append(c);
-                        } else {
-                            start = false;
-
-                            this.buildNewSql(key, parameter, list, newSql);
-                            key = new StringBuilder();
+                Object object = executor.original(this.parseSql(sql, autonomously.getParameter()));
+                Map<String, Object> result = new LinkedHashMap<>(1);
+                result.put(MimosaDataSource.DEFAULT_DS_NAME, object);
+                return new AutoResult(mappingGlobalWrapper, convert, result);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把SQL语句中的 :name 替换成占位符
+     */
+    private JDBCTraversing parseSql(String sql, ModelObject parameter) {
+        StringBuilder key = new StringBuilder();
+        StringBuilder newSql = new StringBuilder();
+        boolean start = false;
+        List<SQLDataPlaceholder> list = null;
+        for (int i = 0; i < sql.length(); i++) {
+            if (list == null) list = new ArrayList<>();
+            char c = sql.charAt(i);
+            if (start) {
+                if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c >= '0' && c <= '9'
+                        || c == '#' || c == '$') {
+                    key.append(c);
+                } else {
+                    start = false;
+
+                    this.buildNewSql(key, parameter, list, newSql);
+                    key = new StringBuilder();
+                }
+            }
+            if (c == ':') {
+                start = true;
+            } else if (start == false) {
+                newSql.append(c);
+            }
+        }
+        this.buildNewSql(key, parameter, list, newSql);
+
+        JDBCTraversing jdbcTraversing = new JDBCTraversing(newSql.toString());
+        jdbcTraversing.setSqlDataPlaceholders(list);
+        return jdbcTraversing;
+    }
+
+    /**
+     * 每个数据源的SQL语句在线程池中并行执行，当前Session所在数据源的语句在当前线程执行(可以使用当前的事务)，
+     * 结果按照执行完成的顺序放入，同一个数据源有多条语句时之后的结果使用 数据源名称#序号 作为名称
+     */
+    private AutoResult executeLinks(SQLAutonomously autonomously,
+                                    List<SQLAutonomously.LinkAutonomously> links) throws Exception {
+        final ModelObject parameter = autonomously.getParameter();
+        ExecutorService linkExecutor = this.context.getLinkExecutor();
+        String current = this.sessionContext.getDataSource().getName();
+
+        List<String> names = new ArrayList<>(links.size());
+        Set<String> used = new HashSet<>();
+        for (SQLAutonomously.LinkAutonomously link : links) {
+            String name = link.getDataSourceName();
+            for (int i = 2; !used.add(name); i++) {
+                name = link.getDataSourceName() + "#" + i;
+            }
+            names.add(name);
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>(links.size() * 2);
+        Map<String, Exception> errors = new LinkedHashMap<>();
+        CompletionService<Object> completion = null;
+        Map<Future<Object>, Integer> futures = new HashMap<>();
+        long[] deadlines = new long[links.size()];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < links.size(); i++) {
+            final SQLAutonomously.LinkAutonomously link = links.get(i);
+            final long timeout = link.getTimeout() > 0 ? link.getTimeout() : autonomously.getTimeout();
+            deadlines[i] = timeout > 0 ? now + timeout : Long.MAX_VALUE;
+            if (linkExecutor == null || link.getDataSourceName().equals(current)) {
+                continue;
+            }
+            if (completion == null) completion = new ExecutorCompletionService<>(linkExecutor);
+            try {
+                futures.put(completion.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        SessionContext linkContext = context.newSessionContext(link.getDataSourceName(), false);
+                        try {
+                            return executeLink(linkContext, link, parameter, timeout);
+                        } finally {
+                            linkContext.getTransaction().close();
                         }
                     }
-                    if (c == ':') {
-                        start = true;
-                    } else if (start == false) {
-                        newSql.append(c);
+                }), i);
+            } catch (RejectedExecutionException e) {
+                // 线程池已经关闭时在当前线程执行
+                logger.warn(I18n.print("link_executor_rejected"));
+            }
+        }
+
+        for (int i = 0; i < links.size(); i++) {
+            if (futures.containsValue(i)) continue;
+            SQLAutonomously.LinkAutonomously link = links.get(i);
+            long timeout = link.getTimeout() > 0 ? link.getTimeout() : autonomously.getTimeout();
+            try {
+                if (link.getDataSourceName().equals(current)) {
+                    results.put(names.get(i), this.executeLink(this.sessionContext, link, parameter, timeout));
+                } else {
+                    SessionContext linkContext = this.context.newSessionContext(link.getDataSourceName(), false);
+                    try {
+                        results.put(names.get(i), this.executeLink(linkContext, link, parameter, timeout));
+                    } finally {
+                        linkContext.getTransaction().close();
                     }
                 }
-                this.buildNewSql(key, parameter, list, newSql);
+            } catch (Exception e) {
+                this.linkFailed(autonomously, futures, errors, names.get(i), e);
+            }
+        }
 
-                JDBCTraversing jdbcTraversing = new JDBCTraversing(newSql.toString());
-                jdbcTraversing.setSqlDataPlaceholders(list);
-                Object object = executor.original(jdbcTraversing);
-                Map<String, Object> result = new LinkedHashMap<>(1);
-                result.put(MimosaDataSource.DEFAULT_DS_NAME, object);
-                return new AutoResult(mappingGlobalWrapper, convert, result);
+        try {
+            while (futures.size() > 0) {
+                long deadline = Long.MAX_VALUE;
+                for (Integer index : futures.values()) {
+                    deadline = Math.min(deadline, deadlines[index]);
+                }
+                Future<Object> future = deadline == Long.MAX_VALUE ? completion.take()
+                        : completion.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    // 到达超时时间的语句取消执行
+                    long time = System.currentTimeMillis();
+                    Iterator<Map.Entry<Future<Object>, Integer>> iterator = futures.entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<Future<Object>, Integer> entry = iterator.next();
+                        int index = entry.getKey().isDone() ? -1 : entry.getValue();
+                        if (index >= 0 && deadlines[index] <= time) {
+                            iterator.remove();
+                            entry.getKey().cancel(true);
+                            this.linkFailed(autonomously, futures, errors, names.get(index),
+                                    new TimeoutException(I18n.print("link_timeout", names.get(index))));
+                        }
+                    }
+                    continue;
+                }
+                Integer index = futures.remove(future);
+                if (index == null) continue;
+                try {
+                    results.put(names.get(index), future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    this.linkFailed(autonomously, futures, errors, names.get(index),
+                            cause instanceof Exception ? (Exception) cause : e);
+                }
             }
+        } catch (InterruptedException e) {
+            for (Future<Object> future : futures.keySet()) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw e;
         }
-        return null;
+
+        AutoResult result = new AutoResult(mappingGlobalWrapper, convert, results);
+        if (errors.size() > 0) result.setErrors(errors);
+        return result;
+    }
+
+    private Object executeLink(SessionContext linkContext, SQLAutonomously.LinkAutonomously link,
+                               ModelObject parameter, long timeout) throws SQLException {
+        linkContext.setMaster(link.isMaster());
+        linkContext.setSlaveName(link.getSlaveDataSourceName());
+        PlatformExecutor linkExecutor = linkContext == this.sessionContext ? this.executor
+                : PlatformExecutorFactory.getExecutor(mappingGlobalWrapper, linkContext);
+        if (link.getBuilder() != null) {
+            return linkExecutor.dialect(link.getBuilder().compile());
+        }
+        JDBCTraversing traversing = this.parseSql(link.getSql(), parameter);
+        traversing.setQueryTimeout(timeout);
+        return linkExecutor.original(traversing);
+    }
+
+    /**
+     * 不允许部分失败时取消其他还在执行的语句并抛出异常
+     */
+    private void linkFailed(SQLAutonomously autonomously, Map<Future<Object>, Integer> futures,
+                            Map<String, Exception> errors, String name, Exception e) throws Exception {
+        if (autonomously.isAllowPartial()) {
+            logger.warn(I18n.print("link_fail", name), e);
+            errors.put(name, e);
+            return;
+        }
+        for (Future<Object> future : futures.keySet()) {
+            future.cancel(true);
+        }
+        futures.clear();
+        if (e instanceof TimeoutException) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        throw e;
     }
 
     protected void buildNewSql(StringBuilder key,
@@ -605,6 +1074,7 @@ public class DefaultSession implements Session {
 
     @Override
     public AutoResult getAutonomously(TAutonomously autonomously) throws Exception {
+        if (cache != null) cache.clear();
         SQLDefinedLoader definedLoader = this.context.getDefinedLoader();
         if (definedLoader != null) {
             JDBCTraversing structure = AutonomouslyUtils.parseStructure(definedLoader,
@@ -652,8 +1122,117 @@ public class DefaultSession implements Session {
         return names;
     }
 
+    /**
+     * 没有关联查询也没有指定字段的查询返回的是完整的行，可以放入一级缓存
+     */
+    private boolean isFullRowQuery(DefaultQuery dq) {
+        return (dq.getJoins() == null || dq.getJoins().size() == 0)
+                && (dq.getFields() == null || dq.getFields().size() == 0)
+                && (dq.getExcludes() == null || dq.getExcludes().size() == 0);
+    }
+
+    /**
+     * @param checkFull 保存的数据可能缺少有默认值的字段，只有包含所有字段时才放入缓存
+     */
+    private void putCache(MappingTable mappingTable, ModelObject obj, boolean checkFull) {
+        if (cache == null || mappingTable == null) return;
+        List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
+        if (pks == null || pks.size() != 1) return;
+        Object id = obj.get(pks.get(0).getMappingFieldName());
+        if (checkFull) {
+            for (MappingField field : mappingTable.getMappingFields()) {
+                if (!obj.containsKey(field.getMappingFieldName())) {
+                    cache.evict(mappingTable.getMappingClass(), id);
+                    return;
+                }
+            }
+        }
+        cache.put(mappingTable.getMappingClass(), id, obj);
+    }
+
+    private void evictCache(MappingTable mappingTable, ModelObject obj) {
+        if (mappingTable == null) return;
+        List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
+        if (pks == null || pks.size() != 1) {
+            this.evictCache(mappingTable);
+            return;
+        }
+        Object id = obj.get(pks.get(0).getMappingFieldName());
+        if (cache != null) cache.evict(mappingTable.getMappingClass(), id);
+        TableCache tableCache = this.writeTableCache(mappingTable, id);
+        if (tableCache != null) tableCache.evict(id);
+    }
+
+    private void evictCache(MappingTable mappingTable) {
+        if (cache != null) cache.evict(mappingTable.getMappingClass());
+        TableCache tableCache = this.writeTableCache(mappingTable, null);
+        if (tableCache != null) tableCache.clear();
+    }
+
+    /**
+     * 读取时使用的二级缓存，当前Session修改过的表不使用二级缓存
+     */
+    private TableCache getTableCache(MappingTable mappingTable) {
+        if (secondLevelCache == null || mappingTable == null) return null;
+        if (secondLevelWritten != null && secondLevelWritten.containsKey(mappingTable.getMappingClass())) {
+            return null;
+        }
+        return secondLevelCache.getTableCache(mappingTable);
+    }
+
+    /**
+     * 修改数据时使用的二级缓存，同时记录修改过的表和主键
+     *
+     * @param id 修改的主键，按条件修改时为null
+     */
+    private TableCache writeTableCache(MappingTable mappingTable, Object id) {
+        if (secondLevelCache == null) return null;
+        TableCache tableCache = secondLevelCache.getTableCache(mappingTable);
+        if (tableCache != null) {
+            if (secondLevelWritten == null) secondLevelWritten = new HashMap<>();
+            Class c = mappingTable.getMappingClass();
+            Set<Object> ids = secondLevelWritten.get(c);
+            if (id == null) {
+                secondLevelWritten.put(c, null);
+            } else if (ids != null || !secondLevelWritten.containsKey(c)) {
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    secondLevelWritten.put(c, ids);
+                }
+                ids.add(id);
+            }
+        }
+        return tableCache;
+    }
+
+    /**
+     * 分库分表合并结果时需要和数据库相同的排序规则
+     */
+    PlatformDialect getDialect() {
+        return sessionContext.getDataSource().getDialect();
+    }
+
+    /**
+     * 显式事务需要直接控制当前Session的事务
+     */
+    Transaction getTransaction() {
+        return this.sessionContext.getTransaction();
+    }
+
     @Override
     public void close() throws IOException {
+        if (cache != null) cache.clear();
+        if (secondLevelWritten != null) {
+            for (Map.Entry<Class, Set<Object>> entry : secondLevelWritten.entrySet()) {
+                if (entry.getValue() == null) {
+                    secondLevelCache.clear(entry.getKey());
+                } else {
+                    secondLevelCache.evict(entry.getKey(), entry.getValue());
+                }
+            }
+            secondLevelWritten = null;
+        }
+        sessionContext.evictWrittenResults();
         try {
             Transaction transaction = this.sessionContext.getTransaction();
             if (transaction != null) {
@@ -5,6 +5,7 @@ import org.mimosaframework.orm.criteria.Delete;
 import org.mimosaframework.orm.criteria.Function;
 import org.mimosaframework.orm.criteria.Query;
 import org.mimosaframework.orm.criteria.Update;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
 
 import java.io.Closeable;
 import java.io.Serializable;
@@ -38,6 +39,36 @@ public interface HandleSession extends Closeable {
 
     List<ModelObject> list(Query query);
 
+    /**
+     * 流式查询，结果集按需逐批读取，不会一次把所有数据读入内存
+     * 游标使用单独的数据库连接，读取完成后自动关闭，没有读取完成时需要手动关闭，
+     * 不支持join查询
+     *
+     * @param query 查询条件
+     * @return 游标
+     */
+    Cursor<ModelObject> stream(Query query);
+
+    /**
+     * @param query     查询条件
+     * @param fetchSize 每次从数据库读取的行数
+     * @return 游标
+     * @see #stream(Query)
+     */
+    Cursor<ModelObject> stream(Query query, int fetchSize);
+
+    /**
+     * 流式查询并转换成对象
+     *
+     * @param query     查询条件
+     * @param c         转换的对象类型
+     * @param factory   对象的转换方式
+     * @param fetchSize 每次从数据库读取的行数
+     * @return 游标
+     * @see #stream(Query)
+     */
+    <T> Cursor<T> stream(Query query, Class<T> c, Model2BeanFactory factory, int fetchSize);
+
     long count(Query query);
 
     Paging<ModelObject> paging(Query query);
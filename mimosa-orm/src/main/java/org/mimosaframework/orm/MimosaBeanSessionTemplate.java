@@ -247,8 +247,24 @@ public class MimosaBeanSessionTemplate implements BeanSessionTemplate {
         return null;
     }
 
+    @Override
+    public <T> Cursor<T> stream(Query query) {
+        return this.stream(query, Cursor.DEFAULT_FETCH_SIZE);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, int fetchSize) {
+        DefaultQuery defaultQuery = (DefaultQuery) query;
+        return (Cursor<T>) modelSession.stream(query, defaultQuery.getTableClass(), model2BeanFactory, fetchSize);
+    }
+
     @Override
     public <T> List<T> list(Query query) {
+        DefaultQuery defaultQuery = (DefaultQuery) query;
+        Set<Join> joins = defaultQuery.getJoins();
+        if (joins == null || joins.size() == 0) {
+            return (List<T>) modelSession.list(query, defaultQuery.getTableClass(), model2BeanFactory);
+        }
         List<ModelObject> results = modelSession.list(query);
         if (results != null && results.size() > 0) {
             List<T> r = this.model2JavaObject(query, results);
@@ -264,6 +280,11 @@ public class MimosaBeanSessionTemplate implements BeanSessionTemplate {
 
     @Override
     public <T> Paging<T> paging(Query query) {
+        DefaultQuery defaultQuery = (DefaultQuery) query;
+        Set<Join> joins = defaultQuery.getJoins();
+        if (joins == null || joins.size() == 0) {
+            return (Paging<T>) modelSession.paging(query, defaultQuery.getTableClass(), model2BeanFactory);
+        }
         Paging paging = modelSession.paging(query);
         List<ModelObject> results = paging.getObjects();
         if (results != null && results.size() > 0) {
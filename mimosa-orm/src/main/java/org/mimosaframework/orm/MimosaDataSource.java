@@ -3,7 +3,12 @@ package org.mimosaframework.orm;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.mimosaframework.core.utils.StringTools;
+import org.mimosaframework.orm.balance.SlaveBalancer;
+import org.mimosaframework.orm.balance.SlaveSelector;
+import org.mimosaframework.orm.balance.SlaveStats;
 import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.platform.PlatformDialect;
+import org.mimosaframework.orm.platform.PlatformFactory;
 import org.mimosaframework.orm.utils.DatabaseType;
 import org.mimosaframework.orm.utils.SQLUtils;
 
@@ -23,6 +28,16 @@ public class MimosaDataSource implements Closeable {
     private Map<String, DataSource> slaves;
     private DatabaseType databaseTypeEnum;
     private String destroyMethod; // 连接池关闭方法
+    private SlaveBalancer slaveBalancer;
+    private Map<String, Integer> slaveWeights;
+    // 连续获取连接失败多少次后熔断从库
+    private int slaveFailureThreshold = 3;
+    private long slaveBreakMillis = 30000;
+    private volatile SlaveSelector slaveSelector;
+    /**
+     * 所有Session共用的方言，只用来判断数据库的特性
+     */
+    private volatile PlatformDialect dialect;
 
     public static final String DEFAULT_DS_NAME = "default";
 
@@ -32,6 +47,7 @@ public class MimosaDataSource implements Closeable {
     private void loadDatabaseType() throws SQLException {
         if (master != null) {
             this.databaseTypeEnum = SQLUtils.getDatabaseType(master);
+            this.dialect = null;
         }
     }
 
@@ -71,6 +87,7 @@ public class MimosaDataSource implements Closeable {
 
     public void setSlaves(Map<String, DataSource> slaves) {
         this.slaves = slaves;
+        this.slaveSelector = null;
     }
 
     public Map<String, DataSource> getSlaves() {
@@ -80,12 +97,25 @@ public class MimosaDataSource implements Closeable {
         return null;
     }
 
+    private SlaveSelector getSlaveSelector() {
+        SlaveSelector selector = this.slaveSelector;
+        if (selector == null && slaves != null) {
+            selector = new SlaveSelector(slaves, slaveWeights, slaveBalancer,
+                    slaveFailureThreshold, slaveBreakMillis);
+            this.slaveSelector = selector;
+        }
+        return selector;
+    }
+
+    /**
+     * 按照负载均衡策略选择从库，名称保持兼容
+     * <p>
+     * 返回的数据源每次获取连接时重新选择从库并记录统计，所有从库都不可用时使用主库
+     */
     public DataSource randomSlave(boolean isIgnoreEmptySlave) {
-        if (slaves != null && slaves.size() > 0) {
-            int max = slaves.size() - 1;
-            int min = 0;
-            int s = (int) Math.round(Math.random() * (max - min) + min);
-            return slaves.get(s);
+        SlaveSelector selector = this.getSlaveSelector();
+        if (selector != null && !selector.isEmpty()) {
+            return selector.getDataSource(null, this.getMaster());
         } else {
             if (isIgnoreEmptySlave) {
                 if (logger.isWarnEnabled()) {
@@ -112,8 +142,12 @@ public class MimosaDataSource implements Closeable {
         } else {
             if (this.slaves != null) {
                 if (StringTools.isNotEmpty(name)) {
-                    DataSource dataSource = this.slaves.get(name);
-                    if (isIgnoreEmptySlave && dataSource == null && slaves != null && slaves.size() > 0) {
+                    SlaveSelector selector = this.getSlaveSelector();
+                    SlaveStats stats = selector.get(name);
+                    if (stats != null) {
+                        return selector.getDataSource(stats, null);
+                    }
+                    if (isIgnoreEmptySlave && slaves.size() > 0) {
                         return this.randomSlave(true);
                     } else {
                         if (!isIgnoreEmptySlave) {
@@ -149,11 +183,72 @@ public class MimosaDataSource implements Closeable {
             ds = this.getDataSource(true);
             return MimosaConnection.getConnection(ds);
         } else {
+            SlaveSelector selector = this.getSlaveSelector();
+            if (selector != null && !selector.isEmpty()) {
+                if (StringTools.isNotEmpty(slaveName)) {
+                    SlaveStats stats = selector.get(slaveName);
+                    if (stats != null) {
+                        return selector.getConnection(stats, null);
+                    }
+                    if (!isIgnoreEmptySlave) {
+                        throw new IllegalArgumentException(I18n.print("not_found_slave_config", slaveName, slaveName));
+                    }
+                }
+                // 所有从库都不可用时回到主库读取
+                return selector.getConnection(null, this.getMaster());
+            }
             ds = this.getSalveDataSource(slaveName, isIgnoreEmptySlave);
             return MimosaConnection.getConnection(ds);
         }
     }
 
+    /**
+     * @return 每个从库的统计，没有从库时返回空
+     */
+    public List<SlaveStats> getSlaveStats() {
+        SlaveSelector selector = this.getSlaveSelector();
+        if (selector != null) {
+            return selector.getStats();
+        }
+        return Collections.emptyList();
+    }
+
+    public SlaveBalancer getSlaveBalancer() {
+        return slaveBalancer;
+    }
+
+    public void setSlaveBalancer(SlaveBalancer slaveBalancer) {
+        this.slaveBalancer = slaveBalancer;
+        this.slaveSelector = null;
+    }
+
+    public Map<String, Integer> getSlaveWeights() {
+        return slaveWeights;
+    }
+
+    public void setSlaveWeights(Map<String, Integer> slaveWeights) {
+        this.slaveWeights = slaveWeights;
+        this.slaveSelector = null;
+    }
+
+    public int getSlaveFailureThreshold() {
+        return slaveFailureThreshold;
+    }
+
+    public void setSlaveFailureThreshold(int slaveFailureThreshold) {
+        this.slaveFailureThreshold = slaveFailureThreshold;
+        this.slaveSelector = null;
+    }
+
+    public long getSlaveBreakMillis() {
+        return slaveBreakMillis;
+    }
+
+    public void setSlaveBreakMillis(long slaveBreakMillis) {
+        this.slaveBreakMillis = slaveBreakMillis;
+        this.slaveSelector = null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof MimosaDataSource) {
@@ -188,6 +283,21 @@ public class MimosaDataSource implements Closeable {
         return databaseTypeEnum;
     }
 
+    /**
+     * 数据源共用的方言，没有绑定Session只能用来判断数据库的特性(比如是否支持返回主键)，
+     * 生成SQL和执行DDL需要使用Session自己的方言
+     *
+     * @return 不支持的数据库返回null
+     */
+    public PlatformDialect getDialect() {
+        PlatformDialect dialect = this.dialect;
+        if (dialect == null && databaseTypeEnum != null) {
+            dialect = PlatformFactory.getDialect(databaseTypeEnum);
+            this.dialect = dialect;
+        }
+        return dialect;
+    }
+
     public boolean hasMaster() {
         return this.master == null ? false : true;
     }
@@ -206,6 +316,13 @@ public class MimosaDataSource implements Closeable {
         ds.master = master;
         ds.slaves = slaves;
         ds.databaseTypeEnum = databaseTypeEnum;
+        ds.dialect = dialect;
+        ds.slaveBalancer = slaveBalancer;
+        ds.slaveWeights = slaveWeights;
+        ds.slaveFailureThreshold = slaveFailureThreshold;
+        ds.slaveBreakMillis = slaveBreakMillis;
+        // 共享从库的统计
+        ds.slaveSelector = slaveSelector;
         return ds;
     }
 
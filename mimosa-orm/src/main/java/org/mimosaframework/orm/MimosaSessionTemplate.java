@@ -5,6 +5,7 @@ import org.mimosaframework.core.utils.AssistUtils;
 import org.mimosaframework.orm.criteria.*;
 import org.mimosaframework.orm.i18n.I18n;
 import org.mimosaframework.orm.transaction.*;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -16,7 +17,7 @@ import java.util.Set;
 
 import static java.lang.reflect.Proxy.newProxyInstance;
 
-public class MimosaSessionTemplate implements SessionTemplate {
+public class MimosaSessionTemplate implements SessionTemplate, BeanHandleSession {
     private SessionFactory sessionFactory;
     private final Session sessionAgency;
 
@@ -32,7 +33,7 @@ public class MimosaSessionTemplate implements SessionTemplate {
         SessionInterceptor sessionInterceptor = new SessionInterceptor();
         this.sessionAgency = (Session) newProxyInstance(
                 Session.class.getClassLoader(),
-                new Class[]{Session.class}, sessionInterceptor);
+                new Class[]{Session.class, BeanHandleSession.class}, sessionInterceptor);
     }
 
     public MimosaSessionTemplate(SessionFactory sessionFactory) {
@@ -108,6 +109,30 @@ public class MimosaSessionTemplate implements SessionTemplate {
         return this.sessionAgency.list(query);
     }
 
+    @Override
+    public <T> List<T> list(Query query, Class<T> c, Model2BeanFactory factory) {
+        this.checkAllowInnerJoin(query);
+        return ((BeanHandleSession) this.sessionAgency).list(query, c, factory);
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query) {
+        this.checkAllowInnerJoin(query);
+        return this.sessionAgency.stream(query);
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query, int fetchSize) {
+        this.checkAllowInnerJoin(query);
+        return this.sessionAgency.stream(query, fetchSize);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, Class<T> c, Model2BeanFactory factory, int fetchSize) {
+        this.checkAllowInnerJoin(query);
+        return this.sessionAgency.stream(query, c, factory, fetchSize);
+    }
+
     @Override
     public long count(Query query) {
         this.checkAllowInnerJoin(query);
@@ -120,6 +145,12 @@ public class MimosaSessionTemplate implements SessionTemplate {
         return this.sessionAgency.paging(query);
     }
 
+    @Override
+    public <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory factory) {
+        this.checkAllowInnerJoin(query);
+        return ((BeanHandleSession) this.sessionAgency).paging(query, c, factory);
+    }
+
     @Override
     public ZipperTable<ModelObject> getZipperTable(Class c) {
         return this.sessionAgency.getZipperTable(c);
@@ -225,7 +256,10 @@ public class MimosaSessionTemplate implements SessionTemplate {
 
     private class SessionInterceptor implements InvocationHandler {
 
-        public synchronized SessionHolder getSessionHolder() {
+        /**
+         * 每次调用都创建新的SessionHolder，不需要加锁
+         */
+        public SessionHolder getSessionHolder() {
             SessionHolder sessionHolder = null;
             Configuration configuration = sessionFactory.getConfiguration();
             TransactionFactory transactionFactory = configuration.getTransactionFactory();
@@ -239,12 +273,17 @@ public class MimosaSessionTemplate implements SessionTemplate {
 
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            SessionHolder sessionHolder = this.getSessionHolder();
             AssistUtils.isNull(sessionFactory, I18n.print("must_set_factory"));
+            SessionHolder sessionHolder = this.getSessionHolder();
             Session session = sessionHolder.getSession(sessionFactory);
             Object object = null;
             try {
-                object = method.invoke(session, args);
+                if (method.getDeclaringClass() == BeanHandleSession.class) {
+                    // 工厂创建的Session没有实现BeanHandleSession时先查询ModelObject再转换
+                    object = method.invoke(BeanHandleSessionAdapter.wrap(session), args);
+                } else {
+                    object = method.invoke(session, args);
+                }
                 if (sessionHolder == null || !sessionHolder.isSessionTransactional(session)) {
                     // 现在是Session内部没有设置autocommit的状态，以后如果改的话则这里需要重置设置
                     // session.commit(true);
@@ -21,6 +21,9 @@ public class Paging<T> implements Serializable {
     public Paging() {
     }
 
+    /**
+     * @return 查询设置了 {@link org.mimosaframework.orm.criteria.Query#withoutCount()} 时返回-1
+     */
     public long getCount() {
         return count;
     }
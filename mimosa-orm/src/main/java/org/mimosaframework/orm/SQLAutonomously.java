@@ -22,6 +22,14 @@ public class SQLAutonomously implements Serializable {
     private boolean isMaster = true;
     private String slaveName;
     private ModelObject parameter;
+    /**
+     * 多个数据源并行执行时每个数据源的超时时间(毫秒)，小于等于0不超时
+     */
+    private long timeout;
+    /**
+     * 为true时部分数据源失败仍然返回其他数据源的结果，失败原因通过 {@link AutoResult#getErrors()} 获取
+     */
+    private boolean allowPartial;
 
     public SQLAutonomously() {
     }
@@ -207,6 +215,22 @@ public class SQLAutonomously implements Serializable {
         this.parameter = parameter;
     }
 
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public boolean isAllowPartial() {
+        return allowPartial;
+    }
+
+    public void setAllowPartial(boolean allowPartial) {
+        this.allowPartial = allowPartial;
+    }
+
     public static LinkAutonomously buildLinkAutonomously() {
         return new LinkAutonomously();
     }
@@ -220,6 +244,8 @@ public class SQLAutonomously implements Serializable {
         private String slaveDataSourceName;
         private String sql;
         private UnifyBuilder builder;
+        // 小于等于0时使用SQLAutonomously的超时时间
+        private long timeout;
 
         public LinkAutonomously() {
         }
@@ -311,5 +337,13 @@ public class SQLAutonomously implements Serializable {
         public UnifyBuilder getBuilder() {
             return builder;
         }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
     }
 }
@@ -0,0 +1,72 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.utils.Clone;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Session的一级缓存，按照表和主键保存查询到的完整行数据
+ * <p>
+ * 缓存随Session创建和关闭，在事务中SimpleSessionHolder会保持同一个Session，
+ * 所以同一个事务中重复读取相同的行时不需要再次查询数据库。
+ * 存取时都会复制一份，调用者修改返回的对象不会影响缓存
+ */
+public class SessionCache {
+    /**
+     * 缓存的最大行数，超过之后不再缓存新的数据
+     */
+    private static final int MAX_SIZE = 10000;
+
+    private final Map<Class, Map<String, ModelObject>> tables = new HashMap<>();
+    private int size;
+
+    public ModelObject get(Class c, Object id) {
+        Map<String, ModelObject> rows = tables.get(c);
+        if (rows != null && id != null) {
+            ModelObject object = rows.get(String.valueOf(id));
+            if (object != null) {
+                return Clone.cloneModelObject(object);
+            }
+        }
+        return null;
+    }
+
+    public void put(Class c, Object id, ModelObject object) {
+        if (c == null || id == null || object == null) return;
+        Map<String, ModelObject> rows = tables.get(c);
+        if (rows == null) {
+            rows = new HashMap<>();
+            tables.put(c, rows);
+        }
+        String key = String.valueOf(id);
+        if (rows.containsKey(key) || size < MAX_SIZE) {
+            if (rows.put(key, Clone.cloneModelObject(object)) == null) {
+                size++;
+            }
+        }
+    }
+
+    public void evict(Class c, Object id) {
+        Map<String, ModelObject> rows = tables.get(c);
+        if (rows != null && id != null && rows.remove(String.valueOf(id)) != null) {
+            size--;
+        }
+    }
+
+    /**
+     * 清除一个表的所有缓存，用于按照条件更新或者删除之后
+     */
+    public void evict(Class c) {
+        Map<String, ModelObject> rows = tables.remove(c);
+        if (rows != null) {
+            size -= rows.size();
+        }
+    }
+
+    public void clear() {
+        tables.clear();
+        size = 0;
+    }
+}
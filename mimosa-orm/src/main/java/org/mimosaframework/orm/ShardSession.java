@@ -0,0 +1,897 @@
+package org.mimosaframework.orm;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.core.utils.StringTools;
+import org.mimosaframework.orm.criteria.*;
+import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.mapping.MappingField;
+import org.mimosaframework.orm.mapping.MappingTable;
+import org.mimosaframework.orm.platform.PlatformDialect;
+import org.mimosaframework.orm.shard.ShardNode;
+import org.mimosaframework.orm.shard.ShardRouter;
+import org.mimosaframework.orm.shard.ShardRule;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 有分片映射类时使用的Session，每个分片节点使用一个独立的DefaultSession
+ * <p>
+ * 写入时按照分片字段的值路由到对应的分片，没有分片字段的值时修改和删除会在所有分片上执行；
+ * 查询条件中有分片字段的等于或者in条件时只查询对应的分片，否则在线程池中并行查询所有分片，
+ * 按照排序字段逐个合并各分片的结果，分页时每个分片查询 start+limit 条数据
+ * <p>
+ * 跨分片的calculate只支持没有group by和having的统计，AVG拆分成SUM和COUNT之后再合并，
+ * 所有统计字段都必须指定别名
+ * <p>
+ * 分片的映射类只能作为主表关联其他不分片的表，没有分片的映射类和原生SQL使用默认数据源的Session
+ */
+public class ShardSession implements Session, BeanHandleSession {
+    private final Configuration context;
+    private final ShardRouter router;
+    private DefaultSession defaultSession;
+    private final Map<ShardNode, DefaultSession> sessions = new HashMap<>();
+    /**
+     * 写入过的分片节点，这些分片的查询在当前线程执行，保证能读到当前事务中未提交的数据
+     */
+    private final Set<ShardNode> written = new HashSet<>();
+
+    public ShardSession(Configuration context) {
+        this.context = context;
+        this.router = context.getShardRouter();
+    }
+
+    private DefaultSession session() {
+        if (defaultSession == null) {
+            try {
+                defaultSession = new DefaultSession(context);
+            } catch (SQLException e) {
+                throw new IllegalStateException(I18n.print("build_session_error"), e);
+            }
+        }
+        return defaultSession;
+    }
+
+    private DefaultSession session(ShardNode node) {
+        DefaultSession session = sessions.get(node);
+        if (session == null) {
+            try {
+                session = new DefaultSession(context, node.getDataSourceName(), node.getMappingGlobalWrapper());
+            } catch (SQLException e) {
+                throw new IllegalStateException(I18n.print("build_session_error"), e);
+            }
+            sessions.put(node, session);
+        }
+        return session;
+    }
+
+    private DefaultSession write(ShardNode node) {
+        written.add(node);
+        return this.session(node);
+    }
+
+    private ShardRule getRule(ModelObject obj) {
+        return obj == null ? null : router.getRule(obj.getObjectClass());
+    }
+
+    /**
+     * @return 对象中没有分片字段的值时返回null
+     */
+    private ShardNode route(ShardRule rule, ModelObject obj) {
+        Object value = obj.get(rule.getField());
+        if (value == null || (value instanceof String && StringTools.isEmpty((String) value))) {
+            return null;
+        }
+        return rule.route(value);
+    }
+
+    private ShardNode routeRequired(ShardRule rule, ModelObject obj) {
+        ShardNode node = this.route(rule, obj);
+        if (node == null) {
+            throw new IllegalArgumentException(I18n.print("shard_value_miss",
+                    rule.getTableClass().getName(), rule.getField()));
+        }
+        return node;
+    }
+
+    /**
+     * 只有所有条件都是and连接时才能从分片字段的等于和in条件中得到分片节点，
+     * 嵌套的条件只会缩小结果，忽略之后得到的分片节点仍然包含所有结果
+     */
+    private List<ShardNode> route(ShardRule rule, Wraps<Filter> wraps) {
+        Set<Object> values = null;
+        if (wraps != null) {
+            int i = 0;
+            for (WrapsObject<Filter> wo : wraps) {
+                if (++i < wraps.size() && wo.getLogic() == CriteriaLogic.OR) {
+                    return rule.getNodes();
+                }
+                DefaultFilter filter = (DefaultFilter) wo.getWhere();
+                if (filter == null || !rule.getField().equals(String.valueOf(filter.getKey()))) {
+                    continue;
+                }
+                Set<Object> matched = new HashSet<>();
+                Object value = filter.getValue();
+                if ("=".equals(filter.getSymbol())) {
+                    matched.add(String.valueOf(value));
+                } else if ("in".equals(filter.getSymbol())) {
+                    Iterable iterable = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Iterable) value;
+                    for (Object o : iterable) {
+                        matched.add(String.valueOf(o));
+                    }
+                } else {
+                    continue;
+                }
+                if (values == null) {
+                    values = matched;
+                } else {
+                    values.retainAll(matched);
+                }
+            }
+        }
+        if (values == null) {
+            return rule.getNodes();
+        }
+        return rule.route(values);
+    }
+
+    private boolean isShardKeyPrimaryKey(ShardRule rule, MappingTable mappingTable) {
+        List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
+        return pks != null && pks.size() == 1 && pks.get(0).getMappingFieldName().equals(rule.getField());
+    }
+
+    /**
+     * 在多个分片上并行执行，写入过的分片和第一个分片在当前线程执行
+     */
+    private <T> List<T> scatter(List<ShardNode> nodes, final ShardTask<T> task) {
+        List<T> results = new ArrayList<>(nodes.size());
+        if (nodes.size() == 1) {
+            results.add(task.call(this.session(nodes.get(0))));
+            return results;
+        }
+        ExecutorService executor = router.getExecutor();
+        List<Future<T>> futures = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            final DefaultSession session = this.session(nodes.get(i));
+            if (i == 0 || written.contains(nodes.get(i))) {
+                futures.add(null);
+            } else {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        return task.call(session);
+                    }
+                }));
+            }
+        }
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                Future<T> future = futures.get(i);
+                results.add(future == null ? task.call(this.session(nodes.get(i))) : future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(I18n.print("shard_query_fail"), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(I18n.print("shard_query_fail"), e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                if (future != null) future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private interface ShardTask<T> {
+        T call(DefaultSession session);
+    }
+
+    @Override
+    public ModelObject save(ModelObject obj) {
+        ShardRule rule = this.getRule(obj);
+        if (rule == null) return this.session().save(obj);
+        return this.write(this.routeRequired(rule, obj)).save(obj);
+    }
+
+    @Override
+    public ModelObject saveOrUpdate(ModelObject obj) {
+        ShardRule rule = this.getRule(obj);
+        if (rule == null) return this.session().saveOrUpdate(obj);
+        return this.write(this.routeRequired(rule, obj)).saveOrUpdate(obj);
+    }
+
+    @Override
+    public void save(List<ModelObject> objects) {
+        if (objects == null || objects.size() == 0) {
+            this.session().save(objects);
+            return;
+        }
+        List<ModelObject> others = new ArrayList<>();
+        Map<ShardNode, List<ModelObject>> grouped = new LinkedHashMap<>();
+        for (ModelObject obj : objects) {
+            ShardRule rule = this.getRule(obj);
+            if (rule == null) {
+                others.add(obj);
+            } else {
+                this.add(grouped, this.routeRequired(rule, obj), obj);
+            }
+        }
+        if (others.size() > 0) this.session().save(others);
+        for (Map.Entry<ShardNode, List<ModelObject>> entry : grouped.entrySet()) {
+            this.write(entry.getKey()).save(entry.getValue());
+        }
+    }
+
+    private void add(Map<ShardNode, List<ModelObject>> grouped, ShardNode node, ModelObject obj) {
+        List<ModelObject> list = grouped.get(node);
+        if (list == null) {
+            list = new ArrayList<>();
+            grouped.put(node, list);
+        }
+        list.add(obj);
+    }
+
+    @Override
+    public int update(ModelObject obj) {
+        ShardRule rule = this.getRule(obj);
+        if (rule == null) return this.session().update(obj);
+        ShardNode node = this.route(rule, obj);
+        if (node != null) return this.write(node).update(obj);
+        int count = 0;
+        for (ShardNode n : rule.getNodes()) {
+            count += this.write(n).update(obj);
+        }
+        return count;
+    }
+
+    @Override
+    public int update(List<ModelObject> objects) {
+        return this.modify(objects, true);
+    }
+
+    /**
+     * 按照分片分组之后批量修改或者删除，没有分片字段值的对象在所有分片上执行
+     */
+    private int modify(List<ModelObject> objects, boolean update) {
+        if (objects == null || objects.size() == 0) {
+            return update ? this.session().update(objects) : this.session().delete(objects);
+        }
+        List<ModelObject> others = new ArrayList<>();
+        Map<ShardNode, List<ModelObject>> grouped = new LinkedHashMap<>();
+        for (ModelObject obj : objects) {
+            ShardRule rule = this.getRule(obj);
+            ShardNode node = rule == null ? null : this.route(rule, obj);
+            if (rule == null) {
+                others.add(obj);
+            } else if (node != null) {
+                this.add(grouped, node, obj);
+            } else {
+                for (ShardNode n : rule.getNodes()) {
+                    this.add(grouped, n, obj);
+                }
+            }
+        }
+        int count = 0;
+        if (others.size() > 0) {
+            count += update ? this.session().update(others) : this.session().delete(others);
+        }
+        for (Map.Entry<ShardNode, List<ModelObject>> entry : grouped.entrySet()) {
+            DefaultSession session = this.write(entry.getKey());
+            count += update ? session.update(entry.getValue()) : session.delete(entry.getValue());
+        }
+        return count;
+    }
+
+    @Override
+    public int update(Update update) {
+        DefaultUpdate du = (DefaultUpdate) update;
+        ShardRule rule = router.getRule(du.getTableClass());
+        if (rule == null) return this.session().update(update);
+        for (Object key : du.getValues().keySet()) {
+            if (rule.getField().equals(String.valueOf(key))) {
+                throw new IllegalArgumentException(I18n.print("shard_update_key", rule.getField()));
+            }
+        }
+        int count = 0;
+        for (ShardNode node : this.route(rule, du.getLogicWraps())) {
+            count += this.write(node).update(update);
+        }
+        return count;
+    }
+
+    @Override
+    public int delete(ModelObject obj) {
+        ShardRule rule = this.getRule(obj);
+        if (rule == null) return this.session().delete(obj);
+        ShardNode node = this.route(rule, obj);
+        if (node != null) return this.write(node).delete(obj);
+        int count = 0;
+        for (ShardNode n : rule.getNodes()) {
+            count += this.write(n).delete(obj);
+        }
+        return count;
+    }
+
+    @Override
+    public int delete(List<ModelObject> objects) {
+        return this.modify(objects, false);
+    }
+
+    @Override
+    public int delete(Delete delete) {
+        DefaultDelete dd = (DefaultDelete) delete;
+        ShardRule rule = router.getRule(dd.getTableClass());
+        if (rule == null) return this.session().delete(delete);
+        int count = 0;
+        for (ShardNode node : this.route(rule, dd.getLogicWraps())) {
+            count += this.write(node).delete(delete);
+        }
+        return count;
+    }
+
+    @Override
+    public int delete(Class c, Serializable id) {
+        ShardRule rule = router.getRule(c);
+        if (rule == null) return this.session().delete(c, id);
+        if (this.isShardKeyPrimaryKey(rule, context.getMappingGlobalWrapper().getMappingTable(c))) {
+            return this.write(rule.route(id)).delete(c, id);
+        }
+        int count = 0;
+        for (ShardNode node : rule.getNodes()) {
+            count += this.write(node).delete(c, id);
+        }
+        return count;
+    }
+
+    @Override
+    public ModelObject get(final Class c, final Serializable id) {
+        ShardRule rule = router.getRule(c);
+        if (rule == null) return this.session().get(c, id);
+        if (this.isShardKeyPrimaryKey(rule, context.getMappingGlobalWrapper().getMappingTable(c))) {
+            return this.session(rule.route(id)).get(c, id);
+        }
+        List<ModelObject> objects = this.scatter(rule.getNodes(), new ShardTask<ModelObject>() {
+            @Override
+            public ModelObject call(DefaultSession session) {
+                return session.get(c, id);
+            }
+        });
+        for (ModelObject object : objects) {
+            if (object != null) return object;
+        }
+        return null;
+    }
+
+    @Override
+    public ModelObject get(Query query) {
+        if (query != null) {
+            query.limit(0, 1); // 强制取一条
+            List<ModelObject> objects = this.list(query);
+            if (objects == null || objects.size() == 0) return null;
+            return objects.get(0);
+        }
+        return null;
+    }
+
+    @Override
+    public List<ModelObject> list(Query query) {
+        DefaultQuery dq = (DefaultQuery) query;
+        ShardRule rule = router.getRule(dq.getTableClass());
+        if (rule == null) return this.session().list(query);
+        List<ShardNode> nodes = this.route(rule, dq.getLogicWraps());
+        if (nodes.size() == 1) return this.session(nodes.get(0)).list(query);
+
+        final DefaultQuery sq = (DefaultQuery) dq.clone();
+        Comparator<ModelObject> comparator = this.comparator(sq, this.session(nodes.get(0)).getDialect());
+        Limit limit = sq.getLimit();
+        // 每个分片都要查询出 start+limit 条数据才能合并出正确的分页
+        if (limit != null) sq.setLimit(new Limit().limit(0, limit.getStart() + limit.getLimit()));
+        List<List<ModelObject>> results = this.scatter(nodes, new ShardTask<List<ModelObject>>() {
+            @Override
+            public List<ModelObject> call(DefaultSession session) {
+                return session.list(sq);
+            }
+        });
+
+        List<Iterator<ModelObject>> iterators = new ArrayList<>(results.size());
+        for (List<ModelObject> result : results) {
+            if (result != null) iterators.add(result.iterator());
+        }
+        MergeIterator merge = new MergeIterator(iterators, comparator,
+                limit != null ? limit.getStart() : 0, limit != null ? limit.getLimit() : -1);
+        List<ModelObject> objects = new ArrayList<>();
+        while (merge.hasNext()) {
+            objects.add(merge.next());
+        }
+        return objects;
+    }
+
+    /**
+     * 没有排序时和单表查询一样默认按照主键升序，先放入查询中避免每个分片并发修改排序，
+     * 会修改传入的查询，只能传入复制的查询
+     * <p>
+     * 空值的位置和字符串是否区分大小写使用数据库默认的规则，字符串按照字符编码比较，
+     * 不支持数据库的其他排序规则(比如重音、本地语言的顺序)，这些字段排序时各分片的顺序和合并时不一致，
+     * 需要使用二进制排序规则或者按照其他字段排序
+     */
+    private Comparator<ModelObject> comparator(DefaultQuery dq, PlatformDialect dialect) {
+        Set<OrderBy> orders = dq.getOrderBy();
+        if ((orders == null || orders.size() == 0) && !dq.isWithoutOrderBy()) {
+            MappingTable mappingTable = context.getMappingGlobalWrapper().getMappingTable(dq.getTableClass());
+            List<MappingField> pks = mappingTable.getMappingPrimaryKeyFields();
+            if (pks != null) {
+                for (MappingField field : pks) {
+                    dq.orderBy(new OrderBy(true, field.getMappingFieldName()));
+                }
+            }
+            orders = dq.getOrderBy();
+        }
+        if (orders == null || orders.size() == 0) {
+            return null;
+        }
+        final List<OrderBy> list = new ArrayList<>(orders);
+        final boolean nullsFirst = dialect == null || dialect.isOrderNullsFirst();
+        final boolean ignoreCase = dialect != null && dialect.isOrderIgnoreCase();
+        return new Comparator<ModelObject>() {
+            @Override
+            public int compare(ModelObject o1, ModelObject o2) {
+                for (OrderBy order : list) {
+                    String field = String.valueOf(order.getField());
+                    Object v1 = o1.get(field);
+                    Object v2 = o2.get(field);
+                    int c;
+                    if (v1 == null || v2 == null) {
+                        // 降序时空值的位置和升序相反
+                        c = v1 == v2 ? 0 : (v1 == null) == nullsFirst ? -1 : 1;
+                    } else {
+                        c = compareValue(v1, v2, ignoreCase);
+                    }
+                    if (c != 0) return order.isAsc() ? c : -c;
+                }
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * 比较两个不为空的值，不同类型的数字转换成BigDecimal比较
+     *
+     * @param ignoreCase 字符串是否忽略大小写
+     */
+    private static int compareValue(Object v1, Object v2, boolean ignoreCase) {
+        if (ignoreCase && v1 instanceof String && v2 instanceof String) {
+            return String.CASE_INSENSITIVE_ORDER.compare((String) v1, (String) v2);
+        }
+        if (v1 instanceof Number && v2 instanceof Number && v1.getClass() != v2.getClass()) {
+            return new BigDecimal(String.valueOf(v1)).compareTo(new BigDecimal(String.valueOf(v2)));
+        }
+        if (v1 instanceof Comparable && v1.getClass() == v2.getClass()) {
+            return ((Comparable) v1).compareTo(v2);
+        }
+        return String.valueOf(v1).compareTo(String.valueOf(v2));
+    }
+
+    @Override
+    public <T> List<T> list(Query query, Class<T> c, Model2BeanFactory factory) {
+        DefaultQuery dq = (DefaultQuery) query;
+        if (router.getRule(dq.getTableClass()) == null) return this.session().list(query, c, factory);
+        List<ModelObject> objects = this.list(query);
+        if (objects == null || objects.size() == 0) {
+            return null;
+        }
+        List<T> beans = new ArrayList<>(objects.size());
+        for (ModelObject object : objects) {
+            beans.add(factory.toJavaObject(object, c));
+        }
+        return beans;
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query) {
+        return this.stream(query, Cursor.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * 依次打开每个分片的游标，遍历时按照排序字段逐行合并
+     */
+    @Override
+    public Cursor<ModelObject> stream(Query query, int fetchSize) {
+        DefaultQuery dq = (DefaultQuery) query;
+        ShardRule rule = router.getRule(dq.getTableClass());
+        if (rule == null) return this.session().stream(query, fetchSize);
+        List<ShardNode> nodes = this.route(rule, dq.getLogicWraps());
+        if (nodes.size() == 1) return this.session(nodes.get(0)).stream(query, fetchSize);
+
+        DefaultQuery sq = (DefaultQuery) dq.clone();
+        Comparator<ModelObject> comparator = this.comparator(sq, this.session(nodes.get(0)).getDialect());
+        Limit limit = sq.getLimit();
+        if (limit != null) sq.setLimit(new Limit().limit(0, limit.getStart() + limit.getLimit()));
+        List<Cursor<ModelObject>> cursors = new ArrayList<>(nodes.size());
+        try {
+            for (ShardNode node : nodes) {
+                cursors.add(this.session(node).stream(sq, fetchSize));
+            }
+        } catch (RuntimeException e) {
+            for (Cursor<ModelObject> cursor : cursors) {
+                try {
+                    cursor.close();
+                } catch (IOException ignored) {
+                }
+            }
+            throw e;
+        }
+        return new MergeCursor(cursors, comparator,
+                limit != null ? limit.getStart() : 0, limit != null ? limit.getLimit() : -1);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, final Class<T> c, final Model2BeanFactory factory, int fetchSize) {
+        DefaultQuery dq = (DefaultQuery) query;
+        if (router.getRule(dq.getTableClass()) == null) return this.session().stream(query, c, factory, fetchSize);
+        final Cursor<ModelObject> cursor = this.stream(query, fetchSize);
+        return new Cursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return factory.toJavaObject(cursor.next(), c);
+            }
+
+            @Override
+            public void remove() {
+                cursor.remove();
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return this;
+            }
+
+            @Override
+            public void close() throws IOException {
+                cursor.close();
+            }
+        };
+    }
+
+    @Override
+    public long count(Query query) {
+        final DefaultQuery dq = (DefaultQuery) query;
+        ShardRule rule = router.getRule(dq.getTableClass());
+        if (rule == null) return this.session().count(query);
+        List<Long> counts = this.scatter(this.route(rule, dq.getLogicWraps()), new ShardTask<Long>() {
+            @Override
+            public Long call(DefaultSession session) {
+                return session.count(dq);
+            }
+        });
+        long count = 0;
+        for (Long c : counts) {
+            count += c;
+        }
+        return count;
+    }
+
+    @Override
+    public Paging<ModelObject> paging(Query query) {
+        DefaultQuery dq = (DefaultQuery) query;
+        if (router.getRule(dq.getTableClass()) == null) return this.session().paging(query);
+        return new Paging<>(dq.isWithoutCount() ? -1 : this.count(query), this.list(query));
+    }
+
+    @Override
+    public <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory factory) {
+        DefaultQuery dq = (DefaultQuery) query;
+        if (router.getRule(dq.getTableClass()) == null) return this.session().paging(query, c, factory);
+        return new Paging<>(dq.isWithoutCount() ? -1 : this.count(query), this.list(query, c, factory));
+    }
+
+    @Override
+    public ZipperTable<ModelObject> getZipperTable(Class c) {
+        if (router.getRule(c) != null) {
+            throw new IllegalArgumentException(I18n.print("shard_not_support", c.getName()));
+        }
+        return this.session().getZipperTable(c);
+    }
+
+    /**
+     * 每个分片分别统计之后合并，AVG拆分成SUM和COUNT
+     */
+    @Override
+    public AutoResult calculate(Function function) {
+        DefaultFunction f = (DefaultFunction) function;
+        ShardRule rule = router.getRule(f.getTableClass());
+        if (rule == null) return this.session().calculate(function);
+        List<ShardNode> nodes = this.route(rule, f.getLogicWraps());
+        if (nodes.size() == 1) return this.session(nodes.get(0)).calculate(function);
+
+        if ((f.getGroupBy() != null && f.getGroupBy().size() > 0)
+                || (f.getHavingFields() != null && f.getHavingFields().size() > 0)) {
+            throw new IllegalArgumentException(I18n.print("shard_function_group"));
+        }
+        if (f.getFuns() == null || f.getFuns().size() == 0) {
+            throw new IllegalArgumentException(I18n.print("not_found_query"));
+        }
+        Set<FunctionField> partials = new LinkedHashSet<>();
+        for (FunctionField fun : f.getFuns()) {
+            String alias = fun.getAlias();
+            if (StringTools.isEmpty(alias)) {
+                throw new IllegalArgumentException(I18n.print("shard_function_alias", String.valueOf(fun.getField())));
+            }
+            BasicFunction fn = fun.getFunction();
+            if (fun.isDistinct() && fn != BasicFunction.MAX && fn != BasicFunction.MIN) {
+                throw new IllegalArgumentException(I18n.print("shard_function_distinct", alias));
+            }
+            if (fn == BasicFunction.AVG) {
+                partials.add(new FunctionField(fun.getField(), BasicFunction.SUM, alias + "_sum", 0));
+                partials.add(new FunctionField(fun.getField(), BasicFunction.COUNT, alias + "_count", 0));
+            } else if (fn == BasicFunction.MAX || fn == BasicFunction.MIN) {
+                partials.add(fun);
+            } else {
+                // 部分结果不处理精度，合并之后再处理
+                partials.add(new FunctionField(fun.getField(), fn, alias, 0));
+            }
+        }
+        final DefaultFunction partial = new DefaultFunction(f.getTableClass());
+        partial.setFuns(partials);
+        partial.setLogicWraps(f.getLogicWraps());
+        partial.setMaster(f.isMaster());
+        partial.setSlaveName(f.getSlaveName());
+
+        List<AutoResult> results = this.scatter(nodes, new ShardTask<AutoResult>() {
+            @Override
+            public AutoResult call(DefaultSession session) {
+                return session.calculate(partial);
+            }
+        });
+        List<ModelObject> rows = new ArrayList<>(results.size());
+        for (AutoResult result : results) {
+            List<ModelObject> objects = result != null ? result.getObjects() : null;
+            if (objects != null && objects.size() > 0) rows.add(objects.get(0));
+        }
+
+        boolean ignoreCase = this.session(nodes.get(0)).getDialect().isOrderIgnoreCase();
+        ModelObject combined = new ModelObject();
+        for (FunctionField fun : f.getFuns()) {
+            String alias = fun.getAlias();
+            BasicFunction fn = fun.getFunction();
+            Object value = null;
+            if (fn == BasicFunction.MAX || fn == BasicFunction.MIN) {
+                for (ModelObject row : rows) {
+                    Object v = row.get(alias);
+                    if (v == null) continue;
+                    int c = value == null ? 0 : compareValue(v, value, ignoreCase);
+                    if (value == null || (fn == BasicFunction.MAX ? c > 0 : c < 0)) value = v;
+                }
+            } else if (fn == BasicFunction.AVG) {
+                BigDecimal sum = this.sum(rows, alias + "_sum");
+                BigDecimal count = this.sum(rows, alias + "_count");
+                if (sum != null && count != null && count.signum() != 0) {
+                    int scale = fun.getScale() != 0 ? fun.getScale() : Math.max(sum.scale(), 10);
+                    value = this.scale(sum.divide(count, scale, RoundingMode.HALF_UP), fun.getScale());
+                }
+            } else {
+                BigDecimal sum = this.sum(rows, alias);
+                if (fn == BasicFunction.COUNT && sum == null) sum = BigDecimal.ZERO;
+                if (sum != null) {
+                    value = fn == BasicFunction.COUNT && fun.getScale() == 0 ? sum.longValue() : this.scale(sum, fun.getScale());
+                }
+            }
+            combined.put(alias, value);
+        }
+        List<ModelObject> objects = new ArrayList<>(1);
+        objects.add(combined);
+        return new AutoResult(context.getMappingGlobalWrapper(), context.getModelObjectConvertKey(), objects);
+    }
+
+    private BigDecimal sum(List<ModelObject> rows, String alias) {
+        BigDecimal sum = null;
+        for (ModelObject row : rows) {
+            Object v = row.get(alias);
+            if (v == null) continue;
+            BigDecimal value = v instanceof BigDecimal ? (BigDecimal) v : new BigDecimal(String.valueOf(v));
+            sum = sum == null ? value : sum.add(value);
+        }
+        return sum;
+    }
+
+    /**
+     * 和单库统计一样，指定了精度时返回double
+     */
+    private Object scale(BigDecimal value, int scale) {
+        if (scale == 0) return value;
+        return value.setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    @Override
+    public AutoResult getAutonomously(SQLAutonomously autonomously) throws Exception {
+        return this.session().getAutonomously(autonomously);
+    }
+
+    @Override
+    public AutoResult sql(SQLAutonomously autonomously) {
+        return this.session().sql(autonomously);
+    }
+
+    @Override
+    public AutoResult getAutonomously(TAutonomously autonomously) throws Exception {
+        return this.session().getAutonomously(autonomously);
+    }
+
+    @Override
+    public AutoResult mapper(TAutonomously autonomously) {
+        return this.session().mapper(autonomously);
+    }
+
+    @Override
+    public List<DataSourceTableName> getDataSourceNames(Class c) {
+        ShardRule rule = router.getRule(c);
+        if (rule == null) return this.session().getDataSourceNames(c);
+        List<DataSourceTableName> names = new ArrayList<>(rule.getNodes().size());
+        for (ShardNode node : rule.getNodes()) {
+            names.add(new DataSourceTableName(node.getDataSourceName(), node.getTableName(), rule.getField()));
+        }
+        return names;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        List<DefaultSession> all = new ArrayList<>(sessions.values());
+        if (defaultSession != null) all.add(defaultSession);
+        for (DefaultSession session : all) {
+            try {
+                session.close();
+            } catch (IOException e) {
+                if (error == null) error = e;
+            }
+        }
+        sessions.clear();
+        defaultSession = null;
+        written.clear();
+        if (error != null) throw error;
+    }
+
+    /**
+     * 多个有序结果的归并，跳过start条之后最多返回limit条
+     */
+    private static class MergeIterator implements Iterator<ModelObject> {
+        private final PriorityQueue<Head> queue;
+        private final List<Iterator<ModelObject>> sources;
+        private final Comparator<ModelObject> comparator;
+        private long remain;
+        private int current;
+
+        MergeIterator(List<Iterator<ModelObject>> sources, final Comparator<ModelObject> comparator,
+                      long start, long limit) {
+            this.sources = sources;
+            this.comparator = comparator;
+            this.remain = limit;
+            this.queue = new PriorityQueue<>(Math.max(1, sources.size()), new Comparator<Head>() {
+                @Override
+                public int compare(Head o1, Head o2) {
+                    int c = comparator.compare(o1.value, o2.value);
+                    return c != 0 ? c : o1.index - o2.index;
+                }
+            });
+            if (comparator != null) {
+                for (int i = 0; i < sources.size(); i++) {
+                    this.offer(i);
+                }
+            }
+            for (long i = 0; i < start && this.hasMore(); i++) {
+                this.poll();
+            }
+        }
+
+        private void offer(int index) {
+            Iterator<ModelObject> source = sources.get(index);
+            if (source.hasNext()) {
+                queue.offer(new Head(source.next(), index));
+            }
+        }
+
+        private boolean hasMore() {
+            if (comparator != null) {
+                return !queue.isEmpty();
+            }
+            // 没有排序时依次返回每个分片的结果
+            while (current < sources.size() && !sources.get(current).hasNext()) {
+                current++;
+            }
+            return current < sources.size();
+        }
+
+        private ModelObject poll() {
+            if (comparator == null) {
+                return sources.get(current).next();
+            }
+            Head head = queue.poll();
+            this.offer(head.index);
+            return head.value;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remain != 0 && this.hasMore();
+        }
+
+        @Override
+        public ModelObject next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (remain > 0) remain--;
+            return this.poll();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Head {
+        private final ModelObject value;
+        private final int index;
+
+        Head(ModelObject value, int index) {
+            this.value = value;
+            this.index = index;
+        }
+    }
+
+    private static class MergeCursor extends MergeIterator implements Cursor<ModelObject> {
+        private final List<Cursor<ModelObject>> cursors;
+        private boolean closed;
+
+        MergeCursor(List<Cursor<ModelObject>> cursors, Comparator<ModelObject> comparator, long start, long limit) {
+            super(new ArrayList<Iterator<ModelObject>>(cursors), comparator, start, limit);
+            this.cursors = cursors;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean has = !closed && super.hasNext();
+            if (!has && !closed) {
+                try {
+                    this.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return has;
+        }
+
+        @Override
+        public Iterator<ModelObject> iterator() {
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            IOException error = null;
+            for (Cursor<ModelObject> cursor : cursors) {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            }
+            if (error != null) throw error;
+        }
+    }
+}
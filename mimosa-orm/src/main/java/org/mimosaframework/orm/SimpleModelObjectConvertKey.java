@@ -6,8 +6,11 @@ import org.mimosaframework.orm.mapping.MappingGlobalWrapper;
 import org.mimosaframework.orm.mapping.MappingTable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -47,30 +50,122 @@ public class SimpleModelObjectConvertKey implements ModelObjectConvertKey {
     @Override
     public ModelObject reconvert(Class tableClass, ModelObject object) {
         if (tableClass != null) {
-            MappingTable mappingTable = null;
-            if (tableClass != null) {
-                mappingTable = this.mappingGlobalWrapper.getMappingTable(tableClass);
-            }
-            Set<Object> objectSet = object.keySet();
-            Set<Object> keyset = new LinkedHashSet<Object>();
-            keyset.addAll(objectSet);
-            for (Object o : keyset) {
-                String key = null;
-                if (mappingTable != null) {
+            MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(tableClass);
+            if (mappingTable != null) {
+                Object[] keys = object.keySet().toArray();
+                for (Object o : keys) {
                     MappingField mappingField = mappingTable.getMappingFieldByColumnName(String.valueOf(o));
                     if (mappingField != null) {
-                        key = mappingField.getMappingFieldName();
+                        String key = mappingField.getMappingFieldName();
+                        if (key != null && !o.equals(key)) {
+                            Object value = object.get(o);
+                            object.remove(o);
+                            object.put(key, value);
+                        }
                     }
                 }
+            }
+        }
+        return object;
+    }
 
-                if (key != null && !o.equals(key)) {
-                    Object value = object.get(o);
-                    object.remove(o);
-                    object.put(key, value);
+    /**
+     * 同一个结果集每一行的字段顺序是一样的，按照其中一行计算出转换后的
+     * 字段名称和顺序，之后每一行按照位置生成新的对象，不需要再逐个字段查找
+     *
+     * @param tableClass 映射类
+     * @param object     结果集中的一行
+     * @return 转换方式
+     */
+    public ReconvertPlan reconvertPlan(Class tableClass, ModelObject object) {
+        Object[] keys = object.keySet().toArray();
+        MappingTable mappingTable = tableClass != null ? this.mappingGlobalWrapper.getMappingTable(tableClass) : null;
+        int[] order = new int[keys.length];
+        Object[] names = new Object[keys.length];
+        int n = 0;
+        boolean[] renamed = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String key = null;
+            if (mappingTable != null) {
+                MappingField mappingField = mappingTable.getMappingFieldByColumnName(String.valueOf(keys[i]));
+                if (mappingField != null) {
+                    key = mappingField.getMappingFieldName();
                 }
             }
+            if (key != null && !keys[i].equals(key)) {
+                renamed[i] = true;
+            } else {
+                order[n] = i;
+                names[n] = keys[i];
+                n++;
+            }
+        }
+        // 和reconvert一样改名的字段是先删除再添加的，所以放在最后
+        Set<Object> keySet = new HashSet<>(Arrays.asList(keys));
+        boolean positional = true;
+        for (int i = 0; i < keys.length; i++) {
+            if (renamed[i]) {
+                order[n] = i;
+                names[n] = mappingTable.getMappingFieldByColumnName(String.valueOf(keys[i])).getMappingFieldName();
+                // 改名后和其它字段重名时结果依赖转换顺序，只能逐个字段转换
+                if (keySet.contains(names[n])) positional = false;
+                n++;
+            }
+        }
+        return new ReconvertPlan(tableClass, positional ? keys : null, order, names);
+    }
+
+    public class ReconvertPlan {
+        private final Class tableClass;
+        private final Object[] keys;
+        private final int[] order;
+        private final Object[] names;
+        private final int capacity;
+
+        private ReconvertPlan(Class tableClass, Object[] keys, int[] order, Object[] names) {
+            this.tableClass = tableClass;
+            this.keys = keys;
+            this.order = order;
+            this.names = names;
+            this.capacity = order.length * 4 / 3 + 1;
+        }
+
+        /**
+         * 生成转换后的新对象，结果和复制一份后调用 {@link #reconvert(Class, ModelObject)} 一致
+         *
+         * @param object 结果集中的一行
+         * @return 新的对象
+         */
+        public ModelObject apply(ModelObject object) {
+            Object[] values = null;
+            if (keys != null && object.size() == keys.length) {
+                values = new Object[keys.length];
+                int i = 0;
+                for (Map.Entry<Object, Object> entry : object.entrySet()) {
+                    Object key = entry.getKey();
+                    if (key != keys[i] && !keys[i].equals(key)) {
+                        values = null;
+                        break;
+                    }
+                    values[i++] = entry.getValue();
+                }
+            }
+
+            ModelObject on = new ModelObject(capacity, true);
+            if (values != null) {
+                for (int i = 0; i < order.length; i++) {
+                    on.put(names[i], values[order[i]]);
+                }
+            } else {
+                // 字段和计算时不一致则逐个字段转换
+                for (Map.Entry<Object, Object> entry : object.entrySet()) {
+                    on.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+                reconvert(tableClass, on);
+            }
+            on.setObjectClass(tableClass);
+            return on;
         }
-        return object;
     }
 
     @Override
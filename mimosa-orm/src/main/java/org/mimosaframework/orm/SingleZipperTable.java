@@ -6,7 +6,7 @@ import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.orm.i18n.I18n;
 import org.mimosaframework.orm.platform.SQLBuilder;
 import org.mimosaframework.orm.platform.SQLBuilderFactory;
-import org.mimosaframework.orm.utils.SQLUtils;
+import org.mimosaframework.orm.utils.ResultColumnReader;
 
 import java.io.IOException;
 import java.sql.*;
@@ -63,8 +63,8 @@ public class SingleZipperTable<T> implements ZipperTable<T> {
         private PreparedStatement statement;
         private SQLBuilder sql = SQLBuilderFactory.createSQLBuilder().SELECT().addString("*").FROM();
         private ResultSet resultSet;
-        private int fieldCount;
-        private ResultSetMetaData resultSetMetaData;
+        private ResultColumnReader[] readers;
+        private SimpleModelObjectConvertKey.ReconvertPlan plan;
 
         public SingleZipperTableIterator(Connection connection) throws SQLException {
             this.connection = connection;
@@ -73,8 +73,7 @@ public class SingleZipperTable<T> implements ZipperTable<T> {
             this.statement.setFetchSize(fetchSize);
             this.statement.setFetchDirection(ResultSet.FETCH_REVERSE);
             this.resultSet = this.statement.executeQuery();
-            resultSetMetaData = this.resultSet.getMetaData();
-            fieldCount = resultSetMetaData.getColumnCount();
+            readers = ResultColumnReader.resolve(this.resultSet.getMetaData());
         }
 
         @Override
@@ -92,18 +91,21 @@ public class SingleZipperTable<T> implements ZipperTable<T> {
 
         @Override
         public T next() {
-            ModelObject object = new ModelObject(true);
+            ModelObject object = new ModelObject(readers.length * 4 / 3 + 1, true);
             try {
-                for (int i = 1; i <= fieldCount; i++) {
-                    String fieldClassName = resultSetMetaData.getColumnClassName(i);
-                    //获得查询后的列名称，并非表列名称
-                    String fieldName = resultSetMetaData.getColumnLabel(i);
-                    SQLUtils.recordMappingToMap(fieldClassName, fieldName, this.resultSet, object);
-                }
+                ResultColumnReader.read(readers, this.resultSet, object);
             } catch (SQLException e) {
                 e.printStackTrace();
             }
-            object = context.getModelObjectConvertKey().reconvert(c, object);
+            ModelObjectConvertKey convert = context.getModelObjectConvertKey();
+            if (convert.getClass() == SimpleModelObjectConvertKey.class) {
+                if (plan == null) {
+                    plan = ((SimpleModelObjectConvertKey) convert).reconvertPlan(c, object);
+                }
+                object = plan.apply(object);
+            } else {
+                object = convert.reconvert(c, object);
+            }
             if (c.isEnum()) {
                 return (T) object;
             } else {
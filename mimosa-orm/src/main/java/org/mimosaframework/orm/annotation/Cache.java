@@ -2,8 +2,34 @@ package org.mimosaframework.orm.annotation;
 
 import java.lang.annotation.*;
 
+/**
+ * 和@Table一起使用，开启这个表的二级缓存，按照主键缓存整行数据，
+ * 适合很少修改的基础数据表
+ * <p>
+ * 通过Session的save、update、delete修改对象时删除对应主键的缓存，按条件修改时清空整个表，
+ * 使用原生SQL修改数据不会清除缓存，只能等待过期，从从库读取的数据不会放入缓存
+ */
 @Target({ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface Cache {
+    /**
+     * 最多缓存的行数，超过后淘汰最久没有使用的行
+     */
+    int size() default 10000;
+
+    /**
+     * 缓存的有效时间(毫秒)，小于等于0时不过期
+     */
+    long ttl() default 0;
+
+    /**
+     * 是否把缓存的行序列化之后保存在堆外内存中，适合数据量大的表
+     */
+    boolean offHeap() default false;
+
+    /**
+     * 堆外缓存最多使用的字节数，超过后淘汰最久没有使用的行，只在offHeap时有效
+     */
+    long maxBytes() default 64L * 1024 * 1024;
 }
@@ -0,0 +1,31 @@
+package org.mimosaframework.orm.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 和@Table一起使用，按照分片字段的一致性哈希把数据分布到多个数据源或者多个物理表中
+ * <p>
+ * 保存、修改和删除时按照分片字段的值写入对应的分片，查询条件中有分片字段的
+ * 等于或者in条件时只查询对应的分片，否则并行查询所有分片后合并结果
+ * <p>
+ * 物理表不会自动创建，需要提前在每个分片中建好
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Shard {
+    /**
+     * 分片字段的Java名称，保存数据时必须有值
+     */
+    String field();
+
+    /**
+     * 分片节点，格式为 数据源名称.表名，省略表名时使用映射表名
+     */
+    String[] nodes();
+
+    /**
+     * 每个分片节点在哈希环上的虚拟节点个数
+     */
+    int replicas() default 160;
+}
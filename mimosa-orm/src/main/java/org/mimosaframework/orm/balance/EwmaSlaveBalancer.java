@@ -0,0 +1,32 @@
+package org.mimosaframework.orm.balance;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按照平均耗时和使用中的连接数估算等待时间，选择最小的从库
+ * <p>
+ * 平均耗时是连接被占用的时间，长事务或者持有连接较久的调用会使从库的估算偏大
+ * <p>
+ * 还没有耗时数据的从库优先被选择
+ */
+public class EwmaSlaveBalancer implements SlaveBalancer {
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public SlaveStats choose(List<SlaveStats> slaves) {
+        int size = slaves.size();
+        int start = (offset.getAndIncrement() & Integer.MAX_VALUE) % size;
+        SlaveStats best = null;
+        double bestScore = 0;
+        for (int i = 0; i < size; i++) {
+            SlaveStats slave = slaves.get((start + i) % size);
+            double score = slave.getEwmaNanos() * (slave.getOutstanding() + 1) / slave.getWeight();
+            if (best == null || score < bestScore) {
+                best = slave;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,28 @@
+package org.mimosaframework.orm.balance;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 选择使用中的连接数除以权重最小的从库，相同时轮流选择
+ */
+public class LeastOutstandingSlaveBalancer implements SlaveBalancer {
+    private final AtomicInteger offset = new AtomicInteger();
+
+    @Override
+    public SlaveStats choose(List<SlaveStats> slaves) {
+        int size = slaves.size();
+        int start = (offset.getAndIncrement() & Integer.MAX_VALUE) % size;
+        SlaveStats best = null;
+        double bestScore = 0;
+        for (int i = 0; i < size; i++) {
+            SlaveStats slave = slaves.get((start + i) % size);
+            double score = (double) slave.getOutstanding() / slave.getWeight();
+            if (best == null || score < bestScore) {
+                best = slave;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,31 @@
+package org.mimosaframework.orm.balance;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 平滑加权轮询，权重相同时就是普通的轮询
+ */
+public class RoundRobinSlaveBalancer implements SlaveBalancer {
+    private final Map<SlaveStats, Integer> currentWeights = new IdentityHashMap<>();
+
+    @Override
+    public synchronized SlaveStats choose(List<SlaveStats> slaves) {
+        int total = 0;
+        SlaveStats best = null;
+        int bestWeight = 0;
+        for (SlaveStats slave : slaves) {
+            Integer current = currentWeights.get(slave);
+            int weight = (current == null ? 0 : current) + slave.getWeight();
+            currentWeights.put(slave, weight);
+            total += slave.getWeight();
+            if (best == null || weight > bestWeight) {
+                best = slave;
+                bestWeight = weight;
+            }
+        }
+        currentWeights.put(best, bestWeight - total);
+        return best;
+    }
+}
@@ -0,0 +1,20 @@
+package org.mimosaframework.orm.balance;
+
+import java.util.List;
+
+/**
+ * 从库的负载均衡策略
+ *
+ * @see RoundRobinSlaveBalancer
+ * @see LeastOutstandingSlaveBalancer
+ * @see EwmaSlaveBalancer
+ */
+public interface SlaveBalancer {
+    /**
+     * 选择一个从库
+     *
+     * @param slaves 当前可以使用的从库，至少有一个
+     * @return 选中的从库
+     */
+    SlaveStats choose(List<SlaveStats> slaves);
+}
@@ -0,0 +1,218 @@
+package org.mimosaframework.orm.balance;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.i18n.I18n;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 按照负载均衡策略选择从库，并记录每个从库的统计
+ * <p>
+ * 获取连接失败时自动换一个从库重试，没有可用的从库时使用主库。
+ * 只有获取连接失败才会计入熔断，连接获取之后执行SQL失败不计入
+ * <p>
+ * 熔断的试探和统计都在 {@link #getConnection} 中完成，需要从库时都要通过这里获取连接，
+ * 直接使用 {@link #choose} 选中的数据源会使试探一直不结束
+ */
+public class SlaveSelector {
+    private static final Log logger = LogFactory.getLog(SlaveSelector.class);
+
+    private final List<SlaveStats> slaves;
+    private final Map<String, SlaveStats> named;
+    private final SlaveBalancer balancer;
+    private final int failureThreshold;
+    private final long breakMillis;
+
+    public SlaveSelector(Map<String, DataSource> slaves, Map<String, Integer> weights,
+                         SlaveBalancer balancer, int failureThreshold, long breakMillis) {
+        this.slaves = new ArrayList<>(slaves.size());
+        this.named = new HashMap<>(slaves.size() * 2);
+        for (Map.Entry<String, DataSource> entry : slaves.entrySet()) {
+            if (entry.getValue() == null) continue;
+            Integer weight = weights != null ? weights.get(entry.getKey()) : null;
+            SlaveStats stats = new SlaveStats(entry.getKey(), entry.getValue(), weight == null ? 1 : weight);
+            this.slaves.add(stats);
+            this.named.put(entry.getKey(), stats);
+        }
+        this.balancer = balancer != null ? balancer : new RoundRobinSlaveBalancer();
+        this.failureThreshold = failureThreshold;
+        this.breakMillis = breakMillis;
+    }
+
+    public boolean isEmpty() {
+        return slaves.isEmpty();
+    }
+
+    public SlaveStats get(String name) {
+        return named.get(name);
+    }
+
+    public List<SlaveStats> getStats() {
+        return Collections.unmodifiableList(slaves);
+    }
+
+    /**
+     * 选择一个可用的从库，选中熔断结束的从库时占用试探的机会，
+     * 之后必须通过 {@link #getConnection} 获取连接来结束试探
+     *
+     * @param exclude 已经失败的从库
+     * @return 没有可用的从库时返回null
+     */
+    SlaveStats choose(Set<SlaveStats> exclude) {
+        long now = System.currentTimeMillis();
+        List<SlaveStats> available = new ArrayList<>(slaves.size());
+        for (SlaveStats slave : slaves) {
+            if ((exclude == null || !exclude.contains(slave)) && slave.isAvailable(now)) {
+                available.add(slave);
+            }
+        }
+        while (available.size() > 0) {
+            SlaveStats slave = available.size() == 1 ? available.get(0) : balancer.choose(available);
+            if (slave.acquire(now)) {
+                return slave;
+            }
+            // 其他请求正在试探这个从库
+            available.remove(slave);
+        }
+        return null;
+    }
+
+    /**
+     * 获得一个从库连接，第一次使用时才真正获取
+     *
+     * @param slave  指定的从库，为空时按照负载均衡选择
+     * @param master 没有可用的从库时使用的数据源，为空时抛出异常
+     */
+    public Connection getConnection(SlaveStats slave, DataSource master) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[]{Connection.class},
+                new SlaveConnection(slave, master)
+        );
+    }
+
+    /**
+     * 每次获取连接时通过 {@link #getConnection} 选择从库的数据源
+     *
+     * @param slave  指定的从库，为空时按照负载均衡选择
+     * @param master 没有可用的从库时使用的数据源，为空时抛出异常
+     */
+    public DataSource getDataSource(final SlaveStats slave, final DataSource master) {
+        final DataSource target = slave != null ? slave.getDataSource()
+                : (slaves.size() > 0 ? slaves.get(0).getDataSource() : master);
+        return (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class[]{DataSource.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("getConnection".equals(name)) {
+                            return getConnection(slave, master);
+                        }
+                        if ("equals".equals(name)) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(name)) {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("toString".equals(name)) {
+                            return "SlaveDataSource" + (slave != null ? "[" + slave.getName() + "]" : slaves);
+                        }
+                        // 日志和超时等设置使用第一个从库的
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+        );
+    }
+
+    private Connection connect(SlaveStats slave) throws SQLException {
+        try {
+            Connection connection = slave.getDataSource().getConnection();
+            slave.onConnect();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            if (slave.onFailure(System.currentTimeMillis(), failureThreshold, breakMillis)) {
+                logger.warn(I18n.print("slave_break", slave.getName(), String.valueOf(breakMillis)), e);
+            }
+            throw e;
+        }
+    }
+
+    private class SlaveConnection implements InvocationHandler {
+        private final SlaveStats specified;
+        private final DataSource master;
+        private SlaveStats slave;
+        private Connection conn;
+        private long start;
+
+        SlaveConnection(SlaveStats specified, DataSource master) {
+            this.specified = specified;
+            this.master = master;
+        }
+
+        private Connection createConnection() throws SQLException {
+            if (conn != null) {
+                return conn;
+            }
+            if (specified != null) {
+                conn = connect(specified);
+                slave = specified;
+            } else {
+                Set<SlaveStats> failed = null;
+                SQLException last = null;
+                SlaveStats chosen;
+                while ((chosen = choose(failed)) != null) {
+                    try {
+                        conn = connect(chosen);
+                        slave = chosen;
+                        break;
+                    } catch (SQLException e) {
+                        if (failed == null) failed = new HashSet<>();
+                        failed.add(chosen);
+                        last = e;
+                    }
+                }
+                if (conn == null) {
+                    if (master == null) {
+                        throw new SQLException(I18n.print("not_found_available_slave"), last);
+                    }
+                    logger.warn(I18n.print("not_found_available_slave"), last);
+                    conn = master.getConnection();
+                }
+            }
+            start = System.nanoTime();
+            return conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (conn == null && "close".equals(name)) {
+                return null;
+            }
+            if ("close".equals(name) && slave != null) {
+                SlaveStats released = slave;
+                slave = null;
+                released.onRelease(System.nanoTime() - start);
+            }
+            try {
+                return method.invoke(this.createConnection(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.mimosaframework.orm.balance;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个从库的统计和熔断状态
+ * <p>
+ * 连续获取连接失败达到阈值时熔断一段时间，熔断结束后只放行一次试探，
+ * 试探成功后恢复，失败则继续熔断。只统计获取连接的结果，执行SQL失败不会熔断
+ * <p>
+ * 平均耗时是连接从获取到关闭的时间，包含事务中的所有语句和业务代码的耗时，不是单条SQL的耗时
+ */
+public class SlaveStats {
+    // EWMA的衰减系数，越大越偏向最近的耗时
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final String name;
+    private final DataSource dataSource;
+    private final int weight;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    // Double.doubleToLongBits 保存的平均耗时(纳秒)
+    private final AtomicLong ewma = new AtomicLong(Double.doubleToLongBits(0));
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long breakUntil;
+
+    public SlaveStats(String name, DataSource dataSource, int weight) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.weight = Math.max(1, weight);
+    }
+
+    /**
+     * 是否可以被选择，熔断结束后正在试探时也不可选择
+     */
+    public boolean isAvailable(long now) {
+        long until = this.breakUntil;
+        return until == 0 || (until <= now && !probing.get());
+    }
+
+    /**
+     * 选中之后调用，熔断结束后只有一个请求可以获得试探的机会
+     *
+     * @return 是否可以使用这个从库
+     */
+    boolean acquire(long now) {
+        long until = this.breakUntil;
+        if (until == 0) {
+            return true;
+        }
+        return until <= now && probing.compareAndSet(false, true);
+    }
+
+    void onConnect() {
+        requests.incrementAndGet();
+        outstanding.incrementAndGet();
+        consecutiveFailures.set(0);
+        if (breakUntil != 0) {
+            breakUntil = 0;
+            probing.set(false);
+        }
+    }
+
+    void onRelease(long nanos) {
+        outstanding.decrementAndGet();
+        for (; ; ) {
+            long current = ewma.get();
+            double value = Double.longBitsToDouble(current);
+            double next = value == 0 ? nanos : value + EWMA_ALPHA * (nanos - value);
+            if (ewma.compareAndSet(current, Double.doubleToLongBits(next))) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return 是否因为这次失败开始熔断
+     */
+    boolean onFailure(long now, int failureThreshold, long breakMillis) {
+        requests.incrementAndGet();
+        failures.incrementAndGet();
+        boolean wasProbing = probing.get();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || wasProbing) {
+            breakUntil = now + breakMillis;
+            probing.set(false);
+            return true;
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return 正在使用中的连接数
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return 连接从获取到关闭的平均耗时(纳秒)，还没有数据时为0，
+     * 反映的是连接被占用的时间而不是查询的耗时
+     */
+    public double getEwmaNanos() {
+        return Double.longBitsToDouble(ewma.get());
+    }
+
+    public boolean isBroken() {
+        return breakUntil != 0;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{weight=" + weight + ", outstanding=" + getOutstanding()
+                + ", requests=" + getRequests() + ", failures=" + getFailures()
+                + ", ewmaMillis=" + (getEwmaNanos() / 1000000) + ", broken=" + isBroken() + "}";
+    }
+}
@@ -2,6 +2,9 @@ package org.mimosaframework.orm.builder;
 
 import org.mimosaframework.orm.MappingLevel;
 import org.mimosaframework.orm.convert.NamingConvert;
+import org.mimosaframework.orm.metrics.SQLMetrics;
+
+import java.util.concurrent.ExecutorService;
 
 public class BasicSetting {
     private boolean isShowSQL;
@@ -11,6 +14,20 @@ public class BasicSetting {
     private Boolean isIgnoreEmptySlave = true;
     private Boolean allowInnerJoin = true;
     private Boolean uppercase = false;
+    private Integer sqlPlanCacheSize;
+    private Integer pagingThreads;
+    private ExecutorService pagingExecutor;
+    private Long countCacheTime;
+    private Boolean readYourWrites;
+    private Long readYourWritesWindow;
+    private Boolean sessionCache;
+    private Boolean secondLevelCache;
+    private Integer resultCacheSize;
+    private Integer linkThreads;
+    private Boolean metrics;
+    private Long slowQueryTime;
+    private Boolean metricsJmx;
+    private SQLMetrics sqlMetrics;
 
     public boolean isShowSQL() {
         return isShowSQL;
@@ -67,4 +84,116 @@ public class BasicSetting {
     public void setUppercase(Boolean uppercase) {
         this.uppercase = uppercase;
     }
+
+    public Integer getSqlPlanCacheSize() {
+        return sqlPlanCacheSize;
+    }
+
+    public void setSqlPlanCacheSize(Integer sqlPlanCacheSize) {
+        this.sqlPlanCacheSize = sqlPlanCacheSize;
+    }
+
+    public Integer getPagingThreads() {
+        return pagingThreads;
+    }
+
+    public void setPagingThreads(Integer pagingThreads) {
+        this.pagingThreads = pagingThreads;
+    }
+
+    public ExecutorService getPagingExecutor() {
+        return pagingExecutor;
+    }
+
+    public void setPagingExecutor(ExecutorService pagingExecutor) {
+        this.pagingExecutor = pagingExecutor;
+    }
+
+    public Long getCountCacheTime() {
+        return countCacheTime;
+    }
+
+    public void setCountCacheTime(Long countCacheTime) {
+        this.countCacheTime = countCacheTime;
+    }
+
+    public Boolean getReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(Boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    public Long getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Long readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public Boolean getSessionCache() {
+        return sessionCache;
+    }
+
+    public void setSessionCache(Boolean sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    public Boolean getSecondLevelCache() {
+        return secondLevelCache;
+    }
+
+    public void setSecondLevelCache(Boolean secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    public Integer getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(Integer resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public Integer getLinkThreads() {
+        return linkThreads;
+    }
+
+    public void setLinkThreads(Integer linkThreads) {
+        this.linkThreads = linkThreads;
+    }
+
+    public Boolean getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public Long getSlowQueryTime() {
+        return slowQueryTime;
+    }
+
+    public void setSlowQueryTime(Long slowQueryTime) {
+        this.slowQueryTime = slowQueryTime;
+    }
+
+    public Boolean getMetricsJmx() {
+        return metricsJmx;
+    }
+
+    public void setMetricsJmx(Boolean metricsJmx) {
+        this.metricsJmx = metricsJmx;
+    }
+
+    public SQLMetrics getSqlMetrics() {
+        return sqlMetrics;
+    }
+
+    public void setSqlMetrics(SQLMetrics sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
 }
@@ -5,9 +5,11 @@ import org.mimosaframework.core.utils.StringTools;
 import org.mimosaframework.orm.IDStrategy;
 import org.mimosaframework.orm.MappingLevel;
 import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.balance.*;
 import org.mimosaframework.orm.convert.NamingConvert;
 import org.mimosaframework.orm.exception.ContextException;
 import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.metrics.SQLMetrics;
 import org.mimosaframework.orm.mapping.TableCompare;
 import org.mimosaframework.orm.transaction.TransactionFactory;
 import org.w3c.dom.Document;
@@ -204,6 +206,7 @@ public class XmlConfigBuilder extends AbstractConfigBuilder {
                                     }
                                     try {
                                         MimosaDataSource selfMDS = new MimosaDataSource(ds, slaveList, name);
+                                        this.applySlaveBalancer(selfMDS, nm);
                                         wrappers.put(name, selfMDS);
                                     } catch (SQLException e) {
                                         throw new ContextException(I18n.print("ds_type_fail"), e);
@@ -467,6 +470,7 @@ public class XmlConfigBuilder extends AbstractConfigBuilder {
 
             try {
                 mimosaDataSource = new MimosaDataSource(dataSource, slaveList, "default");
+                this.applySlaveBalancer(mimosaDataSource, nm);
                 mimosaDataSource.getMaster();
                 wrappers.put(mimosaDataSource.getName(), mimosaDataSource);
             } catch (SQLException e) {
@@ -591,6 +595,30 @@ public class XmlConfigBuilder extends AbstractConfigBuilder {
         return this.resolvers;
     }
 
+    /**
+     * balancer属性可以是 roundRobin、leastOutstanding、ewma 或者 SlaveBalancer 的实现类
+     */
+    private void applySlaveBalancer(MimosaDataSource ds, NamedNodeMap nm) throws ContextException {
+        Node node = nm != null ? nm.getNamedItem("balancer") : null;
+        if (node == null || StringTools.isEmpty(node.getNodeValue())) {
+            return;
+        }
+        String balancer = node.getNodeValue().trim();
+        if (balancer.equalsIgnoreCase("roundRobin")) {
+            ds.setSlaveBalancer(new RoundRobinSlaveBalancer());
+        } else if (balancer.equalsIgnoreCase("leastOutstanding")) {
+            ds.setSlaveBalancer(new LeastOutstandingSlaveBalancer());
+        } else if (balancer.equalsIgnoreCase("ewma")) {
+            ds.setSlaveBalancer(new EwmaSlaveBalancer());
+        } else {
+            try {
+                ds.setSlaveBalancer((SlaveBalancer) Class.forName(balancer).newInstance());
+            } catch (Exception e) {
+                throw new ContextException(I18n.print("slave_balancer_error", balancer), e);
+            }
+        }
+    }
+
     @Override
     public List<? extends IDStrategy> getStrategies() {
         return strategies;
@@ -650,6 +678,80 @@ public class XmlConfigBuilder extends AbstractConfigBuilder {
                         }
                     }
 
+                    if (node.getNodeName().equalsIgnoreCase("planCache")) {
+                        String str = this.getAttrByName(node, "size");
+                        if (StringTools.isNotEmpty(str)) {
+                            basicInfo.setSqlPlanCacheSize(Integer.parseInt(str.trim()));
+                        }
+                    }
+
+                    if (node.getNodeName().equalsIgnoreCase("paging")) {
+                        String threads = this.getAttrByName(node, "threads");
+                        if (StringTools.isNotEmpty(threads)) {
+                            basicInfo.setPagingThreads(Integer.parseInt(threads.trim()));
+                        }
+                        String countCacheTime = this.getAttrByName(node, "countCacheTime");
+                        if (StringTools.isNotEmpty(countCacheTime)) {
+                            basicInfo.setCountCacheTime(Long.parseLong(countCacheTime.trim()));
+                        }
+                    }
+
+                    if (node.getNodeName().equalsIgnoreCase("consistency")) {
+                        String readYourWrites = this.getAttrByName(node, "readYourWrites");
+                        if (StringTools.isNotEmpty(readYourWrites)) {
+                            basicInfo.setReadYourWrites(super.isStringTrue(readYourWrites.trim()));
+                        }
+                        String window = this.getAttrByName(node, "window");
+                        if (StringTools.isNotEmpty(window)) {
+                            basicInfo.setReadYourWritesWindow(Long.parseLong(window.trim()));
+                        }
+                    }
+
+                    if (node.getNodeName().equalsIgnoreCase("cache")) {
+                        String session = this.getAttrByName(node, "session");
+                        if (StringTools.isNotEmpty(session)) {
+                            basicInfo.setSessionCache(super.isStringTrue(session.trim()));
+                        }
+                        String second = this.getAttrByName(node, "second");
+                        if (StringTools.isNotEmpty(second)) {
+                            basicInfo.setSecondLevelCache(super.isStringTrue(second.trim()));
+                        }
+                        String result = this.getAttrByName(node, "result");
+                        if (StringTools.isNotEmpty(result)) {
+                            basicInfo.setResultCacheSize(Integer.parseInt(result.trim()));
+                        }
+                    }
+
+                    if (node.getNodeName().equalsIgnoreCase("link")) {
+                        String threads = this.getAttrByName(node, "threads");
+                        if (StringTools.isNotEmpty(threads)) {
+                            basicInfo.setLinkThreads(Integer.parseInt(threads.trim()));
+                        }
+                    }
+
+                    if (node.getNodeName().equalsIgnoreCase("metrics")) {
+                        String enable = this.getAttrByName(node, "enable");
+                        if (StringTools.isNotEmpty(enable)) {
+                            basicInfo.setMetrics(super.isStringTrue(enable.trim()));
+                        }
+                        String slowTime = this.getAttrByName(node, "slowTime");
+                        if (StringTools.isNotEmpty(slowTime)) {
+                            basicInfo.setSlowQueryTime(Long.parseLong(slowTime.trim()));
+                        }
+                        String jmx = this.getAttrByName(node, "jmx");
+                        if (StringTools.isNotEmpty(jmx)) {
+                            basicInfo.setMetricsJmx(super.isStringTrue(jmx.trim()));
+                        }
+                        String className = this.getAttrByName(node, "class");
+                        if (StringTools.isNotEmpty(className)) {
+                            try {
+                                basicInfo.setSqlMetrics((SQLMetrics) Class.forName(className.trim()).newInstance());
+                            } catch (Exception e) {
+                                throw new ContextException(I18n.print("metrics_class_error", className), e);
+                            }
+                        }
+                    }
+
                     if (node.getNodeName().equalsIgnoreCase("uppercase")) {
                         String str = this.getAttrByName(node, "value");
                         if (str != null && ("yes".equalsIgnoreCase(str)
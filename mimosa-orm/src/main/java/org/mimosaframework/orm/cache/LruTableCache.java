@@ -0,0 +1,170 @@
+package org.mimosaframework.orm.cache;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.utils.Clone;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按照最近最少使用淘汰的表缓存，可以设置过期时间
+ * <p>
+ * 默认保存数据的副本，子类可以重写 {@link #store(ModelObject)} 和 {@link #load(Object)}
+ * 改变数据的保存方式
+ */
+public class LruTableCache implements TableCache {
+    private final int maxSize;
+    private final long ttl;
+    private final long maxWeight;
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private long version;
+    private long weight;
+
+    /**
+     * @param maxSize 最多缓存的行数
+     * @param ttl     有效时间(毫秒)，小于等于0时不过期
+     */
+    public LruTableCache(int maxSize, long ttl) {
+        this(maxSize, ttl, 0);
+    }
+
+    /**
+     * @param maxSize   最多缓存的行数
+     * @param ttl       有效时间(毫秒)，小于等于0时不过期
+     * @param maxWeight 所有缓存值的 {@link #weigh(Object)} 之和的上限，小于等于0时不限制
+     */
+    protected LruTableCache(int maxSize, long ttl, long maxWeight) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttl = ttl;
+        this.maxWeight = maxWeight;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > LruTableCache.this.maxSize) {
+                    LruTableCache.this.weight -= eldest.getValue().weight;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    @Override
+    public ModelObject get(Object id) {
+        if (id == null) return null;
+        Object value;
+        synchronized (this) {
+            String key = String.valueOf(id);
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt > 0 && entry.expireAt < System.currentTimeMillis()) {
+                this.remove(key);
+                return null;
+            }
+            value = entry.value;
+        }
+        return this.load(value);
+    }
+
+    @Override
+    public void put(Object id, ModelObject object, long version) {
+        if (id == null || object == null) return;
+        Object value = this.store(object);
+        long w = this.weigh(value);
+        if (maxWeight > 0 && w > maxWeight) {
+            // 单行超过上限时不缓存，避免淘汰所有数据
+            return;
+        }
+        synchronized (this) {
+            if (this.version != version) {
+                return;
+            }
+            String key = String.valueOf(id);
+            this.remove(key);
+            weight += w;
+            entries.put(key, new CacheEntry(value, ttl > 0 ? System.currentTimeMillis() + ttl : 0, w));
+            if (maxWeight > 0) {
+                Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+                while (weight > maxWeight && iterator.hasNext()) {
+                    weight -= iterator.next().getValue().weight;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void evict(Object id) {
+        version++;
+        if (id != null) {
+            this.remove(String.valueOf(id));
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+        weight = 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return 当前缓存值的 {@link #weigh(Object)} 之和
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    private void remove(String key) {
+        CacheEntry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * @return 缓存值占用的大小，用于限制缓存的总大小
+     */
+    protected long weigh(Object value) {
+        return 0;
+    }
+
+    /**
+     * @return 保存到缓存中的值
+     */
+    protected Object store(ModelObject object) {
+        return Clone.cloneModelObject(object);
+    }
+
+    /**
+     * @return 从缓存的值还原的数据，每次返回新的对象
+     */
+    protected ModelObject load(Object value) {
+        return Clone.cloneModelObject((ModelObject) value);
+    }
+
+    private static class CacheEntry {
+        final Object value;
+        final long expireAt;
+        final long weight;
+
+        CacheEntry(Object value, long expireAt, long weight) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+    }
+}
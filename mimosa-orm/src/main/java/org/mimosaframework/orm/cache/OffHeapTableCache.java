@@ -0,0 +1,68 @@
+package org.mimosaframework.orm.cache;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.i18n.I18n;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * 把缓存的行序列化之后保存在堆外内存中，堆内只保留主键索引，
+ * 减少大表缓存对GC的压力，读取时需要反序列化
+ * <p>
+ * 每行单独分配一块堆外内存，除了行数之外还限制所有行占用的总字节数，
+ * 超过后按照最近最少使用淘汰，超过总字节数的单行不缓存
+ */
+public class OffHeapTableCache extends LruTableCache {
+    /**
+     * 默认最多使用64M堆外内存
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    public OffHeapTableCache(int maxSize, long ttl) {
+        this(maxSize, ttl, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxSize  最多缓存的行数
+     * @param ttl      有效时间(毫秒)，小于等于0时不过期
+     * @param maxBytes 最多使用的堆外内存字节数
+     */
+    public OffHeapTableCache(int maxSize, long ttl, long maxBytes) {
+        super(maxSize, ttl, maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES);
+    }
+
+    @Override
+    protected long weigh(Object value) {
+        return ((ByteBuffer) value).capacity();
+    }
+
+    @Override
+    protected Object store(ModelObject object) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(object);
+            out.close();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+            buffer.put(bytes.toByteArray());
+            buffer.flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(I18n.print("cache_serialize_fail"), e);
+        }
+    }
+
+    @Override
+    protected ModelObject load(Object value) {
+        ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            return (ModelObject) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(I18n.print("cache_serialize_fail"), e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.mimosaframework.orm.cache;
+
+import org.mimosaframework.orm.mapping.MappingCache;
+import org.mimosaframework.orm.mapping.MappingTable;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 所有Session共享的二级缓存，只缓存使用@Cache注解的单主键表
+ */
+public class SecondLevelCache {
+    private final ConcurrentMap<Class, TableCache> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param mappingTable 映射表
+     * @return 没有开启缓存的表返回null
+     */
+    public TableCache getTableCache(MappingTable mappingTable) {
+        if (mappingTable == null) return null;
+        MappingCache mappingCache = mappingTable.getMappingCache();
+        if (mappingCache == null) return null;
+        Class c = mappingTable.getMappingClass();
+        TableCache cache = tables.get(c);
+        if (cache == null) {
+            if (mappingTable.getMappingPrimaryKeyFields() == null
+                    || mappingTable.getMappingPrimaryKeyFields().size() != 1) {
+                return null;
+            }
+            cache = this.createTableCache(mappingCache);
+            TableCache exist = tables.putIfAbsent(c, cache);
+            if (exist != null) cache = exist;
+        }
+        return cache;
+    }
+
+    protected TableCache createTableCache(MappingCache mappingCache) {
+        if (mappingCache.isOffHeap()) {
+            return new OffHeapTableCache(mappingCache.getSize(), mappingCache.getTtl(), mappingCache.getMaxBytes());
+        }
+        return new LruTableCache(mappingCache.getSize(), mappingCache.getTtl());
+    }
+
+    /**
+     * 清空一个表的缓存
+     */
+    public void clear(Class c) {
+        TableCache cache = tables.get(c);
+        if (cache != null) cache.clear();
+    }
+
+    /**
+     * 删除一个表中指定主键的缓存
+     */
+    public void evict(Class c, Collection<Object> ids) {
+        TableCache cache = tables.get(c);
+        if (cache != null) {
+            for (Object id : ids) {
+                cache.evict(id);
+            }
+        }
+    }
+
+    public void clear() {
+        for (TableCache cache : tables.values()) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.mimosaframework.orm.cache;
+
+import org.mimosaframework.core.json.ModelObject;
+
+/**
+ * 一个表的二级缓存，按照主键保存整行数据
+ * <p>
+ * 每次删除缓存都会增加版本号，查询数据库之前先获取版本号，
+ * 放入缓存时如果版本号已经变化说明查询期间数据被修改过，丢弃查询的结果，
+ * 避免把旧数据重新放入缓存
+ */
+public interface TableCache {
+    /**
+     * @return 当前的版本号，查询数据库之前获取
+     */
+    long getVersion();
+
+    ModelObject get(Object id);
+
+    /**
+     * @param version 查询数据库之前获取的版本号
+     */
+    void put(Object id, ModelObject object, long version);
+
+    void evict(Object id);
+
+    void clear();
+
+    int size();
+}
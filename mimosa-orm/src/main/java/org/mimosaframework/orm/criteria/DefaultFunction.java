@@ -12,6 +12,7 @@ public class DefaultFunction implements LogicFunction {
     private Class tableClass;
     private boolean isMaster = true;
     private String slaveName;
+    private long cacheTtl;
     private Wraps<Filter> logicWraps;
     private Set groupBy = null;
     private Set<OrderBy> orderBy = null;
@@ -69,6 +70,12 @@ public class DefaultFunction implements LogicFunction {
         return this;
     }
 
+    @Override
+    public LogicFunction cache(long ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
     private Function add(Filter filter) {
         if (this.logicWraps == null) {
             this.logicWraps = new Wraps<>();
@@ -252,6 +259,10 @@ public class DefaultFunction implements LogicFunction {
         return slaveName;
     }
 
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
     public Set<FunctionField> getFuns() {
         return funs;
     }
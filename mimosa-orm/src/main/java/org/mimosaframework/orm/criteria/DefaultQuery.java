@@ -40,6 +40,9 @@ public class DefaultQuery implements LogicQuery {
      */
     private QueryType type;
     private boolean withoutOrderBy = false;
+    private Object[] seek;
+    private boolean withoutCount = false;
+    private long cacheTtl;
 
     public DefaultQuery(Class<?> tableClass) {
         this.tableClass = tableClass;
@@ -71,18 +74,28 @@ public class DefaultQuery implements LogicQuery {
     public DefaultQuery() {
     }
 
+    /**
+     * 复制查询，排序和join使用新的集合，修改复制的查询不影响原来的查询
+     */
     @Override
     public Query clone() {
         DefaultQuery query = new DefaultQuery(tableClass);
         query.logicWraps = logicWraps;
-        query.joins = joins;
-        query.orderBy = orderBy;
+        query.joins = new LinkedHashSet<>(joins);
+        query.orderBy = new LinkedHashSet<>(orderBy);
         query.fields = fields;
+        query.excludes = excludes;
         query.limit = limit;
         query.tableClass = tableClass;
+        query.isForUpdate = isForUpdate;
         query.isMaster = isMaster;
         query.slaveName = slaveName;
         query.as = as;
+        query.type = type;
+        query.withoutOrderBy = withoutOrderBy;
+        query.seek = seek;
+        query.withoutCount = withoutCount;
+        query.cacheTtl = cacheTtl;
         return query;
     }
 
@@ -275,6 +288,33 @@ public class DefaultQuery implements LogicQuery {
         return withoutOrderBy;
     }
 
+    @Override
+    public LogicQuery seek(Object... lastValues) {
+        if (lastValues != null) {
+            for (Object value : lastValues) {
+                if (value == null) {
+                    throw new IllegalArgumentException(I18n.print("seek_value_null"));
+                }
+            }
+        }
+        this.seek = lastValues;
+        return this;
+    }
+
+    public Object[] getSeek() {
+        return seek;
+    }
+
+    @Override
+    public LogicQuery withoutCount() {
+        this.withoutCount = true;
+        return this;
+    }
+
+    public boolean isWithoutCount() {
+        return withoutCount;
+    }
+
     @Override
     public LogicQuery eq(Serializable key, Object value) {
         Filter filter = new DefaultFilter().eq(key, value);
@@ -413,6 +453,12 @@ public class DefaultQuery implements LogicQuery {
         return this;
     }
 
+    @Override
+    public LogicQuery cache(long ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
     @Override
     public LogicQuery fields(Serializable... fields) {
         return this.fields(Arrays.asList(fields));
@@ -497,6 +543,10 @@ public class DefaultQuery implements LogicQuery {
         return slaveName;
     }
 
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
     public void setLogicWraps(Wraps<Filter> logicWraps) {
         this.logicWraps = logicWraps;
     }
@@ -17,6 +17,14 @@ public interface Function<T extends Function> extends Filter<T> {
 
     T slave(String name);
 
+    /**
+     * 缓存计算结果，和 {@link Query#cache(long)} 一致
+     *
+     * @param ttl 有效时间(毫秒)
+     * @return
+     */
+    T cache(long ttl);
+
     T linked(WrapsLinked linked);
 
     T groupBy(Object field);
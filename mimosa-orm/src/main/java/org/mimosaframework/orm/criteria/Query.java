@@ -26,6 +26,27 @@ public interface Query<T extends Query> extends Filter<T> {
 
     T limit(long start, long limit);
 
+    /**
+     * 使用上一页最后一条数据的排序字段值定位下一页(keyset分页)，
+     * 生成 (k1,k2) > (?,?) 等价的条件代替 OFFSET，翻页深度不再影响查询速度
+     * <p>
+     * 值的顺序和排序字段一致，没有排序时使用主键升序，排序字段的值不能为空，
+     * 排序字段不包含主键时会在最后加上主键升序，值也要在最后加上上一页最后一条数据的主键，
+     * 这样排序字段的值相同的数据不会在翻页时被跳过，
+     * 设置后limit的起始位置会被忽略只取每页条数
+     *
+     * @param lastValues 上一页最后一条数据的排序字段值，为空时查询第一页
+     * @return
+     */
+    T seek(Object... lastValues);
+
+    /**
+     * 分页查询时不再查询总条数，{@link Paging#getCount()} 返回-1
+     *
+     * @return
+     */
+    T withoutCount();
+
     T setTableClass(Class c);
 
     T forUpdate();
@@ -38,6 +59,15 @@ public interface Query<T extends Query> extends Filter<T> {
 
     T slave(String name);
 
+    /**
+     * 缓存查询结果，相同的SQL和参数在有效时间内直接返回缓存的结果，
+     * 通过Session修改查询涉及的表时清除缓存
+     *
+     * @param ttl 有效时间(毫秒)
+     * @return
+     */
+    T cache(long ttl);
+
     /**
      * 只查询当前字段值
      * 优先使用当前方法
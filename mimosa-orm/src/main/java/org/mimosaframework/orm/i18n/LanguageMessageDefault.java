@@ -162,6 +162,17 @@ public class LanguageMessageDefault implements MessagesRegister {
         words.put("miss_table_class", "请先使用setObjectClass设置对象映射类");
         words.put("not_found_mapping", "找不到映射类 %s 的映射表");
         words.put("id_strategy_error", "使用ID生成策略出错");
+        words.put("segment_lease_fail", "领取ID号段 %s 失败");
+        words.put("segment_prefetch_rejected", "提前领取ID号段 %s 被拒绝，将在号段用完时同步领取");
+        words.put("snowflake_worker_lease_fail", "领取雪花ID的机器ID失败");
+        words.put("snowflake_worker_exhausted", "机房 %s 下没有可以使用的雪花ID机器ID");
+        words.put("snowflake_worker_lost", "雪花ID的机器ID %s 已经被其他节点领取，请检查续约是否正常");
+        words.put("snowflake_worker_heartbeat_fail", "雪花ID的机器ID %s 续约失败");
+        words.put("snowflake_worker_expired", "雪花ID的机器ID %s 已经失效，重新领取机器ID");
+        words.put("slave_break", "从库 %s 连续获取连接失败，熔断 %s 毫秒");
+        words.put("not_found_available_slave", "没有可用的从库，使用主库读取");
+        words.put("slave_balancer_error", "创建从库负载均衡策略 %s 失败");
+        words.put("cache_serialize_fail", "序列化二级缓存数据失败");
         words.put("add_data_error", "添加数据失败");
         words.put("batch_save_empty", "批量保存列表中存在空对象");
         words.put("batch_save_table_diff", "批量保存时所有对象表必须一致,[%s]和[%s]不一致");
@@ -181,6 +192,24 @@ public class LanguageMessageDefault implements MessagesRegister {
         words.put("for_update_limit_fail", "查询使用 for update 时不允许使用limit分页");
         words.put("get_data_fail", "获取数据失败");
         words.put("get_data_count_fail", "获取数据条数失败");
+        words.put("paging_executor_rejected", "分页查询的线程池已满，count和list改为顺序执行");
+        words.put("link_executor_rejected", "多数据源执行SQL的线程池已关闭，改为在当前线程执行");
+        words.put("link_timeout", "数据源 %s 执行SQL语句超时");
+        words.put("link_fail", "数据源 %s 执行SQL语句失败");
+        words.put("async_trans_finished", "异步事务已经提交或者回滚");
+        words.put("async_trans_rollback_fail", "异步事务提交失败后回滚失败");
+        words.put("metrics_class_error", "创建语句统计实现 %s 失败");
+        words.put("metrics_jmx_fail", "语句统计 %s 注册或者注销JMX失败");
+        words.put("slow_query", "慢查询，耗时 %s 毫秒");
+        words.put("shard_field_miss", "映射类 %s 的分片字段 %s 不存在");
+        words.put("shard_node_miss", "映射类 %s 没有配置分片节点");
+        words.put("shard_value_miss", "映射类 %s 保存数据时必须有分片字段 %s 的值");
+        words.put("shard_update_key", "不允许修改分片字段 %s 的值");
+        words.put("shard_query_fail", "跨分片查询数据失败");
+        words.put("shard_not_support", "分片的映射类 %s 不支持这个操作");
+        words.put("shard_function_group", "跨分片的统计不支持group by和having");
+        words.put("shard_function_alias", "跨分片的统计字段 %s 必须指定别名");
+        words.put("shard_function_distinct", "跨分片的统计 %s 只有MAX和MIN支持distinct");
         words.put("not_fount_class", "没有找到查询映射类");
         words.put("not_found_query", "没有找到查询条件");
         words.put("include_not_exist", "查询字段中包含不存在的字段");
@@ -244,6 +273,16 @@ public class LanguageMessageDefault implements MessagesRegister {
                 "并且如果你没有在URL上设置参数useCursorFetch=true则设置本参数属于无效行为");
         words.put("next_fail", "拉链表判断是否有下一条失败");
         words.put("zipper_not_allow_del", "拉链表时不允许删除数据");
+        words.put("stream_not_support_join", "流式查询不支持join查询");
+        words.put("seek_value_null", "keyset分页的排序字段值不能为空");
+        words.put("seek_value_size", "keyset分页需要%s个排序字段值但是传入了%s个");
+
+        // JDBCCursor
+        words.put("cursor_next_fail", "游标读取下一条数据失败");
+        words.put("cursor_not_allow_del", "游标不允许删除数据");
+        words.put("close_result_set_fail", "关闭ResultSet失败");
+        words.put("close_statement_fail", "关闭Statement失败");
+        words.put("reset_auto_commit_fail", "恢复数据库连接的自动提交失败");
 
         // SQLAutonomously
         words.put("not_empty", "要执行的数据源不能为空(多级可以用.表示分层,比如 app.default)");
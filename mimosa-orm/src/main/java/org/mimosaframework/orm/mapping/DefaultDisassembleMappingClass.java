@@ -3,6 +3,8 @@ package org.mimosaframework.orm.mapping;
 
 import org.mimosaframework.core.utils.StringTools;
 import org.mimosaframework.orm.IDStrategy;
+import org.mimosaframework.orm.annotation.Cache;
+import org.mimosaframework.orm.annotation.Shard;
 import org.mimosaframework.orm.annotation.Column;
 import org.mimosaframework.orm.annotation.Index;
 import org.mimosaframework.orm.annotation.IndexItem;
@@ -35,6 +37,8 @@ public class DefaultDisassembleMappingClass implements DisassembleMappingClass {
     public MappingTable getMappingTable() {
         Annotation annotation = mappingClass.getAnnotation(Table.class);
         Annotation indexAnn = mappingClass.getAnnotation(Index.class);
+        Cache cache = (Cache) mappingClass.getAnnotation(Cache.class);
+        Shard shard = (Shard) mappingClass.getAnnotation(Shard.class);
         Table table = null;
         Index index = null;
         if (annotation != null) table = (Table) annotation;
@@ -63,6 +67,12 @@ public class DefaultDisassembleMappingClass implements DisassembleMappingClass {
             if (StringTools.isNotEmpty(table.version())) {
                 mappingTable.setVersion(table.version());
             }
+            if (cache != null) {
+                mappingTable.setMappingCache(new MappingCache(cache.size(), cache.ttl(), cache.offHeap(), cache.maxBytes()));
+            }
+            if (shard != null) {
+                mappingTable.setMappingShard(new MappingShard(shard.field(), shard.nodes(), shard.replicas()));
+            }
 
 
             this.disassembleFields(mappingTable, table);
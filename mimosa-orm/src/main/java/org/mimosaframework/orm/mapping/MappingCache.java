@@ -0,0 +1,57 @@
+package org.mimosaframework.orm.mapping;
+
+/**
+ * 注解@Cache的配置，映射表没有开启二级缓存时为空
+ */
+public class MappingCache {
+    private int size;
+    private long ttl;
+    private boolean offHeap;
+    private long maxBytes;
+
+    public MappingCache() {
+    }
+
+    public MappingCache(int size, long ttl, boolean offHeap) {
+        this.size = size;
+        this.ttl = ttl;
+        this.offHeap = offHeap;
+    }
+
+    public MappingCache(int size, long ttl, boolean offHeap, long maxBytes) {
+        this(size, ttl, offHeap);
+        this.maxBytes = maxBytes;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
@@ -0,0 +1,43 @@
+package org.mimosaframework.orm.mapping;
+
+/**
+ * 注解@Shard的配置，映射表没有分片时为空
+ */
+public class MappingShard {
+    private String field;
+    private String[] nodes;
+    private int replicas;
+
+    public MappingShard() {
+    }
+
+    public MappingShard(String field, String[] nodes, int replicas) {
+        this.field = field;
+        this.nodes = nodes;
+        this.replicas = replicas;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public String[] getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(String[] nodes) {
+        this.nodes = nodes;
+    }
+
+    public int getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(int replicas) {
+        this.replicas = replicas;
+    }
+}
@@ -59,4 +59,18 @@ public interface MappingTable {
     MappingField getAutoIncrementField();
 
     MappingField getMappingFieldByColumnName(String str);
+
+    /**
+     * 二级缓存的配置，没有开启时返回null
+     *
+     * @return
+     */
+    MappingCache getMappingCache();
+
+    /**
+     * 分片的配置，没有分片时返回null
+     *
+     * @return
+     */
+    MappingShard getMappingShard();
 }
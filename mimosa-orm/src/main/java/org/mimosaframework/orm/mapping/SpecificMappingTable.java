@@ -5,6 +5,10 @@ import java.util.*;
 public class SpecificMappingTable implements MappingTable {
     private Set<MappingIndex> mappingIndexes;
     private Map<String, MappingField> mappingFields;
+    /**
+     * 数据库列名到映射字段的索引，第一次按列名查找时生成
+     */
+    private volatile Map<String, MappingField> mappingColumns;
 
     private Class mappingClass;
     private String mappingClassName;
@@ -32,6 +36,9 @@ public class SpecificMappingTable implements MappingTable {
 
     private String sourceMappingTableName;
 
+    private MappingCache mappingCache;
+    private MappingShard mappingShard;
+
     public SpecificMappingTable() {
     }
 
@@ -40,6 +47,7 @@ public class SpecificMappingTable implements MappingTable {
             this.mappingFields = new LinkedHashMap<>();
         }
         this.mappingFields.put(field.getMappingFieldName(), field);
+        this.mappingColumns = null;
     }
 
     public void addMappingIndex(MappingIndex mappingIndex) {
@@ -94,12 +102,19 @@ public class SpecificMappingTable implements MappingTable {
     @Override
     public MappingField getMappingFieldByColumnName(String str) {
         if (this.mappingFields != null) {
-            Collection<MappingField> fields = this.mappingFields.values();
-            for (MappingField f : fields) {
-                if (f.getMappingColumnName().equals(str)) {
-                    return f;
+            Map<String, MappingField> columns = this.mappingColumns;
+            if (columns == null) {
+                columns = new HashMap<>(this.mappingFields.size() * 2);
+                for (MappingField f : this.mappingFields.values()) {
+                    String columnName = f.getMappingColumnName();
+                    // 列名相同时和按顺序查找一样使用第一个字段
+                    if (columnName != null && !columns.containsKey(columnName)) {
+                        columns.put(columnName, f);
+                    }
                 }
+                this.mappingColumns = columns;
             }
+            return columns.get(str);
         }
         return null;
     }
@@ -124,6 +139,8 @@ public class SpecificMappingTable implements MappingTable {
         table.encoding = this.encoding;
         table.version = this.version;
         table.sourceMappingTableName = this.sourceMappingTableName;
+        table.mappingCache = this.mappingCache;
+        table.mappingShard = this.mappingShard;
         return table;
     }
 
@@ -193,6 +210,24 @@ public class SpecificMappingTable implements MappingTable {
         this.sourceMappingTableName = sourceMappingTableName;
     }
 
+    @Override
+    public MappingCache getMappingCache() {
+        return mappingCache;
+    }
+
+    public void setMappingCache(MappingCache mappingCache) {
+        this.mappingCache = mappingCache;
+    }
+
+    @Override
+    public MappingShard getMappingShard() {
+        return mappingShard;
+    }
+
+    public void setMappingShard(MappingShard mappingShard) {
+        this.mappingShard = mappingShard;
+    }
+
     public Set<MappingIndex> getMappingIndexes() {
         return mappingIndexes;
     }
@@ -2,6 +2,7 @@ package org.mimosaframework.orm.merge;
 
 import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.orm.ModelObjectConvertKey;
+import org.mimosaframework.orm.SimpleModelObjectConvertKey;
 import org.mimosaframework.orm.criteria.DefaultJoin;
 import org.mimosaframework.orm.criteria.OrderBy;
 import org.mimosaframework.orm.criteria.Query;
@@ -47,6 +48,17 @@ public class DefaultObjectMerge implements ObjectMerge {
 
     private MappingGlobalWrapper mappingGlobalWrapper;
 
+    /**
+     * 整合时每一个结果集合的主键索引，key是集合本身(按引用区分)
+     * 值是主键值到已经整合对象的映射，避免每一行数据都遍历一遍集合
+     */
+    private Map<List<ModelObject>, Map<Object, ModelObject>> indexes;
+
+    /**
+     * 集合小于这个数量时直接遍历比较，不建立索引
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
     public void setMappingGlobalWrapper(MappingGlobalWrapper mappingGlobalWrapper) {
         this.mappingGlobalWrapper = mappingGlobalWrapper;
     }
@@ -71,8 +83,16 @@ public class DefaultObjectMerge implements ObjectMerge {
          * 处理时需要判断这个字段是否要保留数据库查询结果集的名称，也就是不转换名称一般是函数重命名时不需要转换
          */
         if (mapperSelectFields == null || mapperSelectFields.size() == 1) {
+            SimpleModelObjectConvertKey.ReconvertPlan plan = null;
+            if (this.modelObjectConvertKey.getClass() == SimpleModelObjectConvertKey.class) {
+                plan = ((SimpleModelObjectConvertKey) this.modelObjectConvertKey).reconvertPlan(queryTableClass, objects.get(0));
+            }
 
             for (ModelObject o : objects) {
+                if (plan != null) {
+                    ol.add(plan.apply(o));
+                    continue;
+                }
                 ModelObject on = new ModelObject();
                 for (Map.Entry<Object, Object> entry : o.entrySet()) {
                     String key = String.valueOf(entry.getKey());
@@ -135,11 +155,16 @@ public class DefaultObjectMerge implements ObjectMerge {
 
     private List<ModelObject> merge(List<ModelObject> objects, MergeTree mergeTree) {
         List<ModelObject> list = new ArrayList<>();
-        for (ModelObject object : objects) {
-            ModelObject item = this.mergeItem(object, mergeTree, list);
-            if (item != null && list.indexOf(item) == -1) {
-                list.add(item);
+        this.indexes = new IdentityHashMap<>();
+        try {
+            for (ModelObject object : objects) {
+                ModelObject item = this.mergeItem(object, mergeTree, list);
+                if (item != null) {
+                    this.addIfAbsent(list, item, mergeTree);
+                }
             }
+        } finally {
+            this.indexes = null;
         }
         return list;
     }
@@ -149,16 +174,7 @@ public class DefaultObjectMerge implements ObjectMerge {
                                   List<ModelObject> list) {
         List<SelectFieldAliasReference> fields = mergeTree.getMapperSelectFields();
 
-        ModelObject o = null;
-        if (list != null) {
-            for (ModelObject l : list) {
-                boolean eq = this.checkEquals(object, mergeTree, l);
-                if (eq) {
-                    o = l;
-                    break;
-                }
-            }
-        }
+        ModelObject o = this.find(object, mergeTree, list);
 
         if (o == null) {
             for (SelectFieldAliasReference mapperSelectField : fields) {
@@ -188,9 +204,7 @@ public class DefaultObjectMerge implements ObjectMerge {
                         ModelObject childItem = this.mergeItem(object, mt, (List<ModelObject>) children);
                         if (childItem != null) {
                             if (children == null) children = new ArrayList<>();
-                            if (((List<ModelObject>) children).indexOf(childItem) == -1) {
-                                ((List<ModelObject>) children).add(childItem);
-                            }
+                            this.addIfAbsent((List<ModelObject>) children, childItem, mt);
                             o.put(aliasName, children);
                         }
                     }
@@ -209,6 +223,100 @@ public class DefaultObjectMerge implements ObjectMerge {
         return o;
     }
 
+    /**
+     * 在已经整合的集合中查找主键相同的对象，主键值不完整或者没有主键时
+     * 和原来的比较方式一致返回空
+     */
+    private ModelObject find(ModelObject object, MergeTree mergeTree, List<ModelObject> list) {
+        if (list == null || list.size() == 0) {
+            return null;
+        }
+        if (this.indexes == null || list.size() < INDEX_THRESHOLD) {
+            for (ModelObject l : list) {
+                boolean eq = this.checkEquals(object, mergeTree, l);
+                if (eq) {
+                    return l;
+                }
+            }
+            return null;
+        }
+        Object key = this.getPrimaryKey(object, mergeTree, true);
+        if (key == null) {
+            return null;
+        }
+        Map<Object, ModelObject> index = this.indexes.get(list);
+        if (index == null) {
+            index = new HashMap<>(list.size() * 2);
+            for (ModelObject l : list) {
+                Object k = this.getPrimaryKey(l, mergeTree, false);
+                if (k != null && !index.containsKey(k)) {
+                    index.put(k, l);
+                }
+            }
+            this.indexes.put(list, index);
+        }
+        return index.get(key);
+    }
+
+    /**
+     * 添加整合后的对象，有主键的对象通过索引判断是否已经存在，
+     * 没有主键时仍然按照对象内容判断
+     */
+    private void addIfAbsent(List<ModelObject> list, ModelObject item, MergeTree mergeTree) {
+        Object key = this.getPrimaryKey(item, mergeTree, false);
+        if (key == null) {
+            if (list.indexOf(item) == -1) {
+                list.add(item);
+            }
+            return;
+        }
+        Map<Object, ModelObject> index = this.indexes != null ? this.indexes.get(list) : null;
+        if (index != null) {
+            ModelObject exist = index.get(key);
+            if (exist != item) {
+                if (exist == null) index.put(key, item);
+                list.add(item);
+            }
+        } else {
+            for (ModelObject l : list) {
+                if (l == item) return;
+            }
+            list.add(item);
+        }
+    }
+
+    /**
+     * 获得对象的主键值，多个主键时返回主键值的集合
+     *
+     * @param object   对象
+     * @param isRow    true是数据库查询的行数据(字段是别名) false是整合后的对象
+     * @param mergeTree 查询结构
+     * @return 没有主键或者主键值为空时返回null
+     */
+    private Object getPrimaryKey(ModelObject object, MergeTree mergeTree, boolean isRow) {
+        List<SelectFieldAliasReference> fields = mergeTree.getMapperSelectFields();
+        Object key = null;
+        List<Object> keys = null;
+        for (SelectFieldAliasReference f : fields) {
+            if (f.isPrimaryKey()) {
+                Object v = object.getAny(isRow ? f.getFieldAliasName() : f.getJavaFieldName());
+                if (v == null) {
+                    return null;
+                }
+                if (key == null) {
+                    key = v;
+                } else {
+                    if (keys == null) {
+                        keys = new ArrayList<>(2);
+                        keys.add(key);
+                    }
+                    keys.add(v);
+                }
+            }
+        }
+        return keys != null ? keys : key;
+    }
+
     private boolean checkEquals(ModelObject object, MergeTree mergeTree, ModelObject item) {
         List<SelectFieldAliasReference> fields = mergeTree.getMapperSelectFields();
         boolean doEq = false;
@@ -0,0 +1,162 @@
+package org.mimosaframework.orm.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.i18n.I18n;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按照语句指纹汇总耗时分布、行数和错误数，超过阈值的语句写入慢查询日志
+ * <p>
+ * 不同的指纹超过最大数量之后统一汇总到 {@link #OTHER}
+ */
+public class DefaultSQLMetrics implements SQLMetrics, SQLMetricsMXBean, Closeable {
+    private static final Log logger = LogFactory.getLog(DefaultSQLMetrics.class);
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+    public static final String OTHER = "<other>";
+
+    private final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    /**
+     * 生成的SQL大部分是重复的，缓存原始SQL对应的指纹
+     */
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final int maxStatements;
+    private final SlowQueryLog slowQueryLog;
+    private ObjectName objectName;
+
+    public DefaultSQLMetrics(long slowQueryTime) {
+        this(slowQueryTime, DEFAULT_MAX_STATEMENTS, SlowQueryLog.DEFAULT_BUFFER_SIZE);
+    }
+
+    public DefaultSQLMetrics(long slowQueryTime, int maxStatements, int slowQueryBuffer) {
+        this.maxStatements = maxStatements;
+        this.slowQueryLog = new SlowQueryLog(slowQueryTime, slowQueryBuffer);
+    }
+
+    @Override
+    public void record(StatementRecord record) {
+        String fingerprint = this.fingerprint(record.getSql());
+        StatementStats stats = statements.get(fingerprint);
+        if (stats == null) {
+            if (statements.size() >= maxStatements) {
+                fingerprint = OTHER;
+            }
+            stats = new StatementStats(fingerprint);
+            StatementStats old = statements.putIfAbsent(fingerprint, stats);
+            if (old != null) stats = old;
+        }
+        stats.record(record);
+        slowQueryLog.offer(record);
+    }
+
+    private String fingerprint(String sql) {
+        if (sql == null) return "";
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SQLFingerprint.of(sql);
+            if (fingerprints.size() >= maxStatements * 4) {
+                fingerprints.clear();
+            }
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    public StatementStats getStatementStats(String fingerprint) {
+        return statements.get(fingerprint);
+    }
+
+    @Override
+    public List<StatementSnapshot> getStatements() {
+        List<StatementSnapshot> list = new ArrayList<>(statements.size());
+        for (StatementStats stats : statements.values()) {
+            list.add(stats.snapshot());
+        }
+        Collections.sort(list, new Comparator<StatementSnapshot>() {
+            @Override
+            public int compare(StatementSnapshot o1, StatementSnapshot o2) {
+                return Long.compare(o2.getTotalMillis(), o1.getTotalMillis());
+            }
+        });
+        return list;
+    }
+
+    @Override
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    @Override
+    public long getSlowQueryTime() {
+        return slowQueryLog.getSlowQueryTime();
+    }
+
+    @Override
+    public void setSlowQueryTime(long slowQueryTime) {
+        slowQueryLog.setSlowQueryTime(slowQueryTime);
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueryLog.getCount();
+    }
+
+    @Override
+    public long getSlowQueryDropped() {
+        return slowQueryLog.getDropped();
+    }
+
+    @Override
+    public void reset() {
+        statements.clear();
+        slowQueryLog.reset();
+    }
+
+    /**
+     * 注册到平台的MBeanServer，名称重复时在后面加上序号
+     *
+     * @param name ObjectName中的name属性
+     */
+    public synchronized void registerMBean(String name) {
+        if (objectName != null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int i = 0; i < 100; i++) {
+            try {
+                ObjectName on = new ObjectName("org.mimosaframework.orm:type=SQLMetrics,name="
+                        + ObjectName.quote(i == 0 ? name : name + "-" + i));
+                server.registerMBean(this, on);
+                objectName = on;
+                return;
+            } catch (InstanceAlreadyExistsException e) {
+                // 换一个名称
+            } catch (Exception e) {
+                logger.warn(I18n.print("metrics_jmx_fail", name), e);
+                return;
+            }
+        }
+        logger.warn(I18n.print("metrics_jmx_fail", name));
+    }
+
+    @Override
+    public synchronized void close() {
+        slowQueryLog.close();
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                logger.warn(I18n.print("metrics_jmx_fail", objectName.toString()), e);
+            }
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.mimosaframework.orm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按照2的幂次划分区间的耗时分布，单位微秒，记录时不加锁
+ * <p>
+ * 百分位返回所在区间的上限，误差不超过一倍
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        long micros = nanos / 1000;
+        // 第i个区间是 [2^(i-1), 2^i) 微秒，第0个区间是不足1微秒
+        int index = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(index);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get())) {
+            if (maxNanos.compareAndSet(max, nanos)) break;
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxMicros() {
+        return maxNanos.get() / 1000;
+    }
+
+    public long getAverageMicros() {
+        long c = count.get();
+        return c == 0 ? 0 : totalNanos.get() / c / 1000;
+    }
+
+    /**
+     * @param percentile 0到100之间的百分位
+     */
+    public long getPercentileMicros(double percentile) {
+        long c = count.get();
+        if (c == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(c * percentile / 100));
+        long max = this.getMaxMicros();
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(1L << i, max);
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,87 @@
+package org.mimosaframework.orm.metrics;
+
+/**
+ * 生成语句指纹，常量替换成?，连续的空白合并成一个空格，
+ * 连续的多个?(比如in查询)合并成?+，使参数不同的同一类语句得到相同的指纹
+ */
+public final class SQLFingerprint {
+    private SQLFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) return "";
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                if (sb.length() > 0) sb.append(' ');
+                space = false;
+            }
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    char d = sql.charAt(i);
+                    if (d == '\\') {
+                        i++;
+                    } else if (d == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    i++;
+                }
+                appendPlaceholder(sb);
+            } else if (c == '?') {
+                appendPlaceholder(sb);
+            } else if (isDigit(c) && !isIdentifierEnd(sb)) {
+                while (i + 1 < length && (isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                appendPlaceholder(sb);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 前一个字符是名称的一部分时数字属于名称，比如 t1 和 col_2
+     */
+    private static boolean isIdentifierEnd(StringBuilder sb) {
+        if (sb.length() == 0) return false;
+        char c = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static void appendPlaceholder(StringBuilder sb) {
+        int i = sb.length() - 1;
+        if (i >= 0 && sb.charAt(i) == ' ') i--;
+        if (i >= 0 && sb.charAt(i) == ',') {
+            int j = i - 1;
+            if (j >= 0 && sb.charAt(j) == ' ') j--;
+            if (j > 0 && sb.charAt(j) == '+' && sb.charAt(j - 1) == '?') {
+                sb.setLength(j + 1);
+                return;
+            }
+            if (j >= 0 && sb.charAt(j) == '?') {
+                sb.setLength(j + 1);
+                sb.append('+');
+                return;
+            }
+        }
+        sb.append('?');
+    }
+}
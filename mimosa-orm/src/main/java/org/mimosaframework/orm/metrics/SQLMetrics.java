@@ -0,0 +1,10 @@
+package org.mimosaframework.orm.metrics;
+
+/**
+ * 语句执行统计的扩展接口，每条语句执行完成(包括失败)之后调用
+ * <p>
+ * 在执行语句的线程中调用，实现需要尽快返回，不能抛出异常
+ */
+public interface SQLMetrics {
+    void record(StatementRecord record);
+}
@@ -0,0 +1,25 @@
+package org.mimosaframework.orm.metrics;
+
+import java.util.List;
+
+/**
+ * 通过JMX查看语句统计和调整慢查询阈值
+ */
+public interface SQLMetricsMXBean {
+    /**
+     * @return 按照累计耗时从大到小排序的语句统计
+     */
+    List<StatementSnapshot> getStatements();
+
+    int getStatementCount();
+
+    long getSlowQueryTime();
+
+    void setSlowQueryTime(long slowQueryTime);
+
+    long getSlowQueryCount();
+
+    long getSlowQueryDropped();
+
+    void reset();
+}
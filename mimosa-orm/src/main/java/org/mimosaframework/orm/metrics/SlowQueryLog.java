@@ -0,0 +1,142 @@
+package org.mimosaframework.orm.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.platform.SQLDataPlaceholder;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 慢查询日志，执行语句的线程只把记录放入固定大小的环形队列，
+ * 由单独的线程拼接SQL和参数并输出日志，队列满了直接丢弃
+ */
+public class SlowQueryLog implements Closeable {
+    private static final Log logger = LogFactory.getLog("org.mimosaframework.orm.slow");
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final ArrayBlockingQueue<StatementRecord> buffer;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long slowQueryTime;
+    private volatile Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * @param slowQueryTime 超过这个时间的语句输出日志，单位毫秒，小于等于0时不输出
+     * @param bufferSize    等待输出的最大条数
+     */
+    public SlowQueryLog(long slowQueryTime, int bufferSize) {
+        this.slowQueryTime = slowQueryTime;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    public void offer(StatementRecord record) {
+        long threshold = slowQueryTime;
+        if (threshold <= 0 || closed || record.getTotalNanos() < threshold * 1000000) {
+            return;
+        }
+        count.incrementAndGet();
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (thread == null) {
+            this.start();
+        }
+    }
+
+    public long getSlowQueryTime() {
+        return slowQueryTime;
+    }
+
+    public void setSlowQueryTime(long slowQueryTime) {
+        this.slowQueryTime = slowQueryTime;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void reset() {
+        count.set(0);
+        dropped.set(0);
+    }
+
+    private synchronized void start() {
+        if (thread != null || closed) return;
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!closed) {
+                        StatementRecord record = buffer.poll(500, TimeUnit.MILLISECONDS);
+                        if (record != null) write(record);
+                    }
+                } catch (InterruptedException e) {
+                    // 关闭时输出剩下的记录
+                }
+                StatementRecord record;
+                while ((record = buffer.poll()) != null) {
+                    write(record);
+                }
+            }
+        }, "mimosa-slow-query");
+        t.setDaemon(true);
+        t.start();
+        thread = t;
+    }
+
+    private void write(StatementRecord record) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            sb.append(I18n.print("slow_query", String.valueOf(record.getTotalNanos() / 1000000)));
+            sb.append("\r\nSQL-LOG DataSource: ").append(record.getDataSourceName());
+            sb.append("\r\nSQL-LOG Action: ").append(record.getType());
+            sb.append("\r\nSQL-LOG String: ").append(record.getSql());
+            if (record.getPlaceholders() != null && record.getPlaceholders().size() > 0) {
+                sb.append("\r\nSQL-LOG Params: ");
+                Iterator<SQLDataPlaceholder> iterator = record.getPlaceholders().iterator();
+                while (iterator.hasNext()) {
+                    SQLDataPlaceholder placeholder = iterator.next();
+                    sb.append(placeholder.getName()).append(" = ").append(placeholder.getValue());
+                    if (iterator.hasNext()) {
+                        sb.append(" , ");
+                    }
+                }
+            }
+            sb.append("\r\nSQL-LOG Phases(us): connect=").append(record.getConnectNanos() / 1000)
+                    .append(" execute=").append(record.getExecuteNanos() / 1000)
+                    .append(" fetch=").append(record.getFetchNanos() / 1000)
+                    .append(" map=").append(record.getMapNanos() / 1000)
+                    .append(" rows=").append(record.getRows());
+            if (record.getError() != null) {
+                sb.append("\r\nSQL-LOG Error: ").append(record.getError());
+            }
+            logger.warn(sb.toString());
+        } catch (RuntimeException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+}
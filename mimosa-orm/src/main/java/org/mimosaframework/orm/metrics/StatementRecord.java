@@ -0,0 +1,126 @@
+package org.mimosaframework.orm.metrics;
+
+import org.mimosaframework.orm.platform.SQLDataPlaceholder;
+import org.mimosaframework.orm.platform.TypeForRunner;
+
+import java.util.List;
+
+/**
+ * 一条语句的执行记录，耗时分为获取连接、执行语句、读取结果集和转换结果四个阶段，
+ * 每个阶段从上一个阶段结束时开始计算，单位纳秒
+ */
+public class StatementRecord {
+    private final String dataSourceName;
+    private final TypeForRunner type;
+    private final String sql;
+    private final List<SQLDataPlaceholder> placeholders;
+    private final long startTime = System.currentTimeMillis();
+    private long last = System.nanoTime();
+    private long connectNanos;
+    private long executeNanos;
+    private long fetchNanos;
+    private long mapNanos;
+    private long rows = -1;
+    private Throwable error;
+
+    public StatementRecord(String dataSourceName, TypeForRunner type, String sql, List<SQLDataPlaceholder> placeholders) {
+        this.dataSourceName = dataSourceName;
+        this.type = type;
+        this.sql = sql;
+        this.placeholders = placeholders;
+    }
+
+    public void connected() {
+        long now = System.nanoTime();
+        connectNanos += now - last;
+        last = now;
+    }
+
+    public void executed() {
+        long now = System.nanoTime();
+        executeNanos += now - last;
+        last = now;
+    }
+
+    public void fetched() {
+        long now = System.nanoTime();
+        fetchNanos += now - last;
+        last = now;
+    }
+
+    public void mapped() {
+        long now = System.nanoTime();
+        mapNanos += now - last;
+        last = now;
+    }
+
+    /**
+     * 执行失败时上一个阶段之后的耗时都计入执行阶段
+     */
+    public void failed(Throwable error) {
+        this.executed();
+        this.error = error;
+    }
+
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public TypeForRunner getType() {
+        return type;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<SQLDataPlaceholder> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * @return 开始执行的时间戳，单位毫秒
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    public long getMapNanos() {
+        return mapNanos;
+    }
+
+    public long getTotalNanos() {
+        return connectNanos + executeNanos + fetchNanos + mapNanos;
+    }
+
+    /**
+     * @return 查询返回的行数或者修改影响的行数，未知时返回-1
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public void setError(Throwable error) {
+        this.error = error;
+    }
+}
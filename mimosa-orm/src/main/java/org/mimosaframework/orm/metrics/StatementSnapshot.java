@@ -0,0 +1,101 @@
+package org.mimosaframework.orm.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 语句统计的快照，通过JMX展示，耗时单位微秒
+ */
+public class StatementSnapshot {
+    private final String fingerprint;
+    private final long count;
+    private final long errors;
+    private final long rows;
+    private final long totalMillis;
+    private final long avgMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long connectAvgMicros;
+    private final long executeAvgMicros;
+    private final long fetchAvgMicros;
+    private final long mapAvgMicros;
+
+    @ConstructorProperties({"fingerprint", "count", "errors", "rows", "totalMillis", "avgMicros",
+            "p50Micros", "p95Micros", "p99Micros", "maxMicros",
+            "connectAvgMicros", "executeAvgMicros", "fetchAvgMicros", "mapAvgMicros"})
+    public StatementSnapshot(String fingerprint, long count, long errors, long rows, long totalMillis,
+                             long avgMicros, long p50Micros, long p95Micros, long p99Micros, long maxMicros,
+                             long connectAvgMicros, long executeAvgMicros, long fetchAvgMicros, long mapAvgMicros) {
+        this.fingerprint = fingerprint;
+        this.count = count;
+        this.errors = errors;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.avgMicros = avgMicros;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.connectAvgMicros = connectAvgMicros;
+        this.executeAvgMicros = executeAvgMicros;
+        this.fetchAvgMicros = fetchAvgMicros;
+        this.mapAvgMicros = mapAvgMicros;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getAvgMicros() {
+        return avgMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getConnectAvgMicros() {
+        return connectAvgMicros;
+    }
+
+    public long getExecuteAvgMicros() {
+        return executeAvgMicros;
+    }
+
+    public long getFetchAvgMicros() {
+        return fetchAvgMicros;
+    }
+
+    public long getMapAvgMicros() {
+        return mapAvgMicros;
+    }
+}
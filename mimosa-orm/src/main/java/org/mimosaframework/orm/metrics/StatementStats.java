@@ -0,0 +1,72 @@
+package org.mimosaframework.orm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 同一个语句指纹的累计统计
+ */
+public class StatementStats {
+    private final String fingerprint;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram connect = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+    private final LatencyHistogram fetch = new LatencyHistogram();
+    private final LatencyHistogram map = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    public StatementStats(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public void record(StatementRecord record) {
+        total.record(record.getTotalNanos());
+        connect.record(record.getConnectNanos());
+        execute.record(record.getExecuteNanos());
+        fetch.record(record.getFetchNanos());
+        map.record(record.getMapNanos());
+        if (record.getError() != null) errors.incrementAndGet();
+        if (record.getRows() > 0) rows.addAndGet(record.getRows());
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public LatencyHistogram getConnect() {
+        return connect;
+    }
+
+    public LatencyHistogram getExecute() {
+        return execute;
+    }
+
+    public LatencyHistogram getFetch() {
+        return fetch;
+    }
+
+    public LatencyHistogram getMap() {
+        return map;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public StatementSnapshot snapshot() {
+        return new StatementSnapshot(fingerprint, total.getCount(), errors.get(), rows.get(),
+                total.getTotalNanos() / 1000000, total.getAverageMicros(),
+                total.getPercentileMicros(50), total.getPercentileMicros(95),
+                total.getPercentileMicros(99), total.getMaxMicros(),
+                connect.getAverageMicros(), execute.getAverageMicros(),
+                fetch.getAverageMicros(), map.getAverageMicros());
+    }
+}
@@ -0,0 +1,172 @@
+package org.mimosaframework.orm.platform;
+
+import java.util.*;
+
+/**
+ * 分页查询的总条数缓存
+ * <p>
+ * 按照查询结构和条件值缓存count的结果，在有效期内相同的分页查询不再执行count语句，
+ * 每个结果记录依赖的表，通过Session写入这些表时清除依赖的结果，
+ * 其他程序直接修改数据库时在过期前不会反映到总条数中，所以有效期应该设置的比较短
+ * <p>
+ * 缓存有容量上限，超出后按照放入的先后顺序淘汰
+ */
+public class CountCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long ttl;
+    private final int capacity;
+    private final LinkedHashMap<String, Item> counts;
+    private final Map<String, Set<String>> tableKeys = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+
+    public CountCache(long ttl) {
+        this(ttl, DEFAULT_CAPACITY);
+    }
+
+    public CountCache(long ttl, int capacity) {
+        if (ttl <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("count cache ttl and capacity must be greater than 0");
+        }
+        this.ttl = ttl;
+        this.capacity = capacity;
+        this.counts = new LinkedHashMap<String, Item>(Math.min(capacity, 256)) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Item> eldest) {
+                if (size() > CountCache.this.capacity) {
+                    unlink(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 生成缓存的键，不同数据源的相同查询分开缓存，条件值带上类型避免 1 和 "1" 使用同一个缓存
+     *
+     * @param dataSourceName 数据源名称
+     * @param shape          count查询的结构
+     * @return 缓存的键
+     */
+    public String key(String dataSourceName, SQLPlanShape shape) {
+        List<Object> values = shape.getValues();
+        StringBuilder sb = new StringBuilder(shape.getKey().length() + values.size() * 16 + 16);
+        sb.append(dataSourceName).append('|').append(shape.getKey()).append('|');
+        for (Object value : values) {
+            if (value != null) {
+                sb.append(value.getClass().getSimpleName()).append(':');
+            }
+            sb.append(value).append(',');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 执行count之前获取依赖表的版本号
+     */
+    public synchronized long getVersion(Collection<String> tables) {
+        long version = 0;
+        for (String table : tables) {
+            Long v = versions.get(table);
+            if (v != null) version += v;
+        }
+        return version;
+    }
+
+    /**
+     * @param key 缓存的键
+     * @return 没有缓存或者已经过期返回null
+     */
+    public synchronized Long get(String key) {
+        Item item = this.counts.get(key);
+        if (item == null) return null;
+        if (item.expireAt < System.currentTimeMillis()) {
+            this.counts.remove(key);
+            unlink(key, item);
+            return null;
+        }
+        return item.count;
+    }
+
+    /**
+     * @param tables  count依赖的表名(小写)
+     * @param version 执行count之前获取的版本号，期间依赖的表被写入过则不放入
+     */
+    public synchronized void put(String key, long count, Collection<String> tables, long version) {
+        if (key == null) return;
+        if (this.getVersion(tables) != version) {
+            return;
+        }
+        Item old = this.counts.remove(key);
+        if (old != null) {
+            unlink(key, old);
+        }
+        this.counts.put(key, new Item(count, tables, System.currentTimeMillis() + ttl));
+        for (String table : tables) {
+            Set<String> keys = tableKeys.get(table);
+            if (keys == null) {
+                keys = new HashSet<>();
+                tableKeys.put(table, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * 清除依赖这个表的所有总条数
+     *
+     * @param table 表名(小写)
+     */
+    public synchronized void evict(String table) {
+        Long v = versions.get(table);
+        versions.put(table, v == null ? 1 : v + 1);
+        Set<String> keys = tableKeys.remove(table);
+        if (keys != null) {
+            for (String key : keys) {
+                Item item = this.counts.remove(key);
+                if (item != null) {
+                    unlink(key, item);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            entry.setValue(entry.getValue() + 1);
+        }
+        this.counts.clear();
+        this.tableKeys.clear();
+    }
+
+    public synchronized int size() {
+        return this.counts.size();
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    private void unlink(String key, Item item) {
+        for (String table : item.tables) {
+            Set<String> keys = tableKeys.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) tableKeys.remove(table);
+            }
+        }
+    }
+
+    private static class Item {
+        private final long count;
+        private final Collection<String> tables;
+        private final long expireAt;
+
+        Item(long count, Collection<String> tables, long expireAt) {
+            this.count = count;
+            this.tables = tables;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -8,5 +8,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public interface DatabaseExecutorCallback {
+    /**
+     * 查询结果每读取一行调用一次
+     *
+     * @param result 当前行的原始数据，使用 ResultRowMapper 时也是未经转换的一行
+     */
     void select(Connection connection, PreparedStatement statement, ResultSet resultSet, ModelObject result) throws SQLException;
 }
@@ -2,6 +2,7 @@ package org.mimosaframework.orm.platform;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.orm.transaction.Transaction;
 
 import java.sql.SQLException;
@@ -16,8 +17,10 @@ public class DefaultDBRunner extends DBRunner {
 
     @Override
     public Object doHandler(JDBCTraversing structure) throws SQLException {
-        JDBCExecutor dbSession = sessionContext.getDBChanger();
         TypeForRunner typeForRunner = structure.getTypeForRunner();
+        // 只有查询可以使用从库，写入操作始终使用主库
+        JDBCExecutor dbSession = typeForRunner == TypeForRunner.SELECT ?
+                sessionContext.getDBChanger() : sessionContext.getDBChanger(true);
         if (typeForRunner == TypeForRunner.CREATE
                 || typeForRunner == TypeForRunner.DROP
                 || typeForRunner == TypeForRunner.ALTER
@@ -27,7 +30,12 @@ public class DefaultDBRunner extends DBRunner {
             }
             return dbSession.execute(structure);
         } else if (typeForRunner == TypeForRunner.INSERT) {
-            List<Long> backObjects = dbSession.insert(structure);
+            List<Long> backObjects;
+            if (structure.getBatchPlaceholders() != null) {
+                backObjects = dbSession.batchInsert(structure);
+            } else {
+                backObjects = dbSession.insert(structure);
+            }
             if (logger.isDebugEnabled()) {
                 logger.debug("do mysql carry handler action " + typeForRunner.name());
             }
@@ -38,16 +46,42 @@ public class DefaultDBRunner extends DBRunner {
             if (logger.isDebugEnabled()) {
                 logger.debug("do mysql carry handler action " + typeForRunner.name());
             }
+            if (structure.getBatchPlaceholders() != null) {
+                return dbSession.batch(structure);
+            }
             return dbSession.update(structure);
         } else if (typeForRunner == TypeForRunner.DELETE) {
             if (logger.isDebugEnabled()) {
                 logger.debug("do mysql carry handler action " + typeForRunner.name());
             }
+            if (structure.getBatchPlaceholders() != null) {
+                return dbSession.batch(structure);
+            }
             return dbSession.delete(structure);
         } else if (typeForRunner == TypeForRunner.SELECT) {
             if (logger.isDebugEnabled()) {
                 logger.debug("do mysql carry handler action " + typeForRunner.name());
             }
+            if (structure.isCursor()) {
+                return dbSession.cursor(structure);
+            }
+            QueryResultCache resultCache = structure.getCacheTtl() > 0 && structure.getRowMapper() == null ?
+                    sessionContext.getQueryResultCache() : null;
+            if (resultCache != null) {
+                Object key = resultCache.key(sessionContext.getDataSource().getName(),
+                        structure.getSql(), structure.getSqlDataPlaceholders());
+                List<ModelObject> result = resultCache.get(key);
+                if (result != null) {
+                    return result;
+                }
+                long version = resultCache.getVersion(structure.getCacheTables());
+                result = dbSession.select(structure);
+                // 有未结束的写入时从库可能还没有同步，读到的结果不放入缓存
+                if (sessionContext.isMaster() || !sessionContext.hasWritten()) {
+                    resultCache.put(key, result, structure.getCacheTables(), structure.getCacheTtl(), version);
+                }
+                return result;
+            }
             return dbSession.select(structure);
         }
         return null;
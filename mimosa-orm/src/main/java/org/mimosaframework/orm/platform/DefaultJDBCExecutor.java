@@ -3,12 +3,15 @@ package org.mimosaframework.orm.platform;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Cursor;
 import org.mimosaframework.orm.MimosaDataSource;
 import org.mimosaframework.orm.criteria.Keyword;
 import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.metrics.SQLMetrics;
+import org.mimosaframework.orm.metrics.StatementRecord;
 import org.mimosaframework.orm.transaction.Transaction;
 import org.mimosaframework.orm.transaction.TransactionManagerUtils;
-import org.mimosaframework.orm.utils.SQLUtils;
+import org.mimosaframework.orm.utils.ResultColumnReader;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -18,17 +21,27 @@ import java.util.List;
 
 public class DefaultJDBCExecutor implements JDBCExecutor {
     private static final Log logger = LogFactory.getLog(DefaultJDBCExecutor.class);
+    /**
+     * 批量执行时每次提交到数据库的条数
+     */
+    private static final int BATCH_SIZE = 500;
     private SessionContext sessionContext;
     private boolean isIgnoreEmptySlave;
     private boolean isMaster;
     private boolean isShowSql;
     private DatabaseExecutorCallback callback;
+    private SQLMetrics metrics;
 
     public DefaultJDBCExecutor(SessionContext sessionContext) {
+        this(sessionContext, sessionContext.isMaster());
+    }
+
+    public DefaultJDBCExecutor(SessionContext sessionContext, boolean isMaster) {
         this.sessionContext = sessionContext;
         this.isShowSql = sessionContext.isShowSql();
+        this.metrics = sessionContext.getSQLMetrics();
         this.isIgnoreEmptySlave = sessionContext.isIgnoreEmptySlave();
-        this.isMaster = sessionContext.isMaster();
+        this.isMaster = isMaster;
     }
 
     @Override
@@ -41,7 +54,7 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
             try {
                 statement.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                logger.warn(I18n.print("close_statement_fail"), e);
             }
         }
         Transaction transaction = this.sessionContext.getTransaction();
@@ -53,7 +66,7 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
             try {
                 connection.close();
             } catch (Exception e) {
-                e.printStackTrace();
+                logger.warn(I18n.print("close_db_fail"), e);
             }
         }
     }
@@ -76,14 +89,21 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
     }
 
 
-    private void logger(JDBCTraversing structure) {
-        if (isShowSql && structure.isShowSQL()) {
-            SQLBuilder sqlBuilder = structure.getSqlBuilder();
-            String sqlStr = structure.getSql();
-
-            if (sqlBuilder != null) {
-                SQLBuilderCombine sql = sqlBuilder.toSQLString();
+    /**
+     * 每条语句只生成一次SQL，日志、设置参数和统计共用
+     */
+    private SQLBuilderCombine toSQL(JDBCTraversing structure) {
+        SQLBuilder sqlBuilder = structure.getSqlBuilder();
+        if (sqlBuilder != null) {
+            return sqlBuilder.toSQLString();
+        } else {
+            return new SQLBuilderCombine(structure.getSql(), structure.getSqlDataPlaceholders());
+        }
+    }
 
+    private void logger(JDBCTraversing structure, SQLBuilderCombine sql) {
+        if (isShowSql && structure.isShowSQL()) {
+            if (structure.getSqlBuilder() != null) {
                 StringBuilder sb = new StringBuilder();
                 sb.append("\r\nSQL-LOG Action: " + structure.getTypeForRunner().name());
                 sb.append("\r\nSQL-LOG String: ");
@@ -113,11 +133,7 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
                         Iterator<SQLDataPlaceholder> iterator = placeholders.iterator();
                         while (iterator.hasNext()) {
                             SQLDataPlaceholder placeholder = iterator.next();
-                            if (placeholder.getValue() instanceof List) {
-                                sb.append(placeholder.getName() + " = " + placeholder.getValue());
-                            } else {
-                                sb.append(placeholder.getName() + " = " + placeholder.getValue());
-                            }
+                            sb.append(placeholder.getName() + " = " + placeholder.getValue());
                             if (iterator.hasNext()) {
                                 sb.append(" , ");
                             }
@@ -126,13 +142,11 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
                 }
                 sb.append("\r\n");
                 logger.info(sb.toString());
-            }
-
-            if (sqlStr != null) {
+            } else if (sql.getSql() != null) {
                 StringBuilder sb = new StringBuilder();
-                sb.append(sqlStr);
+                sb.append(sql.getSql());
 
-                List<SQLDataPlaceholder> sqlDataPlaceholders = structure.getSqlDataPlaceholders();
+                List<SQLDataPlaceholder> sqlDataPlaceholders = sql.getPlaceholders();
                 if (sqlDataPlaceholders != null) {
                     sb.append("\r\nSQL-LOG Params: ");
                     Iterator<SQLDataPlaceholder> iterator = sqlDataPlaceholders.iterator();
@@ -149,27 +163,47 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
         }
     }
 
-    private PreparedStatement replacePlaceholder(Connection connection, JDBCTraversing structure, boolean gk) throws SQLException {
-        String sql = null;
-        List<SQLDataPlaceholder> placeholders = null;
+    /**
+     * 没有开启统计时返回null，之后的每个阶段都需要判断
+     */
+    private StatementRecord newRecord(JDBCTraversing structure, SQLBuilderCombine sql) {
+        if (metrics == null) {
+            return null;
+        }
+        MimosaDataSource dataSource = sessionContext.getDataSource();
+        return new StatementRecord(dataSource != null ? dataSource.getName() : null,
+                structure.getTypeForRunner(), sql.getSql(), sql.getPlaceholders());
+    }
 
-        SQLBuilder sqlBuilder = structure.getSqlBuilder();
-        if (sqlBuilder != null) {
-            SQLBuilderCombine sqlBuilderCombine = sqlBuilder.toSQLString();
-            placeholders = sqlBuilderCombine.getPlaceholders();
-            sql = sqlBuilderCombine.getSql();
-        } else {
-            sql = structure.getSql();
-            placeholders = structure.getSqlDataPlaceholders();
+    private void record(StatementRecord record) {
+        if (record != null) {
+            try {
+                metrics.record(record);
+            } catch (RuntimeException e) {
+                // 统计失败不影响语句执行
+                logger.warn(e.getMessage(), e);
+            }
         }
+    }
 
+    private PreparedStatement replacePlaceholder(Connection connection, JDBCTraversing structure,
+                                                 SQLBuilderCombine sql, boolean gk) throws SQLException {
         PreparedStatement statement;
         if (gk) {
-            statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            statement = connection.prepareStatement(sql.getSql(), Statement.RETURN_GENERATED_KEYS);
         } else {
-            statement = connection.prepareStatement(sql);
+            statement = connection.prepareStatement(sql.getSql());
+        }
+        if (structure.getQueryTimeout() > 0) {
+            // JDBC的超时时间单位是秒，不足一秒按一秒计算
+            statement.setQueryTimeout((int) Math.max(1, (structure.getQueryTimeout() + 999) / 1000));
         }
 
+        this.setPlaceholders(statement, sql.getPlaceholders());
+        return statement;
+    }
+
+    private void setPlaceholders(PreparedStatement statement, List<SQLDataPlaceholder> placeholders) throws SQLException {
         if (placeholders != null) {
             int i = 0;
             for (SQLDataPlaceholder placeholder : placeholders) {
@@ -182,7 +216,6 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
                 }
             }
         }
-        return statement;
     }
 
     private Object getFormatValue(Object value) {
@@ -197,27 +230,26 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
         return value;
     }
 
-    private String getStructureSql(JDBCTraversing structure) {
-        SQLBuilder sqlBuilder = structure.getSqlBuilder();
-        if (sqlBuilder != null) {
-            return sqlBuilder.toSQLString().getSql();
-        } else {
-            return structure.getSql();
-        }
-    }
-
     @Override
     public boolean execute(JDBCTraversing structure) throws SQLException {
-        logger(structure);
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
         Connection connection = null;
         PreparedStatement statement = null;
         try {
-            String sql = this.getStructureSql(structure);
             connection = this.getConnection();
-            statement = connection.prepareStatement(sql);
-            return statement.execute();
+            if (record != null) record.connected();
+            statement = connection.prepareStatement(sql.getSql());
+            boolean result = statement.execute();
+            if (record != null) record.executed();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
         } finally {
             this.close(connection, statement);
+            this.record(record);
         }
     }
 
@@ -228,15 +260,22 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
 
     @Override
     public List<Long> insert(JDBCTraversing structure) throws SQLException {
-        logger(structure);
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
         Connection connection = null;
         PreparedStatement statement = null;
         try {
             connection = this.getConnection();
-            statement = replacePlaceholder(connection, structure, true);
-            statement.executeUpdate();
+            if (record != null) record.connected();
+            statement = replacePlaceholder(connection, structure, sql, true);
+            int rows = statement.executeUpdate();
+            if (record != null) {
+                record.executed();
+                record.setRows(rows);
+            }
 
-            PlatformDialect dialect = PlatformFactory.getDialect(sessionContext);
+            PlatformDialect dialect = sessionContext.getDataSource().getDialect();
 
             if (dialect.isSupportGeneratedKeys()) {
                 ResultSet rs = statement.getGeneratedKeys();
@@ -245,25 +284,31 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
                     long id = rs.getLong(1);
                     ids.add(id);
                 }
+                if (record != null) record.fetched();
                 return ids;
             } else {
                 return null;
             }
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
         } finally {
             this.close(connection, statement);
+            this.record(record);
         }
     }
 
     @Override
     public void inserts(BatchPorterStructure structure) throws SQLException {
-        logger(structure);
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
         Connection connection = null;
         PreparedStatement statement = null;
 
         try {
             connection = this.getConnection();
-            SQLBuilder sqlBuilder = structure.getSqlBuilder();
-            SQLBuilderCombine sql = sqlBuilder.toSQLString();
+            if (record != null) record.connected();
             statement = connection.prepareStatement(sql.getSql());
             List<ModelObject> objects = structure.getObjects();
 
@@ -282,46 +327,137 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
                 }
             }
             statement.executeBatch();
+            if (record != null) {
+                record.executed();
+                record.setRows(objects != null ? objects.size() : 0);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
         } finally {
             this.close(connection, statement);
+            this.record(record);
         }
     }
 
     @Override
     public List<ModelObject> select(JDBCTraversing structure) throws SQLException {
-        logger(structure);
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
         Connection connection = null;
         PreparedStatement statement = null;
         try {
             connection = this.getConnection();
-            statement = replacePlaceholder(connection, structure, false);
+            if (record != null) record.connected();
+            statement = replacePlaceholder(connection, structure, sql, false);
             // ResultSet rs = statement.executeQuery();
             boolean success = statement.execute();
+            if (record != null) record.executed();
             List result = null;
             if (success) {
                 ResultSet rs = statement.getResultSet();
                 if (rs != null) {
-                    ResultSetMetaData rsmd = rs.getMetaData();
-                    int fieldCount = rsmd.getColumnCount();
+                    // 列的类型和名称只解析一次，每一行按照下标读取
+                    ResultColumnReader[] readers = ResultColumnReader.resolve(rs.getMetaData());
+                    ResultRowMapper rowMapper = structure.getRowMapper();
                     result = new ArrayList();
-                    while (rs.next()) {
-                        ModelObject object = new ModelObject(true);
-                        for (int i = 1; i <= fieldCount; i++) {
-                            String fieldClassName = rsmd.getColumnClassName(i);
-                            //获得查询后的列名称，并非表列名称
-                            String fieldName = rsmd.getColumnLabel(i);
-                            SQLUtils.recordMappingToMap(fieldClassName, fieldName, rs, object);
+                    if (rowMapper != null) {
+                        rowMapper.prepare(readers);
+                        int capacity = readers.length * 4 / 3 + 1;
+                        while (rs.next()) {
+                            if (record != null) record.fetched();
+                            if (callback != null) {
+                                // 回调需要原始的一行数据，只在设置了回调时读取
+                                ModelObject object = new ModelObject(capacity, true);
+                                ResultColumnReader.read(readers, rs, object);
+                                callback.select(connection, statement, rs, object);
+                            }
+                            result.add(rowMapper.mapRow(rs));
+                            if (record != null) record.mapped();
+                        }
+                    } else {
+                        int capacity = readers.length * 4 / 3 + 1;
+                        while (rs.next()) {
+                            if (record != null) record.fetched();
+                            ModelObject object = new ModelObject(capacity, true);
+                            ResultColumnReader.read(readers, rs, object);
+                            if (callback != null) callback.select(connection, statement, rs, object);
+                            result.add(object);
+                            if (record != null) record.mapped();
                         }
-                        if (callback != null) callback.select(connection, statement, rs, object);
-                        result.add(object);
+                    }
+                    if (record != null) {
+                        record.fetched();
+                        record.setRows(result.size());
                     }
                 } else {
                     logger.warn(I18n.print("result_set_empty"));
                 }
             }
             return result;
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
         } finally {
             this.close(connection, statement);
+            this.record(record);
+        }
+    }
+
+    @Override
+    public <T> Cursor<T> cursor(JDBCTraversing structure) throws SQLException {
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        // 游标的读取在返回之后，只统计获取连接和执行语句
+        StatementRecord record = this.newRecord(structure, sql);
+        // 游标在Session关闭后仍然会继续使用，所以不使用事务中的连接而是单独获取一个连接
+        MimosaDataSource dataSource = sessionContext.getDataSource();
+        Connection connection = dataSource.getConnection(this.isMaster, sessionContext.getSlaveName(), this.isIgnoreEmptySlave);
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        boolean resetAutoCommit = false;
+        try {
+            if (record != null) record.connected();
+            if (structure.isCursorTransactional() && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                resetAutoCommit = true;
+            }
+            // 默认就是 TYPE_FORWARD_ONLY 和 CONCUR_READ_ONLY
+            statement = replacePlaceholder(connection, structure, sql, false);
+            statement.setFetchSize(structure.getFetchSize());
+            rs = statement.executeQuery();
+            if (record != null) record.executed();
+            ResultRowMapper<T> rowMapper = structure.getRowMapper();
+            rowMapper.prepare(ResultColumnReader.resolve(rs.getMetaData()));
+            this.record(record);
+            return new JDBCCursor<>(connection, statement, rs, rowMapper, resetAutoCommit);
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) {
+                record.failed(e);
+                this.record(record);
+            }
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException ex) {
+                    logger.warn(I18n.print("close_result_set_fail"), ex);
+                }
+            }
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException ex) {
+                    logger.warn(I18n.print("close_statement_fail"), ex);
+                }
+            }
+            try {
+                if (resetAutoCommit) connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException ex) {
+                logger.warn(I18n.print("close_db_fail"), ex);
+            }
+            throw e;
         }
     }
 
@@ -330,16 +466,138 @@ public class DefaultJDBCExecutor implements JDBCExecutor {
         return executeUpdateMethod(structure);
     }
 
+    @Override
+    public int batch(JDBCTraversing structure) throws SQLException {
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = this.getConnection();
+            if (record != null) record.connected();
+            statement = connection.prepareStatement(sql.getSql());
+            List<List<SQLDataPlaceholder>> batch = structure.getBatchPlaceholders();
+            int count = 0;
+            int size = 0;
+            for (List<SQLDataPlaceholder> placeholders : batch) {
+                this.setPlaceholders(statement, placeholders);
+                statement.addBatch();
+                size++;
+                if (size % BATCH_SIZE == 0) {
+                    count += this.batchCount(statement.executeBatch());
+                }
+            }
+            if (size % BATCH_SIZE != 0) {
+                count += this.batchCount(statement.executeBatch());
+            }
+            if (record != null) {
+                record.executed();
+                record.setRows(count);
+            }
+            return count;
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
+        } finally {
+            this.close(connection, statement);
+            this.record(record);
+        }
+    }
+
+    @Override
+    public List<Long> batchInsert(JDBCTraversing structure) throws SQLException {
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            PlatformDialect dialect = sessionContext.getDataSource().getDialect();
+            boolean gk = dialect.isSupportGeneratedKeys();
+            connection = this.getConnection();
+            if (record != null) record.connected();
+            if (gk) {
+                statement = connection.prepareStatement(sql.getSql(), Statement.RETURN_GENERATED_KEYS);
+            } else {
+                statement = connection.prepareStatement(sql.getSql());
+            }
+            List<List<SQLDataPlaceholder>> batch = structure.getBatchPlaceholders();
+            List<Long> ids = gk ? new ArrayList<Long>(batch.size()) : null;
+            int size = 0;
+            for (List<SQLDataPlaceholder> placeholders : batch) {
+                this.setPlaceholders(statement, placeholders);
+                statement.addBatch();
+                size++;
+                if (size % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    if (gk) this.generatedKeys(statement, ids);
+                }
+            }
+            if (size % BATCH_SIZE != 0) {
+                statement.executeBatch();
+                if (gk) this.generatedKeys(statement, ids);
+            }
+            if (record != null) {
+                record.executed();
+                record.setRows(size);
+            }
+            return ids;
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
+        } finally {
+            this.close(connection, statement);
+            this.record(record);
+        }
+    }
+
+    private void generatedKeys(PreparedStatement statement, List<Long> ids) throws SQLException {
+        ResultSet rs = statement.getGeneratedKeys();
+        try {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        } finally {
+            rs.close();
+        }
+    }
+
+    private int batchCount(int[] counts) {
+        int count = 0;
+        for (int c : counts) {
+            // 有些驱动(比如Oracle)不返回每一条影响的行数
+            if (c == Statement.SUCCESS_NO_INFO) {
+                count++;
+            } else if (c > 0) {
+                count += c;
+            }
+        }
+        return count;
+    }
+
     private int executeUpdateMethod(JDBCTraversing structure) throws SQLException {
-        logger(structure);
+        SQLBuilderCombine sql = this.toSQL(structure);
+        logger(structure, sql);
+        StatementRecord record = this.newRecord(structure, sql);
         Connection connection = null;
         PreparedStatement statement = null;
         try {
             connection = this.getConnection();
-            statement = replacePlaceholder(connection, structure, false);
-            return statement.executeUpdate();
+            if (record != null) record.connected();
+            statement = replacePlaceholder(connection, structure, sql, false);
+            int rows = statement.executeUpdate();
+            if (record != null) {
+                record.executed();
+                record.setRows(rows);
+            }
+            return rows;
+        } catch (SQLException | RuntimeException e) {
+            if (record != null) record.failed(e);
+            throw e;
         } finally {
             this.close(connection, statement);
+            this.record(record);
         }
     }
 }
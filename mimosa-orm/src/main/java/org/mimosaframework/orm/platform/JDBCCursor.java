@@ -0,0 +1,121 @@
+package org.mimosaframework.orm.platform;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.Cursor;
+import org.mimosaframework.orm.i18n.I18n;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于JDBC结果集的游标实现，持有连接、Statement和结果集直到关闭
+ *
+ * @param <T> 每一行数据的类型
+ */
+public class JDBCCursor<T> implements Cursor<T> {
+    private static final Log logger = LogFactory.getLog(JDBCCursor.class);
+    private Connection connection;
+    private Statement statement;
+    private ResultSet resultSet;
+    private ResultRowMapper<T> rowMapper;
+    /**
+     * 打开游标时修改了自动提交，关闭时需要恢复
+     */
+    private boolean resetAutoCommit;
+
+    private boolean fetched = false;
+    private boolean hasNext = false;
+    private boolean closed = false;
+
+    public JDBCCursor(Connection connection, Statement statement, ResultSet resultSet,
+                      ResultRowMapper<T> rowMapper, boolean resetAutoCommit) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.resetAutoCommit = resetAutoCommit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!fetched) {
+            try {
+                hasNext = resultSet.next();
+                fetched = true;
+            } catch (SQLException e) {
+                this.close();
+                throw new IllegalStateException(I18n.print("cursor_next_fail"), e);
+            }
+            if (!hasNext) {
+                this.close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        try {
+            return rowMapper.mapRow(resultSet);
+        } catch (SQLException e) {
+            this.close();
+            throw new IllegalStateException(I18n.print("query_data_fail"), e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException(I18n.print("cursor_not_allow_del"));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hasNext = false;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            logger.warn(I18n.print("close_result_set_fail"), e);
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn(I18n.print("close_statement_fail"), e);
+        }
+        try {
+            if (resetAutoCommit) {
+                // 游标只做了查询，结束只读事务后恢复连接的自动提交
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.warn(I18n.print("reset_auto_commit_fail"), e);
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn(I18n.print("close_db_fail"), e);
+            }
+        }
+    }
+}
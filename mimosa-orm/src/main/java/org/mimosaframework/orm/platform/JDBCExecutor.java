@@ -1,6 +1,7 @@
 package org.mimosaframework.orm.platform;
 
 import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Cursor;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -18,5 +19,32 @@ public interface JDBCExecutor {
 
     List<ModelObject> select(JDBCTraversing structure) throws SQLException;
 
+    /**
+     * 流式查询，返回的游标持有独立的数据库连接
+     *
+     * @param structure 查询语句，必须设置 {@link JDBCTraversing#setRowMapper(ResultRowMapper)}
+     * @return 游标
+     * @throws SQLException
+     */
+    <T> Cursor<T> cursor(JDBCTraversing structure) throws SQLException;
+
     int update(JDBCTraversing structure) throws SQLException;
+
+    /**
+     * 同一条语句使用不同的参数批量执行
+     *
+     * @param structure 必须设置 {@link JDBCTraversing#setBatchPlaceholders(List)}
+     * @return 影响的总行数，驱动没有返回行数时每一条按照1行计算
+     * @throws SQLException
+     */
+    int batch(JDBCTraversing structure) throws SQLException;
+
+    /**
+     * 同一条添加语句使用不同的参数批量执行
+     *
+     * @param structure 必须设置 {@link JDBCTraversing#setBatchPlaceholders(List)}
+     * @return 按照添加顺序返回的自增主键，数据库不支持返回时为null
+     * @throws SQLException
+     */
+    List<Long> batchInsert(JDBCTraversing structure) throws SQLException;
 }
@@ -1,5 +1,6 @@
 package org.mimosaframework.orm.platform;
 
+import java.util.Collection;
 import java.util.List;
 
 public class JDBCTraversing {
@@ -18,6 +19,39 @@ public class JDBCTraversing {
 
     private boolean showSQL = true;
 
+    /**
+     * 查询时如果不为空则直接转换结果集的每一行
+     */
+    private ResultRowMapper rowMapper;
+
+    /**
+     * 是否以游标的方式返回结果(流式查询)
+     */
+    private boolean cursor;
+    private int fetchSize;
+    /**
+     * 游标是否需要关闭自动提交
+     */
+    private boolean cursorTransactional;
+
+    /**
+     * 不为空时批量执行，每一个元素是一次执行的预编译参数
+     */
+    private List<List<SQLDataPlaceholder>> batchPlaceholders;
+
+    /**
+     * 大于0时缓存查询结果的时间(毫秒)
+     */
+    private long cacheTtl;
+    /**
+     * 查询依赖的表名(小写)，写入这些表时清除缓存的结果
+     */
+    private Collection<String> cacheTables;
+    /**
+     * 大于0时设置语句的执行超时时间(毫秒)
+     */
+    private long queryTimeout;
+
     public JDBCTraversing(String sql) {
         sql = sql.trim();
         this.sql = sql;
@@ -119,4 +153,68 @@ public class JDBCTraversing {
     public void setShowSQL(boolean showSQL) {
         this.showSQL = showSQL;
     }
+
+    public ResultRowMapper getRowMapper() {
+        return rowMapper;
+    }
+
+    public void setRowMapper(ResultRowMapper rowMapper) {
+        this.rowMapper = rowMapper;
+    }
+
+    public boolean isCursor() {
+        return cursor;
+    }
+
+    public void setCursor(boolean cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public List<List<SQLDataPlaceholder>> getBatchPlaceholders() {
+        return batchPlaceholders;
+    }
+
+    public void setBatchPlaceholders(List<List<SQLDataPlaceholder>> batchPlaceholders) {
+        this.batchPlaceholders = batchPlaceholders;
+    }
+
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public Collection<String> getCacheTables() {
+        return cacheTables;
+    }
+
+    public void setCacheTables(Collection<String> cacheTables) {
+        this.cacheTables = cacheTables;
+    }
+
+    public long getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setQueryTimeout(long queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    public boolean isCursorTransactional() {
+        return cursorTransactional;
+    }
+
+    public void setCursorTransactional(boolean cursorTransactional) {
+        this.cursorTransactional = cursorTransactional;
+    }
 }
@@ -0,0 +1,45 @@
+package org.mimosaframework.orm.platform;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.ModelObjectConvertKey;
+import org.mimosaframework.orm.SimpleModelObjectConvertKey;
+import org.mimosaframework.orm.utils.ResultColumnReader;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 将结果集的每一行转换成列名已经转换成映射类字段名的ModelObject，
+ * 结果和没有join查询时 {@link org.mimosaframework.orm.merge.DefaultObjectMerge} 的整合结果一致
+ */
+public class ModelObjectRowMapper implements ResultRowMapper<ModelObject> {
+    private Class tableClass;
+    private ModelObjectConvertKey convert;
+    private ResultColumnReader[] readers;
+    private SimpleModelObjectConvertKey.ReconvertPlan plan;
+
+    public ModelObjectRowMapper(Class tableClass, ModelObjectConvertKey convert) {
+        this.tableClass = tableClass;
+        this.convert = convert;
+    }
+
+    @Override
+    public void prepare(ResultColumnReader[] readers) throws SQLException {
+        this.readers = readers;
+        this.plan = null;
+    }
+
+    @Override
+    public ModelObject mapRow(ResultSet rs) throws SQLException {
+        ModelObject object = new ModelObject(readers.length * 4 / 3 + 1, true);
+        ResultColumnReader.read(readers, rs, object);
+        if (convert.getClass() == SimpleModelObjectConvertKey.class) {
+            if (plan == null) {
+                plan = ((SimpleModelObjectConvertKey) convert).reconvertPlan(tableClass, object);
+            }
+            return plan.apply(object);
+        }
+        object.setObjectClass(tableClass);
+        return convert.reconvert(tableClass, object);
+    }
+}
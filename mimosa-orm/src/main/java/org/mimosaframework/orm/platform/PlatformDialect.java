@@ -27,14 +27,26 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class PlatformDialect implements Dialect {
     private static final Log logger = LogFactory.getLog(PlatformDialect.class);
-    private Map<KeyColumnType, ColumnType> columnTypes = new HashMap<>();
+    /**
+     * 每种数据库的字段类型是固定的，同一个方言的所有实例共用一份
+     */
+    private static final ConcurrentMap<Class, Map<KeyColumnType, ColumnType>> COLUMN_TYPES = new ConcurrentHashMap<>();
+    private Map<KeyColumnType, ColumnType> columnTypes;
     private DBRunner runner = null;
     protected SessionContext sessionContext;
     protected MappingGlobalWrapper mappingGlobalWrapper;
 
+    /**
+     * 注册数据库的字段类型，每种方言只会调用一次，没有字段类型的方言不需要重写
+     */
+    protected void registerColumnTypes() {
+    }
+
     protected void registerColumnType(KeyColumnType type, String typeName) {
         this.columnTypes.put(type, new ColumnType(type, typeName,
                 -1, -1, ColumnCompareType.NONE));
@@ -301,7 +313,16 @@ public abstract class PlatformDialect implements Dialect {
     }
 
     public ColumnType getColumnType(KeyColumnType type) {
-        return columnTypes.get(type);
+        Map<KeyColumnType, ColumnType> types = COLUMN_TYPES.get(this.getClass());
+        if (types == null) {
+            this.columnTypes = new HashMap<>();
+            this.registerColumnTypes();
+            types = Collections.unmodifiableMap(this.columnTypes);
+            Map<KeyColumnType, ColumnType> exist = COLUMN_TYPES.putIfAbsent(this.getClass(), types);
+            if (exist != null) types = exist;
+            this.columnTypes = null;
+        }
+        return types.get(type);
     }
 
     protected StampCreate commonCreateTable(MappingTable mappingTable) {
@@ -941,6 +962,34 @@ public abstract class PlatformDialect implements Dialect {
      */
     public abstract boolean isSupportGeneratedKeys();
 
+    /**
+     * 一条语句中最多允许的预编译参数个数，批量添加时按照这个值拆分成多条语句
+     *
+     * @return
+     */
+    public int getMaxParameterCount() {
+        return 32767;
+    }
+
+    /**
+     * 批量添加时一条语句最多包含的行数
+     *
+     * @return
+     */
+    public int getMaxInsertRows() {
+        return 1000;
+    }
+
+    /**
+     * 批量添加时是否使用JDBC的批处理，否则使用一条语句添加多行
+     * 一条语句添加多行解析成本很高的数据库(比如Oracle的INSERT ALL)应该使用批处理
+     *
+     * @return
+     */
+    public boolean isInsertUseBatch() {
+        return false;
+    }
+
     /**
      * 是否查询分页时必须要排序字段
      * 大部分数据库都不是必须的 sqlserver 必须要
@@ -953,6 +1002,27 @@ public abstract class PlatformDialect implements Dialect {
         return false;
     }
 
+    /**
+     * 流式查询时每次从数据库读取的行数
+     * 大部分数据库驱动直接使用设置的值
+     *
+     * @param fetchSize 设置的读取行数
+     * @return 实际设置到Statement的值
+     */
+    public int getStreamFetchSize(int fetchSize) {
+        return fetchSize;
+    }
+
+    /**
+     * 流式查询时是否需要关闭自动提交
+     * 有些数据库驱动只有在事务中才会分批读取(比如PostgreSQL)
+     *
+     * @return
+     */
+    public boolean isStreamNeedTransaction() {
+        return false;
+    }
+
     /**
      * 查询使用having时是否必须带入group by
      * <p>
@@ -977,4 +1047,24 @@ public abstract class PlatformDialect implements Dialect {
     public boolean isSupportSameColumnIndex() {
         return true;
     }
+
+    /**
+     * 升序排序时空值是否排在最前面，分库分表合并排序结果时使用
+     * mysql、sqlserver、sqlite 空值最小，oracle、postgresql、db2 空值最大
+     *
+     * @return
+     */
+    public boolean isOrderNullsFirst() {
+        return true;
+    }
+
+    /**
+     * 默认的排序规则比较字符串时是否忽略大小写，分库分表合并排序结果时使用
+     * mysql、sqlserver 默认的排序规则不区分大小写
+     *
+     * @return
+     */
+    public boolean isOrderIgnoreCase() {
+        return false;
+    }
 }
@@ -5,6 +5,7 @@ import org.apache.commons.logging.LogFactory;
 import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.core.utils.StringTools;
 import org.mimosaframework.orm.BasicFunction;
+import org.mimosaframework.orm.Cursor;
 import org.mimosaframework.orm.ModelObjectConvertKey;
 import org.mimosaframework.orm.criteria.*;
 import org.mimosaframework.orm.i18n.I18n;
@@ -37,6 +38,11 @@ public class PlatformExecutor {
     private DBRunner runner;
     private MappingGlobalWrapper mappingGlobalWrapper;
     private SessionContext sessionContext;
+    /**
+     * 生成SQL和执行DDL使用的方言，绑定了当前的SessionContext，需要生成SQL时才创建，
+     * 只判断数据库特性时使用数据源共用的方言
+     */
+    private PlatformDialect dialect;
 
     public PlatformExecutor(MappingGlobalWrapper mappingGlobalWrapper,
                             SessionContext sessionContext) {
@@ -312,11 +318,22 @@ public class PlatformExecutor {
     }
 
     public PlatformDialect getDialect() {
-        PlatformDialect dialect = PlatformFactory.getDialect(sessionContext);
-        dialect.setMappingGlobalWrapper(this.mappingGlobalWrapper);
+        PlatformDialect dialect = this.dialect;
+        if (dialect == null) {
+            dialect = PlatformFactory.getDialect(sessionContext);
+            dialect.setMappingGlobalWrapper(this.mappingGlobalWrapper);
+            this.dialect = dialect;
+        }
         return dialect;
     }
 
+    /**
+     * 数据源共用的方言，只用来判断数据库的特性，执行计划命中缓存时不需要创建当前Session的方言
+     */
+    private PlatformDialect getFeatureDialect() {
+        return sessionContext.getDataSource().getDialect();
+    }
+
     public DialectNextStep createTable(MappingTable mappingTable) throws SQLException {
         PlatformDialect dialect = this.getDialect();
         return dialect.define(new DataDefinition(DataDefinitionType.CREATE_TABLE, mappingTable));
@@ -365,12 +382,16 @@ public class PlatformExecutor {
         dialect.rebuildTable(structures, mappingTable, structure);
     }
 
+    /**
+     * 批量添加，按照数据库的参数个数和行数限制拆分成多条语句依次执行
+     *
+     * @return 按照添加顺序返回的自增主键
+     */
     public List<Long> inserts(MappingTable table, List<ModelObject> objects, boolean update) throws SQLException {
         PlatformDialect dialect = this.getDialect();
         if (objects != null && objects.size() > 0) {
+            sessionContext.written(table.getMappingTableName());
             Set<MappingField> fields = table.getMappingFields();
-            DefaultSQLInsertBuilder insertBuilder = new DefaultSQLInsertBuilder();
-            insertBuilder.insert().into().table(table.getMappingTableName());
             String[] columns = null;
             Set<Object> keys = null;
             int i = 0;
@@ -407,59 +428,239 @@ public class PlatformExecutor {
                     }
                 }
             }
-            insertBuilder.columns(columns).values();
-            for (ModelObject object : objects) {
-                Object[] values = new Object[keys.size()];
-                i = 0;
-                for (Object key : keys) {
-                    values[i] = object.get(key);
-                    i++;
-                }
-                insertBuilder.row(values);
-            }
 
-            StampInsert insert = insertBuilder.compile();
-            if (insert != null && !dialect.isSupportGeneratedKeys()) {
+            String autoColumn = null;
+            if (!dialect.isSupportGeneratedKeys()) {
                 List<MappingField> pks = table.getMappingPrimaryKeyFields();
                 for (MappingField pk : pks) {
                     if (pk.isMappingAutoIncrement()) {
-                        insert.autoField = new StampInsert.StampInsertSequence();
-                        insert.autoField.columnName = pk.getMappingColumnName();
+                        autoColumn = pk.getMappingColumnName();
                         break;
                     }
                 }
             }
-            SQLBuilderCombine combine = null;
-            if (update) {
-                combine = dialect.save(insert);
-            } else {
-                combine = dialect.insert(insert);
+
+            if (objects.size() > 1 && dialect.isInsertUseBatch()) {
+                return this.batchInserts(dialect, table, objects, update, columns, keys, autoColumn);
             }
-            Object object = this.runner.doHandler(new JDBCTraversing(TypeForRunner.INSERT,
-                    combine.getSql(), combine.getPlaceholders()));
-            if (!dialect.isSupportGeneratedKeys()) {
-                StampColumn[] stampColumns = insert.columns;
-                Object[][] values = insert.values;
-                int k = 0;
-                for (StampColumn column : stampColumns) {
-                    if (column.column.equals(insert.autoField.columnName)) {
-                        break;
-                    }
-                    k++;
-                }
 
-                List<Long> ids = new ArrayList<>();
-                for (Object[] o : values) {
-                    ids.add((Long) o[k]);
-                }
-                return ids;
+            // 不支持返回主键的数据库会额外添加一个主键列
+            int columnCount = columns.length + (autoColumn != null ? 1 : 0);
+            int rows = Math.min(dialect.getMaxInsertRows(),
+                    Math.max(1, dialect.getMaxParameterCount() / Math.max(1, columnCount)));
+            if (objects.size() <= rows) {
+                return this.insertChunk(dialect, table, objects, update, columns, keys, autoColumn);
             }
-            return (List<Long>) object;
+            List<Long> ids = new ArrayList<>(objects.size());
+            for (int from = 0; from < objects.size(); from += rows) {
+                List<ModelObject> chunk = objects.subList(from, Math.min(from + rows, objects.size()));
+                ids = this.appendIds(ids, this.insertChunk(dialect, table, chunk, update, columns, keys, autoColumn));
+            }
+            return ids;
         }
         return null;
     }
 
+    private StampInsert compileInsert(String tableName, List<ModelObject> objects,
+                                      String[] columns, Set<Object> keys, String autoColumn) {
+        DefaultSQLInsertBuilder insertBuilder = new DefaultSQLInsertBuilder();
+        insertBuilder.insert().into().table(tableName);
+        insertBuilder.columns(columns).values();
+        for (ModelObject object : objects) {
+            Object[] values = new Object[keys.size()];
+            int i = 0;
+            for (Object key : keys) {
+                values[i] = object.get(key);
+                i++;
+            }
+            insertBuilder.row(values);
+        }
+
+        StampInsert insert = insertBuilder.compile();
+        if (insert != null && autoColumn != null) {
+            insert.autoField = new StampInsert.StampInsertSequence();
+            insert.autoField.columnName = autoColumn;
+        }
+        return insert;
+    }
+
+    private List<Long> insertChunk(PlatformDialect dialect, MappingTable table, List<ModelObject> objects,
+                                   boolean update, String[] columns, Set<Object> keys,
+                                   String autoColumn) throws SQLException {
+        StampInsert insert = this.compileInsert(table.getMappingTableName(), objects, columns, keys, autoColumn);
+        SQLBuilderCombine combine = null;
+        if (update) {
+            combine = dialect.save(insert);
+        } else {
+            combine = dialect.insert(insert);
+        }
+        Object object = this.runner.doHandler(new JDBCTraversing(TypeForRunner.INSERT,
+                combine.getSql(), combine.getPlaceholders()));
+        if (!dialect.isSupportGeneratedKeys()) {
+            return this.sequenceIds(insert, autoColumn);
+        }
+        return (List<Long>) object;
+    }
+
+    /**
+     * 每一行单独生成语句，相同的语句合并成一次JDBC批处理
+     */
+    private List<Long> batchInserts(PlatformDialect dialect, MappingTable table, List<ModelObject> objects,
+                                    boolean update, String[] columns, Set<Object> keys,
+                                    String autoColumn) throws SQLException {
+        String sql = null;
+        List<List<SQLDataPlaceholder>> batch = new ArrayList<>(objects.size());
+        List<Long> ids = new ArrayList<>(objects.size());
+        List<Long> sequenceIds = autoColumn != null ? new ArrayList<Long>(objects.size()) : null;
+        for (ModelObject o : objects) {
+            StampInsert insert = this.compileInsert(table.getMappingTableName(),
+                    Collections.singletonList(o), columns, keys, autoColumn);
+            SQLBuilderCombine combine = update ? dialect.save(insert) : dialect.insert(insert);
+            if (sql != null && !sql.equals(combine.getSql())) {
+                // 主键是否从序列获取等原因导致语句不同时先执行已有的
+                ids = this.appendIds(ids, this.batchInsert(sql, batch));
+                batch = new ArrayList<>();
+            }
+            sql = combine.getSql();
+            batch.add(combine.getPlaceholders());
+            if (sequenceIds != null) {
+                List<Long> rowIds = this.sequenceIds(insert, autoColumn);
+                sequenceIds.add(rowIds.size() > 0 ? rowIds.get(0) : null);
+            }
+        }
+        ids = this.appendIds(ids, this.batchInsert(sql, batch));
+        if (!dialect.isSupportGeneratedKeys()) {
+            return sequenceIds;
+        }
+        return ids;
+    }
+
+    private List<Long> appendIds(List<Long> ids, List<Long> append) {
+        if (ids == null || append == null) {
+            return null;
+        }
+        ids.addAll(append);
+        return ids;
+    }
+
+    private List<Long> batchInsert(String sql, List<List<SQLDataPlaceholder>> batch) throws SQLException {
+        JDBCTraversing traversing = new JDBCTraversing(TypeForRunner.INSERT, sql, null);
+        traversing.setBatchPlaceholders(batch);
+        return (List<Long>) this.runner.doHandler(traversing);
+    }
+
+    private List<Long> sequenceIds(StampInsert insert, String autoColumn) {
+        List<Long> ids = new ArrayList<>();
+        if (autoColumn == null) {
+            return ids;
+        }
+        StampColumn[] stampColumns = insert.columns;
+        int k = 0;
+        for (StampColumn column : stampColumns) {
+            if (column.column.equals(autoColumn)) {
+                break;
+            }
+            k++;
+        }
+        for (Object[] o : insert.values) {
+            ids.add((Long) o[k]);
+        }
+        return ids;
+    }
+
     public Integer update(MappingTable table, DefaultUpdate update) throws SQLException {
+        sessionContext.written(table.getMappingTableName());
+        SQLBuilderCombine combine = this.compileUpdate(table, update);
+        return (Integer) this.runner.doHandler(new JDBCTraversing(TypeForRunner.UPDATE,
+                combine.getSql(), combine.getPlaceholders()));
+    }
+
+    /**
+     * 批量更新，连续的生成SQL语句相同(更新的字段相同)的归为一组，
+     * 每一组预编译一次然后批量执行，SQL语句变化时执行之前的一组，保证按照传入的顺序执行
+     *
+     * @param table   映射表
+     * @param updates 更新条件
+     * @return 影响的总行数
+     * @throws SQLException
+     */
+    public int updates(MappingTable table, List<DefaultUpdate> updates) throws SQLException {
+        sessionContext.written(table.getMappingTableName());
+        List<SQLBuilderCombine> combines = new ArrayList<>(updates.size());
+        for (DefaultUpdate update : updates) {
+            combines.add(this.compileUpdate(table, update));
+        }
+        return this.batch(TypeForRunner.UPDATE, combines);
+    }
+
+    /**
+     * 批量删除，分组方式和 {@link #updates(MappingTable, List)} 一致
+     *
+     * @param table   映射表
+     * @param deletes 删除条件
+     * @return 影响的总行数
+     * @throws SQLException
+     */
+    public int deletes(MappingTable table, List<DefaultDelete> deletes) throws SQLException {
+        sessionContext.written(table.getMappingTableName());
+        List<SQLBuilderCombine> combines = new ArrayList<>(deletes.size());
+        for (DefaultDelete delete : deletes) {
+            combines.add(this.compileDelete(table, delete));
+        }
+        return this.batch(TypeForRunner.DELETE, combines);
+    }
+
+    private int batch(TypeForRunner type, List<SQLBuilderCombine> combines) throws SQLException {
+        int count = 0;
+        String sql = null;
+        List<List<SQLDataPlaceholder>> group = new ArrayList<>();
+        for (SQLBuilderCombine combine : combines) {
+            if (sql != null && !sql.equals(combine.getSql())) {
+                count += this.batch(type, sql, group);
+                group = new ArrayList<>();
+            }
+            sql = combine.getSql();
+            group.add(combine.getPlaceholders());
+        }
+        if (sql != null) {
+            count += this.batch(type, sql, group);
+        }
+        return count;
+    }
+
+    private int batch(TypeForRunner type, String sql, List<List<SQLDataPlaceholder>> group) throws SQLException {
+        JDBCTraversing traversing;
+        if (group.size() == 1) {
+            traversing = new JDBCTraversing(type, sql, group.get(0));
+        } else {
+            traversing = new JDBCTraversing(type, sql, null);
+            traversing.setBatchPlaceholders(group);
+        }
+        Integer c = (Integer) this.runner.doHandler(traversing);
+        return c != null ? c : 0;
+    }
+
+    private SQLBuilderCombine compileUpdate(MappingTable table, DefaultUpdate update) {
+        SQLPlanCache planCache = sessionContext.getSQLPlanCache();
+        SQLPlanShape shape = null;
+        SQLBuilderCombine combine = null;
+        if (planCache != null) {
+            shape = SQLPlanShape.update(sessionContext.getDatabaseTypeEnum(), table.getMappingTableName(), update);
+            SQLPlan plan = planCache.get(shape.getKey());
+            if (plan != null) {
+                combine = new SQLBuilderCombine(plan.getSql(), plan.bind(shape));
+            }
+        }
+        if (combine == null) {
+            combine = this.buildUpdate(table, update);
+            if (shape != null) {
+                planCache.put(shape.getKey(), SQLPlan.build(shape, combine));
+            }
+        }
+        return combine;
+    }
+
+    private SQLBuilderCombine buildUpdate(MappingTable table, DefaultUpdate update) {
         PlatformDialect dialect = this.getDialect();
 
         Wraps<Filter> wraps = update.getLogicWraps();
@@ -498,17 +699,41 @@ public class PlatformExecutor {
 
         if (wraps != null) updateBuilder.where();
         this.buildWraps(updateBuilder, table, wraps, false, null);
-        SQLBuilderCombine combine = dialect.update(updateBuilder.compile());
-        return (Integer) this.runner.doHandler(new JDBCTraversing(TypeForRunner.UPDATE,
-                combine.getSql(), combine.getPlaceholders()));
+        return dialect.update(updateBuilder.compile());
     }
 
     public boolean isSupportDuplicateKeyUpdate() {
-        PlatformDialect dialect = this.getDialect();
-        return dialect.isSupportDuplicateKeyUpdate();
+        return this.getFeatureDialect().isSupportDuplicateKeyUpdate();
     }
 
     public Integer delete(MappingTable table, DefaultDelete delete) throws SQLException {
+        sessionContext.written(table.getMappingTableName());
+        SQLBuilderCombine combine = this.compileDelete(table, delete);
+        return (Integer) this.runner.doHandler(new JDBCTraversing(TypeForRunner.DELETE,
+                combine.getSql(), combine.getPlaceholders()));
+    }
+
+    private SQLBuilderCombine compileDelete(MappingTable table, DefaultDelete delete) {
+        SQLPlanCache planCache = sessionContext.getSQLPlanCache();
+        SQLPlanShape shape = null;
+        SQLBuilderCombine combine = null;
+        if (planCache != null) {
+            shape = SQLPlanShape.delete(sessionContext.getDatabaseTypeEnum(), table.getMappingTableName(), delete);
+            SQLPlan plan = planCache.get(shape.getKey());
+            if (plan != null) {
+                combine = new SQLBuilderCombine(plan.getSql(), plan.bind(shape));
+            }
+        }
+        if (combine == null) {
+            combine = this.buildDelete(table, delete);
+            if (shape != null) {
+                planCache.put(shape.getKey(), SQLPlan.build(shape, combine));
+            }
+        }
+        return combine;
+    }
+
+    private SQLBuilderCombine buildDelete(MappingTable table, DefaultDelete delete) {
         PlatformDialect dialect = this.getDialect();
         Wraps<Filter> wraps = delete.getLogicWraps();
         DefaultSQLDeleteBuilder deleteBuilder = new DefaultSQLDeleteBuilder();
@@ -516,13 +741,62 @@ public class PlatformExecutor {
 
         if (wraps != null) deleteBuilder.where();
         this.buildWraps(deleteBuilder, table, wraps, false, null);
-        SQLBuilderCombine combine = dialect.delete(deleteBuilder.compile());
-        return (Integer) this.runner.doHandler(new JDBCTraversing(TypeForRunner.DELETE,
-                combine.getSql(), combine.getPlaceholders()));
+        return dialect.delete(deleteBuilder.compile());
     }
 
     public List<ModelObject> select(DefaultQuery query, ModelObjectConvertKey convert) throws SQLException {
-        PlatformDialect dialect = this.getDialect();
+        return (List<ModelObject>) this.select(query, convert, null, 0);
+    }
+
+    /**
+     * 查询结果不转换成ModelObject而是直接由rowMapper转换每一行，
+     * 只能用于没有join的查询
+     *
+     * @param query     查询条件
+     * @param rowMapper 每一行的转换方式
+     * @return 转换后的结果
+     * @throws SQLException
+     */
+    public <T> List<T> select(DefaultQuery query, ResultRowMapper<T> rowMapper) throws SQLException {
+        return (List<T>) this.select(query, null, rowMapper, 0);
+    }
+
+    /**
+     * 流式查询，结果集按需逐批读取，只能用于没有join的查询
+     *
+     * @param query     查询条件
+     * @param convert   rowMapper为空时使用的列名转换
+     * @param rowMapper 每一行的转换方式，为空时转换成ModelObject
+     * @param fetchSize 每次从数据库读取的行数
+     * @return 游标
+     * @throws SQLException
+     */
+    public <T> Cursor<T> stream(DefaultQuery query, ModelObjectConvertKey convert,
+                                ResultRowMapper<T> rowMapper, int fetchSize) throws SQLException {
+        if (rowMapper == null) {
+            rowMapper = (ResultRowMapper<T>) new ModelObjectRowMapper(query.getTableClass(), convert);
+        }
+        return (Cursor<T>) this.select(query, convert, rowMapper, fetchSize > 0 ? fetchSize : Cursor.DEFAULT_FETCH_SIZE);
+    }
+
+    private JDBCTraversing selectTraversing(PlatformDialect dialect, String sql, List<SQLDataPlaceholder> placeholders,
+                                            ResultRowMapper rowMapper, int fetchSize) {
+        JDBCTraversing traversing = new JDBCTraversing(TypeForRunner.SELECT, sql, placeholders);
+        traversing.setRowMapper(rowMapper);
+        if (fetchSize > 0) {
+            traversing.setCursor(true);
+            traversing.setFetchSize(dialect.getStreamFetchSize(fetchSize));
+            traversing.setCursorTransactional(dialect.isStreamNeedTransaction());
+        }
+        return traversing;
+    }
+
+    /**
+     * @param fetchSize 大于0时使用游标返回结果
+     */
+    private Object select(DefaultQuery query, ModelObjectConvertKey convert,
+                          ResultRowMapper rowMapper, int fetchSize) throws SQLException {
+        PlatformDialect dialect = this.getFeatureDialect();
         Wraps<Filter> logicWraps = query.getLogicWraps();
         Set<Join> joins = query.getJoins();
         Set<OrderBy> orders = query.getOrderBy();
@@ -534,13 +808,15 @@ public class PlatformExecutor {
         Class<?> tableClass = query.getTableClass();
         boolean isMaster = query.isMaster();
         String slaveName = query.getSlaveName();
+        Object[] seek = query.getSeek();
 
 
         MappingTable queryTable = this.mappingGlobalWrapper.getMappingTable(tableClass);
-        if ((orders == null || orders.size() == 0) && (
-                (limit != null && dialect.isSelectLimitMustOrderBy()) || query.isWithoutOrderBy() == false)) {
+        if ((orders == null || orders.size() == 0) && (seek != null
+                || (limit != null && dialect.isSelectLimitMustOrderBy()) || query.isWithoutOrderBy() == false)) {
             // 第一种情况  如果排序是空的且分页查询必须排序字段则默认添加主键升序
             // 第二种情况  如果没有排序则添加一个默认的排序
+            // 第三种情况  keyset分页必须有排序字段
             List<MappingField> pks = queryTable.getMappingPrimaryKeyFields();
             if (orders == null) orders = new LinkedHashSet<>();
             if (pks != null && pks.size() > 0) {
@@ -550,9 +826,46 @@ public class PlatformExecutor {
             }
         }
 
-        sessionContext.setMaster(isMaster);
+        Wraps<Filter> seekWraps = null;
+        if (seek != null) {
+            // 排序字段的值可能重复，最后加上主键保证顺序唯一，否则相同值的数据在翻页时会被跳过
+            orders = this.withPrimaryKeyOrder(orders, queryTable);
+            seekWraps = this.buildSeekWraps(orders, seek);
+            if (seekWraps != null) {
+                Wraps<Filter> wraps = new Wraps<>();
+                if (logicWraps != null) wraps.addLastLink(logicWraps);
+                wraps.addLastLink(seekWraps);
+                logicWraps = wraps;
+            }
+            if (limit != null && limit.getStart() != 0) {
+                limit = new Limit().limit(0, limit.getLimit());
+            }
+        }
+
+        sessionContext.setMaster(isMaster || this.isWritten(tableClass, joins));
         sessionContext.setSlaveName(slaveName);
 
+        SQLPlanCache planCache = sessionContext.getSQLPlanCache();
+        SQLPlanShape shape = null;
+        if (planCache != null) {
+            shape = SQLPlanShape.select(sessionContext.getDatabaseTypeEnum(),
+                    this.mappingGlobalWrapper.getMappingTable(tableClass).getMappingTableName(), query, orders,
+                    limit, seekWraps != null ? seek : null);
+            SQLPlan plan = planCache.get(shape.getKey());
+            if (plan != null) {
+                JDBCTraversing traversing = this.selectTraversing(dialect, plan.getSql(), plan.bind(shape),
+                        rowMapper, fetchSize);
+                if (!query.isForUpdate()) {
+                    this.cacheable(traversing, query.getCacheTtl(), tableClass, joins);
+                }
+                Object result = this.runner.doHandler(traversing);
+                if (rowMapper != null) {
+                    return result;
+                }
+                return this.buildMergeObjects(plan.getFieldAlias(query), query, convert, (List<ModelObject>) result);
+            }
+        }
+
         Map<Object, String> alias = new HashMap<>();
         alias.put(query, query.getQueryTableAs());
         Map<Object, List<SelectFieldAliasReference>> fieldAlias = null;
@@ -662,24 +975,221 @@ public class PlatformExecutor {
             select.forUpdate();
         }
 
-        SQLBuilderCombine combine = dialect.select(select.compile());
-        Object result = this.runner.doHandler(new JDBCTraversing(TypeForRunner.SELECT,
-                combine.getSql(), combine.getPlaceholders()));
+        SQLBuilderCombine combine = this.getDialect().select(select.compile());
+        if (shape != null) {
+            planCache.put(shape.getKey(), SQLPlan.build(shape, combine, query, fieldAlias));
+        }
+        JDBCTraversing traversing = this.selectTraversing(dialect, combine.getSql(), combine.getPlaceholders(),
+                rowMapper, fetchSize);
+        if (!query.isForUpdate()) {
+            this.cacheable(traversing, query.getCacheTtl(), tableClass, joins);
+        }
+        Object result = this.runner.doHandler(traversing);
+        if (rowMapper != null) {
+            return result;
+        }
 
         return this.buildMergeObjects(fieldAlias, query, convert, (List<ModelObject>) result);
     }
 
+    /**
+     * 排序字段中没有的主键按照升序加在最后，不修改查询中的排序
+     */
+    private Set<OrderBy> withPrimaryKeyOrder(Set<OrderBy> orders, MappingTable table) {
+        List<MappingField> pks = table.getMappingPrimaryKeyFields();
+        if (pks == null || pks.size() == 0) {
+            return orders;
+        }
+        Set<String> names = new HashSet<>();
+        for (OrderBy order : orders) {
+            names.add(String.valueOf(order.getField()));
+        }
+        Set<OrderBy> result = orders;
+        for (MappingField pk : pks) {
+            if (!names.contains(pk.getMappingFieldName())) {
+                if (result == orders) result = new LinkedHashSet<>(orders);
+                result.add(new OrderBy(true, pk.getMappingFieldName()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将keyset分页的 (k1,k2) > (v1,v2) 展开成
+     * k1 >= v1 AND (k1 > v1 OR (k1 = v1 AND k2 > v2))，
+     * 所有数据库都支持这种写法，降序的字段使用小于
+     *
+     * @param orders 排序字段
+     * @param values 上一页最后一条数据的排序字段值
+     * @return 没有值时返回null表示查询第一页
+     */
+    private Wraps<Filter> buildSeekWraps(Set<OrderBy> orders, Object[] values) {
+        if (values.length == 0) {
+            return null;
+        }
+        if (orders == null || orders.size() != values.length) {
+            throw new IllegalArgumentException(I18n.print("seek_value_size",
+                    "" + (orders == null ? 0 : orders.size()), "" + values.length));
+        }
+        OrderBy[] keys = orders.toArray(new OrderBy[orders.size()]);
+        Wraps<Filter> wraps = new Wraps<>();
+        if (keys.length == 1) {
+            wraps.add(new WrapsObject<Filter>(this.seekFilter(keys[0], values[0], false)));
+            return wraps;
+        }
+        // 第一个排序字段的范围条件让数据库可以直接使用索引定位
+        wraps.add(new WrapsObject<Filter>(this.seekFilter(keys[0], values[0], true)));
+        Wraps<Filter> any = new Wraps<>();
+        for (int i = 0; i < keys.length; i++) {
+            Wraps<Filter> item = new Wraps<>();
+            for (int j = 0; j < i; j++) {
+                item.add(new WrapsObject<Filter>(new DefaultFilter().eq(String.valueOf(keys[j].getField()), values[j])));
+            }
+            item.add(new WrapsObject<Filter>(this.seekFilter(keys[i], values[i], false)));
+            any.addLastLink(item, CriteriaLogic.OR);
+        }
+        wraps.addLastLink(any);
+        return wraps;
+    }
+
+    private Filter seekFilter(OrderBy order, Object value, boolean isEquals) {
+        String field = String.valueOf(order.getField());
+        if (order.isAsc()) {
+            return isEquals ? new DefaultFilter().gte(field, value) : new DefaultFilter().gt(field, value);
+        } else {
+            return isEquals ? new DefaultFilter().lte(field, value) : new DefaultFilter().lt(field, value);
+        }
+    }
+
+    /**
+     * 查询是否需要使用主库，指定了主库或者查询的表在当前Session中写入过时使用主库
+     *
+     * @param query 查询条件
+     * @return 是否使用主库
+     */
+    public boolean isReadMaster(DefaultQuery query) {
+        return query.isMaster() || this.isWritten(query.getTableClass(), query.getJoins());
+    }
+
+    private boolean isWritten(Class tableClass, Set<Join> joins) {
+        for (String table : this.dependTables(tableClass, joins)) {
+            if (sessionContext.isWritten(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 查询涉及的所有表名(小写)
+     */
+    private Set<String> dependTables(Class tableClass, Set<Join> joins) {
+        Set<String> tables = new LinkedHashSet<>();
+        MappingTable mappingTable = this.mappingGlobalWrapper.getMappingTable(tableClass);
+        if (mappingTable != null) {
+            tables.add(mappingTable.getMappingTableName().toLowerCase());
+        }
+        if (joins != null) {
+            for (Join join : joins) {
+                mappingTable = this.mappingGlobalWrapper.getMappingTable(((DefaultJoin) join).getTable());
+                if (mappingTable != null) {
+                    tables.add(mappingTable.getMappingTableName().toLowerCase());
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 查询指定了缓存时间时设置查询结果缓存，当前Session写入过的表不使用缓存
+     */
+    private JDBCTraversing cacheable(JDBCTraversing traversing, long ttl, Class tableClass, Set<Join> joins) {
+        if (ttl > 0 && sessionContext.getQueryResultCache() != null) {
+            Set<String> tables = this.dependTables(tableClass, joins);
+            for (String table : tables) {
+                if (sessionContext.isSessionWritten(table)) {
+                    return traversing;
+                }
+            }
+            traversing.setCacheTtl(ttl);
+            traversing.setCacheTables(tables);
+        }
+        return traversing;
+    }
+
     public long count(DefaultQuery query) throws SQLException {
-        PlatformDialect dialect = this.getDialect();
-        Wraps<Filter> logicWraps = query.getLogicWraps();
-        Set<Join> joins = query.getJoins();
+        return this.count(query, null);
+    }
 
-        Class<?> tableClass = query.getTableClass();
-        boolean isMaster = query.isMaster();
+    /**
+     * @param query      查询条件
+     * @param countCache 不为空时优先使用缓存的总条数，当前Session写入过的表不使用缓存
+     * @return 总条数
+     * @throws SQLException
+     */
+    public long count(DefaultQuery query, CountCache countCache) throws SQLException {
+        PlatformDialect dialect = this.getFeatureDialect();
         String slaveName = query.getSlaveName();
 
-        sessionContext.setMaster(isMaster);
+        boolean isWritten = this.isWritten(query.getTableClass(), query.getJoins());
+        sessionContext.setMaster(query.isMaster() || isWritten);
         sessionContext.setSlaveName(slaveName);
+        if (isWritten) {
+            // 写入过的表(可能在未提交的事务中)需要读取最新的总条数
+            countCache = null;
+        }
+
+        SQLPlanCache planCache = sessionContext.getSQLPlanCache();
+        SQLPlanShape shape = null;
+        SQLBuilderCombine combine = null;
+        String countKey = null;
+        Set<String> countTables = null;
+        long countVersion = 0;
+        if (planCache != null || countCache != null) {
+            shape = SQLPlanShape.count(sessionContext.getDatabaseTypeEnum(),
+                    this.mappingGlobalWrapper.getMappingTable(query.getTableClass()).getMappingTableName(), query);
+        }
+        if (countCache != null) {
+            countKey = countCache.key(sessionContext.getDataSource().getName(), shape);
+            Long count = countCache.get(countKey);
+            if (count != null) {
+                return count;
+            }
+            countTables = this.dependTables(query.getTableClass(), query.getJoins());
+            countVersion = countCache.getVersion(countTables);
+        }
+        if (planCache != null) {
+            SQLPlan plan = planCache.get(shape.getKey());
+            if (plan != null) {
+                combine = new SQLBuilderCombine(plan.getSql(), plan.bind(shape));
+            }
+        }
+        if (combine == null) {
+            combine = this.buildCount(this.getDialect(), query);
+            if (planCache != null) {
+                planCache.put(shape.getKey(), SQLPlan.build(shape, combine));
+            }
+        }
+
+        JDBCTraversing traversing = new JDBCTraversing(TypeForRunner.SELECT,
+                combine.getSql(), combine.getPlaceholders());
+        this.cacheable(traversing, query.getCacheTtl(), query.getTableClass(), query.getJoins());
+        Object result = this.runner.doHandler(traversing);
+        List<ModelObject> objects = (List<ModelObject>) result;
+        long count = 0;
+        if (objects != null && objects.size() > 0) {
+            count = objects.get(0).getIntValue("count");
+        }
+        if (countKey != null) {
+            countCache.put(countKey, count, countTables, countVersion);
+        }
+        return count;
+    }
+
+    private SQLBuilderCombine buildCount(PlatformDialect dialect, DefaultQuery query) {
+        Wraps<Filter> logicWraps = query.getLogicWraps();
+        Set<Join> joins = query.getJoins();
+        Class<?> tableClass = query.getTableClass();
 
         Map<Object, String> alias = new HashMap<>();
         alias.put(query, query.getQueryTableAs());
@@ -719,15 +1229,7 @@ public class PlatformExecutor {
         if (logicWraps != null) select.where();
         this.buildWraps(select, mappingTable, logicWraps, hasJoins, query);
 
-        SQLBuilderCombine combine = dialect.select(select.compile());
-        Object result = this.runner.doHandler(new JDBCTraversing(TypeForRunner.SELECT,
-                combine.getSql(), combine.getPlaceholders()));
-        List<ModelObject> objects = (List<ModelObject>) result;
-        if (objects != null && objects.size() > 0) {
-            return objects.get(0).getIntValue("count");
-        } else {
-            return 0;
-        }
+        return dialect.select(select.compile());
     }
 
     public List<ModelObject> function(DefaultFunction f) throws SQLException {
@@ -741,7 +1243,7 @@ public class PlatformExecutor {
 
         boolean isMaster = f.isMaster();
         String slaveName = f.getSlaveName();
-        sessionContext.setMaster(isMaster);
+        sessionContext.setMaster(isMaster || this.isWritten(tableClass, null));
         sessionContext.setSlaveName(slaveName);
 
         MappingTable mappingTable = mappingGlobalWrapper.getMappingTable(tableClass);
@@ -886,8 +1388,10 @@ public class PlatformExecutor {
         this.buildOrderBy(null, select, null, orders, null, mappingTable, false);
 
         SQLBuilderCombine combine = dialect.select(select.compile());
-        Object result = this.runner.doHandler(new JDBCTraversing(TypeForRunner.SELECT,
-                combine.getSql(), combine.getPlaceholders()));
+        JDBCTraversing traversing = new JDBCTraversing(TypeForRunner.SELECT,
+                combine.getSql(), combine.getPlaceholders());
+        this.cacheable(traversing, f.getCacheTtl(), tableClass, null);
+        Object result = this.runner.doHandler(traversing);
 
         return (List<ModelObject>) result;
     }
@@ -47,36 +47,24 @@ public class PlatformFactory {
     }
 
     public static PlatformDialect getDialect(SessionContext sessionContext) {
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.MYSQL)) {
-            PlatformDialect dialect = new MysqlPlatformDialect();
+        PlatformDialect dialect = getDialect(sessionContext.getDatabaseTypeEnum());
+        if (dialect != null) {
             dialect.setSessionContext(sessionContext);
-            return dialect;
-        }
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.ORACLE)) {
-            PlatformDialect dialect = new OraclePlatformDialect();
-            dialect.setSessionContext(sessionContext);
-            return dialect;
-        }
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.SQL_SERVER)) {
-            PlatformDialect dialect = new SQLServerPlatformDialect();
-            dialect.setSessionContext(sessionContext);
-            return dialect;
-        }
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.POSTGRESQL)) {
-            PlatformDialect dialect = new PostgreSQLPlatformDialect();
-            dialect.setSessionContext(sessionContext);
-            return dialect;
-        }
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.DB2)) {
-            PlatformDialect dialect = new DB2PlatformDialect();
-            dialect.setSessionContext(sessionContext);
-            return dialect;
-        }
-        if (sessionContext.getDatabaseTypeEnum().equals(DatabaseType.SQLITE)) {
-            PlatformDialect dialect = new SqlitePlatformDialect();
-            dialect.setSessionContext(sessionContext);
-            return dialect;
         }
+        return dialect;
+    }
+
+    /**
+     * @param databaseType 数据库类型
+     * @return 没有绑定Session的方言，不支持的数据库返回null
+     */
+    public static PlatformDialect getDialect(DatabaseType databaseType) {
+        if (DatabaseType.MYSQL.equals(databaseType)) return new MysqlPlatformDialect();
+        if (DatabaseType.ORACLE.equals(databaseType)) return new OraclePlatformDialect();
+        if (DatabaseType.SQL_SERVER.equals(databaseType)) return new SQLServerPlatformDialect();
+        if (DatabaseType.POSTGRESQL.equals(databaseType)) return new PostgreSQLPlatformDialect();
+        if (DatabaseType.DB2.equals(databaseType)) return new DB2PlatformDialect();
+        if (DatabaseType.SQLITE.equals(databaseType)) return new SqlitePlatformDialect();
         return null;
     }
 }
@@ -17,6 +17,25 @@ public abstract class PlatformStampSelect extends PlatformStampCommonality {
                                         StringBuilder sb,
                                         List<SQLDataPlaceholder> placeholders);
 
+    /**
+     * 分页的值使用占位符，同一个结构的查询不同的页可以使用同一个执行计划
+     *
+     * @param name 见 {@link SQLDataPlaceholder#LIMIT_START}
+     * @return 占位符
+     */
+    protected String limitPlaceholder(StampLimit limit, String name, List<SQLDataPlaceholder> placeholders) {
+        long value;
+        if (SQLDataPlaceholder.LIMIT_START.equals(name)) {
+            value = limit.start;
+        } else if (SQLDataPlaceholder.LIMIT_ROWS.equals(name)) {
+            value = limit.limit;
+        } else {
+            value = limit.start + limit.limit;
+        }
+        placeholders.add(new SQLDataPlaceholder(name, value));
+        return "?";
+    }
+
     protected void buildFields(MappingGlobalWrapper wrapper,
                                StampSelect select,
                                StringBuilder sb,
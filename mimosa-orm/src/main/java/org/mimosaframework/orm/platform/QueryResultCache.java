@@ -0,0 +1,220 @@
+package org.mimosaframework.orm.platform;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.utils.Clone;
+
+import java.util.*;
+
+/**
+ * 查询结果缓存
+ * <p>
+ * 按照数据源、SQL语句和参数值缓存查询的结果，每个结果记录依赖的表，
+ * 通过Session写入这些表时清除依赖的结果。每个表有一个版本号，
+ * 查询期间依赖的表被写入过则不放入查询结果，避免缓存旧数据，
+ * Session有未结束的写入时从库读取的结果也不放入缓存
+ * <p>
+ * 缓存有容量上限，超出后淘汰最久没有使用的结果
+ */
+public class QueryResultCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final LinkedHashMap<Object, Item> results;
+    private final Map<String, Set<Object>> tableKeys = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+
+    public QueryResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public QueryResultCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("query result cache capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<Object, Item>(Math.min(capacity, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Item> eldest) {
+                if (size() > QueryResultCache.this.capacity) {
+                    unlink(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 生成缓存的键，不同数据源的相同查询分开缓存
+     * <p>
+     * 参数按照类型和值逐个比较，不拼接成字符串，避免值中的分隔符或者时间的精度造成不同的查询使用同一个键
+     */
+    public Object key(String dataSourceName, String sql, List<SQLDataPlaceholder> placeholders) {
+        int size = placeholders != null ? placeholders.size() : 0;
+        Object[] values = new Object[size * 2];
+        for (int i = 0; i < size; i++) {
+            Object value = placeholders.get(i).getValue();
+            if (value instanceof Date) {
+                // 调用者之后修改时间不影响已经放入的键
+                value = ((Date) value).clone();
+            }
+            values[i * 2] = value != null ? value.getClass() : null;
+            values[i * 2 + 1] = value;
+        }
+        return new Key(dataSourceName, sql, values);
+    }
+
+    /**
+     * 查询数据库之前获取依赖表的版本号
+     */
+    public synchronized long getVersion(Collection<String> tables) {
+        long version = 0;
+        for (String table : tables) {
+            Long v = versions.get(table);
+            if (v != null) version += v;
+        }
+        return version;
+    }
+
+    /**
+     * @return 没有缓存或者已经过期返回null
+     */
+    public List<ModelObject> get(Object key) {
+        List<ModelObject> result;
+        synchronized (this) {
+            Item item = results.get(key);
+            if (item == null) return null;
+            if (item.expireAt < System.currentTimeMillis()) {
+                results.remove(key);
+                unlink(key, item);
+                return null;
+            }
+            result = item.result;
+        }
+        return copy(result);
+    }
+
+    /**
+     * @param tables  查询依赖的表名(小写)
+     * @param ttl     有效时间(毫秒)
+     * @param version 查询之前获取的版本号
+     */
+    public void put(Object key, List<ModelObject> result, Collection<String> tables, long ttl, long version) {
+        if (key == null || result == null || ttl <= 0) return;
+        List<ModelObject> copy = copy(result);
+        synchronized (this) {
+            if (this.getVersion(tables) != version) {
+                return;
+            }
+            Item item = new Item(copy, tables, System.currentTimeMillis() + ttl);
+            Item old = results.put(key, item);
+            if (old != null) {
+                unlink(key, old);
+            }
+            for (String table : tables) {
+                Set<Object> keys = tableKeys.get(table);
+                if (keys == null) {
+                    keys = new HashSet<>();
+                    tableKeys.put(table, keys);
+                }
+                keys.add(key);
+            }
+        }
+    }
+
+    /**
+     * 清除依赖这个表的所有结果
+     *
+     * @param table 表名(小写)
+     */
+    public synchronized void evict(String table) {
+        Long v = versions.get(table);
+        versions.put(table, v == null ? 1 : v + 1);
+        Set<Object> keys = tableKeys.remove(table);
+        if (keys != null) {
+            for (Object key : keys) {
+                Item item = results.remove(key);
+                if (item != null) {
+                    unlink(key, item);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            entry.setValue(entry.getValue() + 1);
+        }
+        results.clear();
+        tableKeys.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    private void unlink(Object key, Item item) {
+        for (String table : item.tables) {
+            Set<Object> keys = tableKeys.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) tableKeys.remove(table);
+            }
+        }
+    }
+
+    private static List<ModelObject> copy(List<ModelObject> result) {
+        List<ModelObject> copy = new ArrayList<>(result.size());
+        for (ModelObject object : result) {
+            copy.add(object == null ? null : Clone.cloneModelObject(object));
+        }
+        return copy;
+    }
+
+    /**
+     * 按照数据源、SQL语句和每个参数的类型和值比较，数组类型的参数按照内容比较
+     */
+    private static final class Key {
+        private final String dataSourceName;
+        private final String sql;
+        private final Object[] values;
+        private final int hash;
+
+        Key(String dataSourceName, String sql, Object[] values) {
+            this.dataSourceName = dataSourceName;
+            this.sql = sql;
+            this.values = values;
+            int h = dataSourceName != null ? dataSourceName.hashCode() : 0;
+            h = 31 * h + sql.hashCode();
+            this.hash = 31 * h + Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash
+                    && (dataSourceName != null ? dataSourceName.equals(key.dataSourceName) : key.dataSourceName == null)
+                    && sql.equals(key.sql)
+                    && Arrays.deepEquals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Item {
+        private final List<ModelObject> result;
+        private final Collection<String> tables;
+        private final long expireAt;
+
+        Item(List<ModelObject> result, Collection<String> tables, long expireAt) {
+            this.result = result;
+            this.tables = tables;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.mimosaframework.orm.platform;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 记录最近写入过的表，在时间窗口内读取这些表时使用主库，
+ * 用于避免从库复制延迟导致读取不到刚写入的数据
+ * <p>
+ * 一个配置只有一个时间窗口，不区分Session，任何Session写入一个表之后，
+ * 窗口内所有Session对这个表的读取都会使用主库，写入频繁的表会一直读取主库。
+ * 只需要当前Session读到自己写入的数据时使用 readYourWrites 即可
+ */
+public class RecentWrites {
+    private final long window;
+    private final ConcurrentMap<String, Long> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param window 写入之后多长时间内读取主库(毫秒)
+     */
+    public RecentWrites(long window) {
+        this.window = window;
+    }
+
+    public void written(String table) {
+        tables.put(table, System.currentTimeMillis());
+    }
+
+    public boolean isWritten(String table) {
+        Long time = tables.get(table);
+        if (time == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - time > window) {
+            tables.remove(table, time);
+            return false;
+        }
+        return true;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+}
@@ -0,0 +1,31 @@
+package org.mimosaframework.orm.platform;
+
+import org.mimosaframework.orm.utils.ResultColumnReader;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 直接将结果集的每一行转换成对象，不再生成中间的ModelObject
+ *
+ * @param <T> 每一行转换后的类型
+ * @see JDBCTraversing#setRowMapper(ResultRowMapper)
+ */
+public interface ResultRowMapper<T> {
+    /**
+     * 结果集的列解析完成后调用一次，在这里确定每一列的赋值方式
+     *
+     * @param readers 按照列顺序的读取方式
+     * @throws SQLException
+     */
+    void prepare(ResultColumnReader[] readers) throws SQLException;
+
+    /**
+     * 转换结果集的当前行
+     *
+     * @param rs 结果集
+     * @return 转换后的对象
+     * @throws SQLException
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+}
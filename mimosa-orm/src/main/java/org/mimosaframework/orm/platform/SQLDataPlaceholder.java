@@ -1,6 +1,13 @@
 package org.mimosaframework.orm.platform;
 
 public class SQLDataPlaceholder {
+    /**
+     * 分页值占位符的名称，执行计划缓存按照名称重新绑定当前查询的分页值
+     */
+    public static final String LIMIT_START = "limit.start";
+    public static final String LIMIT_ROWS = "limit.rows";
+    public static final String LIMIT_END = "limit.end";
+
     private String name;
     private Object value;
 
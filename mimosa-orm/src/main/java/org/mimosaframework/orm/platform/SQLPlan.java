@@ -0,0 +1,149 @@
+package org.mimosaframework.orm.platform;
+
+import org.mimosaframework.orm.criteria.DefaultQuery;
+import org.mimosaframework.orm.criteria.Join;
+import org.mimosaframework.orm.criteria.Limit;
+
+import java.util.*;
+
+/**
+ * 缓存的SQL语句以及占位符的绑定方式
+ * <p>
+ * {@link #slots} 的第i个值表示第i个占位符取自 {@link SQLPlanShape#getValues()} 的第几个值，
+ * 小于0时表示分页的值，取自 {@link SQLPlanShape#getLimit()}
+ */
+public class SQLPlan {
+    private static final int LIMIT_START = -1;
+    private static final int LIMIT_ROWS = -2;
+    private static final int LIMIT_END = -3;
+
+    private final String sql;
+    private final String[] names;
+    private final int[] slots;
+    private final List<List<SelectFieldAliasReference>> fieldAlias;
+
+    private SQLPlan(String sql, String[] names, int[] slots,
+                    List<List<SelectFieldAliasReference>> fieldAlias) {
+        this.sql = sql;
+        this.names = names;
+        this.slots = slots;
+        this.fieldAlias = fieldAlias;
+    }
+
+    /**
+     * 通过第一次生成的SQL语句计算占位符的绑定方式，占位符的值和查询条件中的值
+     * 是同一个对象，如果一个占位符对应多个查询值(比如多个条件使用了同一个对象)
+     * 或者有查询值没有生成占位符(值被直接拼接到了SQL中)则无法缓存返回null
+     *
+     * @param shape   查询结构
+     * @param combine 生成的SQL语句
+     * @return 可以复用的SQL执行计划
+     */
+    public static SQLPlan build(SQLPlanShape shape, SQLBuilderCombine combine) {
+        List<Object> values = shape.getValues();
+        List<SQLDataPlaceholder> placeholders = combine.getPlaceholders();
+        int size = placeholders != null ? placeholders.size() : 0;
+        String[] names = new String[size];
+        int[] slots = new int[size];
+        boolean[] used = new boolean[values.size()];
+        for (int i = 0; i < size; i++) {
+            SQLDataPlaceholder placeholder = placeholders.get(i);
+            int limitSlot = limitSlot(shape, placeholder.getName());
+            if (limitSlot < 0) {
+                names[i] = placeholder.getName();
+                slots[i] = limitSlot;
+                continue;
+            }
+            Object value = placeholder.getValue();
+            int slot = -1;
+            for (int j = 0; j < values.size(); j++) {
+                if (values.get(j) == value) {
+                    if (slot != -1) return null;
+                    slot = j;
+                }
+            }
+            if (slot == -1) return null;
+            names[i] = placeholder.getName();
+            slots[i] = slot;
+            used[slot] = true;
+        }
+        for (boolean u : used) {
+            if (!u) return null;
+        }
+        return new SQLPlan(combine.getSql(), names, slots, null);
+    }
+
+    public static SQLPlan build(SQLPlanShape shape, SQLBuilderCombine combine, DefaultQuery query,
+                                Map<Object, List<SelectFieldAliasReference>> fieldAlias) {
+        SQLPlan plan = build(shape, combine);
+        if (plan != null && fieldAlias != null) {
+            List<List<SelectFieldAliasReference>> list = new ArrayList<>(fieldAlias.size());
+            list.add(fieldAlias.get(query));
+            Set<Join> joins = query.getJoins();
+            if (joins != null) {
+                for (Join join : joins) {
+                    list.add(fieldAlias.get(join));
+                }
+            }
+            return new SQLPlan(plan.sql, plan.names, plan.slots, Collections.unmodifiableList(list));
+        }
+        return plan;
+    }
+
+    /**
+     * @return 分页的占位符返回小于0的位置，否则返回0
+     */
+    private static int limitSlot(SQLPlanShape shape, String name) {
+        if (shape.getLimit() == null || name == null) return 0;
+        if (SQLDataPlaceholder.LIMIT_START.equals(name)) return LIMIT_START;
+        if (SQLDataPlaceholder.LIMIT_ROWS.equals(name)) return LIMIT_ROWS;
+        if (SQLDataPlaceholder.LIMIT_END.equals(name)) return LIMIT_END;
+        return 0;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<SQLDataPlaceholder> bind(SQLPlanShape shape) {
+        List<Object> values = shape.getValues();
+        Limit limit = shape.getLimit();
+        List<SQLDataPlaceholder> placeholders = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            Object value;
+            if (slot == LIMIT_START) {
+                value = limit.getStart();
+            } else if (slot == LIMIT_ROWS) {
+                value = limit.getLimit();
+            } else if (slot == LIMIT_END) {
+                value = limit.getStart() + limit.getLimit();
+            } else {
+                value = values.get(slot);
+            }
+            placeholders.add(new SQLDataPlaceholder(names[i], value));
+        }
+        return placeholders;
+    }
+
+    /**
+     * join查询时重新按照当前的查询对象组合字段别名
+     *
+     * @param query 当前的查询对象
+     * @return 和 {@link PlatformExecutor} 中生成的结构一致
+     */
+    public Map<Object, List<SelectFieldAliasReference>> getFieldAlias(DefaultQuery query) {
+        if (fieldAlias == null) return null;
+        Map<Object, List<SelectFieldAliasReference>> map = new HashMap<>();
+        map.put(query, fieldAlias.get(0));
+        Set<Join> joins = query.getJoins();
+        if (joins != null) {
+            int i = 1;
+            for (Join join : joins) {
+                map.put(join, fieldAlias.get(i));
+                i++;
+            }
+        }
+        return map;
+    }
+}
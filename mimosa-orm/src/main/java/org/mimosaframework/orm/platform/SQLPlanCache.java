@@ -0,0 +1,88 @@
+package org.mimosaframework.orm.platform;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按查询结构缓存已经生成的SQL语句
+ * <p>
+ * 同一个结构的查询(表、条件字段和操作符、join、排序、分页)生成的SQL语句是一样的，
+ * 只有占位符的值不同，所以缓存SQL语句和占位符的绑定方式，下次只需要重新绑定值即可
+ * <p>
+ * 缓存有容量上限，超出后按照放入的先后顺序淘汰
+ */
+public class SQLPlanCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final Map<String, SQLPlan> plans;
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SQLPlanCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SQLPlanCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("sql plan cache capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.plans = new ConcurrentHashMap<>(Math.min(capacity, 256));
+    }
+
+    public SQLPlan get(String key) {
+        SQLPlan plan = this.plans.get(key);
+        if (plan != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return plan;
+    }
+
+    public void put(String key, SQLPlan plan) {
+        if (key == null || plan == null) return;
+        if (this.plans.put(key, plan) == null) {
+            this.order.offer(key);
+            while (this.plans.size() > this.capacity) {
+                String eldest = this.order.poll();
+                if (eldest == null) break;
+                if (this.plans.remove(eldest) != null) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        this.plans.clear();
+        this.order.clear();
+    }
+
+    public int size() {
+        return this.plans.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,229 @@
+package org.mimosaframework.orm.platform;
+
+import org.mimosaframework.orm.criteria.*;
+import org.mimosaframework.orm.utils.DatabaseType;
+
+import java.util.*;
+
+/**
+ * 查询结构的指纹
+ * <p>
+ * 只记录会影响生成SQL语句的部分(表、条件字段和操作符、值的个数、join、排序、是否分页)，
+ * 条件中的值按照遍历顺序放入 {@link #values} 用于重新绑定占位符，分页的值单独绑定
+ */
+public class SQLPlanShape {
+    private final StringBuilder key = new StringBuilder(128);
+    private final List<Object> values = new ArrayList<>();
+    private Limit limit;
+    private String keyString;
+
+    /**
+     * @param tableName 物理表名，分片后同一个映射类对应多个物理表
+     */
+    private SQLPlanShape(String action, DatabaseType databaseType, Class tableClass, String tableName) {
+        key.append(action).append('|').append(databaseType).append('|').append(tableClass.getName())
+                .append('|').append(tableName);
+    }
+
+    /**
+     * @param limit 实际执行的分页，keyset分页时起始位置已经被重置
+     * @param seek  keyset分页上一页最后一条数据的排序字段值，没有生成keyset条件时为null
+     */
+    public static SQLPlanShape select(DatabaseType databaseType, String tableName, DefaultQuery query,
+                                      Set<OrderBy> orders, Limit limit, Object[] seek) {
+        SQLPlanShape shape = new SQLPlanShape("S", databaseType, query.getTableClass(), tableName);
+        shape.query(query);
+        if (seek != null) {
+            shape.seek(orders, seek);
+        }
+        shape.fields("F", query.getFields());
+        shape.fields("E", query.getExcludes());
+        shape.orders(orders);
+        if (limit != null) {
+            // 分页的值使用占位符，只记录是否分页，执行时按照 SQLDataPlaceholder#LIMIT_START 等名称重新绑定
+            shape.key.append("|L");
+            shape.limit = limit;
+        }
+        if (query.isForUpdate()) shape.key.append("|U");
+        return shape;
+    }
+
+    public static SQLPlanShape count(DatabaseType databaseType, String tableName, DefaultQuery query) {
+        SQLPlanShape shape = new SQLPlanShape("C", databaseType, query.getTableClass(), tableName);
+        shape.query(query);
+        return shape;
+    }
+
+    public static SQLPlanShape update(DatabaseType databaseType, String tableName, DefaultUpdate update) {
+        SQLPlanShape shape = new SQLPlanShape("U", databaseType, update.getTableClass(), tableName);
+        shape.key.append("|V");
+        Map<Object, Object> sets = update.getValues();
+        for (Map.Entry<Object, Object> entry : sets.entrySet()) {
+            Object value = entry.getValue();
+            shape.key.append(entry.getKey());
+            if (value instanceof UpdateSetValue) {
+                // 自增自减的步长是直接拼接在SQL语句中的
+                shape.key.append('@').append(((UpdateSetValue) value).getType())
+                        .append(((UpdateSetValue) value).getStep());
+            } else {
+                shape.values.add(value);
+            }
+            shape.key.append(',');
+        }
+        shape.wraps(update.getLogicWraps());
+        return shape;
+    }
+
+    public static SQLPlanShape delete(DatabaseType databaseType, String tableName, DefaultDelete delete) {
+        SQLPlanShape shape = new SQLPlanShape("D", databaseType, delete.getTableClass(), tableName);
+        shape.wraps(delete.getLogicWraps());
+        return shape;
+    }
+
+    public String getKey() {
+        if (keyString == null) keyString = key.toString();
+        return keyString;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * @return 没有分页时为null
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    private void query(DefaultQuery query) {
+        key.append("|A").append(query.getQueryTableAs());
+        Set<Join> joins = query.getJoins();
+        if (joins != null && joins.size() > 0) {
+            List<Join> list = new ArrayList<>(joins);
+            for (Join join : list) {
+                DefaultJoin j = (DefaultJoin) join;
+                key.append("|J").append(j.getJoinType())
+                        .append(j.getMainTable() != null ? j.getMainTable().getName() : null)
+                        .append('>').append(j.getTable().getName())
+                        .append(':').append(j.getAs())
+                        .append(':').append(j.getAliasName())
+                        .append(':').append(j.isMulti())
+                        .append(':').append(list.indexOf(j.getParentJoin()));
+                List<JoinOnFilter> ons = j.getOns();
+                if (ons != null) {
+                    for (JoinOnFilter on : ons) {
+                        if (on.isOn()) {
+                            OnField field = on.getOnField();
+                            key.append("{O").append(this.name(field.getKey()))
+                                    .append(field.getSymbol())
+                                    .append(this.name(field.getValue())).append('}');
+                        } else {
+                            key.append('{');
+                            this.filter((DefaultFilter) on.getFilter());
+                            key.append('}');
+                        }
+                    }
+                }
+                Set<OrderBy> sorts = j.getOrderBy();
+                if (sorts != null && sorts.size() > 0) {
+                    this.orders(sorts);
+                }
+            }
+        }
+        this.wraps(query.getLogicWraps());
+    }
+
+    /**
+     * keyset条件展开后同一个值会出现在多个占位符中，每个值只记录一次，
+     * 这样多个占位符绑定到同一个值而不会被当作无法确定的绑定
+     */
+    private void seek(Set<OrderBy> orders, Object[] seek) {
+        key.append("|K").append(seek.length);
+        Iterator<OrderBy> iterator = orders.iterator();
+        for (int i = 0; i < seek.length && iterator.hasNext(); i++) {
+            OrderBy order = iterator.next();
+            key.append(this.name(order.getField())).append(order.isAsc() ? '>' : '<');
+            this.value(seek[i]);
+        }
+    }
+
+    private void wraps(Wraps<Filter> wraps) {
+        if (wraps == null) {
+            key.append("|W~");
+            return;
+        }
+        key.append("|W(");
+        for (WrapsObject<Filter> object : wraps) {
+            Filter where = object.getWhere();
+            Wraps link = object.getLink();
+            if (where != null) {
+                this.filter((DefaultFilter) where);
+            } else if (link != null) {
+                this.wraps(link);
+            }
+            key.append(object.getLogic()).append(';');
+        }
+        key.append(')');
+    }
+
+    private void filter(DefaultFilter filter) {
+        String symbol = filter.getSymbol();
+        key.append(filter.getAs()).append('.').append(this.name(filter.getKey())).append(' ').append(symbol).append(' ');
+        if ("between".equalsIgnoreCase(symbol)) {
+            values.add(filter.getStartValue());
+            values.add(filter.getEndValue());
+        } else if (!"isNull".equalsIgnoreCase(symbol) && !"notNull".equalsIgnoreCase(symbol)) {
+            this.value(filter.getValue());
+        }
+    }
+
+    private void value(Object value) {
+        if (value == null) {
+            key.append('N');
+        } else if (value.getClass().isArray()) {
+            Object[] array = (Object[]) value;
+            key.append('A').append(array.length);
+            for (Object o : array) {
+                values.add(o);
+            }
+        } else if (value instanceof Iterable) {
+            int size = 0;
+            for (Object o : (Iterable) value) {
+                values.add(o);
+                size++;
+            }
+            key.append('I').append(size);
+        } else {
+            key.append('V');
+            values.add(value);
+        }
+    }
+
+    private void fields(String type, Map<Class, List<String>> fields) {
+        if (fields != null && fields.size() > 0) {
+            List<String> items = new ArrayList<>(fields.size());
+            for (Map.Entry<Class, List<String>> entry : fields.entrySet()) {
+                items.add(entry.getKey().getName() + "=" + entry.getValue());
+            }
+            Collections.sort(items);
+            key.append('|').append(type).append(items);
+        }
+    }
+
+    private void orders(Set<OrderBy> orders) {
+        if (orders != null) {
+            key.append("|O");
+            for (OrderBy order : orders) {
+                key.append(this.name(order.getField())).append(order.isAsc() ? '+' : '-');
+            }
+        }
+    }
+
+    private String name(Object field) {
+        if (field instanceof AsField) {
+            return ((AsField) field).getAlias() + "." + ((AsField) field).getField();
+        }
+        return String.valueOf(field);
+    }
+}
@@ -2,15 +2,22 @@ package org.mimosaframework.orm.platform;
 
 import org.mimosaframework.orm.Configuration;
 import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.metrics.SQLMetrics;
 import org.mimosaframework.orm.transaction.Transaction;
 import org.mimosaframework.orm.utils.DatabaseType;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class SessionContext {
     private Configuration contextValues;
     private MimosaDataSource dataSource;
     private boolean isMaster = true;
     private String slaveName;
     private Transaction transaction;
+    // 当前Session写入过的表
+    private Set<String> writtenTables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public SessionContext() {
     }
@@ -31,6 +38,88 @@ public class SessionContext {
         return new DefaultJDBCExecutor(this);
     }
 
+    public JDBCExecutor getDBChanger(boolean master) {
+        return new DefaultJDBCExecutor(this, master);
+    }
+
+    /**
+     * 记录写入过的表，之后读取这个表时使用主库
+     *
+     * @param table 数据库表名
+     */
+    public void written(String table) {
+        if (contextValues == null || table == null) return;
+        String name = table.toLowerCase();
+        writtenTables.add(name);
+        RecentWrites recentWrites = contextValues.getRecentWrites();
+        if (recentWrites != null) {
+            recentWrites.written(name);
+        }
+        QueryResultCache resultCache = contextValues.getQueryResultCache();
+        if (resultCache != null) {
+            resultCache.evict(name);
+        }
+        CountCache countCache = contextValues.getCountCache();
+        if (countCache != null) {
+            countCache.evict(name);
+        }
+    }
+
+    /**
+     * 当前Session是否写入过这个表，不受readYourWrites配置影响
+     *
+     * @param table 数据库表名(小写)
+     */
+    public boolean isSessionWritten(String table) {
+        return writtenTables.contains(table);
+    }
+
+    /**
+     * 当前Session是否写入过任何表
+     */
+    public boolean hasWritten() {
+        return !writtenTables.isEmpty();
+    }
+
+    /**
+     * Session关闭(事务结束)时再清除一次写入过的表的查询结果缓存和分页总条数缓存，
+     * 避免其他Session在事务提交之前放入了旧数据
+     */
+    public void evictWrittenResults() {
+        QueryResultCache resultCache = this.getQueryResultCache();
+        if (resultCache != null) {
+            for (String table : writtenTables) {
+                resultCache.evict(table);
+            }
+        }
+        CountCache countCache = contextValues != null ? contextValues.getCountCache() : null;
+        if (countCache != null) {
+            for (String table : writtenTables) {
+                countCache.evict(table);
+            }
+        }
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return contextValues != null ? contextValues.getQueryResultCache() : null;
+    }
+
+    /**
+     * 当前Session或者最近的时间窗口内是否写入过这个表
+     *
+     * @param table 数据库表名
+     * @return 是否需要读取主库
+     */
+    public boolean isWritten(String table) {
+        if (contextValues == null || table == null) return false;
+        String name = table.toLowerCase();
+        if (contextValues.isReadYourWrites() && writtenTables.contains(name)) {
+            return true;
+        }
+        RecentWrites recentWrites = contextValues.getRecentWrites();
+        return recentWrites != null && recentWrites.isWritten(name);
+    }
+
     public DatabaseType getDatabaseTypeEnum() {
         return this.dataSource.getDatabaseTypeEnum();
     }
@@ -59,6 +148,14 @@ public class SessionContext {
         return contextValues != null ? contextValues.isIgnoreEmptySlave() : true;
     }
 
+    public SQLPlanCache getSQLPlanCache() {
+        return contextValues != null ? contextValues.getSQLPlanCache() : null;
+    }
+
+    public SQLMetrics getSQLMetrics() {
+        return contextValues != null ? contextValues.getSQLMetrics() : null;
+    }
+
     public Transaction getTransaction() {
         return transaction;
     }
@@ -74,6 +171,7 @@ public class SessionContext {
         dataSourceWrapper.isMaster = isMaster;
         dataSourceWrapper.slaveName = slaveName;
         dataSourceWrapper.transaction = transaction;
+        dataSourceWrapper.writtenTables = writtenTables;
         return dataSourceWrapper;
     }
 }
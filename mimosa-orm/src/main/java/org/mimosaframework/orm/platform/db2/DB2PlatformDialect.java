@@ -18,7 +18,8 @@ import java.util.Set;
 public class DB2PlatformDialect extends PlatformDialect {
     private DB2StampBuilder builder = new DB2StampBuilder();
 
-    public DB2PlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "INTEGER");
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "CHARACTER", ColumnCompareType.JAVA);
@@ -153,4 +154,9 @@ public class DB2PlatformDialect extends PlatformDialect {
     public boolean isSupportDuplicateKeyUpdate() {
         return false;
     }
+
+    @Override
+    public boolean isOrderNullsFirst() {
+        return false;
+    }
 }
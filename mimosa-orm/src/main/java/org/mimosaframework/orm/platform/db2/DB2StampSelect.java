@@ -57,9 +57,9 @@ public class DB2StampSelect extends PlatformStampSelect {
         }
 
         if (select.limit != null) {
-            long start = select.limit.start, limit = start + select.limit.limit;
             sb.append(") RN_TABLE_ALIAS ) ");
-            sb.append("WHERE RN_ALIAS_ROW_NUMBER BETWEEN " + start + " AND " + limit);
+            sb.append("WHERE RN_ALIAS_ROW_NUMBER BETWEEN " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_START, placeholders)
+                    + " AND " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_END, placeholders));
         }
 
         if (select.forUpdate) {
@@ -13,7 +13,8 @@ import java.util.List;
 public class MysqlPlatformDialect extends PlatformDialect {
     private MysqlStampBuilder builder = new MysqlStampBuilder();
 
-    public MysqlPlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "INT");
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "CHAR", ColumnCompareType.JAVA);
@@ -200,4 +201,15 @@ public class MysqlPlatformDialect extends PlatformDialect {
     public boolean isSupportDuplicateKeyUpdate() {
         return true;
     }
+
+    @Override
+    public int getStreamFetchSize(int fetchSize) {
+        // MySQL驱动在没有设置useCursorFetch时只有Integer.MIN_VALUE才会逐行读取
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public boolean isOrderIgnoreCase() {
+        return true;
+    }
 }
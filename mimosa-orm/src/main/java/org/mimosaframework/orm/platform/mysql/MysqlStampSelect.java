@@ -42,7 +42,8 @@ public class MysqlStampSelect extends PlatformStampSelect {
         this.buildSelectOrderBy(wrapper, select, sb);
 
         if (select.limit != null) {
-            sb.append(" LIMIT " + select.limit.start + "," + select.limit.limit);
+            sb.append(" LIMIT " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_START, placeholders)
+                    + "," + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_ROWS, placeholders));
         }
 
         if (select.forUpdate) {
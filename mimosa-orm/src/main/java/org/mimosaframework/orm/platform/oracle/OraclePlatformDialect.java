@@ -13,7 +13,8 @@ public class OraclePlatformDialect extends PlatformDialect {
     private static final Log logger = LogFactory.getLog(OraclePlatformDialect.class);
     private OracleStampBuilder builder = new OracleStampBuilder();
 
-    public OraclePlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "NUMBER", 10, ColumnCompareType.SELF);
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR2", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "CHAR", ColumnCompareType.JAVA);
@@ -175,4 +176,15 @@ public class OraclePlatformDialect extends PlatformDialect {
     public boolean isSupportGeneratedKeys() {
         return false;
     }
+
+    @Override
+    public boolean isInsertUseBatch() {
+        // INSERT ALL行数多时解析很慢，主键都是从序列中获取的不需要返回
+        return true;
+    }
+
+    @Override
+    public boolean isOrderNullsFirst() {
+        return false;
+    }
 }
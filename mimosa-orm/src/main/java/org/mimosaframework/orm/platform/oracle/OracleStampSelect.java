@@ -47,9 +47,9 @@ public class OracleStampSelect extends PlatformStampSelect {
         this.buildSelectOrderBy(wrapper, select, sb);
 
         if (select.limit != null) {
-            long start = select.limit.start, limit = start + select.limit.limit;
-
-            sb.append(") RN_TABLE_ALIAS WHERE ROWNUM <= " + limit + ") RN_TABLE_ALIAS_2 WHERE RN_TABLE_ALIAS_2.RN_ALIAS_ROW_NUMBER >= " + start);
+            sb.append(") RN_TABLE_ALIAS WHERE ROWNUM <= " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_END, placeholders)
+                    + ") RN_TABLE_ALIAS_2 WHERE RN_TABLE_ALIAS_2.RN_ALIAS_ROW_NUMBER >= "
+                    + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_START, placeholders));
         }
 
         if (select.forUpdate) {
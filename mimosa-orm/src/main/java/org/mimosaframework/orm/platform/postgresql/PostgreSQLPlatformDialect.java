@@ -13,7 +13,8 @@ import java.sql.SQLException;
 public class PostgreSQLPlatformDialect extends PlatformDialect {
     private PostgreSQLStampBuilder builder = new PostgreSQLStampBuilder();
 
-    public PostgreSQLPlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "INT4");
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "BPCHAR", ColumnCompareType.JAVA);
@@ -135,8 +136,25 @@ public class PostgreSQLPlatformDialect extends PlatformDialect {
         return true;
     }
 
+    @Override
+    public int getMaxParameterCount() {
+        // 协议允许65535个参数，但是旧版本驱动只支持到32767
+        return 32767;
+    }
+
     @Override
     public boolean isSupportDuplicateKeyUpdate() {
         return false;
     }
+
+    @Override
+    public boolean isStreamNeedTransaction() {
+        // PostgreSQL驱动只有关闭自动提交后fetchSize才有效
+        return true;
+    }
+
+    @Override
+    public boolean isOrderNullsFirst() {
+        return false;
+    }
 }
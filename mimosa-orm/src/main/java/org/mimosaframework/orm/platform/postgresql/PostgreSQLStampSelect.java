@@ -42,7 +42,8 @@ public class PostgreSQLStampSelect extends PlatformStampSelect {
         this.buildSelectOrderBy(wrapper, select, sb);
 
         if (select.limit != null) {
-            sb.append(" LIMIT " + select.limit.limit + " OFFSET " + select.limit.start);
+            sb.append(" LIMIT " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_ROWS, placeholders)
+                    + " OFFSET " + this.limitPlaceholder(select.limit, SQLDataPlaceholder.LIMIT_START, placeholders));
         }
 
         if (select.forUpdate) {
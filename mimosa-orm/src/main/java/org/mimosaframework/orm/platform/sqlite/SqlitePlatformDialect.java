@@ -17,7 +17,8 @@ import java.util.List;
 public class SqlitePlatformDialect extends PlatformDialect {
     private SqliteStampBuilder builder = new SqliteStampBuilder();
 
-    public SqlitePlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "INTEGER");
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "CHAR", ColumnCompareType.JAVA);
@@ -359,6 +360,12 @@ public class SqlitePlatformDialect extends PlatformDialect {
         return true;
     }
 
+    @Override
+    public int getMaxParameterCount() {
+        // SQLITE_MAX_VARIABLE_NUMBER 在3.32.0之前默认是999
+        return 999;
+    }
+
     @Override
     public boolean isSelectHavingMustGroupBy() {
         return true;
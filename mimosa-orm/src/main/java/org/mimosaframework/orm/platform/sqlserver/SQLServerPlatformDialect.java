@@ -8,7 +8,8 @@ import java.sql.SQLException;
 public class SQLServerPlatformDialect extends PlatformDialect {
     private SQLServerStampBuilder builder = new SQLServerStampBuilder();
 
-    public SQLServerPlatformDialect() {
+    @Override
+    protected void registerColumnTypes() {
         registerColumnType(KeyColumnType.INT, "INT");
         registerColumnType(KeyColumnType.VARCHAR, "VARCHAR", ColumnCompareType.JAVA);
         registerColumnType(KeyColumnType.CHAR, "CHAR", ColumnCompareType.JAVA);
@@ -134,8 +135,19 @@ public class SQLServerPlatformDialect extends PlatformDialect {
         return true;
     }
 
+    @Override
+    public int getMaxParameterCount() {
+        // SQL Server一条语句最多2100个参数，留出一些给驱动自己使用
+        return 2000;
+    }
+
     @Override
     public boolean isSupportDuplicateKeyUpdate() {
         return false;
     }
+
+    @Override
+    public boolean isOrderIgnoreCase() {
+        return true;
+    }
 }
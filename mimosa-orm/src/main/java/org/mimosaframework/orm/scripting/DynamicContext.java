@@ -4,6 +4,7 @@ import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.core.ognl.OgnlException;
 import org.mimosaframework.core.ognl.OgnlRuntime;
 import org.mimosaframework.core.ognl.PropertyAccessor;
+import org.mimosaframework.core.ognl.SimplePropertyAccessor;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -81,10 +82,18 @@ public class DynamicContext {
         }
     }
 
-    static class ContextAccessor implements PropertyAccessor {
+    static class ContextAccessor implements PropertyAccessor, SimplePropertyAccessor {
 
         public Object getProperty(Map context, Object target, Object name)
                 throws OgnlException {
+            return get(target, name);
+        }
+
+        public Object getProperty(Object target, String name) {
+            return get(target, name);
+        }
+
+        private static Object get(Object target, Object name) {
             Map map = (Map) target;
 
             Object result = map.get(name);
@@ -8,24 +8,28 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class OgnlCache {
 
-    private static final Map<String, Node> expressionCache = new ConcurrentHashMap<String, Node>();
+    /**
+     * 表达式解析后编译成字节码，不支持编译的表达式仍然解释执行
+     */
+    private static final Map<String, CompiledExpression> expressionCache = new ConcurrentHashMap<String, CompiledExpression>();
 
     public static Object getValue(String expression, Object root) {
         try {
-            return Ognl.getValue(parseExpression(expression), root);
+            return parseExpression(expression).getValue(root);
         } catch (OgnlException e) {
             throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + e, e);
         }
     }
 
-    private static Object parseExpression(String expression) throws OgnlException {
+    private static CompiledExpression parseExpression(String expression) throws OgnlException {
         try {
-            Node node = expressionCache.get(expression);
-            if (node == null) {
-                node = new OgnlParser(new StringReader(expression)).topLevelExpression();
-                expressionCache.put(expression, node);
+            CompiledExpression compiled = expressionCache.get(expression);
+            if (compiled == null) {
+                Node node = new OgnlParser(new StringReader(expression)).topLevelExpression();
+                compiled = OgnlCompiler.compile(node);
+                expressionCache.put(expression, compiled);
             }
-            return node;
+            return compiled;
         } catch (ParseException e) {
             throw new ExpressionSyntaxException(expression, e);
         } catch (TokenMgrError e) {
@@ -0,0 +1,38 @@
+package org.mimosaframework.orm.shard;
+
+import org.mimosaframework.orm.mapping.MappingGlobalWrapper;
+
+/**
+ * 一个分片节点，对应一个数据源中的一个物理表
+ */
+public class ShardNode {
+    private final String dataSourceName;
+    private final String tableName;
+    /**
+     * 分片的映射类替换成物理表名之后的映射信息
+     */
+    private final MappingGlobalWrapper mappingGlobalWrapper;
+
+    public ShardNode(String dataSourceName, String tableName, MappingGlobalWrapper mappingGlobalWrapper) {
+        this.dataSourceName = dataSourceName;
+        this.tableName = tableName;
+        this.mappingGlobalWrapper = mappingGlobalWrapper;
+    }
+
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public MappingGlobalWrapper getMappingGlobalWrapper() {
+        return mappingGlobalWrapper;
+    }
+
+    @Override
+    public String toString() {
+        return dataSourceName + "." + tableName;
+    }
+}
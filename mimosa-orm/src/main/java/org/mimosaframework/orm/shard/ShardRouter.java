@@ -0,0 +1,113 @@
+package org.mimosaframework.orm.shard;
+
+import org.mimosaframework.core.utils.StringTools;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.mapping.MappingGlobalWrapper;
+import org.mimosaframework.orm.mapping.MappingShard;
+import org.mimosaframework.orm.mapping.MappingTable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 所有分片映射类的分片规则，以及跨分片并行查询使用的线程池
+ */
+public class ShardRouter {
+    private final Map<Class, ShardRule> rules = new HashMap<>();
+    private volatile ThreadPoolExecutor executor;
+
+    public ShardRouter(MappingGlobalWrapper mappingGlobalWrapper) {
+        List<MappingTable> tables = mappingGlobalWrapper.getMappingTables();
+        for (MappingTable table : tables) {
+            MappingShard shard = table.getMappingShard();
+            if (shard == null) continue;
+            if (table.getMappingFieldByJavaName(shard.getField()) == null) {
+                throw new IllegalArgumentException(I18n.print("shard_field_miss",
+                        table.getMappingClass().getName(), shard.getField()));
+            }
+            String[] names = shard.getNodes();
+            if (names == null || names.length == 0) {
+                throw new IllegalArgumentException(I18n.print("shard_node_miss", table.getMappingClass().getName()));
+            }
+            List<ShardNode> nodes = new ArrayList<>(names.length);
+            for (String name : names) {
+                nodes.add(this.createNode(tables, table, name.trim()));
+            }
+            rules.put(table.getMappingClass(), new ShardRule(table.getMappingClass(), shard.getField(),
+                    nodes, shard.getReplicas()));
+        }
+    }
+
+    /**
+     * 每个分片节点使用一份映射信息，其中分片的映射类替换成节点的物理表名
+     */
+    private ShardNode createNode(List<MappingTable> tables, MappingTable table, String name) {
+        String dataSourceName = name;
+        String tableName = table.getMappingTableName();
+        int index = name.indexOf('.');
+        if (index >= 0) {
+            dataSourceName = name.substring(0, index);
+            tableName = name.substring(index + 1);
+        }
+        if (StringTools.isEmpty(dataSourceName) || MimosaDataSource.DEFAULT_DS_NAME.equals(dataSourceName)) {
+            dataSourceName = MimosaDataSource.DEFAULT_DS_NAME;
+        }
+        if (StringTools.isEmpty(tableName)) tableName = table.getMappingTableName();
+
+        MappingTable physical = table.clone();
+        physical.setMappingTableName(tableName);
+        Set<MappingTable> set = new LinkedHashSet<>(tables.size());
+        for (MappingTable t : tables) {
+            set.add(t == table ? physical : t);
+        }
+        MappingGlobalWrapper wrapper = new MappingGlobalWrapper();
+        wrapper.setMappingTables(set);
+        return new ShardNode(dataSourceName, tableName, wrapper);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * @return 没有分片的映射类返回null
+     */
+    public ShardRule getRule(Class c) {
+        return c == null ? null : rules.get(c);
+    }
+
+    /**
+     * 跨分片并行查询使用的线程池，空闲的线程会自动回收
+     */
+    public ExecutorService getExecutor() {
+        if (this.executor == null) {
+            synchronized (this) {
+                if (this.executor == null) {
+                    int threads = Runtime.getRuntime().availableProcessors() * 2;
+                    final AtomicInteger number = new AtomicInteger(1);
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "mimosa-shard-" + number.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    this.executor = executor;
+                }
+            }
+        }
+        return this.executor;
+    }
+
+    public synchronized void close() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+    }
+}
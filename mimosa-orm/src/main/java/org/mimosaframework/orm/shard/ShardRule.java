@@ -0,0 +1,68 @@
+package org.mimosaframework.orm.shard;
+
+import org.mimosaframework.core.utils.ConsistentHash;
+
+import java.util.*;
+
+/**
+ * 一个映射类的分片规则，按照分片字段的值在一致性哈希环上选择分片节点
+ */
+public class ShardRule {
+    private final Class tableClass;
+    private final String field;
+    private final List<ShardNode> nodes;
+    private final Map<String, ShardNode> named;
+    // ConsistentHash 使用的MD5实例不是线程安全的，路由时需要加锁
+    private final ConsistentHash hash;
+
+    public ShardRule(Class tableClass, String field, List<ShardNode> nodes, int replicas) {
+        this.tableClass = tableClass;
+        this.field = field;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.named = new HashMap<>(nodes.size() * 2);
+        for (ShardNode node : nodes) {
+            this.named.put(node.toString(), node);
+        }
+        this.hash = new ConsistentHash(new ConsistentHash.HashFunction(), Math.max(1, replicas), this.named.keySet());
+    }
+
+    public Class getTableClass() {
+        return tableClass;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public List<ShardNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param value 分片字段的值
+     * @return 值所在的分片节点
+     */
+    public ShardNode route(Object value) {
+        String name;
+        synchronized (hash) {
+            name = hash.get(value);
+        }
+        return named.get(name);
+    }
+
+    /**
+     * @param values 分片字段的多个值
+     * @return 这些值所在的分片节点，按照配置的顺序排列
+     */
+    public List<ShardNode> route(Collection values) {
+        Set<ShardNode> set = new HashSet<>();
+        for (Object value : values) {
+            set.add(this.route(value));
+        }
+        List<ShardNode> routed = new ArrayList<>(set.size());
+        for (ShardNode node : nodes) {
+            if (set.contains(node)) routed.add(node);
+        }
+        return routed;
+    }
+}
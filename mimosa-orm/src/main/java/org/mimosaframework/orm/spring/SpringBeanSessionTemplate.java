@@ -97,6 +97,16 @@ public class SpringBeanSessionTemplate implements BeanSessionTemplate {
         return sessionTemplate.list(query);
     }
 
+    @Override
+    public <T> Cursor<T> stream(Query query) {
+        return sessionTemplate.stream(query);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, int fetchSize) {
+        return sessionTemplate.stream(query, fetchSize);
+    }
+
     @Override
     public long count(Query query) {
         return sessionTemplate.count(query);
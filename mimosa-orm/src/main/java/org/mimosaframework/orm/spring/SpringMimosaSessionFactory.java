@@ -9,6 +9,7 @@ import org.mimosaframework.orm.convert.NamingConvert;
 import org.mimosaframework.orm.exception.ContextException;
 import org.mimosaframework.orm.exception.MimosaException;
 import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.metrics.SQLMetrics;
 import org.mimosaframework.orm.mapping.TableCompare;
 import org.mimosaframework.orm.transaction.TransactionFactory;
 import org.springframework.beans.BeansException;
@@ -24,6 +25,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * spring bean 用来初始化整个程序
@@ -98,6 +100,68 @@ public class SpringMimosaSessionFactory extends AbstractConfigBuilder implements
         this.basicSetting.setUppercase(uppercase);
     }
 
+    public void setSqlPlanCacheSize(int sqlPlanCacheSize) {
+        this.basicSetting.setSqlPlanCacheSize(sqlPlanCacheSize);
+    }
+
+    public void setPagingThreads(int pagingThreads) {
+        this.basicSetting.setPagingThreads(pagingThreads);
+    }
+
+    public void setPagingExecutor(ExecutorService pagingExecutor) {
+        this.basicSetting.setPagingExecutor(pagingExecutor);
+    }
+
+    public void setCountCacheTime(long countCacheTime) {
+        this.basicSetting.setCountCacheTime(countCacheTime);
+    }
+
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.basicSetting.setReadYourWrites(readYourWrites);
+    }
+
+    /**
+     * 写入表之后多长时间内所有Session读取这个表都使用主库(毫秒)，
+     * 不区分Session，只需要读到自己写入的数据时使用 setReadYourWrites
+     *
+     * @param readYourWritesWindow 时间窗口(毫秒)
+     */
+    public void setReadYourWritesWindow(long readYourWritesWindow) {
+        this.basicSetting.setReadYourWritesWindow(readYourWritesWindow);
+    }
+
+    public void setSessionCache(boolean sessionCache) {
+        this.basicSetting.setSessionCache(sessionCache);
+    }
+
+    public void setSecondLevelCache(boolean secondLevelCache) {
+        this.basicSetting.setSecondLevelCache(secondLevelCache);
+    }
+
+    public void setResultCacheSize(int resultCacheSize) {
+        this.basicSetting.setResultCacheSize(resultCacheSize);
+    }
+
+    public void setLinkThreads(int linkThreads) {
+        this.basicSetting.setLinkThreads(linkThreads);
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.basicSetting.setMetrics(metrics);
+    }
+
+    public void setSlowQueryTime(long slowQueryTime) {
+        this.basicSetting.setSlowQueryTime(slowQueryTime);
+    }
+
+    public void setMetricsJmx(boolean metricsJmx) {
+        this.basicSetting.setMetricsJmx(metricsJmx);
+    }
+
+    public void setSqlMetrics(SQLMetrics sqlMetrics) {
+        this.basicSetting.setSqlMetrics(sqlMetrics);
+    }
+
     public void setIgnoreEmptySlave(Boolean ignoreEmptySlave) {
         this.ignoreEmptySlave = ignoreEmptySlave;
         this.basicSetting.setIgnoreEmptySlave(ignoreEmptySlave);
@@ -7,12 +7,13 @@ import org.mimosaframework.orm.criteria.Function;
 import org.mimosaframework.orm.criteria.Query;
 import org.mimosaframework.orm.criteria.Update;
 import org.mimosaframework.orm.transaction.TransactionManager;
+import org.mimosaframework.orm.utils.Model2BeanFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
-public class SpringMimosaSessionTemplate implements SessionTemplate {
+public class SpringMimosaSessionTemplate implements SessionTemplate, BeanHandleSession {
     private SpringMimosaSessionFactory factory;
     private MimosaSessionTemplate sessionTemplate;
 
@@ -102,6 +103,26 @@ public class SpringMimosaSessionTemplate implements SessionTemplate {
         return sessionTemplate.list(query);
     }
 
+    @Override
+    public <T> List<T> list(Query query, Class<T> c, Model2BeanFactory model2BeanFactory) {
+        return sessionTemplate.list(query, c, model2BeanFactory);
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query) {
+        return sessionTemplate.stream(query);
+    }
+
+    @Override
+    public Cursor<ModelObject> stream(Query query, int fetchSize) {
+        return sessionTemplate.stream(query, fetchSize);
+    }
+
+    @Override
+    public <T> Cursor<T> stream(Query query, Class<T> c, Model2BeanFactory model2BeanFactory, int fetchSize) {
+        return sessionTemplate.stream(query, c, model2BeanFactory, fetchSize);
+    }
+
     @Override
     public long count(Query query) {
         return sessionTemplate.count(query);
@@ -112,6 +133,11 @@ public class SpringMimosaSessionTemplate implements SessionTemplate {
         return sessionTemplate.paging(query);
     }
 
+    @Override
+    public <T> Paging<T> paging(Query query, Class<T> c, Model2BeanFactory model2BeanFactory) {
+        return sessionTemplate.paging(query, c, model2BeanFactory);
+    }
+
     @Override
     public ZipperTable<ModelObject> getZipperTable(Class c) {
         return sessionTemplate.getZipperTable(c);
@@ -0,0 +1,291 @@
+package org.mimosaframework.orm.strategy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mimosaframework.orm.IDStrategy;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.exception.StrategyException;
+import org.mimosaframework.orm.i18n.I18n;
+
+import java.io.Serializable;
+import java.sql.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段ID生成策略，每次从数据库中领取 {@link #step} 个ID缓存在内存中分配，
+ * 当前号段使用到 {@link #prefetch} 比例时在后台线程中提前领取下一个号段
+ * <p>
+ * 默认从号段表中领取，每一个表使用表名作为标识占一行，号段表需要事先创建
+ * <pre>
+ * CREATE TABLE mimosa_id_segment (
+ *     biz_tag VARCHAR(128) NOT NULL PRIMARY KEY,
+ *     max_id  BIGINT       NOT NULL
+ * )
+ * </pre>
+ * 也可以设置 {@link #sequenceSql} 从序列中领取，序列的步长必须和 {@link #step} 相同，
+ * 语句中的 {tag} 会替换成表名，比如 SELECT NEXTVAL('{tag}_seg')
+ * <p>
+ * 领取号段使用独立的主库连接并立即提交，不受当前事务回滚的影响
+ */
+public class SegmentStrategy implements IDStrategy {
+    private static final Log logger = LogFactory.getLog(SegmentStrategy.class);
+    public static final String DEFAULT_TABLE = "mimosa_id_segment";
+    private static final AtomicInteger number = new AtomicInteger(1);
+    private static volatile ExecutorService defaultExecutor;
+
+    protected int step = 1000;
+    protected double prefetch = 0.1;
+    protected String table = DEFAULT_TABLE;
+    protected String sequenceSql;
+    protected ExecutorService executor;
+
+    private final ConcurrentMap<String, SegmentBuffer> buffers = new ConcurrentHashMap<>();
+
+    @Override
+    public Serializable get(StrategyWrapper sw, Session session) throws StrategyException {
+        String tag = sw.getDbTableName();
+        SegmentBuffer buffer = buffers.get(tag);
+        if (buffer == null) {
+            buffer = new SegmentBuffer(sw, tag);
+            SegmentBuffer old = buffers.putIfAbsent(tag, buffer);
+            if (old != null) buffer = old;
+        }
+        return buffer.next();
+    }
+
+    /**
+     * 领取一个号段，需要在事务中执行
+     *
+     * @param connection 独立的主库连接，已经关闭自动提交
+     * @param tag        号段标识(表名)
+     * @return 号段的第一个ID，号段为 [start, start + step)
+     * @throws SQLException
+     */
+    protected long lease(Connection connection, String tag) throws SQLException {
+        if (sequenceSql != null) {
+            return this.queryLong(connection, sequenceSql.replace("{tag}", tag), null);
+        }
+        String update = "UPDATE " + table + " SET max_id = max_id + " + step + " WHERE biz_tag = ?";
+        String select = "SELECT max_id FROM " + table + " WHERE biz_tag = ?";
+        for (int i = 0; i < 2; i++) {
+            if (this.executeUpdate(connection, update, tag) > 0) {
+                return this.queryLong(connection, select, tag) - step + 1;
+            }
+            try {
+                this.executeUpdate(connection, "INSERT INTO " + table + " (biz_tag, max_id) VALUES (?, " + step + ")", tag);
+                return 1;
+            } catch (SQLException e) {
+                // 其他节点同时添加了这一行，重新领取，PostgreSQL等数据库在语句出错后
+                // 事务不能继续使用，前面的UPDATE没有修改数据所以直接回滚整个事务
+                logger.debug("segment row " + tag + " already exists, retry lease", e);
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+        }
+        throw new SQLException(I18n.print("segment_lease_fail", tag));
+    }
+
+    private int executeUpdate(Connection connection, String sql, String tag) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            statement.setString(1, tag);
+            return statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private long queryLong(Connection connection, String sql, String tag) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            if (tag != null) statement.setString(1, tag);
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            } finally {
+                rs.close();
+            }
+        } finally {
+            statement.close();
+        }
+        throw new SQLException(I18n.print("segment_lease_fail", tag));
+    }
+
+    private Segment load(StrategyWrapper sw, String tag) throws StrategyException {
+        MimosaDataSource dataSource = sw.getConfiguration().getDefaultDataSource();
+        Connection connection = null;
+        try {
+            connection = dataSource.getMaster().getConnection();
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) connection.setAutoCommit(false);
+            try {
+                long start = this.lease(connection, tag);
+                connection.commit();
+                return new Segment(start, start + step, start + (long) Math.ceil(step * prefetch) - 1);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                if (autoCommit) connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new StrategyException(I18n.print("segment_lease_fail", tag), e);
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warn(I18n.print("close_db_fail"), e);
+                }
+            }
+        }
+    }
+
+    private ExecutorService prefetchExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (defaultExecutor == null) {
+            synchronized (SegmentStrategy.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "mimosa-segment-" + number.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    private static class Segment {
+        private final AtomicLong value;
+        private final long max;
+        private final long prefetchAt;
+
+        Segment(long start, long max, long prefetchAt) {
+            this.value = new AtomicLong(start);
+            this.max = max;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+
+    /**
+     * 当前号段和提前领取的下一个号段
+     */
+    private class SegmentBuffer {
+        private final StrategyWrapper sw;
+        private final String tag;
+        private volatile Segment current;
+        private volatile Future<Segment> next;
+
+        SegmentBuffer(StrategyWrapper sw, String tag) {
+            this.sw = sw;
+            this.tag = tag;
+        }
+
+        Long next() throws StrategyException {
+            for (; ; ) {
+                Segment segment = this.current;
+                if (segment != null) {
+                    long id = segment.value.getAndIncrement();
+                    if (id < segment.max) {
+                        // 分配到阈值的线程负责提前领取
+                        if (id == segment.prefetchAt) {
+                            this.prefetch();
+                        }
+                        return id;
+                    }
+                }
+                synchronized (this) {
+                    if (this.current == segment) {
+                        this.current = this.take();
+                    }
+                }
+            }
+        }
+
+        private void prefetch() {
+            if (this.next != null) {
+                return;
+            }
+            try {
+                this.next = prefetchExecutor().submit(new Callable<Segment>() {
+                    @Override
+                    public Segment call() throws Exception {
+                        return load(sw, tag);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn(I18n.print("segment_prefetch_rejected", tag));
+            }
+        }
+
+        private Segment take() throws StrategyException {
+            Future<Segment> future = this.next;
+            this.next = null;
+            if (future != null) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new StrategyException(I18n.print("segment_lease_fail", tag), e);
+                } catch (ExecutionException e) {
+                    // 后台领取失败时重新同步领取一次
+                    logger.warn(I18n.print("segment_lease_fail", tag), e.getCause());
+                }
+            }
+            return load(sw, tag);
+        }
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    public double getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(double prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public String getSequenceSql() {
+        return sequenceSql;
+    }
+
+    public void setSequenceSql(String sequenceSql) {
+        this.sequenceSql = sequenceSql;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+}
@@ -1,26 +1,260 @@
 package org.mimosaframework.orm.strategy;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.mimosaframework.core.utils.SnowFlake;
 import org.mimosaframework.orm.IDStrategy;
 import org.mimosaframework.orm.Session;
 import org.mimosaframework.orm.exception.StrategyException;
+import org.mimosaframework.orm.i18n.I18n;
 
+import javax.sql.DataSource;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 雪花ID生成策略
+ * <p>
+ * 机器ID可以直接配置 {@link #workerId}，多个节点部署时也可以设置 {@link #workerTable}
+ * 从数据库中领取一个没有被使用的机器ID，领取后在后台定时续约，超过 {@link #leaseTime} 没有续约的机器ID可以被其他节点领取
+ * <p>
+ * 续约时发现机器ID已经被其他节点领取，或者距离上一次成功续约超过了 {@link #leaseTime} 的一半，
+ * 当前的机器ID不再生成ID，下一次生成ID时重新领取一个机器ID，领取失败则抛出异常
+ * <pre>
+ * CREATE TABLE mimosa_snowflake_worker (
+ *     data_center_id INT          NOT NULL,
+ *     worker_id      INT          NOT NULL,
+ *     node           VARCHAR(128) NOT NULL,
+ *     heartbeat      BIGINT       NOT NULL,
+ *     PRIMARY KEY (data_center_id, worker_id)
+ * )
+ * </pre>
+ */
 public class SnowFlakeStrategy implements IDStrategy {
-    protected SnowFlake snowFlake = null;
+    private static final Log logger = LogFactory.getLog(SnowFlakeStrategy.class);
+    private static final int MAX_WORKER_ID = 31;
+
+    protected volatile SnowFlake snowFlake = null;
+    protected volatile Long workerId;
+    protected long dataCenterId = 1;
+    protected long maxBackwardMillis = 5;
+    protected String workerTable;
+    protected long leaseTime = 60000;
+    private String node;
+    private volatile ScheduledExecutorService heartbeat;
+    /**
+     * 最后一次成功续约的时间，和写入数据库的heartbeat相同
+     */
+    private volatile long lastRenew;
+    /**
+     * 续约时发现机器ID已经被其他节点领取
+     */
+    private volatile boolean lost;
 
     @Override
     public Serializable get(StrategyWrapper sw, Session session) throws StrategyException {
-        if (snowFlake == null) {
+        // 其他线程可能同时释放机器ID，只使用读取到的对象
+        SnowFlake current = this.snowFlake;
+        if (current == null || !this.isLeaseValid()) {
             synchronized (this) {
-                if (snowFlake == null) snowFlake = this.buildSnowFlack();
+                if (snowFlake != null && !this.isLeaseValid()) {
+                    logger.warn(I18n.print("snowflake_worker_expired", String.valueOf(workerId)));
+                    this.releaseLease();
+                }
+                if (snowFlake == null) snowFlake = this.buildSnowFlack(sw);
+                current = snowFlake;
             }
         }
-        return this.snowFlake.nextId();
+        return current.nextId();
+    }
+
+    public SnowFlake buildSnowFlack(StrategyWrapper sw) throws StrategyException {
+        if (workerId == null && workerTable != null) {
+            DataSource dataSource = sw.getConfiguration().getDefaultDataSource().getMaster();
+            workerId = (long) this.leaseWorkerId(dataSource);
+            this.startHeartbeat(dataSource);
+        }
+        return this.buildSnowFlack();
+    }
+
+    /**
+     * 使用配置的机器ID时总是有效，从数据库领取的机器ID在被其他节点领取或者续约超时后失效
+     * <p>
+     * 其他节点按照自己的时钟领取heartbeat超过 {@link #leaseTime} 的机器ID，
+     * 为了容忍节点之间的时钟偏差，超过一半的租约时间没有续约就停止使用
+     */
+    protected boolean isLeaseValid() {
+        if (heartbeat == null) {
+            return true;
+        }
+        return !lost && System.currentTimeMillis() - lastRenew <= leaseTime / 2;
+    }
+
+    /**
+     * 停止续约并丢弃当前的机器ID
+     */
+    private void releaseLease() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+        snowFlake = null;
+        workerId = null;
+        lost = false;
     }
 
     public SnowFlake buildSnowFlack() {
-        return new SnowFlake();
+        SnowFlake snowFlake = new SnowFlake(workerId == null ? 1 : workerId, dataCenterId);
+        snowFlake.setMaxBackwardMillis(maxBackwardMillis);
+        return snowFlake;
+    }
+
+    /**
+     * 领取一个没有被使用或者已经过期的机器ID
+     */
+    protected int leaseWorkerId(DataSource dataSource) throws StrategyException {
+        node = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            long now = System.currentTimeMillis();
+            for (int id = 0; id <= MAX_WORKER_ID; id++) {
+                if (this.executeUpdate(connection, "UPDATE " + workerTable
+                                + " SET node = ?, heartbeat = ? WHERE data_center_id = ? AND worker_id = ? AND heartbeat < ?",
+                        node, now, dataCenterId, id, now - leaseTime) > 0) {
+                    lastRenew = now;
+                    return id;
+                }
+                try {
+                    this.executeUpdate(connection, "INSERT INTO " + workerTable
+                                    + " (node, heartbeat, data_center_id, worker_id) VALUES (?, ?, ?, ?)",
+                            node, now, dataCenterId, id);
+                    lastRenew = now;
+                    return id;
+                } catch (SQLException e) {
+                    // 这个机器ID正在被其他节点使用
+                    logger.debug("snowflake worker " + id + " is in use", e);
+                }
+            }
+        } catch (SQLException e) {
+            throw new StrategyException(I18n.print("snowflake_worker_lease_fail"), e);
+        } finally {
+            this.close(connection);
+        }
+        throw new StrategyException(I18n.print("snowflake_worker_exhausted", String.valueOf(dataCenterId)));
+    }
+
+    private void startHeartbeat(final DataSource dataSource) {
+        final long leased = workerId;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "mimosa-snowflake-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // 失败一次之后仍然可以在租约时间的一半之内续约
+        long period = Math.max(1, leaseTime / 5);
+        heartbeat.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                Connection connection = null;
+                try {
+                    connection = dataSource.getConnection();
+                    connection.setAutoCommit(true);
+                    long now = System.currentTimeMillis();
+                    int count = executeUpdate(connection, "UPDATE " + workerTable
+                                    + " SET heartbeat = ? WHERE data_center_id = ? AND worker_id = ? AND node = ?",
+                            now, dataCenterId, leased, node);
+                    // 已经重新领取过机器ID时忽略旧的续约结果
+                    Long current = workerId;
+                    if (current == null || current != leased) {
+                        return;
+                    }
+                    if (count == 0) {
+                        lost = true;
+                        logger.error(I18n.print("snowflake_worker_lost", String.valueOf(leased)));
+                    } else {
+                        lastRenew = now;
+                    }
+                } catch (Exception e) {
+                    logger.error(I18n.print("snowflake_worker_heartbeat_fail", String.valueOf(leased)), e);
+                } finally {
+                    close(connection);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private int executeUpdate(Connection connection, String sql, Object... values) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            return statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private void close(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn(I18n.print("close_db_fail"), e);
+            }
+        }
+    }
+
+    public Long getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(Long workerId) {
+        this.workerId = workerId;
+    }
+
+    public long getDataCenterId() {
+        return dataCenterId;
+    }
+
+    public void setDataCenterId(long dataCenterId) {
+        this.dataCenterId = dataCenterId;
+    }
+
+    public long getMaxBackwardMillis() {
+        return maxBackwardMillis;
+    }
+
+    public void setMaxBackwardMillis(long maxBackwardMillis) {
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    public String getWorkerTable() {
+        return workerTable;
+    }
+
+    public void setWorkerTable(String workerTable) {
+        this.workerTable = workerTable;
+    }
+
+    public long getLeaseTime() {
+        return leaseTime;
+    }
+
+    public void setLeaseTime(long leaseTime) {
+        this.leaseTime = leaseTime;
     }
 }
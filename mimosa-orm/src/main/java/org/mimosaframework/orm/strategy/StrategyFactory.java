@@ -71,7 +71,7 @@ public class StrategyFactory {
                     }
 
                     if (c != AutoIncrementStrategy.class && c != IDStrategy.class) {
-                        if (strategys.get(c) == null) {
+                        if (strategys.get(key) == null) {
                             // 假如有已经实例好的ID生成策略对象，就用已经生成好的对象
                             List<? extends IDStrategy> list = values.getIdStrategies();
                             if (list != null && list.size() > 0) {
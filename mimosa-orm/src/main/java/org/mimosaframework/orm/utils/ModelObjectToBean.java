@@ -1,118 +1,167 @@
 package org.mimosaframework.orm.utils;
 
+import org.mimosaframework.core.cglib.beans.BulkBean;
+import org.mimosaframework.core.cglib.beans.BulkBeanException;
 import org.mimosaframework.core.json.ModelObject;
 import org.mimosaframework.core.utils.StringTools;
+import org.mimosaframework.orm.ModelObjectConvertKey;
 import org.mimosaframework.orm.annotation.Column;
 import org.mimosaframework.orm.i18n.I18n;
+import org.mimosaframework.orm.platform.ResultRowMapper;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * 每个类的字段、setter和getter只解析一次并缓存，有setter的字段通过生成的
+ * {@link BulkBean} 一次性赋值，没有setter的字段仍然直接设置字段的值
+ * <p>
+ * 解析结果通过 {@link ClassValue} 保存在类上，类被卸载时一起回收，不会持有类加载器
+ */
 public class ModelObjectToBean implements Model2BeanFactory {
+    private static final ClassValue<ClassMapper> MAPPERS = new ClassValue<ClassMapper>() {
+        @Override
+        protected ClassMapper computeValue(Class<?> type) {
+            return new ClassMapper(type);
+        }
+    };
+
     public <T> T toJavaObject(ModelObject object, Class<T> tClass) {
         if (object != null) {
-            try {
-                T t = tClass.newInstance();
-                toJavaObject(object, t);
-                return t;
-            } catch (Exception e) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                } else {
-                    throw new RuntimeException(I18n.print("model_to_bean_error_2"), e);
-                }
-            }
+            T t = newInstance(tClass);
+            toJavaObject(object, t);
+            return t;
         }
         return null;
     }
 
+    /**
+     * 查询时直接从结果集生成对象，字段名称的转换和先生成ModelObject再转换一致
+     *
+     * @param tClass     生成的对象类型
+     * @param tableClass 查询的映射类
+     * @param convert    数据库列名到映射类字段名的转换
+     * @return 结果集每一行的转换方式
+     */
+    public <T> ResultRowMapper<T> getResultRowMapper(Class<T> tClass, Class tableClass, ModelObjectConvertKey convert) {
+        return new BeanRowMapper<>(tClass, tableClass, convert);
+    }
+
+    private static <T> T newInstance(Class<T> tClass) {
+        try {
+            return tClass.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(I18n.print("model_to_bean_error_2"), e);
+        }
+    }
+
     public <T> void toJavaObject(ModelObject object, T obj) {
         this.toJavaObject(object, obj, false);
     }
 
     public <T> void toJavaObject(ModelObject object, T obj, boolean onlyEmpty) {
         if (object != null) {
-            String fieldName = null;
-            Object value = null;
-            try {
-                Class c = obj.getClass();
-                Class currClass = c;
-                while (!currClass.equals(Object.class)) {
-                    Field[] fields = currClass.getDeclaredFields();
-                    currClass = currClass.getSuperclass();
-                    for (Field field : fields) {
-                        Column column = field.getAnnotation(Column.class);
-                        String keyName = null;
-                        if (column != null && StringTools.isNotEmpty(column.name())) {
-                            keyName = column.name();
-                        }
-
-                        if (StringTools.isEmpty(keyName)) {
-                            keyName = field.getName();
-                        }
-
-                        fieldName = field.getName();
-                        String setName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-                        Method methodSet = null;
-                        try {
-                            methodSet = c.getMethod("set" + setName, field.getType());
-                        } catch (Exception e) {
-                        }
-                        if (onlyEmpty == true) {
-                            Method methodGet = null;
-                            try {
-                                methodGet = c.getMethod("get" + setName);
-                            } catch (Exception e) {
-                            }
-                            Object hasValue = methodGet != null ? methodGet.invoke(obj) : null;
-                            if (hasValue == null) {
-                                field.setAccessible(true);
-                                hasValue = field.get(obj);
-                            }
-                            if (hasValue != null) {
-                                continue;
-                            }
-                        }
-
-                        Object param = object.get(keyName);
-                        Object r = type2type(param, field.getType());
-                        value = r;
-
-                        if (methodSet != null) {
-                            methodSet.invoke(obj, r);
-                        } else {
-                            if (fieldName.startsWith("is")) {
-                                setName = fieldName.substring(2);
-                                try {
-                                    methodSet = c.getMethod("set" + setName, field.getType());
-                                } catch (Exception e) {
-                                }
-                                if (methodSet != null) {
-                                    methodSet.invoke(obj, r);
-                                }
-                            }
-                        }
-
-                        if (methodSet == null) {
-                            field.setAccessible(true);
-                            field.set(obj, r);
-                        }
-                    }
+            ClassMapper mapper = getClassMapper(obj.getClass());
+            if (onlyEmpty) {
+                this.toJavaObjectOnlyEmpty(mapper, object, obj);
+            } else {
+                this.toJavaObject(mapper, obj, object, null);
+            }
+        }
+    }
+
+    /**
+     * 给对象赋值，值从object中按照字段名称获取，object为空时从params中按照字段顺序获取
+     */
+    private void toJavaObject(ClassMapper mapper, Object obj, ModelObject object, Object[] params) {
+        BeanProperty[] properties = mapper.properties;
+        Object[] values = mapper.bulkBean != null ? new Object[mapper.bulkProperties.length] : null;
+        String fieldName = null;
+        Object value = null;
+        try {
+            for (int i = 0; i < properties.length; i++) {
+                BeanProperty property = properties[i];
+                fieldName = property.fieldName;
+                Object param = object != null ? object.get(property.keyName) : params[i];
+                Object r = this.type2type(param, property.type);
+                value = r;
+                r = property.primitive(r);
+                if (property.bulkIndex >= 0) {
+                    values[property.bulkIndex] = r;
+                } else if (property.setter != null) {
+                    property.setter.invoke(obj, r);
+                } else {
+                    property.field.set(obj, r);
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(I18n.print("model_to_bean_error",
-                        fieldName, "" + value), e);
             }
+            if (values != null) {
+                fieldName = null;
+                value = null;
+                mapper.bulkBean.setPropertyValues(obj, values);
+            }
+        } catch (BulkBeanException e) {
+            int index = e.getIndex();
+            if (index >= 0 && index < values.length) {
+                fieldName = mapper.bulkProperties[index].fieldName;
+                value = values[index];
+            }
+            throw new RuntimeException(I18n.print("model_to_bean_error",
+                    fieldName, "" + value), e.getCause() != null ? e.getCause() : e);
+        } catch (Exception e) {
+            throw new RuntimeException(I18n.print("model_to_bean_error",
+                    fieldName, "" + value), e);
         }
     }
 
+    private void toJavaObjectOnlyEmpty(ClassMapper mapper, ModelObject object, Object obj) {
+        String fieldName = null;
+        Object value = null;
+        try {
+            for (BeanProperty property : mapper.properties) {
+                fieldName = property.fieldName;
+                Object hasValue = property.getter != null ? property.getter.invoke(obj) : null;
+                if (hasValue == null) {
+                    hasValue = property.field.get(obj);
+                }
+                if (hasValue != null) {
+                    continue;
+                }
+
+                Object r = this.type2type(object.get(property.keyName), property.type);
+                value = r;
+                r = property.primitive(r);
+                if (property.setter != null) {
+                    property.setter.invoke(obj, r);
+                } else {
+                    property.field.set(obj, r);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(I18n.print("model_to_bean_error",
+                    fieldName, "" + value), e);
+        }
+    }
+
+    private static ClassMapper getClassMapper(Class c) {
+        return MAPPERS.get(c);
+    }
+
     protected Object type2type(Object source, Class targetType) {
         if (source != null) {
             Class sourceType = source.getClass();
             if (sourceType == targetType) {
                 return source;
             }
+            if ((targetType == boolean.class && sourceType == Boolean.class)
+                    || (targetType == char.class && sourceType == Character.class)) {
+                return source;
+            }
             if (Number.class.isAssignableFrom(sourceType)) {
                 if (targetType.equals(int.class) || targetType.equals(Integer.class))
                     return ((Number) source).intValue();
@@ -162,4 +211,209 @@ public class ModelObjectToBean implements Model2BeanFactory {
         }
         return source;
     }
+
+    private class BeanRowMapper<T> implements ResultRowMapper<T> {
+        private Class<T> tClass;
+        private Class tableClass;
+        private ModelObjectConvertKey convert;
+        private ClassMapper mapper;
+        private ResultColumnReader[] readers;
+        /**
+         * 每个字段对应的列，-1表示没有对应的列
+         */
+        private int[] columns;
+        /**
+         * 需要读取的列，按照列的顺序读取
+         */
+        private int[] reads;
+        /**
+         * 有大字段时需要LOBLoader处理，仍然先生成ModelObject
+         */
+        private boolean useModelObject;
+
+        private BeanRowMapper(Class<T> tClass, Class tableClass, ModelObjectConvertKey convert) {
+            this.tClass = tClass;
+            this.tableClass = tableClass;
+            this.convert = convert;
+        }
+
+        @Override
+        public void prepare(ResultColumnReader[] readers) throws SQLException {
+            this.readers = readers;
+            this.mapper = getClassMapper(tClass);
+            for (ResultColumnReader reader : readers) {
+                if (reader.isLob()) {
+                    this.useModelObject = true;
+                    return;
+                }
+            }
+
+            // 用列的下标代替值做一次名称转换，得到每个字段对应的列
+            ModelObject names = new ModelObject(readers.length * 4 / 3 + 1, true);
+            for (int i = 0; i < readers.length; i++) {
+                names.put(readers[i].getLabel(), i);
+            }
+            names.setObjectClass(tableClass);
+            names = convert.reconvert(tableClass, names);
+
+            BeanProperty[] properties = mapper.properties;
+            boolean[] used = new boolean[readers.length];
+            this.columns = new int[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                Object index = names.get(properties[i].keyName);
+                if (index instanceof Integer) {
+                    columns[i] = (Integer) index;
+                    used[columns[i]] = true;
+                } else {
+                    columns[i] = -1;
+                }
+            }
+            int count = 0;
+            for (boolean u : used) {
+                if (u) count++;
+            }
+            this.reads = new int[count];
+            count = 0;
+            for (int i = 0; i < used.length; i++) {
+                if (used[i]) reads[count++] = i;
+            }
+        }
+
+        @Override
+        public T mapRow(ResultSet rs) throws SQLException {
+            if (useModelObject) {
+                ModelObject object = new ModelObject(readers.length * 4 / 3 + 1, true);
+                ResultColumnReader.read(readers, rs, object);
+                object.setObjectClass(tableClass);
+                object = convert.reconvert(tableClass, object);
+                return toJavaObject(object, tClass);
+            }
+
+            Object[] values = new Object[readers.length];
+            for (int i : reads) {
+                values[i] = readers[i].read(rs);
+            }
+            Object[] params = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] >= 0) params[i] = values[columns[i]];
+            }
+            T t = newInstance(tClass);
+            ModelObjectToBean.this.toJavaObject(mapper, t, null, params);
+            return t;
+        }
+    }
+
+    private static class BeanProperty {
+        private String keyName;
+        private String fieldName;
+        private Class type;
+        private Field field;
+        private Method setter;
+        private Method getter;
+        private int bulkIndex = -1;
+
+        /**
+         * 和通过反射调用setter一致，值是null时int、long、float、double赋值为0，
+         * boolean、char、byte、short无法从0转换，抛出异常而不是赋值为默认值
+         */
+        private Object primitive(Object r) {
+            if ((type == boolean.class && !(r instanceof Boolean))
+                    || (type == char.class && !(r instanceof Character))
+                    || (type == byte.class && !(r instanceof Byte))
+                    || (type == short.class && !(r instanceof Short || r instanceof Byte))) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+            return r;
+        }
+    }
+
+    private static class ClassMapper {
+        private BeanProperty[] properties;
+        private BeanProperty[] bulkProperties;
+        private BulkBean bulkBean;
+
+        private ClassMapper(Class c) {
+            List<BeanProperty> list = new ArrayList<>();
+            Class currClass = c;
+            while (!currClass.equals(Object.class)) {
+                Field[] fields = currClass.getDeclaredFields();
+                currClass = currClass.getSuperclass();
+                for (Field field : fields) {
+                    // 静态字段不是对象的值(比如serialVersionUID)
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Column column = field.getAnnotation(Column.class);
+                    String keyName = null;
+                    if (column != null && StringTools.isNotEmpty(column.name())) {
+                        keyName = column.name();
+                    }
+
+                    if (StringTools.isEmpty(keyName)) {
+                        keyName = field.getName();
+                    }
+
+                    BeanProperty property = new BeanProperty();
+                    property.keyName = keyName;
+                    property.fieldName = field.getName();
+                    property.type = field.getType();
+                    property.field = field;
+
+                    String fieldName = field.getName();
+                    String setName = fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+                    property.setter = getMethod(c, "set" + setName, field.getType());
+                    if (property.setter == null && fieldName.startsWith("is")) {
+                        property.setter = getMethod(c, "set" + fieldName.substring(2), field.getType());
+                    }
+                    property.getter = getMethod(c, "get" + setName);
+                    try {
+                        field.setAccessible(true);
+                    } catch (SecurityException e) {
+                    }
+                    list.add(property);
+                }
+            }
+            this.properties = list.toArray(new BeanProperty[list.size()]);
+            this.createBulkBean(c);
+        }
+
+        private void createBulkBean(Class c) {
+            List<BeanProperty> bulks = new ArrayList<>();
+            for (BeanProperty property : properties) {
+                if (property.setter != null) {
+                    bulks.add(property);
+                }
+            }
+            if (bulks.size() == 0) {
+                return;
+            }
+            int size = bulks.size();
+            String[] getters = new String[size];
+            String[] setters = new String[size];
+            Class[] types = new Class[size];
+            for (int i = 0; i < size; i++) {
+                BeanProperty property = bulks.get(i);
+                setters[i] = property.setter.getName();
+                types[i] = property.type;
+            }
+            try {
+                this.bulkBean = BulkBean.create(c, getters, setters, types);
+            } catch (Throwable e) {
+                // 无法生成时(比如类不是公开的)使用反射赋值
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                bulks.get(i).bulkIndex = i;
+            }
+            this.bulkProperties = bulks.toArray(new BeanProperty[size]);
+        }
+
+        private static Method getMethod(Class c, String name, Class... types) {
+            try {
+                return c.getMethod(name, types);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package org.mimosaframework.orm.utils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 结果集的列读取方式，每一个结果集只解析一次列的类型和名称，
+ * 之后每一行数据按照列的下标直接读取
+ * <p>
+ * 类型的判断和 {@link SQLUtils#recordMappingToMap(String, String, ResultSet, Map)} 一致
+ */
+public class ResultColumnReader {
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int BOOLEAN = 4;
+    private static final int SHORT = 5;
+    private static final int FLOAT = 6;
+    private static final int DOUBLE = 7;
+    private static final int TIMESTAMP = 8;
+    private static final int DATE = 9;
+    private static final int TIME = 10;
+    private static final int BYTE = 11;
+    private static final int BYTES = 12;
+    private static final int BIG_DECIMAL = 13;
+    private static final int ARRAY = 14;
+    private static final int CLOB = 15;
+    private static final int BLOB = 16;
+    private static final int OBJECT = 17;
+
+    private final int index;
+    private final String label;
+    private final int type;
+
+    private ResultColumnReader(int index, String label, int type) {
+        this.index = index;
+        this.label = label;
+        this.type = type;
+    }
+
+    /**
+     * 解析结果集的所有列
+     *
+     * @param rsmd 结果集的描述
+     * @return 按照列顺序的读取方式
+     * @throws SQLException
+     */
+    public static ResultColumnReader[] resolve(ResultSetMetaData rsmd) throws SQLException {
+        int fieldCount = rsmd.getColumnCount();
+        ResultColumnReader[] readers = new ResultColumnReader[fieldCount];
+        Map<String, Integer> labels = new HashMap<>(fieldCount * 2);
+        for (int i = 1; i <= fieldCount; i++) {
+            //获得查询后的列名称，并非表列名称
+            String fieldName = rsmd.getColumnLabel(i);
+            // 按列名读取时重复的列名读取的是第一列，这里保持一致
+            Integer first = labels.get(fieldName);
+            if (first == null) {
+                first = i;
+                labels.put(fieldName, first);
+            }
+            readers[i - 1] = new ResultColumnReader(first, fieldName, getType(rsmd.getColumnClassName(i)));
+        }
+        return readers;
+    }
+
+    /**
+     * 读取当前行的所有列
+     *
+     * @param readers    {@link #resolve(ResultSetMetaData)} 的结果
+     * @param rs         结果集
+     * @param fieldValue 存放读取后的值
+     * @throws SQLException
+     */
+    public static void read(ResultColumnReader[] readers, ResultSet rs, Map fieldValue) throws SQLException {
+        for (ResultColumnReader reader : readers) {
+            reader.read(rs, fieldValue);
+        }
+    }
+
+    private static int getType(String fieldClassName) {
+        if (fieldClassName == null) return OBJECT;
+        switch (fieldClassName) {
+            case "java.lang.String":
+                return STRING;
+            case "java.lang.Integer":
+                return INTEGER;
+            case "java.lang.Long":
+                return LONG;
+            case "java.lang.Boolean":
+                return BOOLEAN;
+            case "java.lang.Short":
+                return SHORT;
+            case "java.lang.Float":
+                return FLOAT;
+            case "java.lang.Double":
+                return DOUBLE;
+            case "java.sql.Timestamp":
+                return TIMESTAMP;
+            case "java.sql.Date":
+            case "java.util.Date":
+                return DATE;
+            case "java.sql.Time":
+                return TIME;
+            case "java.lang.Byte":
+                return BYTE;
+            case "[B":
+            case "byte[]":
+                // byte[]出现在SQL Server中
+                return BYTES;
+            case "java.math.BigDecimal":
+                return BIG_DECIMAL;
+            case "java.sql.Array":
+            case "oracle.sql.ARRAY":
+                return ARRAY;
+            case "java.sql.Clob":
+                return CLOB;
+            case "java.sql.Blob":
+                return BLOB;
+            default:
+                return OBJECT;
+        }
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isLob() {
+        return type == CLOB || type == BLOB;
+    }
+
+    public void read(ResultSet rs, Map fieldValue) throws SQLException {
+        Object s = this.read(rs);
+        if (s == null) {
+            fieldValue.put(label, null);
+        } else if (this.isLob()) {
+            LOBLoader.Loader loader = LOBLoader.currentLoader();
+            if (loader != null) loader.lob(fieldValue, label, s);
+        } else {
+            fieldValue.put(label, s);
+        }
+    }
+
+    /**
+     * 读取当前行这一列的值
+     *
+     * @param rs 结果集
+     * @return 数据库中是null时返回null，大字段返回 {@link java.sql.Clob} 或者 {@link java.sql.Blob}
+     * @throws SQLException
+     */
+    public Object read(ResultSet rs) throws SQLException {
+        Object s;
+        switch (type) {
+            case STRING:
+                s = rs.getString(index);
+                break;
+            case INTEGER:
+                s = rs.getInt(index);
+                break;
+            case LONG:
+                s = rs.getLong(index);
+                break;
+            case BOOLEAN:
+                s = rs.getBoolean(index);
+                break;
+            case SHORT:
+                s = rs.getShort(index);
+                break;
+            case FLOAT:
+                s = rs.getFloat(index);
+                break;
+            case DOUBLE:
+                s = rs.getDouble(index);
+                break;
+            case TIMESTAMP:
+                s = rs.getTimestamp(index);
+                break;
+            case DATE:
+                s = rs.getDate(index);
+                break;
+            case TIME:
+                s = rs.getTime(index);
+                break;
+            case BYTE:
+                s = rs.getByte(index);
+                break;
+            case BYTES:
+                s = rs.getBytes(index);
+                break;
+            case BIG_DECIMAL:
+                s = rs.getBigDecimal(index);
+                break;
+            case ARRAY:
+                s = rs.getArray(index);
+                break;
+            case CLOB:
+                s = rs.getClob(index);
+                break;
+            case BLOB:
+                s = rs.getBlob(index);
+                break;
+            default:
+                s = rs.getObject(index);
+        }
+        if (rs.wasNull()) {
+            return null;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,197 @@
+package balance;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.balance.RoundRobinSlaveBalancer;
+import org.mimosaframework.orm.balance.SlaveSelector;
+import org.mimosaframework.orm.balance.SlaveStats;
+import org.mimosaframework.orm.utils.DatabaseType;
+import support.DialectDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SlaveSelectorTest {
+    private static final long BREAK_MILLIS = 100;
+
+    /**
+     * 可以切换是否可用的数据源，记录获取的连接数
+     */
+    private static class Database implements InvocationHandler {
+        private final String name;
+        private volatile boolean down;
+        private final AtomicInteger connections = new AtomicInteger();
+
+        Database(String name) {
+            this.name = name;
+        }
+
+        DataSource dataSource() {
+            return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                    new Class[]{DataSource.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getConnection")) {
+                if (down) throw new SQLException(name + " is down");
+                connections.incrementAndGet();
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class},
+                        new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                if (method.getName().equals("getCatalog")) return name;
+                                return null;
+                            }
+                        });
+            }
+            return null;
+        }
+    }
+
+    private final Database slave1 = new Database("slave1");
+    private final Database slave2 = new Database("slave2");
+    private final Database master = new Database("master");
+
+    private SlaveSelector selector() {
+        Map<String, DataSource> slaves = new LinkedHashMap<>();
+        slaves.put("slave1", slave1.dataSource());
+        slaves.put("slave2", slave2.dataSource());
+        return new SlaveSelector(slaves, null, new RoundRobinSlaveBalancer(), 2, BREAK_MILLIS);
+    }
+
+    /**
+     * 获取连接并执行一次，返回实际使用的数据库
+     */
+    private static String use(Connection connection) throws SQLException {
+        try {
+            return connection.getCatalog();
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void failingSlaveIsBroken() throws Exception {
+        SlaveSelector selector = this.selector();
+        SlaveStats stats = selector.get("slave1");
+        slave1.down = true;
+        for (int i = 0; i < 4; i++) {
+            // 失败的从库自动换成其他从库
+            Assert.assertEquals("slave2", use(selector.getConnection(null, master.dataSource())));
+        }
+        Assert.assertTrue(stats.isBroken());
+        Assert.assertEquals(2, stats.getFailures());
+        slave2.down = true;
+        Assert.assertEquals("master", use(selector.getConnection(null, master.dataSource())));
+        try {
+            use(selector.getConnection(null, null));
+            Assert.fail("no slave and no master");
+        } catch (SQLException e) {
+            // 没有主库时抛出异常
+        }
+    }
+
+    @Test
+    public void successfulProbeReinstatesSlave() throws Exception {
+        SlaveSelector selector = this.selector();
+        SlaveStats stats = selector.get("slave1");
+        slave1.down = true;
+        use(selector.getConnection(null, null));
+        use(selector.getConnection(null, null));
+        use(selector.getConnection(null, null));
+        Assert.assertTrue(stats.isBroken());
+        int before = slave1.connections.get();
+
+        slave1.down = false;
+        // 熔断期间不使用
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals("slave2", use(selector.getConnection(null, null)));
+        }
+        Thread.sleep(BREAK_MILLIS + 20);
+        int used = 0;
+        for (int i = 0; i < 4; i++) {
+            if ("slave1".equals(use(selector.getConnection(null, null)))) used++;
+        }
+        Assert.assertFalse(stats.isBroken());
+        Assert.assertTrue(used >= 1);
+        Assert.assertEquals(before + used, slave1.connections.get());
+    }
+
+    @Test
+    public void failedProbeBreaksAgain() throws Exception {
+        SlaveSelector selector = this.selector();
+        SlaveStats stats = selector.get("slave1");
+        slave1.down = true;
+        for (int i = 0; i < 3; i++) use(selector.getConnection(null, null));
+        long failures = stats.getFailures();
+        Thread.sleep(BREAK_MILLIS + 20);
+        // 试探只有一次，失败后立即重新熔断
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals("slave2", use(selector.getConnection(null, null)));
+        }
+        Assert.assertEquals(failures + 1, stats.getFailures());
+        Assert.assertTrue(stats.isBroken());
+
+        slave1.down = false;
+        Thread.sleep(BREAK_MILLIS + 20);
+        use(selector.getConnection(null, null));
+        use(selector.getConnection(null, null));
+        Assert.assertFalse(stats.isBroken());
+    }
+
+    @Test
+    public void connectionsAreCounted() throws Exception {
+        SlaveSelector selector = this.selector();
+        SlaveStats stats = selector.get("slave1");
+        Connection connection = selector.getConnection(stats, null);
+        // 第一次使用时才获取连接
+        Assert.assertEquals(0, stats.getOutstanding());
+        connection.getCatalog();
+        Assert.assertEquals(1, stats.getOutstanding());
+        Thread.sleep(5);
+        connection.close();
+        Assert.assertEquals(0, stats.getOutstanding());
+        Assert.assertEquals(1, stats.getRequests());
+        Assert.assertTrue(stats.getEwmaNanos() > 0);
+    }
+
+    @Test
+    public void slaveDataSourceReleasesProbe() throws Exception {
+        Map<String, DataSource> slaves = new LinkedHashMap<>();
+        slaves.put("slave1", slave1.dataSource());
+        MimosaDataSource dataSource = new MimosaDataSource(new DialectDataSource(DatabaseType.MYSQL), slaves, "ds");
+        dataSource.setSlaveFailureThreshold(1);
+        dataSource.setSlaveBreakMillis(BREAK_MILLIS);
+        SlaveStats stats = dataSource.getSlaveStats().get(0);
+
+        slave1.down = true;
+        DataSource slave = dataSource.getDataSource(false);
+        try {
+            use(dataSource.getSalveDataSource("slave1", false).getConnection());
+            Assert.fail("named slave is down");
+        } catch (SQLException e) {
+            // 指定的从库不可用时不使用主库
+        }
+        Assert.assertTrue(stats.isBroken());
+        // 从库熔断后使用主库
+        Assert.assertNotEquals("slave1", use(slave.getConnection()));
+
+        slave1.down = false;
+        Thread.sleep(BREAK_MILLIS + 20);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("slave1", use(dataSource.getDataSource(false).getConnection()));
+        }
+        Assert.assertFalse(stats.isBroken());
+        Assert.assertEquals(0, stats.getOutstanding());
+        Assert.assertEquals(4, stats.getRequests());
+    }
+}
@@ -0,0 +1,90 @@
+package cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.cache.OffHeapTableCache;
+
+public class OffHeapTableCacheTest {
+
+    private static ModelObject row(int id, int length) {
+        ModelObject object = new ModelObject();
+        object.put("id", id);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) sb.append('x');
+        object.put("text", sb.toString());
+        return object;
+    }
+
+    private static long bytes(int length) {
+        OffHeapTableCache cache = new OffHeapTableCache(10, 0);
+        cache.put(1, row(1, length), cache.getVersion());
+        return cache.getWeight();
+    }
+
+    @Test
+    public void totalBytesAreBounded() {
+        long one = bytes(1000);
+        OffHeapTableCache cache = new OffHeapTableCache(1000, 0, one * 3);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, row(i, 1000), cache.getVersion());
+            Assert.assertTrue(cache.getWeight() <= one * 3);
+        }
+        Assert.assertEquals(3, cache.size());
+        // 按照最近最少使用淘汰
+        Assert.assertNull(cache.get(6));
+        Assert.assertEquals(9, cache.get(9).getIntValue("id"));
+        Assert.assertEquals(1000, cache.get(7).getString("text").length());
+    }
+
+    @Test
+    public void recentlyReadRowsSurvive() {
+        long one = bytes(1000);
+        OffHeapTableCache cache = new OffHeapTableCache(1000, 0, one * 2);
+        cache.put(1, row(1, 1000), cache.getVersion());
+        cache.put(2, row(2, 1000), cache.getVersion());
+        cache.get(1);
+        cache.put(3, row(3, 1000), cache.getVersion());
+        Assert.assertNotNull(cache.get(1));
+        Assert.assertNull(cache.get(2));
+        Assert.assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void oversizedRowIsNotCached() {
+        long one = bytes(1000);
+        OffHeapTableCache cache = new OffHeapTableCache(1000, 0, one);
+        cache.put(1, row(1, 1000), cache.getVersion());
+        cache.put(2, row(2, 5000), cache.getVersion());
+        Assert.assertNull(cache.get(2));
+        Assert.assertNotNull(cache.get(1));
+        Assert.assertEquals(one, cache.getWeight());
+    }
+
+    @Test
+    public void replacedAndEvictedRowsReleaseBytes() {
+        OffHeapTableCache cache = new OffHeapTableCache(1000, 0);
+        cache.put(1, row(1, 1000), cache.getVersion());
+        long one = cache.getWeight();
+        cache.put(1, row(1, 1000), cache.getVersion());
+        Assert.assertEquals(one, cache.getWeight());
+        cache.put(2, row(2, 1000), cache.getVersion());
+        cache.evict(1);
+        Assert.assertEquals(one, cache.getWeight());
+        cache.clear();
+        Assert.assertEquals(0, cache.getWeight());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void rowLimitStillApplies() {
+        OffHeapTableCache cache = new OffHeapTableCache(2, 0);
+        cache.put(1, row(1, 10), cache.getVersion());
+        cache.put(2, row(2, 10), cache.getVersion());
+        long two = cache.getWeight();
+        cache.put(3, row(3, 10), cache.getVersion());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(two, cache.getWeight());
+        Assert.assertNull(cache.get(1));
+    }
+}
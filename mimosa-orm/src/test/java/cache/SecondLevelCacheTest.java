@@ -0,0 +1,122 @@
+package cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableContacts;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SecondLevelCacheTest {
+    private TestConfiguration configuration;
+
+    @Before
+    public void setup() {
+        configuration = new TestConfiguration(TableContacts.class);
+        configuration.getExecutor().setRows(new RecordingJDBCExecutor.Rows() {
+            @Override
+            public List<ModelObject> select(RecordingJDBCExecutor.Statement statement) throws SQLException {
+                // 按照主键查询时返回对应的一行
+                Object id = statement.getValues().get(0);
+                ModelObject row = new ModelObject();
+                row.put("id", ((Number) id).longValue());
+                row.put("name", "name-" + id);
+                List<ModelObject> rows = new ArrayList<>();
+                rows.add(row);
+                return rows;
+            }
+        });
+    }
+
+    private int selects() {
+        return configuration.getExecutor().getStatements("select").size();
+    }
+
+    /**
+     * 在一个新的Session中按照主键查询
+     */
+    private void load(long... ids) throws Exception {
+        Session session = new DefaultSession(configuration);
+        try {
+            for (long id : ids) {
+                Assert.assertEquals("name-" + id, session.get(TableContacts.class, id).getString("name"));
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    private static ModelObject contact(long id) {
+        ModelObject object = new ModelObject(TableContacts.class);
+        object.put(TableContacts.id, id);
+        object.put(TableContacts.name, "name-" + id);
+        return object;
+    }
+
+    @Test
+    public void objectWriteEvictsOnlyItsRow() throws Exception {
+        this.load(1, 2);
+        Assert.assertEquals(2, this.selects());
+
+        Session session = new DefaultSession(configuration);
+        session.update(contact(1));
+        session.close();
+
+        configuration.getExecutor().clear();
+        this.load(2);
+        Assert.assertEquals(0, this.selects());
+        this.load(1);
+        Assert.assertEquals(1, this.selects());
+    }
+
+    @Test
+    public void criteriaWriteClearsTable() throws Exception {
+        this.load(1, 2);
+
+        Session session = new DefaultSession(configuration);
+        session.update(Criteria.update(TableContacts.class).eq(TableContacts.id, 1).set(TableContacts.name, "name-1"));
+        session.close();
+
+        configuration.getExecutor().clear();
+        this.load(1, 2);
+        Assert.assertEquals(2, this.selects());
+    }
+
+    @Test
+    public void writingSessionBypassesCacheUntilClose() throws Exception {
+        this.load(1);
+        configuration.getExecutor().clear();
+
+        Session session = new DefaultSession(configuration);
+        session.update(contact(2));
+        session.get(TableContacts.class, 1L);
+        Assert.assertEquals(1, this.selects());
+        session.close();
+
+        // 没有修改过的行在关闭之后仍然可以被其他Session放入缓存
+        configuration.getExecutor().clear();
+        this.load(1, 1);
+        Assert.assertEquals(0, this.selects());
+    }
+
+    @Test
+    public void slaveReadsDoNotFillCache() throws Exception {
+        Session session = new DefaultSession(configuration);
+        session.list(Criteria.query(TableContacts.class).eq(TableContacts.id, 1).slave());
+        session.close();
+
+        configuration.getExecutor().clear();
+        this.load(1);
+        Assert.assertEquals(1, this.selects());
+        this.load(1);
+        Assert.assertEquals(1, this.selects());
+    }
+}
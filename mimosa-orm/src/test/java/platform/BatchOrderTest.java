@@ -0,0 +1,114 @@
+package platform;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.Session;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableOrder;
+import tables.TableUser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchOrderTest {
+    private TestConfiguration configuration;
+    private Session session;
+
+    @Before
+    public void setup() throws Exception {
+        configuration = new TestConfiguration(TableUser.class, TableOrder.class);
+        session = new DefaultSession(configuration);
+    }
+
+    private static ModelObject user(long id, Object... values) {
+        ModelObject object = new ModelObject(TableUser.class);
+        object.put(TableUser.id, id);
+        for (int i = 0; i < values.length; i += 2) {
+            object.put(values[i], values[i + 1]);
+        }
+        return object;
+    }
+
+    private static ModelObject order(long id, String address) {
+        ModelObject object = new ModelObject(TableOrder.class);
+        object.put(TableOrder.id, id);
+        object.put(TableOrder.address, address);
+        return object;
+    }
+
+    /**
+     * 按照执行顺序取出所有以 prefix 开头的参数值
+     */
+    private List<Object> executed(String prefix) {
+        List<Object> list = new ArrayList<>();
+        for (RecordingJDBCExecutor.Statement statement : configuration.getExecutor().getStatements()) {
+            List<List<Object>> rows = statement.getBatchValues().isEmpty() ?
+                    Arrays.asList(statement.getValues()) : statement.getBatchValues();
+            for (List<Object> row : rows) {
+                for (Object value : row) {
+                    if (value instanceof String && ((String) value).startsWith(prefix)) list.add(value);
+                }
+            }
+        }
+        return list;
+    }
+
+    private List<String> tables() {
+        List<String> list = new ArrayList<>();
+        for (RecordingJDBCExecutor.Statement statement : configuration.getExecutor().getStatements()) {
+            list.add(statement.getSql().toLowerCase().contains("t_order") ? "order" : "user");
+        }
+        return list;
+    }
+
+    @Test
+    public void updatesOfSameRowKeepCallerOrder() {
+        // 第一条和第三条的SQL相同，如果合并在一起执行最终的地址会是 addr-2
+        session.update(Arrays.asList(
+                user(1, TableUser.address, "addr-1"),
+                user(1, TableUser.address, "addr-2", TableUser.realName, "name-1"),
+                user(1, TableUser.address, "addr-3")));
+        Assert.assertEquals(Arrays.<Object>asList("addr-1", "addr-2", "addr-3"), this.executed("addr-"));
+        Assert.assertEquals(3, configuration.getExecutor().getStatements().size());
+    }
+
+    @Test
+    public void consecutiveSameSqlIsBatched() {
+        session.update(Arrays.asList(
+                user(1, TableUser.address, "addr-1"),
+                user(2, TableUser.address, "addr-2"),
+                user(3, TableUser.realName, "name-1"),
+                user(4, TableUser.address, "addr-3")));
+        List<RecordingJDBCExecutor.Statement> statements = configuration.getExecutor().getStatements();
+        Assert.assertEquals(3, statements.size());
+        Assert.assertEquals("batch", statements.get(0).getType());
+        Assert.assertEquals(2, statements.get(0).getBatchValues().size());
+        Assert.assertEquals("update", statements.get(1).getType());
+        Assert.assertEquals("update", statements.get(2).getType());
+        Assert.assertEquals(Arrays.<Object>asList("addr-1", "addr-2", "addr-3"), this.executed("addr-"));
+    }
+
+    @Test
+    public void updatesAcrossTablesKeepCallerOrder() {
+        session.update(Arrays.asList(
+                user(1, TableUser.address, "addr-1"),
+                order(1, "addr-2"),
+                user(2, TableUser.address, "addr-3")));
+        Assert.assertEquals(Arrays.asList("user", "order", "user"), this.tables());
+        Assert.assertEquals(Arrays.<Object>asList("addr-1", "addr-2", "addr-3"), this.executed("addr-"));
+    }
+
+    @Test
+    public void deletesAcrossTablesKeepCallerOrder() {
+        // 先删除子表的数据再删除主表的数据
+        session.delete(Arrays.asList(order(1, null), order(2, null), user(1), order(3, null)));
+        Assert.assertEquals(Arrays.asList("order", "user", "order"), this.tables());
+        Assert.assertEquals(Arrays.<Object>asList(1L, 2L),
+                configuration.getExecutor().getStatements().get(0).getValues());
+    }
+}
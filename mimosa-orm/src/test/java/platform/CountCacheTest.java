@@ -0,0 +1,155 @@
+package platform;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.criteria.DefaultQuery;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.platform.CountCache;
+import org.mimosaframework.orm.platform.SQLPlanShape;
+import org.mimosaframework.orm.utils.DatabaseType;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableUser;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CountCacheTest {
+
+    private static TestConfiguration configuration(final AtomicLong count) {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        configuration.setCountCacheTime(60000);
+        configuration.getExecutor().setRows(new RecordingJDBCExecutor.Rows() {
+            @Override
+            public List<ModelObject> select(RecordingJDBCExecutor.Statement statement) throws SQLException {
+                if (statement.getSql().toLowerCase().contains("count(")) {
+                    ModelObject row = new ModelObject();
+                    row.put("count", count.get());
+                    return Collections.singletonList(row);
+                }
+                return null;
+            }
+        });
+        return configuration;
+    }
+
+    private static int counts(TestConfiguration configuration) {
+        int i = 0;
+        for (RecordingJDBCExecutor.Statement statement : configuration.getExecutor().getStatements("select")) {
+            if (statement.getSql().toLowerCase().contains("count(")) i++;
+        }
+        return i;
+    }
+
+    private static Query query(Object id) {
+        return Criteria.query(TableUser.class).gt(TableUser.id, id).limit(0, 10);
+    }
+
+    @Test
+    public void repeatedPagingUsesCachedCount() throws Exception {
+        AtomicLong count = new AtomicLong(5);
+        TestConfiguration configuration = configuration(count);
+        Session session = new DefaultSession(configuration);
+        Assert.assertEquals(5, session.paging(query(1)).getCount());
+        count.set(6);
+        Assert.assertEquals(5, session.paging(query(1)).getCount());
+        Assert.assertEquals(1, counts(configuration));
+        // 不同的条件值分开缓存
+        Assert.assertEquals(6, session.paging(query(2)).getCount());
+        Assert.assertEquals(2, counts(configuration));
+        session.close();
+    }
+
+    @Test
+    public void writeFromAnotherSessionEvictsCount() throws Exception {
+        AtomicLong count = new AtomicLong(5);
+        TestConfiguration configuration = configuration(count);
+        Session reader = new DefaultSession(configuration);
+        Assert.assertEquals(5, reader.paging(query(1)).getCount());
+
+        Session writer = new DefaultSession(configuration);
+        writer.delete(Criteria.delete(TableUser.class).eq(TableUser.id, 3));
+        count.set(4);
+        Assert.assertEquals(0, configuration.getCountCache().size());
+        Assert.assertEquals(4, reader.paging(query(1)).getCount());
+        Assert.assertEquals(2, counts(configuration));
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    public void writingSessionReadsMasterWithoutCache() throws Exception {
+        AtomicLong count = new AtomicLong(5);
+        TestConfiguration configuration = configuration(count);
+        Session session = new DefaultSession(configuration);
+        session.update(Criteria.update(TableUser.class).eq(TableUser.id, 1).set(TableUser.address, "a"));
+        Assert.assertEquals(5, session.paging(query(1)).getCount());
+        count.set(6);
+        Assert.assertEquals(6, session.paging(query(1)).getCount());
+        Assert.assertEquals(0, configuration.getCountCache().size());
+        Assert.assertEquals(2, counts(configuration));
+
+        // 其他Session不受影响
+        Session other = new DefaultSession(configuration);
+        Assert.assertEquals(6, other.paging(query(1)).getCount());
+        Assert.assertEquals(1, configuration.getCountCache().size());
+        other.close();
+        session.close();
+    }
+
+    @Test
+    public void keyDistinguishesValueTypes() {
+        CountCache cache = new CountCache(60000);
+        DefaultQuery a = (DefaultQuery) Criteria.query(TableUser.class).eq(TableUser.userName, 1);
+        DefaultQuery b = (DefaultQuery) Criteria.query(TableUser.class).eq(TableUser.userName, "1");
+        String ka = cache.key("default", SQLPlanShape.count(DatabaseType.MYSQL, "t_user", a));
+        String kb = cache.key("default", SQLPlanShape.count(DatabaseType.MYSQL, "t_user", b));
+        Assert.assertNotEquals(ka, kb);
+    }
+
+    @Test
+    public void staleCountIsNotStoredAfterEviction() {
+        CountCache cache = new CountCache(60000);
+        List<String> tables = Arrays.asList("t_user");
+        long version = cache.getVersion(tables);
+        cache.evict("t_user");
+        cache.put("k", 10, tables, version);
+        Assert.assertNull(cache.get("k"));
+
+        version = cache.getVersion(tables);
+        cache.put("k", 10, tables, version);
+        Assert.assertEquals(Long.valueOf(10), cache.get("k"));
+        cache.evict("t_other");
+        Assert.assertEquals(Long.valueOf(10), cache.get("k"));
+        cache.evict("t_user");
+        Assert.assertNull(cache.get("k"));
+    }
+
+    @Test
+    public void evictsEldestAtCapacity() {
+        CountCache cache = new CountCache(60000, 2);
+        List<String> tables = Arrays.asList("t_user");
+        cache.put("a", 1, tables, 0);
+        cache.put("b", 2, tables, 0);
+        cache.put("c", 3, tables, 0);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(Long.valueOf(3), cache.get("c"));
+    }
+
+    @Test
+    public void expiredCountIsRemoved() throws Exception {
+        CountCache cache = new CountCache(1);
+        cache.put("a", 1, Arrays.asList("t_user"), 0);
+        Thread.sleep(5);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+}
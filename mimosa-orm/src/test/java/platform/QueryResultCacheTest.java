@@ -0,0 +1,329 @@
+package platform;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.platform.QueryResultCache;
+import org.mimosaframework.orm.platform.SQLDataPlaceholder;
+import org.mimosaframework.orm.utils.ModelObjectToBean;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableContacts;
+import tables.TableUser;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryResultCacheTest {
+    private static final Collection<String> USER = Collections.singletonList("t_user");
+
+    private static List<ModelObject> rows(Object... names) {
+        List<ModelObject> rows = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            ModelObject row = new ModelObject();
+            row.put("id", i + 1);
+            row.put("userName", names[i]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<SQLDataPlaceholder> values(Object... values) {
+        List<SQLDataPlaceholder> placeholders = new ArrayList<>();
+        for (Object value : values) {
+            SQLDataPlaceholder placeholder = new SQLDataPlaceholder();
+            placeholder.setValue(value);
+            placeholders.add(placeholder);
+        }
+        return placeholders;
+    }
+
+    private static void put(QueryResultCache cache, Object key, List<ModelObject> rows, long ttl) {
+        cache.put(key, rows, USER, ttl, cache.getVersion(USER));
+    }
+
+    @Test
+    public void cachedResultIsReturnedUntilExpired() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        Object key = cache.key("default", "SELECT * FROM t_user WHERE id = ?", values(1));
+        Assert.assertNull(cache.get(key));
+        put(cache, key, rows("a"), 50);
+        Assert.assertEquals("a", cache.get(key).get(0).getString("userName"));
+        Thread.sleep(80);
+        Assert.assertNull(cache.get(key));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void resultsAreCopied() {
+        QueryResultCache cache = new QueryResultCache();
+        Object key = cache.key("default", "SELECT * FROM t_user", null);
+        List<ModelObject> rows = rows("a");
+        put(cache, key, rows, 60000);
+        // 修改放入和取出的结果都不影响缓存
+        rows.get(0).put("userName", "b");
+        cache.get(key).get(0).put("userName", "c");
+        cache.get(key).clear();
+        Assert.assertEquals(1, cache.get(key).size());
+        Assert.assertEquals("a", cache.get(key).get(0).getString("userName"));
+    }
+
+    @Test
+    public void keySeparatesDataSourcesValuesAndTypes() {
+        QueryResultCache cache = new QueryResultCache();
+        String sql = "SELECT * FROM t_user WHERE user_name = ?";
+        Object key = cache.key("default", sql, values(1));
+        Assert.assertEquals(key, cache.key("default", sql, values(1)));
+        Assert.assertNotEquals(key, cache.key("slave", sql, values(1)));
+        Assert.assertNotEquals(key, cache.key("default", sql, values(2)));
+        Assert.assertNotEquals(key, cache.key("default", sql, values("1")));
+        Assert.assertNotEquals(key, cache.key("default", sql, values((Object) null)));
+    }
+
+    @Test
+    public void keyComparesEachValue() {
+        QueryResultCache cache = new QueryResultCache();
+        String sql = "SELECT * FROM t_user WHERE user_name = ? AND real_name = ?";
+        // 拼接成字符串时这两组参数相同
+        Assert.assertNotEquals(cache.key("default", sql, values("1,String:2")),
+                cache.key("default", sql, values("1", "2")));
+        Assert.assertNotEquals(cache.key("default", sql, values("null")),
+                cache.key("default", sql, values((Object) null)));
+
+        // 时间按照毫秒比较，之后修改参数不影响已经生成的键
+        Date date = new Date(1000);
+        Object key = cache.key("default", sql, values(date));
+        Assert.assertNotEquals(key, cache.key("default", sql, values(new Date(1001))));
+        date.setTime(2000);
+        Assert.assertEquals(key, cache.key("default", sql, values(new Date(1000))));
+
+        Assert.assertEquals(cache.key("default", sql, values((Object) new byte[]{1, 2})),
+                cache.key("default", sql, values((Object) new byte[]{1, 2})));
+    }
+
+    @Test
+    public void writeEvictsDependentResultsOnly() {
+        QueryResultCache cache = new QueryResultCache();
+        Object user = cache.key("default", "SELECT * FROM t_user", null);
+        Object join = cache.key("default", "SELECT * FROM t_user JOIN t_order", null);
+        Object order = cache.key("default", "SELECT * FROM t_order", null);
+        put(cache, user, rows("a"), 60000);
+        cache.put(join, rows("a"), Arrays.asList("t_user", "t_order"), 60000,
+                cache.getVersion(Arrays.asList("t_user", "t_order")));
+        cache.put(order, rows("a"), Collections.singletonList("t_order"), 60000,
+                cache.getVersion(Collections.singletonList("t_order")));
+
+        cache.evict("t_user");
+        Assert.assertNull(cache.get(user));
+        Assert.assertNull(cache.get(join));
+        Assert.assertNotNull(cache.get(order));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void resultReadBeforeWriteIsNotStored() {
+        QueryResultCache cache = new QueryResultCache();
+        Object key = cache.key("default", "SELECT * FROM t_user", null);
+        long version = cache.getVersion(USER);
+        // 查询期间其他Session写入了这个表
+        cache.evict("t_user");
+        cache.put(key, rows("old"), USER, 60000, version);
+        Assert.assertNull(cache.get(key));
+
+        version = cache.getVersion(USER);
+        cache.clear();
+        cache.put(key, rows("old"), USER, 60000, version);
+        Assert.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvicted() {
+        QueryResultCache cache = new QueryResultCache(2);
+        put(cache, "a", rows("a"), 60000);
+        put(cache, "b", rows("b"), 60000);
+        cache.get("a");
+        put(cache, "c", rows("c"), 60000);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNotNull(cache.get("c"));
+        // 淘汰的结果不再和表关联
+        cache.evict("t_user");
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidPutsAreIgnored() {
+        QueryResultCache cache = new QueryResultCache();
+        put(cache, null, rows("a"), 60000);
+        put(cache, "a", null, 60000);
+        put(cache, "b", rows("b"), 0);
+        put(cache, "c", rows("c"), -1);
+        Assert.assertEquals(0, cache.size());
+        // 空结果也会缓存
+        put(cache, "d", new ArrayList<ModelObject>(), 60000);
+        Assert.assertEquals(0, cache.get("d").size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        new QueryResultCache(0);
+    }
+
+    private static TestConfiguration configuration(final AtomicInteger name, final AtomicBoolean fail) {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        configuration.getExecutor().setRows(new RecordingJDBCExecutor.Rows() {
+            @Override
+            public List<ModelObject> select(RecordingJDBCExecutor.Statement statement) throws SQLException {
+                if (fail.get()) throw new SQLException("connection refused");
+                return rows("user" + name.get());
+            }
+        });
+        return configuration;
+    }
+
+    private static Query query() {
+        return Criteria.query(TableUser.class).eq(TableUser.age, 10).cache(60000);
+    }
+
+    private static int selects(TestConfiguration configuration) {
+        return configuration.getExecutor().getStatements("select").size();
+    }
+
+    @Test
+    public void sessionsShareCachedResults() throws Exception {
+        AtomicInteger name = new AtomicInteger(1);
+        TestConfiguration configuration = configuration(name, new AtomicBoolean());
+        Session a = new DefaultSession(configuration);
+        Session b = new DefaultSession(configuration);
+        Assert.assertEquals("user1", a.list(query()).get(0).getString("userName"));
+        name.set(2);
+        Assert.assertEquals("user1", b.list(query()).get(0).getString("userName"));
+        Assert.assertEquals(1, selects(configuration));
+
+        // 没有指定缓存时间的查询不使用缓存
+        Assert.assertEquals("user2",
+                a.list(Criteria.query(TableUser.class).eq(TableUser.age, 10)).get(0).getString("userName"));
+        Assert.assertEquals(2, selects(configuration));
+        a.close();
+        b.close();
+    }
+
+    @Test
+    public void writeThroughSessionEvictsResults() throws Exception {
+        AtomicInteger name = new AtomicInteger(1);
+        TestConfiguration configuration = configuration(name, new AtomicBoolean());
+        Session reader = new DefaultSession(configuration);
+        reader.list(query());
+        Session writer = new DefaultSession(configuration);
+        writer.update(Criteria.update(TableUser.class).eq(TableUser.id, 1).set(TableUser.userName, "user2"));
+        name.set(2);
+        Assert.assertEquals(0, configuration.getQueryResultCache().size());
+        Assert.assertEquals("user2", reader.list(query()).get(0).getString("userName"));
+        Assert.assertEquals(2, selects(configuration));
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    public void writingSessionBypassesCache() throws Exception {
+        AtomicInteger name = new AtomicInteger(1);
+        TestConfiguration configuration = configuration(name, new AtomicBoolean());
+        Session other = new DefaultSession(configuration);
+        other.list(query());
+
+        Session session = new DefaultSession(configuration);
+        session.delete(Criteria.delete(TableUser.class).eq(TableUser.id, 9));
+        name.set(2);
+        other.list(query());
+        name.set(3);
+        // 写入过的Session读取数据库，也不放入缓存
+        Assert.assertEquals("user3", session.list(query()).get(0).getString("userName"));
+        Assert.assertEquals("user2", other.list(query()).get(0).getString("userName"));
+        Assert.assertEquals(3, selects(configuration));
+        session.close();
+        other.close();
+    }
+
+    @Test
+    public void slaveReadWithPendingWriteIsNotCached() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class, TableContacts.class);
+        configuration.getExecutor().setRows(new RecordingJDBCExecutor.Rows() {
+            @Override
+            public List<ModelObject> select(RecordingJDBCExecutor.Statement statement) {
+                return rows("user1");
+            }
+        });
+        Session session = new DefaultSession(configuration);
+        session.update(Criteria.update(TableContacts.class).eq(TableContacts.id, 1).set(TableContacts.name, "a"));
+        // 写入的是其他表，从库可能还没有同步这个事务之前的数据
+        session.list(query().slave());
+        Assert.assertEquals(0, configuration.getQueryResultCache().size());
+        session.list(query());
+        Assert.assertEquals(1, configuration.getQueryResultCache().size());
+        session.close();
+
+        configuration.getQueryResultCache().clear();
+        Session reader = new DefaultSession(configuration);
+        reader.list(query().slave());
+        Assert.assertEquals(1, configuration.getQueryResultCache().size());
+        reader.close();
+    }
+
+    @Test
+    public void forUpdateAndRowMapperQueriesAreNotCached() throws Exception {
+        TestConfiguration configuration = configuration(new AtomicInteger(1), new AtomicBoolean());
+        DefaultSession session = new DefaultSession(configuration);
+        session.list(query().forUpdate());
+        session.list(query().forUpdate());
+        Assert.assertEquals(2, selects(configuration));
+        Assert.assertEquals(0, configuration.getQueryResultCache().size());
+
+        session.list(query(), TableUser.class, new ModelObjectToBean());
+        session.list(query(), TableUser.class, new ModelObjectToBean());
+        Assert.assertEquals(4, selects(configuration));
+        Assert.assertEquals(0, configuration.getQueryResultCache().size());
+        session.close();
+    }
+
+    @Test
+    public void failedQueryIsNotCached() throws Exception {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        TestConfiguration configuration = configuration(new AtomicInteger(1), fail);
+        Session session = new DefaultSession(configuration);
+        try {
+            session.list(query());
+            Assert.fail("query should fail");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+        Assert.assertEquals(0, configuration.getQueryResultCache().size());
+        fail.set(false);
+        Assert.assertEquals("user1", session.list(query()).get(0).getString("userName"));
+        Assert.assertEquals(1, configuration.getQueryResultCache().size());
+        session.close();
+    }
+
+    @Test
+    public void disabledCacheQueriesDatabase() throws Exception {
+        TestConfiguration configuration = configuration(new AtomicInteger(1), new AtomicBoolean());
+        configuration.setResultCacheSize(0);
+        Session session = new DefaultSession(configuration);
+        session.list(query());
+        session.list(query());
+        Assert.assertNull(configuration.getQueryResultCache());
+        Assert.assertEquals(2, selects(configuration));
+        session.close();
+    }
+}
@@ -0,0 +1,294 @@
+package platform;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.orm.DefaultSession;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.platform.PlatformDialect;
+import org.mimosaframework.orm.platform.SQLPlanCache;
+import org.mimosaframework.orm.platform.mysql.MysqlPlatformDialect;
+import org.mimosaframework.orm.utils.DatabaseType;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableUser;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SQLPlanCacheTest {
+
+    private static Session session(TestConfiguration configuration) throws Exception {
+        return new DefaultSession(configuration);
+    }
+
+    @Test
+    public void sameShapeReusesPlanAndRebindsValues() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        RecordingJDBCExecutor executor = configuration.getExecutor();
+        Session session = session(configuration);
+
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a").gte(TableUser.age, 10));
+        SQLPlanCache cache = configuration.getSQLPlanCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(0, cache.getHits());
+
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "b").gte(TableUser.age, 20));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getHits());
+
+        List<RecordingJDBCExecutor.Statement> selects = executor.getStatements("select");
+        Assert.assertEquals(2, selects.size());
+        Assert.assertEquals(selects.get(0).getSql(), selects.get(1).getSql());
+        Assert.assertEquals(Arrays.<Object>asList("a", 10), selects.get(0).getValues());
+        Assert.assertEquals(Arrays.<Object>asList("b", 20), selects.get(1).getValues());
+        session.close();
+    }
+
+    @Test
+    public void dialectIsSharedPerDataSource() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        MimosaDataSource dataSource = configuration.getDefaultDataSource();
+        PlatformDialect dialect = dataSource.getDialect();
+        Assert.assertTrue(dialect instanceof MysqlPlatformDialect);
+        Assert.assertSame(dialect, dataSource.getDialect());
+
+        // 每个Session都使用数据源的方言判断数据库特性，命中执行计划时不再创建方言
+        for (int i = 0; i < 3; i++) {
+            Session session = session(configuration);
+            session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a" + i));
+            session.close();
+        }
+        Assert.assertEquals(2, configuration.getSQLPlanCache().getHits());
+        Assert.assertSame(dialect, dataSource.getDialect());
+    }
+
+    @Test
+    public void differentShapesMiss() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        RecordingJDBCExecutor executor = configuration.getExecutor();
+        Session session = session(configuration);
+
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a"));
+        session.list(Criteria.query(TableUser.class).like(TableUser.userName, "a"));
+        session.list(Criteria.query(TableUser.class).in(TableUser.id, 1, 2));
+        session.list(Criteria.query(TableUser.class).in(TableUser.id, 1, 2, 3));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a").limit(0, 10));
+
+        SQLPlanCache cache = configuration.getSQLPlanCache();
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(5, cache.size());
+
+        List<RecordingJDBCExecutor.Statement> selects = executor.getStatements("select");
+        Assert.assertEquals(Arrays.<Object>asList(1, 2, 3), selects.get(3).getValues());
+        Assert.assertNotEquals(selects.get(0).getSql(), selects.get(4).getSql());
+        session.close();
+    }
+
+    @Test
+    public void pagesShareOnePlan() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        RecordingJDBCExecutor executor = configuration.getExecutor();
+        Session session = session(configuration);
+
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a").limit(0, 10));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "b").limit(10, 10));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "c").limit(20, 5));
+
+        SQLPlanCache cache = configuration.getSQLPlanCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(2, cache.getHits());
+        List<RecordingJDBCExecutor.Statement> selects = executor.getStatements("select");
+        Assert.assertEquals(selects.get(0).getSql(), selects.get(2).getSql());
+        Assert.assertEquals(Arrays.<Object>asList("a", 0L, 10L), selects.get(0).getValues());
+        Assert.assertEquals(Arrays.<Object>asList("b", 10L, 10L), selects.get(1).getValues());
+        Assert.assertEquals(Arrays.<Object>asList("c", 20L, 5L), selects.get(2).getValues());
+        session.close();
+    }
+
+    @Test
+    public void cachedPageMatchesUncachedPage() throws Exception {
+        // 分页值在不同数据库中的位置和计算方式不同
+        for (DatabaseType type : new DatabaseType[]{DatabaseType.MYSQL, DatabaseType.POSTGRESQL,
+                DatabaseType.ORACLE, DatabaseType.SQL_SERVER, DatabaseType.DB2, DatabaseType.SQLITE}) {
+            TestConfiguration cached = new TestConfiguration(type, new RecordingJDBCExecutor(), TableUser.class);
+            TestConfiguration uncached = new TestConfiguration(type, new RecordingJDBCExecutor(), TableUser.class);
+            uncached.setSqlPlanCacheSize(0);
+            Session s1 = session(cached);
+            Session s2 = session(uncached);
+            for (int i = 0; i < 3; i++) {
+                s1.list(Criteria.query(TableUser.class).eq(TableUser.age, i).orderBy(TableUser.id, true).limit(i * 20, 10 + i));
+                s2.list(Criteria.query(TableUser.class).eq(TableUser.age, i).orderBy(TableUser.id, true).limit(i * 20, 10 + i));
+            }
+            Assert.assertEquals(type.toString(), 2, cached.getSQLPlanCache().getHits());
+            List<RecordingJDBCExecutor.Statement> a = cached.getExecutor().getStatements("select");
+            List<RecordingJDBCExecutor.Statement> b = uncached.getExecutor().getStatements("select");
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(type.toString(), b.get(i).getSql(), a.get(i).getSql());
+                Assert.assertEquals(type.toString(), b.get(i).getValues(), a.get(i).getValues());
+            }
+            s1.close();
+            s2.close();
+        }
+    }
+
+    @Test
+    public void cachedSqlMatchesUncachedSql() throws Exception {
+        TestConfiguration cached = new TestConfiguration(TableUser.class);
+        TestConfiguration uncached = new TestConfiguration(TableUser.class);
+        uncached.setSqlPlanCacheSize(0);
+        Assert.assertNull(uncached.getSQLPlanCache());
+
+        Session s1 = session(cached);
+        Session s2 = session(uncached);
+        for (int i = 0; i < 3; i++) {
+            s1.list(Criteria.query(TableUser.class).between(TableUser.age, i, i + 10)
+                    .in(TableUser.id, i + 100, i + 101).orderBy(TableUser.id, false));
+            s2.list(Criteria.query(TableUser.class).between(TableUser.age, i, i + 10)
+                    .in(TableUser.id, i + 100, i + 101).orderBy(TableUser.id, false));
+        }
+        Assert.assertEquals(2, cached.getSQLPlanCache().getHits());
+
+        List<RecordingJDBCExecutor.Statement> a = cached.getExecutor().getStatements("select");
+        List<RecordingJDBCExecutor.Statement> b = uncached.getExecutor().getStatements("select");
+        Assert.assertEquals(3, a.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(b.get(i).getSql(), a.get(i).getSql());
+            Assert.assertEquals(b.get(i).getValues(), a.get(i).getValues());
+        }
+        s1.close();
+        s2.close();
+    }
+
+    @Test
+    public void sharedValueObjectIsNotCached() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        Session session = session(configuration);
+        String value = "same";
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, value).eq(TableUser.realName, value));
+        Assert.assertEquals(0, configuration.getSQLPlanCache().size());
+
+        // 第二次使用不同的值不能复用第一次的绑定方式
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "x").eq(TableUser.realName, "y"));
+        List<RecordingJDBCExecutor.Statement> selects = configuration.getExecutor().getStatements("select");
+        Assert.assertEquals(Arrays.<Object>asList("x", "y"), selects.get(1).getValues());
+        session.close();
+    }
+
+    @Test
+    public void seekPlansAreCachedBySeekColumns() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        TestConfiguration uncached = new TestConfiguration(TableUser.class);
+        uncached.setSqlPlanCacheSize(0);
+        Session session = session(configuration);
+        Session other = session(uncached);
+        for (int i = 0; i < 3; i++) {
+            session.list(Criteria.query(TableUser.class).eq(TableUser.level, 1)
+                    .orderBy(TableUser.age, true).orderBy(TableUser.id, false)
+                    .seek(20 + i, 1000L + i).limit(0, 10));
+            other.list(Criteria.query(TableUser.class).eq(TableUser.level, 1)
+                    .orderBy(TableUser.age, true).orderBy(TableUser.id, false)
+                    .seek(20 + i, 1000L + i).limit(0, 10));
+        }
+        SQLPlanCache cache = configuration.getSQLPlanCache();
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(2, cache.getHits());
+
+        List<RecordingJDBCExecutor.Statement> a = configuration.getExecutor().getStatements("select");
+        List<RecordingJDBCExecutor.Statement> b = uncached.getExecutor().getStatements("select");
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(b.get(i).getSql(), a.get(i).getSql());
+            Assert.assertEquals(b.get(i).getValues(), a.get(i).getValues());
+        }
+        Assert.assertTrue(a.get(2).getValues().contains(22));
+        Assert.assertTrue(a.get(2).getValues().contains(1002L));
+
+        // 排序方向或者keyset字段不同时是不同的结构
+        session.list(Criteria.query(TableUser.class).eq(TableUser.level, 1)
+                .orderBy(TableUser.age, false).orderBy(TableUser.id, false)
+                .seek(30, 2000L).limit(0, 10));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.level, 1)
+                .orderBy(TableUser.age, true).orderBy(TableUser.id, false)
+                .limit(0, 10));
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(2, cache.getHits());
+        session.close();
+        other.close();
+    }
+
+    @Test
+    public void seekAppendsPrimaryKeyTieBreaker() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        Session session = session(configuration);
+        // 年龄可能重复，需要主键才能确定上一页的最后一条数据
+        session.list(Criteria.query(TableUser.class).orderBy(TableUser.age, true).seek(20, 1000L).limit(0, 10));
+        session.list(Criteria.query(TableUser.class).orderBy(TableUser.age, true).seek(21, 2000L).limit(40, 10));
+        Assert.assertEquals(1, configuration.getSQLPlanCache().getHits());
+
+        List<RecordingJDBCExecutor.Statement> selects = configuration.getExecutor().getStatements("select");
+        String sql = selects.get(1).getSql();
+        Assert.assertTrue(sql, sql.matches(".*ORDER BY .*`age` ASC.*`id` ASC.*"));
+        // keyset分页忽略起始位置
+        Assert.assertEquals(Arrays.<Object>asList(21, 21, 21, 2000L, 0L, 10L), selects.get(1).getValues());
+
+        try {
+            session.list(Criteria.query(TableUser.class).orderBy(TableUser.age, true).seek(20).limit(0, 10));
+            Assert.fail("seek without primary key value");
+        } catch (IllegalArgumentException e) {
+            // 排序字段加上主键之后需要两个值
+        }
+        session.close();
+    }
+
+    @Test
+    public void updateAndDeleteRebindValues() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        RecordingJDBCExecutor executor = configuration.getExecutor();
+        Session session = session(configuration);
+
+        session.update(Criteria.update(TableUser.class).eq(TableUser.id, 1).set(TableUser.address, "a"));
+        session.update(Criteria.update(TableUser.class).eq(TableUser.id, 2).set(TableUser.address, "b"));
+        session.delete(Criteria.delete(TableUser.class).eq(TableUser.id, 3));
+        session.delete(Criteria.delete(TableUser.class).eq(TableUser.id, 4));
+        Assert.assertEquals(2, configuration.getSQLPlanCache().getHits());
+
+        List<RecordingJDBCExecutor.Statement> updates = executor.getStatements("update");
+        Assert.assertEquals(updates.get(0).getSql(), updates.get(1).getSql());
+        Assert.assertTrue(updates.get(1).getValues().contains("b"));
+        Assert.assertTrue(updates.get(1).getValues().contains(2));
+        Assert.assertFalse(updates.get(1).getValues().contains("a"));
+
+        List<RecordingJDBCExecutor.Statement> deletes = executor.getStatements("delete");
+        Assert.assertEquals(deletes.get(0).getSql(), deletes.get(1).getSql());
+        Assert.assertEquals(Arrays.<Object>asList(4), deletes.get(1).getValues());
+        session.close();
+    }
+
+    @Test
+    public void evictsEldestPlanAtCapacity() throws Exception {
+        TestConfiguration configuration = new TestConfiguration(TableUser.class);
+        configuration.setSqlPlanCacheSize(2);
+        Session session = session(configuration);
+        session.list(Criteria.query(TableUser.class).eq(TableUser.id, 1));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.userName, "a"));
+        session.list(Criteria.query(TableUser.class).eq(TableUser.age, 1));
+
+        SQLPlanCache cache = configuration.getSQLPlanCache();
+        Assert.assertEquals(2, cache.getCapacity());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+
+        session.list(Criteria.query(TableUser.class).eq(TableUser.age, 2));
+        Assert.assertEquals(1, cache.getHits());
+        // 最早放入的执行计划已经被淘汰
+        session.list(Criteria.query(TableUser.class).eq(TableUser.id, 2));
+        Assert.assertEquals(1, cache.getHits());
+        session.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        new SQLPlanCache(0);
+    }
+}
@@ -0,0 +1,369 @@
+package shard;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.AutoResult;
+import org.mimosaframework.orm.BasicFunction;
+import org.mimosaframework.orm.Paging;
+import org.mimosaframework.orm.Session;
+import org.mimosaframework.orm.criteria.Criteria;
+import org.mimosaframework.orm.criteria.DefaultQuery;
+import org.mimosaframework.orm.criteria.Query;
+import org.mimosaframework.orm.shard.ShardNode;
+import org.mimosaframework.orm.shard.ShardRule;
+import org.mimosaframework.orm.utils.DatabaseType;
+import support.RecordingJDBCExecutor;
+import support.TestConfiguration;
+import tables.TableShardOrder;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ShardSessionTest {
+    private static final Pattern TABLE = Pattern.compile("(?:FROM|INTO|UPDATE) [`\"](\\w+)[`\"]");
+    private static final Pattern ORDER = Pattern.compile("[`\"](\\w+)[`\"] (ASC|DESC)");
+    private static final Pattern FUNCTION = Pattern.compile("(SUM|COUNT|MAX|MIN|AVG)\\(`(\\w+)`\\) AS `(\\w+)`");
+
+    /**
+     * 按照SQL中的表名、排序和分页返回每个分片的数据，统计查询按照SQL中的函数计算
+     * <p>
+     * 排序时空值的位置和字符串是否区分大小写模拟不同数据库的默认规则
+     */
+    private static class ShardRows implements RecordingJDBCExecutor.Rows {
+        private final Map<String, List<ModelObject>> tables = new HashMap<>();
+        private boolean nullsFirst = true;
+        private boolean ignoreCase = false;
+
+        ShardRows() {
+        }
+
+        ShardRows(boolean nullsFirst, boolean ignoreCase) {
+            this.nullsFirst = nullsFirst;
+            this.ignoreCase = ignoreCase;
+        }
+
+        void add(String table, long id, long userId, String money) {
+            this.add(table, id, userId, money, null);
+        }
+
+        void add(String table, long id, long userId, String money, String address) {
+            List<ModelObject> rows = tables.get(table);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                tables.put(table, rows);
+            }
+            ModelObject row = new ModelObject();
+            row.put("id", id);
+            row.put("user_id", userId);
+            row.put("order_money", money == null ? null : new BigDecimal(money));
+            row.put("address", address);
+            rows.add(row);
+        }
+
+        @Override
+        public List<ModelObject> select(RecordingJDBCExecutor.Statement statement) throws SQLException {
+            String sql = statement.getSql();
+            Matcher table = TABLE.matcher(sql);
+            Assert.assertTrue(sql, table.find());
+            List<ModelObject> rows = tables.get(table.group(1));
+            rows = rows == null ? new ArrayList<ModelObject>() : new ArrayList<>(rows);
+
+            Matcher function = FUNCTION.matcher(sql);
+            if (function.find()) {
+                ModelObject result = new ModelObject();
+                do {
+                    result.put(function.group(3), calculate(function.group(1), function.group(2), rows));
+                } while (function.find());
+                return Collections.singletonList(result);
+            }
+
+            int orderAt = sql.indexOf("ORDER BY");
+            if (orderAt > 0) {
+                final List<String[]> orders = new ArrayList<>();
+                Matcher order = ORDER.matcher(sql.substring(orderAt));
+                while (order.find()) {
+                    orders.add(new String[]{order.group(1), order.group(2)});
+                }
+                Collections.sort(rows, new Comparator<ModelObject>() {
+                    @Override
+                    public int compare(ModelObject o1, ModelObject o2) {
+                        for (String[] order : orders) {
+                            Comparable v1 = (Comparable) o1.get(order[0]);
+                            Comparable v2 = (Comparable) o2.get(order[0]);
+                            int c;
+                            if (v1 == null || v2 == null) {
+                                c = v1 == v2 ? 0 : (v1 == null) == nullsFirst ? -1 : 1;
+                            } else if (ignoreCase && v1 instanceof String) {
+                                c = ((String) v1).compareToIgnoreCase((String) v2);
+                            } else {
+                                c = v1.compareTo(v2);
+                            }
+                            if (c != 0) return "ASC".equals(order[1]) ? c : -c;
+                        }
+                        return 0;
+                    }
+                });
+            }
+            if (sql.contains("LIMIT ?,?")) {
+                // 分页的值是最后两个参数
+                List<Object> values = statement.getValues();
+                int start = Math.min(rows.size(), ((Number) values.get(values.size() - 2)).intValue());
+                int end = Math.min(rows.size(), start + ((Number) values.get(values.size() - 1)).intValue());
+                rows = rows.subList(start, end);
+            }
+            return rows;
+        }
+
+        private static Object calculate(String fn, String column, List<ModelObject> rows) {
+            BigDecimal sum = null;
+            long count = 0;
+            Comparable max = null;
+            Comparable min = null;
+            for (ModelObject row : rows) {
+                Object v = row.get(column);
+                if (v == null) continue;
+                count++;
+                BigDecimal d = new BigDecimal(String.valueOf(v));
+                sum = sum == null ? d : sum.add(d);
+                if (max == null || max.compareTo(v) < 0) max = (Comparable) v;
+                if (min == null || min.compareTo(v) > 0) min = (Comparable) v;
+            }
+            if ("SUM".equals(fn)) return sum;
+            if ("COUNT".equals(fn)) return count;
+            if ("MAX".equals(fn)) return max;
+            if ("MIN".equals(fn)) return min;
+            throw new AssertionError("AVG must be split into SUM and COUNT: " + fn);
+        }
+    }
+
+    private static TestConfiguration configuration(ShardRows rows) {
+        return configuration(rows, DatabaseType.MYSQL);
+    }
+
+    private static TestConfiguration configuration(ShardRows rows, DatabaseType type) {
+        TestConfiguration configuration = new TestConfiguration(type, new RecordingJDBCExecutor(), TableShardOrder.class);
+        configuration.getExecutor().setRows(rows);
+        return configuration;
+    }
+
+    private static Set<String> tables(TestConfiguration configuration) {
+        Set<String> tables = new TreeSet<>();
+        for (RecordingJDBCExecutor.Statement statement : configuration.getExecutor().getStatements()) {
+            Matcher matcher = TABLE.matcher(statement.getSql());
+            if (matcher.find()) tables.add(matcher.group(1));
+        }
+        return tables;
+    }
+
+    private static List<Long> ids(List<ModelObject> objects) {
+        List<Long> ids = new ArrayList<>();
+        if (objects != null) {
+            for (ModelObject object : objects) {
+                ids.add(object.getLongValue("id"));
+            }
+        }
+        return ids;
+    }
+
+    private static ShardRows orders() {
+        ShardRows rows = new ShardRows();
+        // 每个分片的数据交错，合并之后才是全局的顺序
+        rows.add("t_shard_order_0", 1, 10, "5.00");
+        rows.add("t_shard_order_0", 4, 11, "30.00");
+        rows.add("t_shard_order_0", 7, 12, "8.00");
+        rows.add("t_shard_order_1", 2, 20, "12.50");
+        rows.add("t_shard_order_1", 5, 21, null);
+        rows.add("t_shard_order_1", 8, 22, "1.00");
+        rows.add("t_shard_order_2", 3, 30, "30.00");
+        rows.add("t_shard_order_2", 6, 31, "2.25");
+        return rows;
+    }
+
+    @Test
+    public void shardKeyRoutesToSingleNode() throws Exception {
+        TestConfiguration configuration = configuration(orders());
+        ShardRule rule = configuration.getShardRouter().getRule(TableShardOrder.class);
+        Session session = configuration.buildSession();
+
+        ShardNode node = rule.route("10");
+        session.list(Criteria.query(TableShardOrder.class).eq(TableShardOrder.userId, 10));
+        Assert.assertEquals(Collections.singleton(node.getTableName()), tables(configuration));
+
+        configuration.getExecutor().clear();
+        Set<String> expected = new TreeSet<>();
+        for (ShardNode n : rule.route(Arrays.asList("10", "20"))) expected.add(n.getTableName());
+        session.list(Criteria.query(TableShardOrder.class).in(TableShardOrder.userId, 10, 20).gt(TableShardOrder.id, 0));
+        Assert.assertEquals(expected, tables(configuration));
+
+        // or 条件不能确定分片，查询所有分片
+        configuration.getExecutor().clear();
+        session.list(Criteria.query(TableShardOrder.class).eq(TableShardOrder.userId, 10)
+                .or().eq(TableShardOrder.id, 2));
+        Assert.assertEquals(3, tables(configuration).size());
+
+        // 写入也只路由到分片字段值对应的分片
+        configuration.getExecutor().clear();
+        ModelObject order = new ModelObject(TableShardOrder.class);
+        order.put(TableShardOrder.id, 100);
+        order.put(TableShardOrder.userId, 20);
+        order.put(TableShardOrder.orderMoney, new BigDecimal("1.00"));
+        session.save(order);
+        Assert.assertEquals(Collections.singleton(rule.route("20").getTableName()), tables(configuration));
+        session.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void saveWithoutShardKeyFails() throws Exception {
+        Session session = configuration(orders()).buildSession();
+        ModelObject order = new ModelObject(TableShardOrder.class);
+        order.put(TableShardOrder.id, 100);
+        session.save(order);
+    }
+
+    @Test
+    public void listMergesShardsInOrder() throws Exception {
+        Session session = configuration(orders()).buildSession();
+        // 默认按照主键升序
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L),
+                ids(session.list(Criteria.query(TableShardOrder.class))));
+
+        // 空值排在最前面，相同的值按照分片的顺序
+        List<ModelObject> desc = session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.orderMoney, false));
+        Assert.assertEquals(Arrays.asList(4L, 3L, 2L, 7L, 1L, 6L, 8L, 5L), ids(desc));
+
+        List<ModelObject> asc = session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.orderMoney, true).orderBy(TableShardOrder.id, false));
+        Assert.assertEquals(Arrays.asList(5L, 8L, 6L, 1L, 7L, 2L, 4L, 3L), ids(asc));
+        session.close();
+    }
+
+    /**
+     * 每个分片按照数据库的规则排序，合并时也要使用相同的规则，否则合并的结果是乱序的
+     */
+    private static ShardRows addresses(ShardRows rows) {
+        rows.add("t_shard_order_0", 1, 10, "1.00", "apple");
+        rows.add("t_shard_order_0", 4, 11, "1.00", "Cherry");
+        rows.add("t_shard_order_1", 2, 20, "1.00", "Banana");
+        rows.add("t_shard_order_1", 5, 21, "1.00", null);
+        rows.add("t_shard_order_2", 3, 30, "1.00", "date");
+        rows.add("t_shard_order_2", 6, 31, "1.00", null);
+        return rows;
+    }
+
+    @Test
+    public void mergeUsesDialectNullAndCaseOrder() throws Exception {
+        // mysql 空值最小，字符串不区分大小写
+        Session session = configuration(addresses(new ShardRows(true, true))).buildSession();
+        Assert.assertEquals(Arrays.asList(5L, 6L, 1L, 2L, 4L, 3L), ids(session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.address, true).orderBy(TableShardOrder.id, true))));
+        Assert.assertEquals(Arrays.asList(3L, 4L, 2L, 1L, 5L, 6L), ids(session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.address, false).orderBy(TableShardOrder.id, true))));
+        session.close();
+
+        // postgresql 空值最大，字符串按照字符编码比较
+        session = configuration(addresses(new ShardRows(false, false)), DatabaseType.POSTGRESQL).buildSession();
+        Assert.assertEquals(Arrays.asList(2L, 4L, 1L, 3L, 5L, 6L), ids(session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.address, true).orderBy(TableShardOrder.id, true))));
+        Assert.assertEquals(Arrays.asList(5L, 6L, 3L, 1L, 4L, 2L), ids(session.list(Criteria.query(TableShardOrder.class)
+                .orderBy(TableShardOrder.address, false).orderBy(TableShardOrder.id, true))));
+        session.close();
+    }
+
+    @Test
+    public void pagingAcrossShards() throws Exception {
+        TestConfiguration configuration = configuration(orders());
+        Session session = configuration.buildSession();
+        Query query = Criteria.query(TableShardOrder.class).limit(2, 3);
+        Paging<ModelObject> paging = session.paging(query);
+        Assert.assertEquals(8, paging.getCount());
+        Assert.assertEquals(Arrays.asList(3L, 4L, 5L), ids(paging.getObjects()));
+        // 每个分片查询 start+limit 条
+        for (RecordingJDBCExecutor.Statement statement : configuration.getExecutor().getStatements()) {
+            if (!statement.getSql().contains("COUNT(")) {
+                List<Object> values = statement.getValues();
+                Assert.assertTrue(statement.getSql(), statement.getSql().contains("LIMIT ?,?"));
+                Assert.assertEquals(Arrays.<Object>asList(0L, 5L), values.subList(values.size() - 2, values.size()));
+            }
+        }
+
+        Assert.assertEquals(Arrays.asList(7L, 8L),
+                ids(session.list(Criteria.query(TableShardOrder.class).limit(6, 5))));
+        Assert.assertEquals(Collections.<Long>emptyList(),
+                ids(session.list(Criteria.query(TableShardOrder.class).limit(10, 5))));
+        session.close();
+    }
+
+    @Test
+    public void listDoesNotModifyCallerQuery() throws Exception {
+        Session session = configuration(orders()).buildSession();
+        DefaultQuery query = (DefaultQuery) Criteria.query(TableShardOrder.class).limit(1, 2);
+        Assert.assertEquals(Arrays.asList(2L, 3L), ids(session.list(query)));
+        Assert.assertEquals(0, query.getOrderBy().size());
+        Assert.assertEquals(1, query.getLimit().getStart());
+        Assert.assertEquals(2, query.getLimit().getLimit());
+
+        // 同一个查询改变排序之后再次使用
+        query.orderBy(TableShardOrder.orderMoney, false);
+        Assert.assertEquals(Arrays.asList(3L, 2L), ids(session.list(query)));
+        Assert.assertEquals(1, query.getOrderBy().size());
+        session.close();
+    }
+
+    @Test
+    public void calculateCombinesShards() throws Exception {
+        TestConfiguration configuration = configuration(orders());
+        Session session = configuration.buildSession();
+        AutoResult result = session.calculate(Criteria.fun(TableShardOrder.class)
+                .addFunction(BasicFunction.COUNT, TableShardOrder.id, "total")
+                .addFunction(BasicFunction.COUNT, TableShardOrder.orderMoney, "paid")
+                .addFunction(BasicFunction.SUM, TableShardOrder.orderMoney, "money")
+                .addFunction(BasicFunction.AVG, TableShardOrder.orderMoney, "average")
+                .addFunction(BasicFunction.MAX, TableShardOrder.orderMoney, "most")
+                .addFunction(BasicFunction.MIN, TableShardOrder.orderMoney, "least"));
+        ModelObject row = result.getObjects().get(0);
+        Assert.assertEquals(8L, row.getLongValue("total"));
+        Assert.assertEquals(7L, row.getLongValue("paid"));
+        Assert.assertEquals(0, new BigDecimal("88.75").compareTo(row.getBigDecimal("money")));
+        // AVG 按照所有分片的 SUM/COUNT 计算，不是各分片平均值的平均值
+        Assert.assertEquals(0, new BigDecimal("12.68").compareTo(
+                row.getBigDecimal("average").setScale(2, BigDecimal.ROUND_HALF_UP)));
+        Assert.assertEquals(0, new BigDecimal("30.00").compareTo(row.getBigDecimal("most")));
+        Assert.assertEquals(0, new BigDecimal("1.00").compareTo(row.getBigDecimal("least")));
+        Assert.assertEquals(3, tables(configuration).size());
+        session.close();
+    }
+
+    @Test
+    public void calculateOnEmptyShards() throws Exception {
+        Session session = configuration(new ShardRows()).buildSession();
+        AutoResult result = session.calculate(Criteria.fun(TableShardOrder.class)
+                .addFunction(BasicFunction.COUNT, TableShardOrder.id, "total")
+                .addFunction(BasicFunction.SUM, TableShardOrder.orderMoney, "money")
+                .addFunction(BasicFunction.AVG, TableShardOrder.orderMoney, "average")
+                .addFunction(BasicFunction.MAX, TableShardOrder.orderMoney, "most"));
+        ModelObject row = result.getObjects().get(0);
+        Assert.assertEquals(0L, row.getLongValue("total"));
+        Assert.assertNull(row.get("money"));
+        Assert.assertNull(row.get("average"));
+        Assert.assertNull(row.get("most"));
+        session.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateRequiresAlias() throws Exception {
+        Session session = configuration(orders()).buildSession();
+        session.calculate(Criteria.fun(TableShardOrder.class).addFunction(BasicFunction.SUM, TableShardOrder.orderMoney));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateRejectsGroupBy() throws Exception {
+        Session session = configuration(orders()).buildSession();
+        session.calculate(Criteria.fun(TableShardOrder.class)
+                .addFunction(BasicFunction.SUM, TableShardOrder.orderMoney, "money").groupBy(TableShardOrder.userId));
+    }
+}
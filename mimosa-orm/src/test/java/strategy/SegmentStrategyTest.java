@@ -0,0 +1,125 @@
+package strategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.orm.strategy.SegmentStrategy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SegmentStrategyTest {
+
+    /**
+     * 和PostgreSQL一样语句出错后事务中的其他语句都会失败，直到回滚
+     */
+    private static class AbortingDatabase {
+        private final Map<String, Long> rows = new HashMap<>();
+        private boolean aborted;
+        private boolean autoCommit = false;
+        /**
+         * 插入时模拟其他节点已经插入了这一行
+         */
+        private Long concurrentInsert;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class[]{Connection.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            String name = method.getName();
+                            if (name.equals("prepareStatement")) return statement((String) args[0]);
+                            if (name.equals("getAutoCommit")) return autoCommit;
+                            if (name.equals("setAutoCommit")) autoCommit = (Boolean) args[0];
+                            if (name.equals("rollback")) aborted = false;
+                            return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement statement(final String sql) {
+            final String[] tag = new String[1];
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class[]{PreparedStatement.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                            String name = method.getName();
+                            if (name.equals("setString")) tag[0] = (String) args[1];
+                            if (name.equals("executeUpdate")) return update(sql, tag[0]);
+                            if (name.equals("executeQuery")) return result(rows.get(tag[0]));
+                            return null;
+                        }
+                    });
+        }
+
+        private int update(String sql, String tag) throws SQLException {
+            if (aborted) {
+                throw new SQLException("current transaction is aborted, commands ignored until end of transaction block");
+            }
+            if (sql.startsWith("UPDATE")) {
+                Long max = rows.get(tag);
+                if (max == null) return 0;
+                rows.put(tag, max + Long.parseLong(sql.replaceAll(".*max_id \\+ (\\d+).*", "$1")));
+                return 1;
+            }
+            if (concurrentInsert != null) {
+                rows.put(tag, concurrentInsert);
+                concurrentInsert = null;
+                aborted = true;
+                throw new SQLException("duplicate key value violates unique constraint");
+            }
+            rows.put(tag, Long.parseLong(sql.replaceAll(".*VALUES \\(\\?, (\\d+)\\).*", "$1")));
+            return 1;
+        }
+
+        private ResultSet result(final Long value) {
+            final boolean[] read = new boolean[1];
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class[]{ResultSet.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            String name = method.getName();
+                            if (name.equals("next")) {
+                                boolean next = !read[0] && value != null;
+                                read[0] = true;
+                                return next;
+                            }
+                            if (name.equals("getLong")) return value;
+                            return null;
+                        }
+                    });
+        }
+    }
+
+    private static class TestSegmentStrategy extends SegmentStrategy {
+        long lease(AbortingDatabase database, String tag) throws SQLException {
+            return this.lease(database.connection(), tag);
+        }
+    }
+
+    @Test
+    public void leaseInsertsNewRow() throws Exception {
+        AbortingDatabase database = new AbortingDatabase();
+        TestSegmentStrategy strategy = new TestSegmentStrategy();
+        Assert.assertEquals(1, strategy.lease(database, "t_user"));
+        Assert.assertEquals(1001, strategy.lease(database, "t_user"));
+        Assert.assertEquals(Long.valueOf(2000), database.rows.get("t_user"));
+    }
+
+    @Test
+    public void leaseRetriesAfterConcurrentInsert() throws Exception {
+        AbortingDatabase database = new AbortingDatabase();
+        database.concurrentInsert = 1000L;
+        TestSegmentStrategy strategy = new TestSegmentStrategy();
+        // 其他节点领取了 [1, 1000]，重试时需要先回滚出错的事务
+        Assert.assertEquals(1001, strategy.lease(database, "t_user"));
+        Assert.assertFalse(database.aborted);
+        Assert.assertEquals(Long.valueOf(2000), database.rows.get("t_user"));
+    }
+}
@@ -0,0 +1,183 @@
+package strategy;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mimosaframework.orm.DefaultConfiguration;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.exception.StrategyException;
+import org.mimosaframework.orm.strategy.SnowFlakeStrategy;
+import org.mimosaframework.orm.strategy.StrategyWrapper;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SnowFlakeStrategyTest {
+    private static final long LEASE_TIME = 300;
+
+    /**
+     * 机器ID表，只记录被占用的机器ID，续约的结果由 {@link #renew} 决定，小于0时抛出异常
+     */
+    private final Set<Integer> taken = Collections.synchronizedSet(new HashSet<Integer>());
+    private final AtomicInteger renew = new AtomicInteger(1);
+    private volatile boolean insertFail = false;
+
+    private SnowFlakeStrategy strategy;
+    private StrategyWrapper wrapper;
+
+    @Before
+    public void setup() throws Exception {
+        final MimosaDataSource dataSource = new MimosaDataSource(this.dataSource(), MimosaDataSource.DEFAULT_DS_NAME);
+        DefaultConfiguration configuration = new DefaultConfiguration() {
+            {
+                this.defaultDataSource = dataSource;
+            }
+        };
+        wrapper = new StrategyWrapper(configuration);
+        strategy = new SnowFlakeStrategy();
+        strategy.setWorkerTable("mimosa_snowflake_worker");
+        strategy.setLeaseTime(LEASE_TIME);
+    }
+
+    private DataSource dataSource() {
+        return (DataSource) proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getConnection")) return connection();
+                return null;
+            }
+        });
+    }
+
+    private Connection connection() {
+        return (Connection) proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("prepareStatement")) return statement((String) args[0]);
+                if (name.equals("getMetaData")) {
+                    return proxy(DatabaseMetaData.class, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            return method.getName().equals("getDriverName") ? "MySQL Connector Java" : null;
+                        }
+                    });
+                }
+                if (name.equals("getAutoCommit")) return true;
+                return null;
+            }
+        });
+    }
+
+    private PreparedStatement statement(final String sql) {
+        final Object[] values = new Object[8];
+        return (PreparedStatement) proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                String name = method.getName();
+                if (name.equals("setObject")) values[(Integer) args[0]] = args[1];
+                if (name.equals("executeUpdate")) {
+                    if (sql.startsWith("INSERT")) {
+                        int id = ((Number) values[4]).intValue();
+                        if (insertFail || !taken.add(id)) throw new SQLException("duplicate worker " + id);
+                        return 1;
+                    }
+                    if (sql.contains("SET node = ?")) {
+                        // 没有过期的机器ID
+                        return 0;
+                    }
+                    int result = renew.get();
+                    if (result < 0) throw new SQLException("connection refused");
+                    return result;
+                }
+                return null;
+            }
+        });
+    }
+
+    private static Object proxy(Class<?> c, InvocationHandler handler) {
+        return Proxy.newProxyInstance(c.getClassLoader(), new Class[]{c}, handler);
+    }
+
+    @Test
+    public void renewedLeaseKeepsWorkerId() throws Exception {
+        long first = (Long) strategy.get(wrapper, null);
+        Thread.sleep(LEASE_TIME * 2);
+        long second = (Long) strategy.get(wrapper, null);
+        Assert.assertTrue(second > first);
+        Assert.assertEquals(Long.valueOf(0), strategy.getWorkerId());
+    }
+
+    @Test
+    public void lostLeaseTakesNewWorkerId() throws Exception {
+        strategy.get(wrapper, null);
+        Assert.assertEquals(Long.valueOf(0), strategy.getWorkerId());
+        // 其他节点领取了机器ID 0，续约时没有更新到数据
+        renew.set(0);
+        Thread.sleep(LEASE_TIME / 2);
+        strategy.get(wrapper, null);
+        Assert.assertEquals(Long.valueOf(1), strategy.getWorkerId());
+    }
+
+    @Test
+    public void expiredLeaseFailsWhenNoWorkerIdLeft() throws Exception {
+        strategy.get(wrapper, null);
+        renew.set(-1);
+        insertFail = true;
+        // 超过一半的租约时间就停止使用，不等到其他节点可以领取的时候
+        Thread.sleep(LEASE_TIME * 2 / 3);
+        try {
+            strategy.get(wrapper, null);
+            Assert.fail("expired worker id must not be used");
+        } catch (StrategyException e) {
+            // 续约超时后不能继续使用旧的机器ID
+        }
+        // 数据库恢复后重新领取
+        insertFail = false;
+        renew.set(1);
+        strategy.get(wrapper, null);
+        Assert.assertEquals(Long.valueOf(1), strategy.getWorkerId());
+    }
+
+    @Test
+    public void concurrentReleaseKeepsIssuingUniqueIds() throws Exception {
+        // 每次续约都发现机器ID被领取，生成ID的同时不断重新领取
+        renew.set(0);
+        final Set<Long> ids = Collections.synchronizedSet(new HashSet<Long>());
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final long end = System.currentTimeMillis() + LEASE_TIME * 2;
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        while (System.currentTimeMillis() < end) {
+                            Assert.assertTrue(ids.add((Long) strategy.get(wrapper, null)));
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(Collections.emptyList(), errors);
+        Assert.assertTrue(strategy.getWorkerId() > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package support;
+
+import org.mimosaframework.orm.utils.DatabaseType;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * 不连接数据库，只让 MimosaDataSource 识别出指定的数据库类型，
+ * 用于单独测试每种数据库的SQL生成
+ */
+public class DialectDataSource implements DataSource {
+    private final String driverName;
+
+    public DialectDataSource(DatabaseType type) {
+        this.driverName = getDriverName(type);
+    }
+
+    private static String getDriverName(DatabaseType type) {
+        switch (type) {
+            case MYSQL:
+                return "MySQL Connector Java";
+            case SQL_SERVER:
+                return "Microsoft JDBC Driver for SQL Server";
+            case ORACLE:
+                return "Oracle JDBC driver";
+            case POSTGRESQL:
+                return "PostgreSQL JDBC Driver";
+            case DB2:
+                return "IBM Data Server Driver for JDBC and SQLJ";
+            case SQLITE:
+                return "SQLite JDBC";
+            default:
+                throw new IllegalArgumentException(type.name());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final DatabaseMetaData metaData = (DatabaseMetaData) proxy(DatabaseMetaData.class, null);
+        return (Connection) proxy(Connection.class, metaData);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.getConnection();
+    }
+
+    private Object proxy(final Class<?> c, final DatabaseMetaData metaData) {
+        return Proxy.newProxyInstance(c.getClassLoader(), new Class[]{c}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("getMetaData")) return metaData;
+                if (name.equals("getDriverName")) return driverName;
+                if (name.equals("isClosed")) return false;
+                if (name.equals("getAutoCommit")) return true;
+                if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                if (name.equals("equals")) return proxy == args[0];
+                if (name.equals("toString")) return driverName;
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("not a wrapper");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+}
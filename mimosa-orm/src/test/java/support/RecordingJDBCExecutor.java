@@ -0,0 +1,215 @@
+package support;
+
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.Cursor;
+import org.mimosaframework.orm.platform.*;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录执行的SQL语句和参数不访问数据库，查询结果由 {@link Rows} 返回
+ */
+public class RecordingJDBCExecutor implements JDBCExecutor {
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+    private volatile Rows rows;
+    private final String dataSourceName;
+    private final boolean master;
+    private final RecordingJDBCExecutor parent;
+
+    public RecordingJDBCExecutor() {
+        this(null, null, true);
+    }
+
+    private RecordingJDBCExecutor(RecordingJDBCExecutor parent, String dataSourceName, boolean master) {
+        this.parent = parent;
+        this.dataSourceName = dataSourceName;
+        this.master = master;
+    }
+
+    /**
+     * @return 记录到当前执行器的指定数据源和主从库的执行器
+     */
+    public RecordingJDBCExecutor with(String dataSourceName, boolean master) {
+        return new RecordingJDBCExecutor(this.root(), dataSourceName, master);
+    }
+
+    private RecordingJDBCExecutor root() {
+        return parent != null ? parent : this;
+    }
+
+    public void setRows(Rows rows) {
+        this.root().rows = rows;
+    }
+
+    public List<Statement> getStatements() {
+        return this.root().statements;
+    }
+
+    public List<Statement> getStatements(String type) {
+        List<Statement> list = new ArrayList<>();
+        for (Statement statement : this.getStatements()) {
+            if (statement.getType().equals(type)) list.add(statement);
+        }
+        return list;
+    }
+
+    public void clear() {
+        this.root().statements.clear();
+    }
+
+    private Statement record(String type, JDBCTraversing structure) {
+        Statement statement = new Statement(type, dataSourceName, master, structure);
+        this.root().statements.add(statement);
+        return statement;
+    }
+
+    @Override
+    public void setDatabaseExecutorCallback(DatabaseExecutorCallback callback) {
+    }
+
+    @Override
+    public boolean execute(JDBCTraversing structure) throws SQLException {
+        this.record("execute", structure);
+        return true;
+    }
+
+    @Override
+    public int delete(JDBCTraversing structure) throws SQLException {
+        this.record("delete", structure);
+        return 1;
+    }
+
+    @Override
+    public List<Long> insert(JDBCTraversing structure) throws SQLException {
+        this.record("insert", structure);
+        return Collections.singletonList((long) this.getStatements().size());
+    }
+
+    @Override
+    public void inserts(BatchPorterStructure structure) throws SQLException {
+        this.record("inserts", structure);
+    }
+
+    @Override
+    public List<ModelObject> select(JDBCTraversing structure) throws SQLException {
+        Statement statement = this.record("select", structure);
+        Rows rows = this.root().rows;
+        List<ModelObject> list = rows != null ? rows.select(statement) : null;
+        if (list == null) return new ArrayList<>();
+        // 合并时会修改结果，每次返回副本
+        List<ModelObject> copy = new ArrayList<>(list.size());
+        for (ModelObject row : list) {
+            ModelObject object = new ModelObject(true);
+            object.putAll(row);
+            copy.add(object);
+        }
+        return copy;
+    }
+
+    @Override
+    public <T> Cursor<T> cursor(JDBCTraversing structure) throws SQLException {
+        throw new SQLException("recording executor does not support cursor");
+    }
+
+    @Override
+    public int update(JDBCTraversing structure) throws SQLException {
+        this.record("update", structure);
+        return 1;
+    }
+
+    @Override
+    public int batch(JDBCTraversing structure) throws SQLException {
+        Statement statement = this.record("batch", structure);
+        return statement.getBatchValues().size();
+    }
+
+    @Override
+    public List<Long> batchInsert(JDBCTraversing structure) throws SQLException {
+        Statement statement = this.record("batchInsert", structure);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < statement.getBatchValues().size(); i++) {
+            ids.add((long) i + 1);
+        }
+        return ids;
+    }
+
+    public interface Rows {
+        List<ModelObject> select(Statement statement) throws SQLException;
+    }
+
+    /**
+     * 一次执行的SQL语句
+     */
+    public static class Statement {
+        private final String type;
+        private final String dataSourceName;
+        private final boolean master;
+        private final String sql;
+        private final List<Object> values;
+        private final List<List<Object>> batchValues;
+
+        Statement(String type, String dataSourceName, boolean master, JDBCTraversing structure) {
+            this.type = type;
+            this.dataSourceName = dataSourceName;
+            this.master = master;
+            SQLBuilder sqlBuilder = structure.getSqlBuilder();
+            List<SQLDataPlaceholder> placeholders;
+            if (sqlBuilder != null) {
+                SQLBuilderCombine combine = sqlBuilder.toSQLString();
+                this.sql = combine.getSql();
+                placeholders = combine.getPlaceholders();
+            } else {
+                this.sql = structure.getSql();
+                placeholders = structure.getSqlDataPlaceholders();
+            }
+            this.values = values(placeholders);
+            this.batchValues = new ArrayList<>();
+            if (structure.getBatchPlaceholders() != null) {
+                for (List<SQLDataPlaceholder> batch : structure.getBatchPlaceholders()) {
+                    this.batchValues.add(values(batch));
+                }
+            }
+        }
+
+        private static List<Object> values(List<SQLDataPlaceholder> placeholders) {
+            List<Object> values = new ArrayList<>();
+            if (placeholders != null) {
+                for (SQLDataPlaceholder placeholder : placeholders) {
+                    values.add(placeholder.getValue());
+                }
+            }
+            return values;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDataSourceName() {
+            return dataSourceName;
+        }
+
+        public boolean isMaster() {
+            return master;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+
+        public List<List<Object>> getBatchValues() {
+            return batchValues;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + sql + " " + values + (batchValues.isEmpty() ? "" : " " + batchValues);
+        }
+    }
+}
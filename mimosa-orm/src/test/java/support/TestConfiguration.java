@@ -0,0 +1,74 @@
+package support;
+
+import org.mimosaframework.orm.DefaultConfiguration;
+import org.mimosaframework.orm.MimosaDataSource;
+import org.mimosaframework.orm.convert.ConvertFactory;
+import org.mimosaframework.orm.platform.JDBCExecutor;
+import org.mimosaframework.orm.platform.SessionContext;
+import org.mimosaframework.orm.transaction.JDBCTransaction;
+import org.mimosaframework.orm.utils.DatabaseType;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 不需要数据库的配置，所有Session使用同一个 {@link RecordingJDBCExecutor}
+ */
+public class TestConfiguration extends DefaultConfiguration {
+    private final RecordingJDBCExecutor executor;
+
+    public TestConfiguration(Class... tables) {
+        this(DatabaseType.MYSQL, new RecordingJDBCExecutor(), tables);
+    }
+
+    public TestConfiguration(DatabaseType type, RecordingJDBCExecutor executor, Class... tables) {
+        this.executor = executor;
+        this.setConvert(ConvertFactory.getConvert("H2U"));
+        Set<Class> resolvers = new LinkedHashSet<Class>(Arrays.asList(tables));
+        this.setDisassembleResolvers(resolvers);
+        try {
+            MimosaDataSource dataSource = new MimosaDataSource(new DialectDataSource(type),
+                    MimosaDataSource.DEFAULT_DS_NAME);
+            this.defaultDataSource = dataSource;
+            this.globalDataSource.put(dataSource.getName(), dataSource);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 增加一个数据源，分库测试时使用
+     */
+    public void addDataSource(String name, DatabaseType type) {
+        try {
+            this.globalDataSource.put(name, new MimosaDataSource(new DialectDataSource(type), name));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public SessionContext newSessionContext(String dataSourceName, boolean supportTrans) {
+        SessionContext context = new SessionContext(this) {
+            @Override
+            public JDBCExecutor getDBChanger() {
+                return executor.with(this.getDataSource().getName(), this.isMaster());
+            }
+
+            @Override
+            public JDBCExecutor getDBChanger(boolean master) {
+                return executor.with(this.getDataSource().getName(), master);
+            }
+        };
+        MimosaDataSource dataSource = dataSourceName != null ? globalDataSource.get(dataSourceName) : null;
+        if (dataSource == null) dataSource = defaultDataSource;
+        context.setDataSource(dataSource);
+        context.setTransaction(new JDBCTransaction(dataSource.getMaster(), false));
+        return context;
+    }
+
+    public RecordingJDBCExecutor getExecutor() {
+        return executor;
+    }
+}
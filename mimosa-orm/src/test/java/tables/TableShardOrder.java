@@ -0,0 +1,20 @@
+package tables;
+
+import org.mimosaframework.orm.annotation.Column;
+import org.mimosaframework.orm.annotation.Shard;
+import org.mimosaframework.orm.annotation.Table;
+
+import java.math.BigDecimal;
+
+@Table
+@Shard(field = "userId", nodes = {"default.t_shard_order_0", "default.t_shard_order_1", "default.t_shard_order_2"})
+public enum TableShardOrder {
+    @Column(pk = true, type = long.class)
+    id,
+    @Column(type = long.class)
+    userId,
+    @Column(type = BigDecimal.class, length = 32, scale = 2)
+    orderMoney,
+    @Column(length = 200)
+    address
+}
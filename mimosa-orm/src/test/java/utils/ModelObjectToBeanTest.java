@@ -0,0 +1,75 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mimosaframework.core.json.ModelObject;
+import org.mimosaframework.orm.utils.ModelObjectToBean;
+
+public class ModelObjectToBeanTest {
+
+    public static class Counter {
+        private int count;
+        private long total;
+        private String name;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Flag {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    @Test
+    public void nullNumberColumnsBecomeZero() {
+        ModelObject object = new ModelObject();
+        object.put("count", 5L);
+        object.put("name", "a");
+        Counter counter = new ModelObjectToBean().toJavaObject(object, Counter.class);
+        Assert.assertEquals(5, counter.getCount());
+        Assert.assertEquals(0, counter.getTotal());
+        Assert.assertEquals("a", counter.getName());
+    }
+
+    @Test
+    public void nullBooleanColumnFails() {
+        ModelObject object = new ModelObject();
+        object.put("enabled", 1);
+        Assert.assertTrue(new ModelObjectToBean().toJavaObject(object, Flag.class).isEnabled());
+        try {
+            new ModelObjectToBean().toJavaObject(new ModelObject(), Flag.class);
+            Assert.fail("null can not be assigned to a boolean property");
+        } catch (RuntimeException e) {
+            // 和之前通过反射调用setter一致
+        }
+    }
+}